@@ -0,0 +1,129 @@
+#!/usr/bin/env bash
+# AppCDS（动态类数据共享归档）：训练、带归档运行、启动耗时对比
+#
+#   scripts/appcds/appcds.sh train          # 解压可执行 jar，训练运行生成 app.jsa 与 worker.jsa
+#   scripts/appcds/appcds.sh run [参数...]   # 以 app.jsa 启动应用，fork=true 的子 JVM 使用 worker.jsa
+#   scripts/appcds/appcds.sh compare [次数]  # 对比 -Xshare:off / JDK 默认归档 / AppCDS / lazy 的 time-to-ready 与 RSS，结果写入 startup-report.txt
+#
+# 前置：mvn -DskipTests package 生成 target/jvm-learning-lab-<版本>.jar；归档与 JDK 版本、类路径绑定，升级 JDK 或重新打包后需重新 train。
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+OUT=${APPCDS_DIR:-target/appcds}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+APP_JSA=$OUT/app.jsa
+WORKER_JSA=$OUT/worker.jsa
+REPORT=$OUT/startup-report.txt
+# 训练与对比运行就绪后自动退出，随机端口避免与正在运行的实例冲突
+BATCH_ARGS=(-Djvm.lab.startup.exitAfterReady=true)
+BATCH_APP_ARGS=(--server.port=0 --management.prometheus.metrics.export.enabled=false)
+
+fat_jar() {
+    ls target/jvm-learning-lab-*.jar 2>/dev/null | grep -v -- '-benchmarks' | head -1 || true
+}
+
+# 动态归档只收录 jar 中的类，Spring Boot 可执行 jar 的嵌套 jar 无法归档，先解压成 应用jar + lib/
+extract() {
+    local jar
+    jar=$(fat_jar)
+    if [[ -n "$jar" && ( ! -f "$OUT/$(basename "$jar")" || "$jar" -nt "$OUT/$(basename "$jar")" ) ]]; then
+        rm -rf "$OUT"
+        "$JAVA" -Djarmode=tools -jar "$jar" extract --destination "$OUT"
+    fi
+    APP_JAR=$(ls "$OUT"/jvm-learning-lab-*.jar 2>/dev/null | head -1 || true)
+    if [[ -z "$APP_JAR" ]]; then
+        echo "未找到可执行 jar，请先运行 mvn -DskipTests package / No application jar, run mvn -DskipTests package first" >&2
+        exit 1
+    fi
+}
+
+# 启动一次并输出 "time-to-ready毫秒数 RSS兆字节数"；JVM 参数之后可用 -- 分隔追加应用参数
+ready_ms() {
+    local jvm_args=() app_args=()
+    while (($#)) && [[ $1 != -- ]]; do jvm_args+=("$1"); shift; done
+    (($#)) && shift && app_args=("$@")
+    "$JAVA" "${jvm_args[@]}" "${BATCH_ARGS[@]}" -jar "$APP_JAR" "${BATCH_APP_ARGS[@]}" "${app_args[@]}" 2>&1 \
+        | sed -n 's/.*time-to-ready = \([0-9]*\) ms.*RSS = \([0-9-]*\) MB.*/\1 \2/p' | head -1
+}
+
+# 子 JVM 从启动、预热到收到空请求退出的毫秒数
+worker_ms() {
+    local start end
+    start=$(date +%s%N)
+    "$JAVA" "$@" -Djvm.lab.enableDanger=true -cp "$APP_JAR" \
+        com.example.jvmlab.exceptionlab.ForkedScenarioWorker "${SCENARIOS[@]}" < /dev/null > /dev/null 2>&1
+    end=$(date +%s%N)
+    echo $(( (end - start) / 1000000 ))
+}
+
+scenario_classes() {
+    "${JAVA_HOME:+$JAVA_HOME/bin/}jar" tf "$APP_JAR"
+}
+
+summary() {
+    # 输入：每行一个毫秒数；输出：平均 / 最小 / 最大
+    awk 'NF { s += $1; if (min == "" || $1 < min) min = $1; if ($1 > max) max = $1; n++ }
+         END { if (n) printf "avg=%d ms  min=%d ms  max=%d ms  (n=%d)", s / n, min, max, n; else printf "no data" }'
+}
+
+rss_summary() {
+    # 输入：每行 "毫秒数 RSS"；输出 RSS 平均值
+    awk 'NF > 1 { s += $2; n++ } END { if (n) printf "  rss avg=%d MB", s / n }'
+}
+
+cmd=${1:-}
+shift || true
+extract
+mapfile -t SCENARIOS < <(scenario_classes | grep -E '^com/example/jvmlab/exceptionlab/scenario/[A-Za-z]+Scenario\.class$' \
+    | sed 's|/|.|g; s|\.class$||')
+
+case "$cmd" in
+    train)
+        rm -f "$APP_JSA" "$WORKER_JSA"
+        echo "[AppCDS] 训练运行：应用就绪后退出并写出 $APP_JSA"
+        "$JAVA" -XX:ArchiveClassesAtExit="$APP_JSA" "${BATCH_ARGS[@]}" -jar "$APP_JAR" "${BATCH_APP_ARGS[@]}" > "$OUT/train-app.log" 2>&1
+        echo "[AppCDS] 训练运行：子 JVM 预热 ${#SCENARIOS[@]} 个场景类后退出并写出 $WORKER_JSA"
+        "$JAVA" -XX:ArchiveClassesAtExit="$WORKER_JSA" -Djvm.lab.enableDanger=true -cp "$APP_JAR" \
+            com.example.jvmlab.exceptionlab.ForkedScenarioWorker "${SCENARIOS[@]}" < /dev/null > "$OUT/train-worker.log" 2>&1
+        ls -l "$APP_JSA" "$WORKER_JSA"
+        ;;
+    run)
+        [[ -f "$APP_JSA" ]] || { echo "缺少 $APP_JSA，请先运行 train / Missing archive, run train first" >&2; exit 1; }
+        exec "$JAVA" -XX:SharedArchiveFile="$APP_JSA" -Xshare:auto -Djvm.lab.fork.cdsArchive="$WORKER_JSA" \
+            ${JAVA_OPTS:-} -jar "$APP_JAR" "$@"
+        ;;
+    compare)
+        [[ -f "$APP_JSA" && -f "$WORKER_JSA" ]] || { echo "缺少归档，请先运行 train / Missing archives, run train first" >&2; exit 1; }
+        runs=${1:-5}
+        {
+            echo "AppCDS 启动耗时对比 / startup comparison ($(date '+%F %T'), $("$JAVA" -version 2>&1 | head -1), runs=$runs)"
+            echo
+            echo "应用 time-to-ready（JVM 启动到 ApplicationReadyEvent）与就绪时 RSS；lazy = 实验模块按需激活（--spring.profiles.active=lazy）"
+            for mode in off default appcds lazy appcds+lazy; do
+                case $mode in
+                    off) opts=(-Xshare:off) ;;
+                    default) opts=(-Xshare:auto) ;;
+                    appcds) opts=(-XX:SharedArchiveFile="$APP_JSA" -Xshare:auto) ;;
+                    lazy) opts=(-Xshare:auto -- --spring.profiles.active=lazy) ;;
+                    appcds+lazy) opts=(-XX:SharedArchiveFile="$APP_JSA" -Xshare:auto -- --spring.profiles.active=lazy) ;;
+                esac
+                results=$(for _ in $(seq "$runs"); do ready_ms "${opts[@]}"; done)
+                printf '  %-12s %s%s\n' "$mode" "$(summary <<< "$results")" "$(rss_summary <<< "$results")"
+            done
+            echo
+            echo "子 JVM 启动 + 预热 + 退出（fork=true 冷启动成本）"
+            for mode in off default appcds; do
+                case $mode in
+                    off) opts=(-Xshare:off) ;;
+                    default) opts=(-Xshare:auto) ;;
+                    appcds) opts=(-XX:SharedArchiveFile="$WORKER_JSA" -Xshare:auto) ;;
+                esac
+                printf '  %-8s %s\n' "$mode" "$(for _ in $(seq "$runs"); do worker_ms "${opts[@]}"; done | summary)"
+            done
+        } | tee "$REPORT"
+        ;;
+    *)
+        sed -n '2,8p' "$0"
+        exit 1
+        ;;
+esac
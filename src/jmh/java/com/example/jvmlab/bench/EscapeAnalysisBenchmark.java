@@ -0,0 +1,96 @@
+package com.example.jvmlab.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：第11章逃逸分析基准，对应 Chapter11Controller.escapeAnalysis：比较局部对象、逃逸对象与关闭逃逸分析时的耗时。
+ * English: Chapter 11 escape-analysis benchmark mirroring Chapter11Controller.escapeAnalysis: compares local objects, escaping objects and escape analysis disabled.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：配合 -prof gc 观察 gc.alloc.rate.norm：标量替换生效时局部对象的每次操作分配量应接近 0 B。
+ * English: Use with -prof gc and watch gc.alloc.rate.norm: with scalar replacement the local variant should allocate close to 0 B per op.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：输入来自 @State 字段防止常量折叠，结果交给 Blackhole 防止死代码消除；关闭逃逸分析的变体在独立 fork 中追加 JVM 参数。
+ * English: Inputs come from @State fields to defeat constant folding and results go to Blackhole to defeat DCE; the no-EA variant appends JVM flags in its own forks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EscapeAnalysisBenchmark {
+
+    /** 每次调用创建的 Point 数量。 */
+    @Param({"1", "64"})
+    public int batch;
+
+    private int seed = 17;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：Point 只在方法内使用，开启逃逸分析时可被标量替换。
+     * English: Points are used only inside the method and can be scalar-replaced when escape analysis is on.
+     */
+    @Benchmark
+    public long localPoint() {
+        long sum = 0;
+        for (int i = 0; i < batch; i++) {
+            Point p = new Point(seed + i, seed + i + 1);
+            sum += p.length();
+        }
+        return sum;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：与 localPoint 相同，但在关闭逃逸分析的 fork 中运行，作为对照组。
+     * English: Same as localPoint but run in forks with escape analysis disabled as the control group.
+     */
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+    public long localPointNoEscapeAnalysis() {
+        return localPoint();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：把 Point 交给 Blackhole，使其逃逸，必须在堆上分配。
+     * English: Hands each Point to the Blackhole so it escapes and must be heap-allocated.
+     */
+    @Benchmark
+    public void escapingPoint(Blackhole bh) {
+        for (int i = 0; i < batch; i++) {
+            bh.consume(new Point(seed + i, seed + i + 1));
+        }
+    }
+
+    /** 与 Chapter11Controller.Point 相同的示例类。 */
+    static final class Point {
+        final int x;
+        final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        int length() {
+            return (x * x) + (y * y);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.jvmlab.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：第11章 JIT 预热基准，对应 Chapter11Controller.jitWarmup：分别测量稳态吞吐、冷启动单次耗时与纯解释执行。
+ * English: Chapter 11 JIT warmup benchmark mirroring Chapter11Controller.jitWarmup: measures steady-state time, cold single-shot time and interpreter-only execution.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：coldStart 不预热、每次迭代单次调用，多 fork 的结果分布即 JIT 预热曲线；与 steadyState 对比可得预热收益。
+ * English: coldStart runs one call per iteration without warmup, so its distribution over forks is the warmup curve; compare with steadyState for the JIT gain.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：计算内核与控制器中的 compute 保持一致，payload 参数化以观察循环体规模对编译的影响。
+ * English: The kernel matches the controller's compute method, with payload parameterized to observe how loop size affects compilation.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JitWarmupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int payload;
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(2)
+    public long steadyState() {
+        return compute(payload);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 20)
+    @Fork(5)
+    public long coldStart() {
+        return compute(payload);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 3, time = 1)
+    @Fork(value = 1, jvmArgsAppend = "-Xint")
+    public long interpreterOnly() {
+        return compute(payload);
+    }
+
+    /** 与 Chapter11Controller.compute 相同的整数/位运算混合负载。 */
+    static long compute(int payload) {
+        long acc = 0;
+        for (int i = 0; i < payload; i++) {
+            acc += (i * 31L) ^ (payload - i);
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.jvmlab.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：第11章锁优化基准，对应 Chapter11Controller.biasedLockDemo：比较无竞争、多线程竞争的 synchronized 与 ReentrantLock。
+ * English: Chapter 11 lock-optimization benchmark mirroring Chapter11Controller.biasedLockDemo: compares uncontended and contended synchronized with ReentrantLock.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：观察轻量级锁到重量级锁膨胀的代价；JDK 15+ 默认关闭偏向锁，JDK 8 可在 fork 中追加 -XX:+UseBiasedLocking 对比。
+ * English: Observe the cost of inflating thin locks to monitors; biased locking is off by default since JDK 15, on JDK 8 append -XX:+UseBiasedLocking to compare.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：锁对象位于 Scope.Benchmark 状态，由所有基准线程共享；临界区工作量用 Blackhole.consumeCPU 参数化。
+ * English: The lock lives in Scope.Benchmark state shared by all benchmark threads; critical-section work is parameterized via Blackhole.consumeCPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LockContentionBenchmark {
+
+    /** 临界区内消耗的 CPU token 数。 */
+    @Param({"0", "16"})
+    public int work;
+
+    private final Object monitor = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long counter;
+
+    @Benchmark
+    @Threads(1)
+    public long synchronizedUncontended() {
+        return synchronizedIncrement();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long synchronizedContended() {
+        return synchronizedIncrement();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long reentrantLockContended() {
+        lock.lock();
+        try {
+            Blackhole.consumeCPU(work);
+            return ++counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long synchronizedIncrement() {
+        // 中文：与实验相同，高频进入同一临界区
+        // English: As in the experiment, enter the same critical section at high frequency
+        synchronized (monitor) {
+            Blackhole.consumeCPU(work);
+            return ++counter;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.jvmlab.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：第3章 TLAB 分配基准，对应 Chapter03Controller.tlabDemo：比较开启与关闭 TLAB 时不同大小数组的分配耗时。
+ * English: Chapter 3 TLAB allocation benchmark mirroring Chapter03Controller.tlabDemo: compares array allocation cost by size with TLAB on and off.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：小对象在 TLAB 中是指针碰撞分配，关闭 TLAB 后需要在共享 Eden 上 CAS；大数组可能绕过 TLAB 直接慢速分配。
+ * English: Small objects use pointer-bump allocation in the TLAB; without TLAB they CAS on shared Eden, and large arrays may bypass the TLAB via the slow path.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：返回新数组作为隐式 Blackhole，避免分配被消除；多线程变体放大共享 Eden 的竞争。
+ * English: Returning the new array acts as an implicit Blackhole so allocation is not eliminated; the threaded variant amplifies contention on shared Eden.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TlabAllocationBenchmark {
+
+    @Param({"16", "64", "1024", "65536"})
+    public int sizeBytes;
+
+    @Benchmark
+    public byte[] withTlab() {
+        return new byte[sizeBytes];
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-XX:-UseTLAB")
+    public byte[] withoutTlab() {
+        return new byte[sizeBytes];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] withTlabThreaded() {
+        return new byte[sizeBytes];
+    }
+
+    @Benchmark
+    @Threads(4)
+    @Fork(value = 2, jvmArgsAppend = "-XX:-UseTLAB")
+    public byte[] withoutTlabThreaded() {
+        return new byte[sizeBytes];
+    }
+}
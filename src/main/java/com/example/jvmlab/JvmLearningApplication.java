@@ -1,7 +1,9 @@
 package com.example.jvmlab;
 
+import com.example.jvmlab.config.JvmStartupReport;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * 类说明 / Class Description:
@@ -17,8 +19,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * English: Centralize bootstrapping and package scanning to ensure controllers, services, and utilities are registered, simplifying management and extension.
  *
  * 涉及的核心组件说明 / Core Components:
- * 中文：SpringBootApplication 注解（包扫描）、SpringApplication（容器启动）。
- * English: SpringBootApplication (package scan) and SpringApplication (container bootstrap).
+ * 中文：SpringBootApplication 注解（包扫描）、SpringApplication（容器启动）、BufferingApplicationStartup（记录启动步骤，供 /monitor/startup 与 /actuator/startup 使用）。
+ * English: SpringBootApplication (package scan), SpringApplication (container bootstrap) and BufferingApplicationStartup (records startup steps for /monitor/startup and /actuator/startup).
  */
 @SpringBootApplication(scanBasePackages = {"com.example.jvmlab", "com.example.jvmstress"})
 public class JvmLearningApplication {
@@ -38,8 +40,10 @@ public class JvmLearningApplication {
      * 中文：底层启动过程可能抛出运行时异常（如端口占用、配置错误） / English: Runtime exceptions may occur during startup (e.g., port conflict, misconfiguration)
      */
     public static void main(String[] args) {
-        // 中文：启动 Spring Boot 应用，容器装配所有控制器与服务
-        // English: Start the Spring Boot app; the container wires all controllers and services
-        SpringApplication.run(JvmLearningApplication.class, args);
+        // 中文：启动 Spring Boot 应用，容器装配所有控制器与服务；缓冲启动步骤以便分析最慢的 Bean 与阶段
+        // English: Start the Spring Boot app; the container wires all controllers and services, and startup steps are buffered to find the slowest beans and phases
+        SpringApplication application = new SpringApplication(JvmLearningApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(JvmStartupReport.STEP_CAPACITY));
+        application.run(args);
     }
 }
@@ -0,0 +1,112 @@
+package com.example.jvmlab.benchlab;
+
+import com.example.jvmlab.benchlab.model.BenchmarkJob;
+import com.example.jvmlab.benchlab.model.BenchmarkRunRequest;
+import com.example.jvmlab.benchlab.model.BenchmarkScore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：JMH 基准运行控制器：提交运行、查询任务、订阅进度与对比结果。
+ * English: JMH benchmark controller: submit runs, query jobs, follow progress and compare results.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：POST /bench/run?include=EscapeAnalysis&label=no-ea&jvmArgs=-XX:-DoEscapeAnalysis 与默认参数各跑一次，再用 /bench/results 并排对比。
+ * English: Run POST /bench/run?include=EscapeAnalysis&label=no-ea&jvmArgs=-XX:-DoEscapeAnalysis and a default run, then compare them via /bench/results.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定与委托，运行、排队与结果保存由 {@link BenchmarkRunnerService} 负责。
+ * English: The controller only binds parameters and delegates; running, queueing and result storage belong to {@link BenchmarkRunnerService}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/bench")
+public class BenchmarkLabController {
+
+    private final BenchmarkRunnerService runnerService;
+
+    public BenchmarkLabController(BenchmarkRunnerService runnerService) {
+        this.runnerService = runnerService;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：列出类路径上可运行的基准。
+     * English: List benchmarks available on the classpath.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：基准名称列表 / English: Benchmark names
+     * 异常 / Exceptions: 中文：未找到基准时抛出 IllegalStateException / English: IllegalStateException when none are found
+     */
+    @GetMapping("/list")
+    public List<String> list() {
+        return runnerService.listBenchmarks();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：提交一次基准运行，立即返回排队中的任务；运行在独立 fork 中进行。只接受 POST，避免跨站页面用一个 GET 启动 fork JVM；jvmArgs 只允许调优类参数。
+     * English: Submit a benchmark run and return the queued job immediately; measurement happens in separate forks. POST only, so a cross-site page cannot start a fork JVM with a GET; jvmArgs only accepts tuning flags.
+     *
+     * 参数 / Parameters:
+     * @param request 中文：include、forks、warmup、iterations、timeMs、jvmArgs、param、gcProfiler、label / English: include, forks, warmup, iterations, timeMs, jvmArgs, param, gcProfiler, label
+     *
+     * 返回值 / Return: 中文：任务 / English: Job
+     * 异常 / Exceptions: 中文：参数非法或队列已满时抛出运行时异常 / English: Runtime exceptions on invalid parameters or a full queue
+     */
+    @PostMapping("/run")
+    public BenchmarkJob run(BenchmarkRunRequest request) {
+        log.info("提交基准运行 Benchmark run requested: {}", request.toSummary());
+        return runnerService.submit(request);
+    }
+
+    @GetMapping("/jobs")
+    public List<BenchmarkJob> jobs() {
+        return runnerService.listJobs();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public BenchmarkJob job(@PathVariable String id) {
+        return runnerService.getJob(id);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以 Server-Sent Events 推送任务进度（log 事件）与最终状态（status 事件）。
+     * English: Stream job progress (log events) and the final state (status event) via Server-Sent Events.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：任务 ID / English: Job ID
+     * 返回值 / Return: 中文：SSE 流 / English: SSE stream
+     * 异常 / Exceptions: 中文：任务不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    @GetMapping(path = "/jobs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String id) {
+        return runnerService.stream(id);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查询结果库，可按基准名片段过滤；同一基准与参数的不同标签相邻排列，便于对比。
+     * English: Query the results store, optionally filtered by benchmark name; different labels of the same benchmark/params sort adjacently for comparison.
+     *
+     * 参数 / Parameters:
+     * @param benchmark 中文：基准名片段 / English: Benchmark name fragment
+     * 返回值 / Return: 中文：结果列表 / English: Result list
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/results")
+    public List<BenchmarkScore> results(@RequestParam(required = false) String benchmark) {
+        return runnerService.listResults(benchmark);
+    }
+}
@@ -0,0 +1,508 @@
+package com.example.jvmlab.benchlab;
+
+import com.example.jvmlab.benchlab.model.BenchmarkJob;
+import com.example.jvmlab.benchlab.model.BenchmarkRunRequest;
+import com.example.jvmlab.benchlab.model.BenchmarkScore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.format.OutputFormat;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：JMH 运行服务：用 OptionsBuilder 组装参数，在后台线程中通过 {@link Runner} 启动独立 fork 运行基准，并保存结构化结果。
+ * English: JMH runner service: assembles options with OptionsBuilder, runs benchmarks in forked JVMs via {@link Runner} on a background thread and stores structured results.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：在托管实验的同一服务中对比 JVM 参数组合（如 -XX:-DoEscapeAnalysis 与默认），每个组合都在隔离的 fork 中测量。
+ * English: Compare JVM flag sets (e.g. -XX:-DoEscapeAnalysis vs default) from the service that hosts the experiments, each measured in isolated forks.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：所有运行串行执行，避免多个基准同时争抢 CPU 污染结果；fork 数至少为 1，绝不在服务 JVM 内测量。
+ * English: Runs execute serially so concurrent benchmarks never compete for CPU; forks are at least 1, so nothing is measured inside the service JVM.
+ *
+ * 运行前提 / Prerequisites:
+ * 中文：基准类与 META-INF/BenchmarkList 必须在应用类路径上（mvn -Pbenchmarks package 生成的 *-benchmarks.jar），
+ *      fork 继承 java.class.path，因此需以普通类路径启动，例如 IDE 勾选 benchmarks profile，或
+ *      java -cp target/jvm-learning-lab-1.0.0.jar:target/jvm-learning-lab-1.0.0-benchmarks.jar org.springframework.boot.loader.launch.JarLauncher。
+ * English: Benchmark classes and META-INF/BenchmarkList must be on the application classpath (the *-benchmarks.jar from mvn -Pbenchmarks package);
+ *      forks inherit java.class.path, so launch with a plain classpath, e.g. the IDE with the benchmarks profile, or
+ *      java -cp target/jvm-learning-lab-1.0.0.jar:target/jvm-learning-lab-1.0.0-benchmarks.jar org.springframework.boot.loader.launch.JarLauncher.
+ */
+@Slf4j
+@Service
+public class BenchmarkRunnerService {
+
+    private static final int MAX_FORKS = 10;
+    private static final int MAX_QUEUED_JOBS = 10;
+    private static final int MAX_RETAINED_JOBS = 50;
+    private static final int MAX_RETAINED_SCORES = 1000;
+    private static final int MAX_JVM_ARGS = 16;
+    /**
+     * 允许传给 fork JVM 的参数：-XX:[+-]Name、-XX:Name=数值（可带小数或 k/m/g）与 -Xmx/-Xms/-Xss 大小；
+     * -XX:OnOutOfMemoryError=cmd、-XX:OnError=cmd、-javaagent 等可执行命令或加载代码的参数均不匹配。
+     */
+    private static final Pattern SAFE_JVM_ARG = Pattern.compile(
+            "-XX:[+-][A-Za-z][A-Za-z0-9_]{0,80}"
+                    + "|-XX:[A-Za-z][A-Za-z0-9_]{0,80}=\\d{1,9}(\\.\\d{1,3})?[kKmMgG]?"
+                    + "|-X(mx|ms|ss)\\d{1,9}[kKmMgG]?");
+    private static final long STREAM_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+    private static final String SETUP_HINT = "未在类路径上找到 JMH 基准，请先执行 mvn -Pbenchmarks package 并把 *-benchmarks.jar 加入类路径启动 "
+            + "/ No JMH benchmarks on the classpath: run mvn -Pbenchmarks package and start with *-benchmarks.jar on the classpath";
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, BenchmarkJob> jobs = new LinkedHashMap<>();
+    /** 结果库：按完成顺序保留最近 MAX_RETAINED_SCORES 条，访问时以自身加锁。 */
+    private final Deque<BenchmarkScore> results = new ArrayDeque<>();
+    private final ExecutorService runner = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> {
+        Thread thread = new Thread(runnable, "jvm-lab-bench-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：列出类路径上可运行的基准方法（去重后的全名）。
+     * English: List runnable benchmark methods on the classpath (distinct fully qualified names).
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：基准名称列表 / English: Benchmark names
+     * 异常 / Exceptions: 中文：类路径上没有基准时抛出 IllegalStateException / English: IllegalStateException when no benchmarks are on the classpath
+     */
+    public List<String> listBenchmarks() {
+        TreeSet<String> names = new TreeSet<>();
+        for (BenchmarkListEntry entry : loadBenchmarkList()) {
+            names.add(entry.getUsername());
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：校验请求并提交运行任务；参数错误同步抛出，基准运行在后台串行执行。
+     * English: Validate the request and submit a run job; invalid parameters fail synchronously, benchmarks run serially in the background.
+     *
+     * 参数 / Parameters:
+     * @param request 中文：运行请求 / English: Run request
+     *
+     * 返回值 / Return: 中文：已排队的任务 / English: The queued job
+     *
+     * 异常 / Exceptions:
+     * 中文：IllegalArgumentException（参数非法）、IllegalStateException（无基准或队列已满）
+     * English: IllegalArgumentException (invalid parameters), IllegalStateException (no benchmarks or queue full)
+     */
+    public BenchmarkJob submit(BenchmarkRunRequest request) {
+        Options options = buildOptions(request);
+        if (loadBenchmarkList().isEmpty()) {
+            throw new IllegalStateException(SETUP_HINT);
+        }
+        String id = "bench-" + sequence.incrementAndGet();
+        String label = request.getLabel() == null || request.getLabel().isBlank()
+                ? String.join(" ", request.getJvmArgs()) : request.getLabel();
+        BenchmarkJob job = new BenchmarkJob(id, label.isBlank() ? "default" : label, request.toSummary());
+        synchronized (jobs) {
+            jobs.put(id, job);
+            evictFinishedJobs();
+        }
+        try {
+            runner.execute(() -> run(job, options));
+        } catch (RejectedExecutionException e) {
+            job.markFailed("队列已满 / Queue full");
+            throw new IllegalStateException("基准队列已满，请稍后重试 / Benchmark queue is full (max " + MAX_QUEUED_JOBS + ")");
+        }
+        log.info("基准任务已提交 Benchmark job submitted: id={} include={} label={}", id, request.getInclude(), job.getLabel());
+        return job;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按 ID 查询任务。
+     * English: Look up a job by ID.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：任务 ID / English: Job ID
+     * 返回值 / Return: 中文：任务 / English: Job
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    public BenchmarkJob getJob(String id) {
+        synchronized (jobs) {
+            BenchmarkJob job = jobs.get(id);
+            if (job == null) {
+                throw new NoSuchElementException("Benchmark job not found: " + id);
+            }
+            return job;
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以 SSE 推送任务进度：先回放已有日志尾部，再实时推送新行（log 事件），结束时推送任务状态（status 事件）并关闭。
+     * English: Stream job progress over SSE: replay the existing log tail, push new lines live (log events), then send the job (status event) and complete.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：任务 ID / English: Job ID
+     * 返回值 / Return: 中文：SSE 发射器 / English: SSE emitter
+     * 异常 / Exceptions: 中文：任务不存在时抛出 NoSuchElementException / English: NoSuchElementException when the job is absent
+     */
+    public SseEmitter stream(String id) {
+        BenchmarkJob job = getJob(id);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        Consumer<String> listener = new Consumer<>() {
+            @Override
+            public void accept(String line) {
+                try {
+                    emitter.send(SseEmitter.event().name("log").data(line));
+                } catch (IOException | IllegalStateException e) {
+                    job.removeLineListener(this);
+                    return;
+                }
+                // 中文：状态在运行线程上先于最后一行更新，因此这里看到结束即可安全收尾
+                // English: Status is updated on the runner thread before the final line, so seeing it finished here is safe
+                if (job.isFinished()) {
+                    job.removeLineListener(this);
+                    completeStream(emitter, job);
+                }
+            }
+        };
+        emitter.onCompletion(() -> job.removeLineListener(listener));
+        emitter.onTimeout(() -> job.removeLineListener(listener));
+        try {
+            for (String line : job.getLogTail()) {
+                emitter.send(SseEmitter.event().name("log").data(line));
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        job.addLineListener(listener);
+        // 中文：回放期间任务可能已结束，注册后复查一次，避免流永远不关闭
+        // English: The job may have finished during replay; re-check after registering so the stream always closes
+        if (job.isFinished()) {
+            job.removeLineListener(listener);
+            completeStream(emitter, job);
+        }
+        return emitter;
+    }
+
+    private static void completeStream(SseEmitter emitter, BenchmarkJob job) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(job));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // 中文：客户端已断开或流已被另一路径关闭
+            // English: The client disconnected or the stream was already closed by the other path
+        }
+    }
+
+    public List<BenchmarkJob> listJobs() {
+        synchronized (jobs) {
+            List<BenchmarkJob> list = new ArrayList<>(jobs.values());
+            Collections.reverse(list);
+            return list;
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查询结果库，可按基准名片段过滤，按基准名与标签排序，便于并排对比不同参数组合。
+     * English: Query the results store, optionally filtered by a benchmark name fragment, sorted by benchmark and label for side-by-side comparison.
+     *
+     * 参数 / Parameters:
+     * @param benchmark 中文：基准名片段，可为空 / English: Benchmark name fragment, may be null
+     * 返回值 / Return: 中文：结果列表 / English: Result list
+     * 异常 / Exceptions: 无
+     */
+    public List<BenchmarkScore> listResults(String benchmark) {
+        List<BenchmarkScore> snapshot;
+        synchronized (results) {
+            snapshot = new ArrayList<>(results);
+        }
+        return snapshot.stream()
+                .filter(score -> benchmark == null || benchmark.isBlank() || score.getBenchmark().contains(benchmark))
+                .sorted(Comparator.comparing(BenchmarkScore::getBenchmark)
+                        .thenComparing(score -> score.getParams().toString())
+                        .thenComparing(BenchmarkScore::getLabel))
+                .toList();
+    }
+
+    /**
+     * 在运行线程中执行一次 JMH 运行：进度写入任务日志，结果转换为 {@link BenchmarkScore} 存入结果库。
+     */
+    private void run(BenchmarkJob job, Options options) {
+        job.markRunning();
+        log.info("开始运行基准 Benchmark job started: {}", job.getId());
+        try (PrintStream progress = new PrintStream(new LineSink(job), true, StandardCharsets.UTF_8)) {
+            OutputFormat format = OutputFormatFactory.createFormatInstance(progress, VerboseMode.NORMAL);
+            Collection<RunResult> runResults = new Runner(options, format).run();
+            List<BenchmarkScore> scores = new ArrayList<>();
+            for (RunResult runResult : runResults) {
+                scores.add(toScore(job, runResult));
+            }
+            job.markSucceeded(scores);
+            synchronized (results) {
+                results.addAll(scores);
+                while (results.size() > MAX_RETAINED_SCORES) {
+                    results.pollFirst();
+                }
+            }
+            log.info("基准运行完成 Benchmark job finished: {} results={}", job.getId(), scores.size());
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            log.warn("基准运行失败 Benchmark job failed: {} {}", job.getId(), e.getMessage());
+        }
+        job.appendLine("# [jvm-lab] " + job.getId() + " " + job.getStatus());
+    }
+
+    /**
+     * 拆分并校验 fork JVM 参数：每个参数都必须匹配 {@link #SAFE_JVM_ARG}，否则抛出 IllegalArgumentException。
+     */
+    static List<String> parseJvmArgs(List<String> raw) {
+        List<String> jvmArgs = new ArrayList<>();
+        for (String arg : raw) {
+            for (String token : arg.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                // 中文：fork JVM 在服务主机上运行，只接受调优类参数，拒绝可执行命令或加载代码的参数
+                // English: The fork runs on the service host, so only tuning flags are accepted; anything that can run commands or load code is rejected
+                if (!SAFE_JVM_ARG.matcher(token).matches()) {
+                    throw new IllegalArgumentException("jvmArgs 只允许 -XX:[+-]Name、-XX:Name=数值、-Xmx/-Xms/-Xss 大小 "
+                            + "/ jvmArgs only accepts -XX:[+-]Name, -XX:Name=<number> and -Xmx/-Xms/-Xss sizes: " + token);
+                }
+                jvmArgs.add(token);
+            }
+        }
+        if (jvmArgs.size() > MAX_JVM_ARGS) {
+            throw new IllegalArgumentException("jvmArgs 最多 " + MAX_JVM_ARGS + " 个 / At most " + MAX_JVM_ARGS + " jvmArgs");
+        }
+        return jvmArgs;
+    }
+
+    /**
+     * 将请求转换为 JMH Options：仅显式传入的值覆盖基准注解。
+     */
+    private static Options buildOptions(BenchmarkRunRequest request) {
+        String include = request.getInclude();
+        if (include == null || include.isBlank()) {
+            throw new IllegalArgumentException("include 不能为空 / include is required, e.g. EscapeAnalysis");
+        }
+        Pattern.compile(include);
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(include)
+                .shouldFailOnError(true)
+                .verbosity(VerboseMode.NORMAL);
+        if (request.getForks() != null) {
+            // 中文：fork=0 会在服务 JVM 内测量，失去隔离，因此至少为 1
+            // English: forks=0 would measure inside the service JVM without isolation, so at least 1
+            builder.forks(Math.max(1, Math.min(MAX_FORKS, request.getForks())));
+        }
+        if (request.getWarmup() != null) {
+            builder.warmupIterations(Math.max(0, request.getWarmup()));
+        }
+        if (request.getIterations() != null) {
+            builder.measurementIterations(Math.max(1, request.getIterations()));
+        }
+        if (request.getTimeMs() != null) {
+            TimeValue time = TimeValue.milliseconds(Math.max(10, request.getTimeMs()));
+            builder.warmupTime(time).measurementTime(time);
+        }
+        List<String> jvmArgs = parseJvmArgs(request.getJvmArgs());
+        if (!jvmArgs.isEmpty()) {
+            checkControlConflicts(jvmArgs, controlJvmArgs(Pattern.compile(include)));
+            // 中文：Options 层的 jvmArgsAppend 会整体替换 @Fork(jvmArgsAppend) 而不是追加，对照组的 -XX:-DoEscapeAnalysis 等会丢失；
+            //      用户参数放在 prepend 层（基准均未声明 jvmArgsPrepend），注解的 append 参数保留在命令行末尾
+            // English: An options-level jvmArgsAppend replaces @Fork(jvmArgsAppend) instead of adding to it, dropping control flags such as -XX:-DoEscapeAnalysis;
+            //          user flags go in the prepend slot (no benchmark declares jvmArgsPrepend), so the annotation's append flags stay last on the command line
+            builder.jvmArgsPrepend(jvmArgs.toArray(new String[0]));
+        }
+        for (String param : request.getParam()) {
+            int eq = param.indexOf('=');
+            if (eq <= 0 || eq == param.length() - 1) {
+                throw new IllegalArgumentException("param 格式应为 name=v1,v2 / param must look like name=v1,v2: " + param);
+            }
+            builder.param(param.substring(0, eq), param.substring(eq + 1).split(","));
+        }
+        if (request.isGcProfiler()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        return builder.build();
+    }
+
+    private static BenchmarkScore toScore(BenchmarkJob job, RunResult runResult) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String key : runResult.getParams().getParamsKeys()) {
+            params.put(key, runResult.getParams().getParam(key));
+        }
+        List<String> jvmArgs = new ArrayList<>();
+        for (Object arg : runResult.getParams().getJvmArgs()) {
+            jvmArgs.add(String.valueOf(arg));
+        }
+        Map<String, Map<String, Object>> secondary = new LinkedHashMap<>();
+        for (Map.Entry<String, Result> entry : runResult.getSecondaryResults().entrySet()) {
+            Result<?> result = entry.getValue();
+            Map<String, Object> metric = new LinkedHashMap<>();
+            metric.put("score", result.getScore());
+            metric.put("error", result.getScoreError());
+            metric.put("unit", result.getScoreUnit());
+            secondary.put(entry.getKey(), metric);
+        }
+        Result<?> primary = runResult.getPrimaryResult();
+        return new BenchmarkScore(job.getId(), job.getLabel(), runResult.getParams().getBenchmark(),
+                runResult.getParams().getMode().shortLabel(), params, jvmArgs, runResult.getParams().getForks(),
+                primary.getScore(), primary.getScoreError(), primary.getScoreUnit(), secondary);
+    }
+
+    /**
+     * 收集 include 命中的基准在 @Fork 上声明的 JVM 参数（对照组开关），按基准名分组。
+     */
+    private static Map<String, List<String>> controlJvmArgs(Pattern include) {
+        Map<String, List<String>> control = new LinkedHashMap<>();
+        for (BenchmarkListEntry entry : loadBenchmarkList()) {
+            if (!include.matcher(entry.getUsername()).find()) {
+                continue;
+            }
+            List<String> args = new ArrayList<>();
+            args.addAll(entry.getJvmArgsPrepend().orElse(Collections.emptyList()));
+            args.addAll(entry.getJvmArgs().orElse(Collections.emptyList()));
+            args.addAll(entry.getJvmArgsAppend().orElse(Collections.emptyList()));
+            if (!args.isEmpty()) {
+                control.put(entry.getUsername(), args);
+            }
+        }
+        return control;
+    }
+
+    /**
+     * 拒绝与基准 @Fork 参数设置同一选项的用户参数（如对照组的 -XX:-UseTLAB 与用户的 -XX:+UseTLAB），否则对照与优化的比较失去意义。
+     */
+    static void checkControlConflicts(List<String> jvmArgs, Map<String, List<String>> controlArgs) {
+        for (String arg : jvmArgs) {
+            String option = optionName(arg);
+            for (Map.Entry<String, List<String>> entry : controlArgs.entrySet()) {
+                for (String control : entry.getValue()) {
+                    if (option.equals(optionName(control))) {
+                        throw new IllegalArgumentException("jvmArgs 与基准的对照参数冲突 / jvmArgs conflicts with the control flag "
+                                + control + " of " + entry.getKey() + ": " + arg);
+                    }
+                }
+            }
+        }
+    }
+
+    /** 参数设置的选项名：-XX:+Name、-XX:Name=v 取 Name，-Xmx512m 取 Xmx，其余原样返回。 */
+    static String optionName(String arg) {
+        if (arg.startsWith("-XX:")) {
+            String option = arg.substring(4);
+            if (option.startsWith("+") || option.startsWith("-")) {
+                option = option.substring(1);
+            }
+            int eq = option.indexOf('=');
+            return eq < 0 ? option : option.substring(0, eq);
+        }
+        for (String sized : new String[]{"-Xmx", "-Xms", "-Xss"}) {
+            if (arg.startsWith(sized)) {
+                return sized.substring(1);
+            }
+        }
+        return arg;
+    }
+
+    private static Set<BenchmarkListEntry> loadBenchmarkList() {
+        try {
+            OutputFormat silent = OutputFormatFactory.createFormatInstance(
+                    new PrintStream(OutputStream.nullOutputStream()), VerboseMode.SILENT);
+            return BenchmarkList.defaultList().getAll(silent, Collections.emptyList());
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(SETUP_HINT, e);
+        }
+    }
+
+    /** 只淘汰已结束的最旧任务，排队或运行中的任务始终保留。 */
+    private void evictFinishedJobs() {
+        Iterator<BenchmarkJob> iterator = jobs.values().iterator();
+        while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * 把 JMH 的 PrintStream 输出按行切分写入任务日志。
+     */
+    private static final class LineSink extends OutputStream {
+        private final BenchmarkJob job;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        LineSink(BenchmarkJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                flushLine();
+            } else if (b != '\r') {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (buffer.size() > 0) {
+                flushLine();
+            }
+        }
+
+        private void flushLine() {
+            job.appendLine(buffer.toString(StandardCharsets.UTF_8));
+            buffer.reset();
+        }
+    }
+}
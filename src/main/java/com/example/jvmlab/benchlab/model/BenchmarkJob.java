@@ -0,0 +1,163 @@
+package com.example.jvmlab.benchlab.model;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：一次 JMH 运行任务的状态：排队/运行/完成/失败、进度日志尾部与结构化结果。
+ * English: State of one JMH run job: queued/running/succeeded/failed, progress log tail and structured results.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：/bench/jobs/{id} 轮询，或通过 /bench/jobs/{id}/stream 订阅进度行。
+ * English: Polled via /bench/jobs/{id} or followed via /bench/jobs/{id}/stream.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：由单个运行线程写入、多个请求线程读取；日志只保留最近若干行，避免长时间运行撑大内存。
+ * English: Written by the single runner thread and read by request threads; only the latest lines are kept so long runs do not grow memory.
+ */
+public class BenchmarkJob {
+
+    /** 任务状态。 */
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private static final int MAX_LOG_LINES = 500;
+
+    private final String id;
+    private final String label;
+    private final Map<String, Object> request;
+    private final Instant createdAt = Instant.now();
+    private final Deque<String> logTail = new ArrayDeque<>();
+    private final List<Consumer<String>> lineListeners = new CopyOnWriteArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile List<BenchmarkScore> scores = List.of();
+    private long logLines;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，记录任务 ID、标签与请求摘要。
+     * English: Constructor recording job ID, label and request summary.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：任务 ID / English: Job ID
+     * @param label 中文：标签（如 "no-ea"） / English: Label (e.g. "no-ea")
+     * @param request 中文：请求摘要 / English: Request summary
+     */
+    public BenchmarkJob(String id, String label, Map<String, Object> request) {
+        this.id = id;
+        this.label = label;
+        this.request = request;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：追加一行进度输出并通知订阅者。
+     * English: Append one progress line and notify subscribers.
+     *
+     * 参数 / Parameters:
+     * @param line 中文：JMH 输出行 / English: JMH output line
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public void appendLine(String line) {
+        synchronized (logTail) {
+            if (logTail.size() == MAX_LOG_LINES) {
+                logTail.removeFirst();
+            }
+            logTail.addLast(line);
+            logLines++;
+        }
+        for (Consumer<String> listener : lineListeners) {
+            listener.accept(line);
+        }
+    }
+
+    public void addLineListener(Consumer<String> listener) {
+        lineListeners.add(listener);
+    }
+
+    public void removeLineListener(Consumer<String> listener) {
+        lineListeners.remove(listener);
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    public void markSucceeded(List<BenchmarkScore> results) {
+        scores = List.copyOf(results);
+        finishedAt = Instant.now();
+        status = Status.SUCCEEDED;
+    }
+
+    public void markFailed(String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Map<String, Object> getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<BenchmarkScore> getScores() {
+        return scores;
+    }
+
+    public long getLogLines() {
+        synchronized (logTail) {
+            return logLines;
+        }
+    }
+
+    /** 最近的进度输出（最多 500 行）。 */
+    public List<String> getLogTail() {
+        synchronized (logTail) {
+            return new ArrayList<>(logTail);
+        }
+    }
+}
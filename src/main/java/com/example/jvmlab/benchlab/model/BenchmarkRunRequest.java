@@ -0,0 +1,126 @@
+package com.example.jvmlab.benchlab.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：一次 JMH 运行的请求参数，由查询参数直接绑定。
+ * English: Request parameters of one JMH run, bound directly from query parameters.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：POST /bench/run?include=EscapeAnalysis&forks=2&jvmArgs=-XX:-DoEscapeAnalysis 对比不同 JVM 参数组合。
+ * English: POST /bench/run?include=EscapeAnalysis&forks=2&jvmArgs=-XX:-DoEscapeAnalysis to compare JVM flag sets.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：数值字段为空时沿用基准类上的 @Fork/@Warmup/@Measurement 注解，仅显式传入的值才覆盖。
+ * English: Null numeric fields keep the @Fork/@Warmup/@Measurement annotations on the benchmark; only explicit values override them.
+ */
+public class BenchmarkRunRequest {
+
+    private String include;
+    private String label;
+    private Integer forks;
+    private Integer warmup;
+    private Integer iterations;
+    private Integer timeMs;
+    private List<String> jvmArgs = new ArrayList<>();
+    private List<String> param = new ArrayList<>();
+    private boolean gcProfiler = true;
+
+    public String getInclude() {
+        return include;
+    }
+
+    public void setInclude(String include) {
+        this.include = include;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public Integer getForks() {
+        return forks;
+    }
+
+    public void setForks(Integer forks) {
+        this.forks = forks;
+    }
+
+    public Integer getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(Integer warmup) {
+        this.warmup = warmup;
+    }
+
+    public Integer getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(Integer iterations) {
+        this.iterations = iterations;
+    }
+
+    public Integer getTimeMs() {
+        return timeMs;
+    }
+
+    public void setTimeMs(Integer timeMs) {
+        this.timeMs = timeMs;
+    }
+
+    /** 传给每个 fork 的 JVM 参数，放在基准注解 @Fork 参数之前，不能与其对照参数设置同一选项。 */
+    public List<String> getJvmArgs() {
+        return jvmArgs;
+    }
+
+    public void setJvmArgs(List<String> jvmArgs) {
+        this.jvmArgs = jvmArgs == null ? new ArrayList<>() : jvmArgs;
+    }
+
+    /** @Param 覆盖，格式 name=v1,v2，例如 payload=10,100。 */
+    public List<String> getParam() {
+        return param;
+    }
+
+    public void setParam(List<String> param) {
+        this.param = param == null ? new ArrayList<>() : param;
+    }
+
+    public boolean isGcProfiler() {
+        return gcProfiler;
+    }
+
+    public void setGcProfiler(boolean gcProfiler) {
+        this.gcProfiler = gcProfiler;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：生成请求摘要，随任务一起保存以便结果对比时识别参数组合。
+     * English: Summarize the request, stored with the job to identify the flag set when comparing results.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：请求摘要 / English: Request summary
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> toSummary() {
+        return Map.of(
+                "include", String.valueOf(include),
+                "forks", forks == null ? "@Fork" : forks,
+                "warmup", warmup == null ? "@Warmup" : warmup,
+                "iterations", iterations == null ? "@Measurement" : iterations,
+                "timeMs", timeMs == null ? "default" : timeMs,
+                "jvmArgs", List.copyOf(jvmArgs),
+                "param", List.copyOf(param),
+                "gcProfiler", gcProfiler);
+    }
+}
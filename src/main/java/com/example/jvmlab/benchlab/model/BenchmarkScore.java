@@ -0,0 +1,110 @@
+package com.example.jvmlab.benchlab.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：单个基准（含参数组合）的 JMH 结果：主指标得分、误差界、单位以及 GC profiler 等次级指标。
+ * English: JMH result of one benchmark/parameter combination: primary score, error bound, unit and secondary metrics such as GC profiler output.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：保存在结果库中，用于对比同一基准在不同 JVM 参数下的表现。
+ * English: Kept in the results store to compare one benchmark across JVM flag sets.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：从 RunResult 中拷贝出纯数据，避免持有 JMH 内部对象，并保持不可变。
+ * English: Copies plain data out of RunResult to avoid retaining JMH internals, and stays immutable.
+ */
+public class BenchmarkScore {
+    private final String jobId;
+    private final String label;
+    private final String benchmark;
+    private final String mode;
+    private final Map<String, String> params;
+    private final List<String> jvmArgs;
+    private final int forks;
+    private final double score;
+    private final double scoreError;
+    private final String unit;
+    private final Map<String, Map<String, Object>> secondary;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，初始化结果字段。
+     * English: Constructor initializing result fields.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：所属任务 ID / English: Owning job ID
+     * @param label 中文：任务标签 / English: Job label
+     * @param benchmark 中文：基准全名 / English: Fully qualified benchmark name
+     * @param mode 中文：基准模式 / English: Benchmark mode
+     * @param params 中文：@Param 取值 / English: @Param values
+     * @param jvmArgs 中文：fork 的 JVM 参数 / English: JVM arguments of the forks
+     * @param forks 中文：fork 数 / English: Number of forks
+     * @param score 中文：主指标得分 / English: Primary score
+     * @param scoreError 中文：99.9% 置信区间半宽 / English: Half-width of the 99.9% confidence interval
+     * @param unit 中文：得分单位 / English: Score unit
+     * @param secondary 中文：次级指标（score/error/unit） / English: Secondary metrics (score/error/unit)
+     */
+    public BenchmarkScore(String jobId, String label, String benchmark, String mode, Map<String, String> params,
+                          List<String> jvmArgs, int forks, double score, double scoreError, String unit,
+                          Map<String, Map<String, Object>> secondary) {
+        this.jobId = jobId;
+        this.label = label;
+        this.benchmark = benchmark;
+        this.mode = mode;
+        this.params = Map.copyOf(params);
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.forks = forks;
+        this.score = score;
+        this.scoreError = scoreError;
+        this.unit = unit;
+        this.secondary = Map.copyOf(secondary);
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public List<String> getJvmArgs() {
+        return jvmArgs;
+    }
+
+    public int getForks() {
+        return forks;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /** NaN 表示样本不足以计算误差界（例如单 fork 单迭代）。 */
+    public double getScoreError() {
+        return scoreError;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public Map<String, Map<String, Object>> getSecondary() {
+        return secondary;
+    }
+}
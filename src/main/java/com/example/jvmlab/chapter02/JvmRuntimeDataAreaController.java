@@ -1,5 +1,9 @@
 package com.example.jvmlab.chapter02;
 
+import com.example.jvmlab.common.DirectBufferTracker;
+import com.example.jvmlab.chapter02.runtimedataareas.heap.pooling.RequestBufferPoolingComparison;
+import com.example.jvmlab.monitor.AllocationHotspotProfiler;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
@@ -85,14 +89,43 @@ public class JvmRuntimeDataAreaController {
     
     /**
      * 线程池 - 用于线程相关实验
+     * 首次提交任务时才创建（见 executor()），控制器懒加载或从未调用线程实验时不占用线程池
      */
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private volatile ExecutorService executorService;
     
     /**
      * 直接内存持有容器 - 用于模拟直接内存占用
      */
     private final List<java.nio.ByteBuffer> directBufferHolder = new CopyOnWriteArrayList<>();
 
+    /**
+     * 按需创建实验线程池（双重检查）
+     */
+    private ExecutorService executor() {
+        ExecutorService executor = executorService;
+        if (executor == null) {
+            synchronized (this) {
+                executor = executorService;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool();
+                    executorService = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 容器关闭时停止实验线程池，避免非守护线程阻止 JVM 退出
+     */
+    @PreDestroy
+    public void shutdownExecutor() {
+        ExecutorService executor = executorService;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     // ==================== 首页接口（实验导航） ====================
     
     /**
@@ -247,6 +280,10 @@ public class JvmRuntimeDataAreaController {
                  → 模拟高并发场景下的内存表现
                  → 验证：高并发对各个区域的影响
             
+            POST /jvm-experiment/comprehensive/simulate-high-concurrency/compare?modes=allocate,thread-local,striped,off-heap-slab
+                 → 同一负载下对比新分配 / 线程本地池 / 分段池 / 堆外 slab
+                 → 输出：吞吐、p99 延迟、每请求分配字节、GC 次数增量
+            
             GET  /jvm-experiment/comprehensive/generate-report
                  → 生成内存分析报告
                  → 输出：完整的内存状态报告
@@ -1747,6 +1784,7 @@ public class JvmRuntimeDataAreaController {
         
         explanation.put("参数控制", "-XX:MaxDirectMemorySize限制最大直接内存");
         explanation.put("可能异常", "OutOfMemoryError: Direct buffer memory");
+        explanation.put("观测方式", "以 -XX:NativeMemoryTracking=summary 启动后，GET /monitor/native-memory/diff 查看 Other 类别增量");
         
         log.info("直接内存原理说明完成");
         return explanation;
@@ -1781,7 +1819,7 @@ public class JvmRuntimeDataAreaController {
             long beforeHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
             
             // 分配直接内存
-            java.nio.ByteBuffer directBuffer = java.nio.ByteBuffer.allocateDirect(sizeMB * 1024 * 1024);
+            java.nio.ByteBuffer directBuffer = DirectBufferTracker.allocate("chapter02.direct-memory", sizeMB * 1024 * 1024);
             directBufferHolder.add(directBuffer);
             
             long afterHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
@@ -1795,7 +1833,8 @@ public class JvmRuntimeDataAreaController {
                 "堆内存基本没有变化（只有很小的对象引用）",
                 "实际内存在堆外分配",
                 "请通过系统监控观察进程内存增长",
-                "JProfiler无法直接观测直接内存"
+                "JProfiler无法直接观测直接内存",
+                "GET /monitor/buffer-pools 按标签查看直接内存归属"
             ));
             
             log.info("成功分配{}MB直接内存", sizeMB);
@@ -1838,7 +1877,7 @@ public class JvmRuntimeDataAreaController {
             int count = 0;
             // 不断分配直接内存直到溢出
             while (true) {
-                java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocateDirect(10 * 1024 * 1024); // 10MB
+                java.nio.ByteBuffer buffer = DirectBufferTracker.allocate("chapter02.direct-oom", 10 * 1024 * 1024); // 10MB
                 directBufferHolder.add(buffer);
                 count++;
                 
@@ -1894,12 +1933,13 @@ public class JvmRuntimeDataAreaController {
     }
     
     /**
-     * 获取直接内存信息（估算）
+     * 获取直接内存信息（direct 缓冲池 + 按标签归属）
      */
     private Map<String, Object> getDirectMemoryInfo() {
         Map<String, Object> info = new LinkedHashMap<>();
         info.put("当前持有DirectBuffer数", directBufferHolder.size());
-        info.put("说明", "直接内存无法精确统计，仅显示持有的DirectBuffer数量");
+        info.putAll(DirectBufferTracker.snapshot());
+        info.put("说明", "directPool* 来自 BufferPoolMXBean，tags 为经 DirectBufferTracker 分配的按标签统计");
         return info;
     }
 
@@ -1921,64 +1961,77 @@ public class JvmRuntimeDataAreaController {
      * 1. JProfiler的Heap Walker
      * 2. 观察内存持续增长不回收
      * 3. 分析对象引用链
+     * 4. allocationProfile=true：用 JFR 分配事件直接给出分配最多的类与调用栈
      * 
+     * @param allocationProfile 是否附带 JFR 分配热点（统计全部线程，含线程池任务）
      * @return 测试结果
      */
     @PostMapping("/comprehensive/simulate-production-leak")
-    public Map<String, Object> simulateProductionMemoryLeak() {
+    public Map<String, Object> simulateProductionMemoryLeak(@RequestParam(defaultValue = "false") boolean allocationProfile) {
         log.info("============ 开始模拟生产环境内存泄漏 ============");
         
         Map<String, Object> result = new LinkedHashMap<>();
+        // 泄漏对象一部分在线程池中分配，因此统计全部线程而不只是请求线程
+        AllocationHotspotProfiler.Session profile = allocationProfile ? AllocationHotspotProfiler.start(null, 8) : null;
+        try {
+            long beforeUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
         
-        long beforeUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
-        
-        // 场景1：静态集合持续增长（最常见的泄漏原因）
-        for (int i = 0; i < 10000; i++) {
-            UserSession session = new UserSession("user_" + i, System.currentTimeMillis());
-            objectHolder.add(session); // 模拟缓存
-        }
+            // 场景1：静态集合持续增长（最常见的泄漏原因）
+            for (int i = 0; i < 10000; i++) {
+                UserSession session = new UserSession("user_" + i, System.currentTimeMillis());
+                objectHolder.add(session); // 模拟缓存
+            }
         
-        // 场景2：ThreadLocal未清理
-        ThreadLocal<List<byte[]>> threadLocal = new ThreadLocal<>();
-        for (int i = 0; i < 10; i++) {
-            executorService.submit(() -> {
-                List<byte[]> list = new ArrayList<>();
-                for (int j = 0; j < 100; j++) {
-                    list.add(new byte[1024]); // 1KB
-                }
-                threadLocal.set(list);
-                // 注意：这里故意不调用 threadLocal.remove()
-            });
-        }
+            // 场景2：ThreadLocal未清理
+            ThreadLocal<List<byte[]>> threadLocal = new ThreadLocal<>();
+            for (int i = 0; i < 10; i++) {
+                executor().submit(() -> {
+                    List<byte[]> list = new ArrayList<>();
+                    for (int j = 0; j < 100; j++) {
+                        list.add(new byte[1024]); // 1KB
+                    }
+                    threadLocal.set(list);
+                    // 注意：这里故意不调用 threadLocal.remove()
+                });
+            }
         
-        try {
-            Thread.sleep(1000); // 等待任务完成
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+            try {
+                Thread.sleep(1000); // 等待任务完成
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         
-        long afterUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            long afterUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
         
-        result.put("status", "leak_simulated");
-        result.put("泄漏前内存MB", beforeUsed / 1024 / 1024);
-        result.put("泄漏后内存MB", afterUsed / 1024 / 1024);
-        result.put("泄漏内存MB", (afterUsed - beforeUsed) / 1024 / 1024);
-        result.put("泄漏场景", List.of(
-            "场景1：静态集合持续添加对象不清理",
-            "场景2：ThreadLocal使用后未调用remove()"
-        ));
-        result.put("排查方法", List.of(
-            "1. 使用JProfiler的Heap Walker查看对象数量",
-            "2. 找出数量异常增长的对象类型",
-            "3. 使用'Biggest Objects'找出占用内存最多的对象",
-            "4. 右键对象选择'Show Selection In Heap Walker'",
-            "5. 查看'Incoming References'分析引用链",
-            "6. 找到持有对象的根源（通常是静态变量或长生命周期对象）"
-        ));
-        result.put("说明", "这些对象会一直被持有，无法被GC回收，请在JProfiler中观察");
+            result.put("status", "leak_simulated");
+            result.put("泄漏前内存MB", beforeUsed / 1024 / 1024);
+            result.put("泄漏后内存MB", afterUsed / 1024 / 1024);
+            result.put("泄漏内存MB", (afterUsed - beforeUsed) / 1024 / 1024);
+            result.put("泄漏场景", List.of(
+                "场景1：静态集合持续添加对象不清理",
+                "场景2：ThreadLocal使用后未调用remove()"
+            ));
+            result.put("排查方法", List.of(
+                "1. 使用JProfiler的Heap Walker查看对象数量",
+                "2. 找出数量异常增长的对象类型",
+                "3. 使用'Biggest Objects'找出占用内存最多的对象",
+                "4. 右键对象选择'Show Selection In Heap Walker'",
+                "5. 查看'Incoming References'分析引用链",
+                "6. 找到持有对象的根源（通常是静态变量或长生命周期对象）"
+            ));
+            result.put("说明", "这些对象会一直被持有，无法被GC回收，请在JProfiler中观察");
+            if (profile != null) {
+                result.put("allocationProfile", profile.finish(10));
+            }
         
-        log.info("内存泄漏模拟完成，泄漏了约{}MB", (afterUsed - beforeUsed) / 1024 / 1024);
-        return result;
+            log.info("内存泄漏模拟完成，泄漏了约{}MB", (afterUsed - beforeUsed) / 1024 / 1024);
+            return result;
+        } finally {
+            // 异常路径也要结束 JFR 会话，否则 RecordingStream 会一直运行；finish 可重复调用，成功路径返回同一报告
+            if (profile != null) {
+                profile.finish(10);
+            }
+        }
     }
     
     /**
@@ -2031,7 +2084,7 @@ public class JvmRuntimeDataAreaController {
         
         for (int i = 0; i < concurrentRequests; i++) {
             final int requestId = i;
-            executorService.submit(() -> {
+            executor().submit(() -> {
                 try {
                     // 模拟业务处理：创建对象、数据库操作、计算等
                     List<byte[]> localData = new ArrayList<>();
@@ -2089,6 +2142,45 @@ public class JvmRuntimeDataAreaController {
         log.info("高并发模拟完成，{}个请求耗时{}ms", concurrentRequests, executionTime);
         return result;
     }
+
+    /**
+     * 综合实验2b：高并发场景的缓冲复用对比
+     *
+     * 【实验目的】
+     * 用与综合实验2相同的负载（每请求 100 个 1KB 缓冲），对比每次新分配、线程本地池、分段共享池、单块堆外 slab 四种方式的
+     * 吞吐、p99 延迟、每请求分配字节与 GC 次数，量化池化对请求处理器的收益
+     *
+     * 【观察重点】
+     * 1. allocatedKbPerRequest：池化模式应接近 0
+     * 2. gcCountDelta / vsAllocate.gcCountSaved：Minor GC 减少了多少
+     * 3. p99Ms：GC 停顿对尾延迟的影响；thinkMs=100 可还原原实验，但吞吐将被 sleep 主导
+     *
+     * @param modes 要对比的模式，逗号分隔（allocate, thread-local, striped, off-heap-slab）
+     * @param requests 每种模式的请求数
+     * @param concurrency 并发线程数（最大 256）
+     * @param thinkMs 每请求模拟业务耗时
+     * @return 各模式的对比结果
+     */
+    @PostMapping("/comprehensive/simulate-high-concurrency/compare")
+    public Map<String, Object> compareHighConcurrencyBufferModes(
+            @RequestParam(defaultValue = "allocate,thread-local,striped,off-heap-slab") String modes,
+            @RequestParam(defaultValue = "5000") int requests,
+            @RequestParam(defaultValue = "100") int concurrency,
+            @RequestParam(defaultValue = "0") long thinkMs) {
+        log.info("============ 开始高并发缓冲复用对比 ============");
+        List<RequestBufferPoolingComparison.Mode> parsedModes = RequestBufferPoolingComparison.parseModes(modes);
+        RequestBufferPoolingComparison comparison = new RequestBufferPoolingComparison(requests, concurrency, thinkMs);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "success");
+        result.putAll(comparison.compare(parsedModes));
+        result.put("观察要点", List.of(
+            "1. allocatedKbPerRequest：池化后每请求几乎不再分配，Eden 填满速度随之下降",
+            "2. gcCountDelta：对比各模式 Minor GC 次数，即池化节省的 GC",
+            "3. p99Ms：GC 停顿落在请求内部时会抬高尾延迟",
+            "4. 代价：池中缓冲长期存活会晋升老年代；堆外 slab 不计入堆，需关注 MaxDirectMemorySize"
+        ));
+        return result;
+    }
     
     /**
      * 综合实验3：生成完整的内存分析报告
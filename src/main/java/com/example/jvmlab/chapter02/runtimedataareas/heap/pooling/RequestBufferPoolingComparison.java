@@ -0,0 +1,467 @@
+package com.example.jvmlab.chapter02.runtimedataareas.heap.pooling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：第2章高并发模拟的缓冲复用对比：同一请求负载（每请求 100 个 1KB 缓冲）分别以“每次新分配”、线程本地池、分段共享池、单块堆外 slab 四种方式运行，
+ *      报告吞吐、p50/p99 延迟、每请求分配字节与 GC 次数/耗时增量。
+ * English: Buffer reuse comparison for the chapter 02 high-concurrency simulation: the same request workload (100 x 1KB buffers per request) runs with fresh allocation,
+ *      a thread-local pool, a striped shared pool and a single off-heap slab, reporting throughput, p50/p99 latency, bytes allocated per request and GC count/time deltas.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：在决定是否为自家请求处理器引入缓冲池前，用真实数字衡量池化减少的 Minor GC 与尾延迟收益。
+ * English: Quantify the minor-GC and tail-latency benefit of pooling with real numbers before adding a buffer pool to our own request handlers.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：每种模式使用独立的定长线程池，并先跑一轮预热（不计入结果）让 JIT 与池达到稳态；模式之间调用 System.gc() 使各模式从相近的堆状态开始。
+ *      延迟为任务内的服务时间（不含排队），GC 停顿会直接体现在其中。
+ * English: Each mode uses its own fixed thread pool and runs an untimed warm-up so the JIT and pools reach steady state; System.gc() runs between modes so each starts from a similar heap.
+ *      Latency is in-task service time (queueing excluded), so GC pauses show up directly.
+ */
+@Slf4j
+public final class RequestBufferPoolingComparison {
+
+    /** 缓冲来源模式。 */
+    public enum Mode {
+        /** 中文：每请求新分配 100 个 byte[1024]（原始实现） / English: 100 fresh byte[1024] per request (original implementation) */
+        ALLOCATE,
+        /** 中文：每线程复用一组缓冲 / English: One reusable buffer set per thread */
+        THREAD_LOCAL,
+        /** 中文：分段共享池借还 / English: Borrow/return from a striped shared pool */
+        STRIPED,
+        /** 中文：单块堆外 slab 按槽位借还 / English: Slots of a single off-heap slab */
+        OFF_HEAP_SLAB
+    }
+
+    public static final int CHUNK_BYTES = 1024;
+    public static final int CHUNKS_PER_REQUEST = 100;
+    private static final int MAX_CONCURRENCY = 256;
+    private static final int MAX_REQUESTS = 1_000_000;
+
+    /** 阻止 JIT 消除缓冲写入。 */
+    private static volatile long sink;
+
+    private final int requests;
+    private final int concurrency;
+    private final long thinkMs;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，校验并保存负载参数。
+     * English: Constructor validating and storing the workload parameters.
+     *
+     * 参数 / Parameters:
+     * @param requests 中文：每种模式的请求数 / English: Requests per mode
+     * @param concurrency 中文：并发线程数（同时也是 slab 槽位数） / English: Concurrent threads (also the number of slab slots)
+     * @param thinkMs 中文：每请求模拟业务耗时，0 表示纯分配负载 / English: Simulated business time per request, 0 for a pure allocation workload
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界时抛出 IllegalArgumentException / English: IllegalArgumentException when a parameter is out of range
+     */
+    public RequestBufferPoolingComparison(int requests, int concurrency, long thinkMs) {
+        if (requests < 1 || requests > MAX_REQUESTS) {
+            throw new IllegalArgumentException("requests must be within [1, " + MAX_REQUESTS + "]: " + requests);
+        }
+        if (concurrency < 1 || concurrency > MAX_CONCURRENCY) {
+            throw new IllegalArgumentException("concurrency must be within [1, " + MAX_CONCURRENCY + "]: " + concurrency);
+        }
+        if (thinkMs < 0 || thinkMs > 1000) {
+            throw new IllegalArgumentException("thinkMs must be within [0, 1000]: " + thinkMs);
+        }
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.thinkMs = thinkMs;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：解析逗号分隔的模式列表（大小写不敏感，允许连字符）。
+     * English: Parse a comma-separated mode list (case-insensitive, hyphens allowed).
+     *
+     * 参数 / Parameters:
+     * @param modes 中文：如 "allocate,thread-local" / English: e.g. "allocate,thread-local"
+     * 返回值 / Return: 中文：去重后的模式列表 / English: De-duplicated mode list
+     *
+     * 异常 / Exceptions:
+     * 中文：未知模式或列表为空时抛出 IllegalArgumentException / English: IllegalArgumentException for unknown modes or an empty list
+     */
+    public static List<Mode> parseModes(String modes) {
+        List<Mode> parsed = new ArrayList<>();
+        for (String token : modes.split(",")) {
+            String name = token.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                Mode mode = Mode.valueOf(name);
+                if (!parsed.contains(mode)) {
+                    parsed.add(mode);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown mode: " + token.trim() + ", expected one of " + Arrays.toString(Mode.values()));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("At least one mode is required");
+        }
+        return parsed;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：依次运行各模式并汇总；包含 ALLOCATE 时为其余模式附加相对原始实现的吞吐与 p99 比值。
+     * English: Run each mode in turn and aggregate; when ALLOCATE is included, other modes also get throughput and p99 ratios against it.
+     *
+     * 参数 / Parameters:
+     * @param modes 中文：要对比的模式 / English: Modes to compare
+     * 返回值 / Return: 中文：负载描述与各模式结果 / English: Workload description and per-mode results
+     *
+     * 异常 / Exceptions:
+     * 中文：等待期间被中断时抛出 IllegalStateException（保留中断标记） / English: IllegalStateException when interrupted while waiting (interrupt flag kept)
+     */
+    public Map<String, Object> compare(List<Mode> modes) {
+        Map<String, Object> workload = new LinkedHashMap<>();
+        workload.put("requests", requests);
+        workload.put("concurrency", concurrency);
+        workload.put("thinkMs", thinkMs);
+        workload.put("bytesPerRequest", CHUNK_BYTES * CHUNKS_PER_REQUEST);
+
+        Map<Mode, Map<String, Object>> results = new LinkedHashMap<>();
+        for (Mode mode : modes) {
+            System.gc();
+            results.put(mode, run(mode));
+        }
+        Map<String, Object> baseline = results.get(Mode.ALLOCATE);
+        if (baseline != null) {
+            for (Map.Entry<Mode, Map<String, Object>> entry : results.entrySet()) {
+                if (entry.getKey() == Mode.ALLOCATE) {
+                    continue;
+                }
+                Map<String, Object> vs = new LinkedHashMap<>();
+                vs.put("throughputRatio", ratio(entry.getValue().get("throughputPerSec"), baseline.get("throughputPerSec")));
+                vs.put("p99Ratio", ratio(entry.getValue().get("p99Ms"), baseline.get("p99Ms")));
+                vs.put("gcCountSaved", (long) baseline.get("gcCountDelta") - (long) entry.getValue().get("gcCountDelta"));
+                entry.getValue().put("vsAllocate", vs);
+            }
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("workload", workload);
+        report.put("modes", results);
+        return report;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以指定模式运行一次负载：先预热（请求数的 1/10，至少 concurrency 个），再正式计时。
+     * English: Run the workload once in the given mode: a warm-up (a tenth of the requests, at least concurrency) followed by the timed run.
+     *
+     * 参数 / Parameters:
+     * @param mode 中文：缓冲来源模式 / English: Buffer source mode
+     * 返回值 / Return: 中文：吞吐、延迟分位、每请求分配字节与 GC 增量 / English: Throughput, latency percentiles, bytes allocated per request and GC deltas
+     *
+     * 异常 / Exceptions:
+     * 中文：等待期间被中断时抛出 IllegalStateException（保留中断标记） / English: IllegalStateException when interrupted while waiting (interrupt flag kept)
+     */
+    public Map<String, Object> run(Mode mode) {
+        BufferSource source = newSource(mode);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, task -> {
+            Thread thread = new Thread(task, "pooling-" + mode.name().toLowerCase(Locale.ROOT) + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            runBatch(executor, source, Math.max(concurrency, requests / 10), null, null);
+
+            List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+            Map<String, long[]> gcBefore = gcSnapshot(gcBeans);
+            long[] latencies = new long[requests];
+            LongAdder allocatedBytes = new LongAdder();
+            long start = System.nanoTime();
+            runBatch(executor, source, requests, latencies, allocatedBytes);
+            long wallNanos = System.nanoTime() - start;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("wallMs", TimeUnit.NANOSECONDS.toMillis(wallNanos));
+            result.put("throughputPerSec", round2(requests / (wallNanos / 1_000_000_000d)));
+            Arrays.sort(latencies);
+            result.put("p50Ms", nanosToMs(percentile(latencies, 0.50)));
+            result.put("p99Ms", nanosToMs(percentile(latencies, 0.99)));
+            result.put("maxMs", nanosToMs(latencies[latencies.length - 1]));
+            result.put("allocatedKbPerRequest", allocationTrackingEnabled()
+                    ? round2(allocatedBytes.sum() / 1024d / requests) : "unsupported");
+            long gcCount = 0;
+            long gcTime = 0;
+            Map<String, Map<String, Long>> byCollector = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> entry : gcSnapshot(gcBeans).entrySet()) {
+                long[] before = gcBefore.getOrDefault(entry.getKey(), new long[2]);
+                Map<String, Long> delta = new LinkedHashMap<>();
+                delta.put("countDelta", entry.getValue()[0] - before[0]);
+                delta.put("timeMsDelta", entry.getValue()[1] - before[1]);
+                byCollector.put(entry.getKey(), delta);
+                gcCount += entry.getValue()[0] - before[0];
+                gcTime += entry.getValue()[1] - before[1];
+            }
+            result.put("gcCountDelta", gcCount);
+            result.put("gcTimeMsDelta", gcTime);
+            result.put("gcByCollector", byCollector);
+            source.describe(result);
+            log.info("缓冲模式 {} 完成: {} 请求, 吞吐 {}/s, p99 {}ms, GC {} 次", mode, requests,
+                    result.get("throughputPerSec"), result.get("p99Ms"), gcCount);
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：运行 count 个请求：只向线程池提交 concurrency 个工作任务，各自从共享计数器领取请求编号，队列中最多 concurrency 个任务，不会为百万请求预先排队百万个 lambda。
+     * English: Run count requests by submitting only concurrency worker tasks that claim request ids from a shared counter, so the queue holds at most concurrency tasks instead of a million queued lambdas for a million requests.
+     *
+     * 参数 / Parameters:
+     * @param executor 中文：固定大小线程池 / English: Fixed-size pool
+     * @param source 中文：缓冲来源 / English: Buffer source
+     * @param count 中文：请求数 / English: Request count
+     * @param latencies 中文：按请求编号写入的服务延迟，预热时为 null / English: Per-request service latency by id, null during warm-up
+     * @param allocatedBytes 中文：分配字节累加器，预热时为 null / English: Allocated bytes accumulator, null during warm-up
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 中文：等待期间被中断时抛出 IllegalStateException / English: IllegalStateException when interrupted while waiting
+     */
+    private void runBatch(ExecutorService executor, BufferSource source, int count, long[] latencies, LongAdder allocatedBytes) {
+        int workers = Math.min(concurrency, count);
+        CountDownLatch latch = new CountDownLatch(workers);
+        AtomicInteger nextRequest = new AtomicInteger();
+        LongAdder checksums = new LongAdder();
+        boolean trackAllocation = allocatedBytes != null && allocationTrackingEnabled();
+        com.sun.management.ThreadMXBean threadBean = trackAllocation
+                ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+        for (int w = 0; w < workers; w++) {
+            executor.execute(() -> {
+                try {
+                    int requestId;
+                    while ((requestId = nextRequest.getAndIncrement()) < count) {
+                        long allocatedBefore = trackAllocation ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+                        long start = System.nanoTime();
+                        checksums.add(source.handle(requestId));
+                        if (thinkMs > 0) {
+                            Thread.sleep(thinkMs);
+                        }
+                        if (latencies != null) {
+                            latencies[requestId] = System.nanoTime() - start;
+                        }
+                        if (trackAllocation) {
+                            allocatedBytes.add(threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workload", e);
+        }
+        sink = checksums.sum();
+    }
+
+    private BufferSource newSource(Mode mode) {
+        switch (mode) {
+            case THREAD_LOCAL:
+                return new ThreadLocalSource();
+            case STRIPED:
+                return new StripedSource(new StripedBufferPool(CHUNK_BYTES, concurrency * CHUNKS_PER_REQUEST));
+            case OFF_HEAP_SLAB:
+                return new SlabSource(concurrency);
+            case ALLOCATE:
+            default:
+                return new AllocatingSource();
+        }
+    }
+
+    private static boolean allocationTrackingEnabled() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+    }
+
+    private static Map<String, long[]> gcSnapshot(List<GarbageCollectorMXBean> beans) {
+        Map<String, long[]> snapshot = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean bean : beans) {
+            snapshot.put(bean.getName(), new long[]{Math.max(0, bean.getCollectionCount()), Math.max(0, bean.getCollectionTime())});
+        }
+        return snapshot;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double nanosToMs(long nanos) {
+        return Math.round(nanos / 1_000d) / 1_000d;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100d;
+    }
+
+    private static double ratio(Object value, Object baseline) {
+        double base = ((Number) baseline).doubleValue();
+        return base == 0 ? 0 : round2(((Number) value).doubleValue() / base);
+    }
+
+    /** 写满一个堆内缓冲并取一个字节作为校验值。 */
+    private static long touch(byte[] chunk, int requestId) {
+        Arrays.fill(chunk, (byte) requestId);
+        return chunk[requestId & (CHUNK_BYTES - 1)];
+    }
+
+    /** 一种缓冲来源：处理一个请求并返回校验值。 */
+    private interface BufferSource {
+        long handle(int requestId);
+
+        default void describe(Map<String, Object> result) {
+        }
+    }
+
+    private static final class AllocatingSource implements BufferSource {
+        @Override
+        public long handle(int requestId) {
+            List<byte[]> localData = new ArrayList<>(CHUNKS_PER_REQUEST);
+            long checksum = 0;
+            for (int j = 0; j < CHUNKS_PER_REQUEST; j++) {
+                byte[] chunk = new byte[CHUNK_BYTES];
+                checksum += touch(chunk, requestId);
+                localData.add(chunk);
+            }
+            return checksum + localData.size();
+        }
+    }
+
+    private static final class ThreadLocalSource implements BufferSource {
+        private final ThreadLocal<byte[][]> buffers = ThreadLocal.withInitial(() -> new byte[CHUNKS_PER_REQUEST][CHUNK_BYTES]);
+
+        @Override
+        public long handle(int requestId) {
+            long checksum = 0;
+            for (byte[] chunk : buffers.get()) {
+                checksum += touch(chunk, requestId);
+            }
+            return checksum;
+        }
+    }
+
+    private static final class StripedSource implements BufferSource {
+        private final StripedBufferPool pool;
+        private final ThreadLocal<byte[][]> borrowed = ThreadLocal.withInitial(() -> new byte[CHUNKS_PER_REQUEST][]);
+
+        private StripedSource(StripedBufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public long handle(int requestId) {
+            // 中文：借用记录数组按线程复用，使本模式的分配只来自池未命中
+            // English: The borrow-record array is reused per thread so this mode only allocates on pool misses
+            byte[][] chunks = borrowed.get();
+            long checksum = 0;
+            try {
+                for (int j = 0; j < CHUNKS_PER_REQUEST; j++) {
+                    chunks[j] = pool.borrow();
+                    checksum += touch(chunks[j], requestId);
+                }
+            } finally {
+                for (int j = 0; j < CHUNKS_PER_REQUEST; j++) {
+                    pool.release(chunks[j]);
+                    chunks[j] = null;
+                }
+            }
+            return checksum;
+        }
+
+        @Override
+        public void describe(Map<String, Object> result) {
+            result.put("pooledBuffers", pool.size());
+            result.put("stripes", pool.getStripeCount());
+        }
+    }
+
+    private static final class SlabSource implements BufferSource {
+        private static final int SLOT_BYTES = CHUNK_BYTES * CHUNKS_PER_REQUEST;
+
+        private final BlockingQueue<ByteBuffer> freeSlots;
+        private final ThreadLocal<byte[]> staging = ThreadLocal.withInitial(() -> new byte[CHUNK_BYTES]);
+        private final int slabBytes;
+
+        private SlabSource(int slots) {
+            ByteBuffer slab = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+            this.slabBytes = slab.capacity();
+            this.freeSlots = new ArrayBlockingQueue<>(slots);
+            // 中文：槽位视图预先切好，运行期借还不产生任何对象
+            // English: Slot views are sliced up front so borrowing and returning allocates nothing at run time
+            for (int i = 0; i < slots; i++) {
+                freeSlots.add(slab.slice(i * SLOT_BYTES, SLOT_BYTES));
+            }
+        }
+
+        @Override
+        public long handle(int requestId) {
+            ByteBuffer slot;
+            try {
+                slot = freeSlots.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+            try {
+                // 中文：先在线程本地的 1KB 堆内块里写好内容，再批量拷贝到槽位（等价于编码后写出到堆外缓冲）
+                // English: Fill a thread-local 1KB heap chunk, then bulk-copy it into the slot (like encoding and writing out to an off-heap buffer)
+                byte[] staging = this.staging.get();
+                Arrays.fill(staging, (byte) requestId);
+                for (int j = 0; j < CHUNKS_PER_REQUEST; j++) {
+                    slot.put(j * CHUNK_BYTES, staging);
+                }
+                long checksum = 0;
+                for (int j = 0; j < CHUNKS_PER_REQUEST; j++) {
+                    checksum += slot.get(j * CHUNK_BYTES + (requestId & (CHUNK_BYTES - 1)));
+                }
+                return checksum;
+            } finally {
+                freeSlots.add(slot);
+            }
+        }
+
+        @Override
+        public void describe(Map<String, Object> result) {
+            result.put("slabMb", round2(slabBytes / 1024d / 1024d));
+        }
+    }
+}
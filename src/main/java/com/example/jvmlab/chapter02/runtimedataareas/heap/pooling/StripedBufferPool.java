@@ -0,0 +1,118 @@
+package com.example.jvmlab.chapter02.runtimedataareas.heap.pooling;
+
+import java.util.ArrayDeque;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：分段（striped）的定长 byte[] 缓冲池：按线程 ID 选择分段，每个分段独立加锁，池空时现场分配，归还时超过上限的缓冲直接丢弃。
+ * English: Striped pool of fixed-size byte[] buffers: a stripe is chosen by thread ID and locked independently; an empty stripe allocates on demand and buffers beyond the cap are dropped on release.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：线程数远多于 CPU、线程本地池会囤积过多缓冲时（如 Tomcat 200 线程），用有限的共享池复用请求缓冲。
+ * English: When threads far outnumber CPUs and thread-local pools would hoard buffers (e.g. 200 Tomcat threads), reuse request buffers from a bounded shared pool.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：分段数取 CPU 数的 2 倍并向上取 2 的幂，锁竞争随分段摊薄；池中缓冲长期存活会晋升到老年代，这正是池化减少 Minor GC 的代价。
+ * English: Stripe count is twice the CPU count rounded up to a power of two so lock contention is spread out; pooled buffers live long and get promoted to old gen, which is the price paid for fewer minor GCs.
+ */
+public final class StripedBufferPool {
+
+    private final int bufferBytes;
+    private final int maxPerStripe;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，按缓冲大小与池容量上限创建分段。
+     * English: Constructor creating stripes for the buffer size and total capacity cap.
+     *
+     * 参数 / Parameters:
+     * @param bufferBytes 中文：单个缓冲字节数 / English: Bytes per buffer
+     * @param maxBuffers 中文：池内最多保留的缓冲数（均分到各分段） / English: Max buffers kept in the pool (split across stripes)
+     *
+     * 异常 / Exceptions:
+     * 中文：参数不大于 0 时抛出 IllegalArgumentException / English: IllegalArgumentException when a parameter is not positive
+     */
+    public StripedBufferPool(int bufferBytes, int maxBuffers) {
+        if (bufferBytes <= 0 || maxBuffers <= 0) {
+            throw new IllegalArgumentException("bufferBytes and maxBuffers must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        this.bufferBytes = bufferBytes;
+        this.maxPerStripe = Math.max(1, maxBuffers / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：借出一个缓冲；当前分段为空时新分配（池会随负载自然“预热”）。缓冲内容未清零，调用方需自行覆盖。
+     * English: Borrow a buffer; allocates a new one when the stripe is empty (the pool warms up under load). Contents are not zeroed and must be overwritten by the caller.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：缓冲 / English: Buffer
+     * 异常 / Exceptions: 无
+     */
+    public byte[] borrow() {
+        Stripe stripe = stripe();
+        byte[] buffer;
+        synchronized (stripe) {
+            buffer = stripe.free.pollLast();
+        }
+        return buffer != null ? buffer : new byte[bufferBytes];
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：归还缓冲；尺寸不符或分段已满时丢弃，交给 GC 回收。
+     * English: Return a buffer; it is dropped for GC when the size does not match or the stripe is full.
+     *
+     * 参数 / Parameters:
+     * @param buffer 中文：借出的缓冲 / English: Borrowed buffer
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferBytes) {
+            return;
+        }
+        Stripe stripe = stripe();
+        synchronized (stripe) {
+            if (stripe.free.size() < maxPerStripe) {
+                stripe.free.addLast(buffer);
+            }
+        }
+    }
+
+    /** 当前池中空闲缓冲总数。 */
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.free.size();
+            }
+        }
+        return total;
+    }
+
+    /** 分段数量。 */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private Stripe stripe() {
+        long id = Thread.currentThread().getId();
+        // 中文：混合高低位，避免连续线程 ID 只落在少数分段
+        // English: Mix high and low bits so consecutive thread IDs do not cluster on a few stripes
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash >>> 16) & mask];
+    }
+
+    private static final class Stripe {
+        private final ArrayDeque<byte[]> free = new ArrayDeque<>();
+    }
+}
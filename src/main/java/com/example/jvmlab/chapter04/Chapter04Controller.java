@@ -1,14 +1,20 @@
 package com.example.jvmlab.chapter04;
 
 import com.example.jvmlab.common.JvmMemoryMonitor;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -50,25 +56,71 @@ public class Chapter04Controller {
 
     /**
      * 方法说明 / Method Description:
-     * 中文：生成线程快照信息，模拟 jstack 功能。
-     * English: Generate thread dump information, simulating jstack.
+     * 中文：线程概况：线程总数、守护线程数、峰值与各状态计数，不抓取任何栈，可高频调用。
+     * English: Thread overview: totals, daemon and peak counts plus per-state counts, without capturing any stack, so it is safe to poll.
      *
      * 参数 / Parameters: 无
-     * 返回值 / Return: 中文：线程信息 Map / English: Thread information map
+     * 返回值 / Return: 中文：线程概况 Map / English: Thread overview map
      * 异常 / Exceptions: 无
      */
-    @GetMapping("/thread-dump")
-    public Map<String, Object> getThreadDump() {
-        log.info("生成线程快照 Generating thread dump");
+    @GetMapping("/thread-dump/summary")
+    public Map<String, Object> getThreadDumpSummary() {
+        log.info("生成线程概况 Generating thread summary");
         ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
-        ThreadInfo[] threadInfos = threadMXBean.dumpAllThreads(true, true);
+        Map<Thread.State, Integer> stateCounts = new EnumMap<>(Thread.State.class);
+        for (ThreadInfo info : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds(), 0)) {
+            if (info != null) {
+                stateCounts.merge(info.getThreadState(), 1, Integer::sum);
+            }
+        }
+        long[] deadlocked = threadMXBean.findDeadlockedThreads();
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("threadCount", threadMXBean.getThreadCount());
         result.put("daemonCount", threadMXBean.getDaemonThreadCount());
-        result.put("threads", threadInfos);
+        result.put("peakThreadCount", threadMXBean.getPeakThreadCount());
+        result.put("totalStartedThreadCount", threadMXBean.getTotalStartedThreadCount());
+        result.put("stateCounts", stateCounts);
+        result.put("deadlockedThreads", deadlocked == null ? 0 : deadlocked.length);
         return result;
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：流式线程快照，模拟 jstack：按状态与名称前缀筛选、分页、限制栈深，或按相同栈聚合计数；在请求线程上边取栈边写出。
+     * English: Streaming thread dump simulating jstack: filter by state and name prefix, page, limit stack depth, or group identical stacks with counts; stacks are fetched and written incrementally on the request thread.
+     *
+     * 参数 / Parameters:
+     * @param states 中文：逗号分隔的线程状态 / English: Comma-separated thread states
+     * @param namePrefix 中文：线程名前缀 / English: Thread name prefix
+     * @param maxDepth 中文：每线程最多帧数 / English: Max frames per thread
+     * @param page 中文：页号（从 0 开始） / English: Page number (from 0)
+     * @param size 中文：每页线程数或分组数 / English: Threads or groups per page
+     * @param locks 中文：是否输出持有的锁 / English: Whether to include held locks
+     * @param groupByStack 中文：是否按相同栈聚合 / English: Whether to group identical stacks
+     * @param response 中文：HTTP 响应 / English: HTTP response
+     *
+     * 返回值 / Return: 无（JSON 直接写入响应体） / None (JSON is written to the response body)
+     * 异常 / Exceptions:
+     * 中文：参数非法时抛出 IllegalArgumentException；写出失败时抛出 IOException
+     * English: IllegalArgumentException for invalid parameters; IOException when writing fails
+     */
+    @GetMapping("/thread-dump")
+    public void streamThreadDump(@RequestParam(required = false) String states,
+                                 @RequestParam(required = false) String namePrefix,
+                                 @RequestParam(defaultValue = "32") int maxDepth,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "100") int size,
+                                 @RequestParam(defaultValue = "false") boolean locks,
+                                 @RequestParam(defaultValue = "false") boolean groupByStack,
+                                 HttpServletResponse response) throws IOException {
+        ThreadDumpWriter writer = new ThreadDumpWriter(states, namePrefix, maxDepth, page, size, locks, groupByStack);
+        log.info("生成线程快照 Streaming thread dump, states={} prefix={} page={} size={} group={}",
+                states, namePrefix, page, size, groupByStack);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        writer.write(response.getOutputStream());
+    }
+
     /**
      * 获取内存与GC监控信息，为性能分析提供入口。
      *
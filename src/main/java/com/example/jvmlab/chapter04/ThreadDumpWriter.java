@@ -0,0 +1,281 @@
+package com.example.jvmlab.chapter04;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：轻量线程快照写出器：先用无栈的 ThreadInfo 按状态与名称前缀筛选并分页，再只为当前页的线程分批取栈，边取边以 JSON 流式写出；也可按“状态 + 栈”聚合相同线程并计数。
+ * English: Lightweight thread dump writer: filters and pages threads by state and name prefix using stackless ThreadInfo, then fetches stacks only for the current page in batches and streams them out as JSON; can also group threads with an identical state and stack and count them.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：thread-oom 场景创建了上千个线程后，/chapter04/thread-dump?groupByStack=true 一眼看出它们停在同一处；或按 states=BLOCKED 翻页排查锁竞争。
+ * English: After the thread-oom scenario creates thousands of threads, /chapter04/thread-dump?groupByStack=true shows at a glance that they are parked at the same spot; or page through states=BLOCKED to chase lock contention.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：JVM 已处于困境时诊断仍需可用：不调用 dumpAllThreads，不把全部 ThreadInfo 交给 Jackson 反射序列化；内存占用与单批线程数成正比（聚合模式与不同栈的数量成正比），
+ *      并在调用线程上直接写出，不依赖额外线程。
+ * English: Diagnostics must stay usable when the JVM is already in trouble: no dumpAllThreads and no reflective Jackson serialization of every ThreadInfo; memory is proportional to one batch (to the number of distinct stacks in group mode),
+ *      and output is written on the calling thread without needing extra threads.
+ */
+public final class ThreadDumpWriter {
+
+    public static final int MAX_DEPTH = 1024;
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int BATCH = 64;
+    private static final int SAMPLE_NAMES = 5;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Set<Thread.State> states;
+    private final String namePrefix;
+    private final int maxDepth;
+    private final int page;
+    private final int size;
+    private final boolean locks;
+    private final boolean groupByStack;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，校验查询参数；参数错误在写出任何字节之前抛出。
+     * English: Constructor validating the query; parameter errors are raised before any byte is written.
+     *
+     * 参数 / Parameters:
+     * @param states 中文：逗号分隔的线程状态，如 BLOCKED,WAITING；空表示全部 / English: Comma-separated thread states, e.g. BLOCKED,WAITING; blank for all
+     * @param namePrefix 中文：线程名前缀，空表示不过滤 / English: Thread name prefix, blank for no filter
+     * @param maxDepth 中文：每线程最多帧数（0..1024） / English: Max frames per thread (0..1024)
+     * @param page 中文：页号，从 0 开始 / English: Page number starting at 0
+     * @param size 中文：每页线程数或栈分组数（1..1000） / English: Threads or stack groups per page (1..1000)
+     * @param locks 中文：是否输出持有的监视器与同步器（需额外开销） / English: Whether to include held monitors and synchronizers (extra cost)
+     * @param groupByStack 中文：是否按状态 + 栈聚合 / English: Whether to group by state + stack
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界或状态名非法时抛出 IllegalArgumentException / English: IllegalArgumentException for out-of-range values or unknown states
+     */
+    public ThreadDumpWriter(String states, String namePrefix, int maxDepth, int page, int size,
+                            boolean locks, boolean groupByStack) {
+        if (maxDepth < 0 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth must be within [0, " + MAX_DEPTH + "]: " + maxDepth);
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative: " + page);
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be within [1, " + MAX_PAGE_SIZE + "]: " + size);
+        }
+        this.states = parseStates(states);
+        this.namePrefix = namePrefix == null ? "" : namePrefix;
+        this.maxDepth = maxDepth;
+        this.page = page;
+        this.size = size;
+        this.locks = locks;
+        this.groupByStack = groupByStack;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：把快照以 JSON 写入输出流：先写线程总数与匹配数，再逐批写出当前页的线程（或栈分组），每批后刷新。
+     * English: Write the dump as JSON: thread totals and match count first, then the current page of threads (or stack groups) batch by batch, flushing after each batch.
+     *
+     * 参数 / Parameters:
+     * @param out 中文：输出流（不会被关闭） / English: Output stream (left open)
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 中文：写出失败时抛出 IOException / English: IOException when writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+        long[] matched = matchingThreadIds();
+        try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartObject();
+            json.writeNumberField("threadCount", threadBean.getThreadCount());
+            json.writeNumberField("daemonCount", threadBean.getDaemonThreadCount());
+            json.writeNumberField("peakThreadCount", threadBean.getPeakThreadCount());
+            json.writeNumberField("matched", matched.length);
+            json.writeNumberField("page", page);
+            json.writeNumberField("size", size);
+            json.writeNumberField("maxDepth", maxDepth);
+            if (groupByStack) {
+                writeGroups(json, matched);
+            } else {
+                writeThreads(json, matched);
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private long[] matchingThreadIds() {
+        long[] ids = threadBean.getAllThreadIds();
+        List<Long> matched = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += BATCH * 16) {
+            // 中文：深度 0 只取名称与状态，不遍历栈
+            // English: Depth 0 fetches names and states only, without walking stacks
+            long[] batch = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + BATCH * 16));
+            for (ThreadInfo info : threadBean.getThreadInfo(batch, 0)) {
+                if (info != null && states.contains(info.getThreadState()) && info.getThreadName().startsWith(namePrefix)) {
+                    matched.add(info.getThreadId());
+                }
+            }
+        }
+        return matched.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private void writeThreads(JsonGenerator json, long[] matched) throws IOException {
+        int from = (int) Math.min((long) page * size, matched.length);
+        int to = Math.min(matched.length, from + size);
+        json.writeNumberField("totalPages", (matched.length + size - 1) / size);
+        json.writeArrayFieldStart("threads");
+        int vanished = 0;
+        for (int start = from; start < to; start += BATCH) {
+            long[] batch = Arrays.copyOfRange(matched, start, Math.min(to, start + BATCH));
+            for (ThreadInfo info : fetch(batch)) {
+                if (info == null) {
+                    vanished++;
+                    continue;
+                }
+                writeThread(json, info);
+            }
+            json.flush();
+        }
+        json.writeEndArray();
+        json.writeNumberField("vanished", vanished);
+    }
+
+    private void writeGroups(JsonGenerator json, long[] matched) throws IOException {
+        Map<String, StackGroup> groups = new LinkedHashMap<>();
+        for (int start = 0; start < matched.length; start += BATCH) {
+            long[] batch = Arrays.copyOfRange(matched, start, Math.min(matched.length, start + BATCH));
+            for (ThreadInfo info : threadBean.getThreadInfo(batch, maxDepth)) {
+                if (info == null) {
+                    continue;
+                }
+                StackTraceElement[] stack = info.getStackTrace();
+                String key = info.getThreadState() + "\n" + Arrays.toString(stack);
+                StackGroup group = groups.computeIfAbsent(key, k -> new StackGroup(info.getThreadState(), stack));
+                group.count++;
+                if (group.names.size() < SAMPLE_NAMES) {
+                    group.names.add(info.getThreadName());
+                }
+            }
+        }
+        List<StackGroup> sorted = new ArrayList<>(groups.values());
+        sorted.sort((a, b) -> Integer.compare(b.count, a.count));
+        int from = (int) Math.min((long) page * size, sorted.size());
+        int to = Math.min(sorted.size(), from + size);
+        json.writeNumberField("distinctStacks", sorted.size());
+        json.writeNumberField("totalPages", (sorted.size() + size - 1) / size);
+        json.writeArrayFieldStart("groups");
+        for (StackGroup group : sorted.subList(from, to)) {
+            json.writeStartObject();
+            json.writeNumberField("count", group.count);
+            json.writeStringField("state", group.state.name());
+            json.writeArrayFieldStart("sampleThreads");
+            for (String name : group.names) {
+                json.writeString(name);
+            }
+            json.writeEndArray();
+            writeStack(json, group.stack);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private ThreadInfo[] fetch(long[] ids) {
+        if (!locks) {
+            return threadBean.getThreadInfo(ids, maxDepth);
+        }
+        return threadBean.getThreadInfo(ids, threadBean.isObjectMonitorUsageSupported(),
+                threadBean.isSynchronizerUsageSupported(), maxDepth);
+    }
+
+    private void writeThread(JsonGenerator json, ThreadInfo info) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", info.getThreadId());
+        json.writeStringField("name", info.getThreadName());
+        json.writeStringField("state", info.getThreadState().name());
+        json.writeBooleanField("daemon", info.isDaemon());
+        json.writeNumberField("priority", info.getPriority());
+        json.writeBooleanField("inNative", info.isInNative());
+        json.writeNumberField("blockedCount", info.getBlockedCount());
+        json.writeNumberField("waitedCount", info.getWaitedCount());
+        if (info.getLockName() != null) {
+            json.writeStringField("lockName", info.getLockName());
+        }
+        if (info.getLockOwnerName() != null) {
+            json.writeStringField("lockOwnerName", info.getLockOwnerName());
+            json.writeNumberField("lockOwnerId", info.getLockOwnerId());
+        }
+        StackTraceElement[] stack = info.getStackTrace();
+        writeStack(json, stack);
+        json.writeBooleanField("stackTruncated", maxDepth > 0 && stack.length == maxDepth);
+        if (locks) {
+            json.writeArrayFieldStart("lockedMonitors");
+            for (MonitorInfo monitor : info.getLockedMonitors()) {
+                json.writeString(monitor + " @ frame " + monitor.getLockedStackDepth());
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("lockedSynchronizers");
+            for (LockInfo lock : info.getLockedSynchronizers()) {
+                json.writeString(lock.toString());
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeStack(JsonGenerator json, StackTraceElement[] stack) throws IOException {
+        json.writeArrayFieldStart("stack");
+        for (StackTraceElement frame : stack) {
+            json.writeString(frame.toString());
+        }
+        json.writeEndArray();
+    }
+
+    private static Set<Thread.State> parseStates(String states) {
+        if (states == null || states.isBlank()) {
+            return EnumSet.allOf(Thread.State.class);
+        }
+        Set<Thread.State> parsed = EnumSet.noneOf(Thread.State.class);
+        for (String token : states.split(",")) {
+            String name = token.trim().toUpperCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(Thread.State.valueOf(name));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown thread state: " + token.trim()
+                        + ", expected one of " + Arrays.toString(Thread.State.values()));
+            }
+        }
+        return parsed.isEmpty() ? EnumSet.allOf(Thread.State.class) : parsed;
+    }
+
+    private static final class StackGroup {
+        private final Thread.State state;
+        private final StackTraceElement[] stack;
+        private final List<String> names = new ArrayList<>(SAMPLE_NAMES);
+        private int count;
+
+        private StackGroup(Thread.State state, StackTraceElement[] stack) {
+            this.state = state;
+            this.stack = stack;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.jvmlab.common;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：AppCDS（应用类数据共享）工具：报告当前 JVM 是否映射了共享归档、使用哪个归档文件，并判断类路径能否生成动态归档。
+ * English: AppCDS (application class data sharing) helper: reports whether this JVM mapped a shared archive and which archive file it uses, and whether the class path allows dumping a dynamic archive.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：启动报告打印 CDS 状态与启动耗时；子 JVM 进程池据此决定能否用 -XX:ArchiveClassesAtExit 训练工作进程归档。
+ * English: The startup report prints the CDS state next to time-to-ready; the child JVM pool uses it to decide whether a worker archive can be trained with -XX:ArchiveClassesAtExit.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：JDK 17 的动态归档只收录 jar 中的类，类路径含非空目录（如 target/classes）时 JVM 直接拒绝启动，因此训练前必须先检查。
+ * English: JDK 17 dynamic archives only cover classes from jars and the JVM refuses to start when the class path holds a non-empty directory (such as target/classes), so this has to be checked before training.
+ */
+public final class AppCdsSupport {
+
+    private AppCdsSupport() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回当前 JVM 的 CDS 状态：是否启用共享、SharedArchiveFile、ArchiveClassesAtExit（训练模式）以及类路径能否生成动态归档。
+     * English: Return this JVM's CDS state: whether sharing is on, SharedArchiveFile, ArchiveClassesAtExit (training mode) and whether the class path allows a dynamic archive.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：状态字典 / English: Status map
+     * 异常 / Exceptions: 无
+     */
+    public static Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        // 中文：HotSpot 映射了归档时 java.vm.info 含 "sharing"（包括 JDK 自带的默认归档）
+        // English: HotSpot reports "sharing" in java.vm.info when an archive is mapped (including the JDK's default archive)
+        status.put("sharingEnabled", String.valueOf(System.getProperty("java.vm.info")).contains("sharing"));
+        status.put("sharedArchiveFile", vmOption("SharedArchiveFile"));
+        status.put("archiveClassesAtExit", vmOption("ArchiveClassesAtExit"));
+        status.put("classPathArchivable", isArchivableClassPath(System.getProperty("java.class.path", "")));
+        return status;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：判断类路径能否用于动态归档：每一项都必须是 jar 文件、不存在的路径或空目录。
+     * English: Whether a class path can be used for a dynamic archive: every entry must be a jar file, a missing path or an empty directory.
+     *
+     * 参数 / Parameters:
+     * @param classPath 中文：以平台分隔符连接的类路径 / English: Class path joined by the platform separator
+     *
+     * 返回值 / Return: 中文：能否生成归档 / English: Whether an archive can be dumped
+     * 异常 / Exceptions: 无
+     */
+    public static boolean isArchivableClassPath(String classPath) {
+        if (classPath == null || classPath.isBlank()) {
+            return false;
+        }
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path path = Paths.get(entry);
+            if (Files.isDirectory(path) && !isEmptyDirectory(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmptyDirectory(Path dir) {
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.findAny().isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** 读取 HotSpot 选项，空值或不可用时返回 null。 */
+    private static String vmOption(String name) {
+        try {
+            String value = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+            return value == null || value.isEmpty() ? null : value;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.jvmlab.common;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：容器资源报告器，从 /sys/fs/cgroup 读取 cgroup v1/v2 的内存上限与用量、CPU 配额/周期与限流计数，并与堆、直接内存、元空间等 JVM 上限对照。
+ * English: Container resource reporter that reads cgroup v1/v2 memory limit and usage, CPU quota/period and throttling counters from /sys/fs/cgroup and correlates them with heap, direct memory, metaspace and other JVM limits.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：进程被内核 OOM Killer 杀掉（退出码 137）时 JVM 不会留下 OutOfMemoryError；需要事先比较“堆 + 非堆最坏占用”与容器上限。
+ * English: When the kernel OOM killer ends the process (exit code 137) the JVM leaves no OutOfMemoryError; the worst-case heap plus non-heap footprint has to be compared with the container limit beforehand.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：report() 每次只读取少量伪文件，不缓存；高频轮询方使用 limits() 缓存不变的上限，只按次读取用量；cgroup 根目录与 /proc/self/cgroup 可注入以便用伪造目录测试。
+ * English: report() reads only a handful of pseudo files per call without caching; frequent pollers cache the fixed limits from limits() and read only usage per call; the cgroup root and /proc/self/cgroup are injectable so fake trees can be used in tests.
+ */
+public final class CgroupResourceReporter {
+
+    /** cgroup v1 以接近 Long.MAX_VALUE 的页对齐值表示不限制，超过该阈值视为无上限。 */
+    private static final long UNLIMITED_THRESHOLD = 1L << 62;
+    /** 堆占容器上限超过该比例时，留给本地内存的空间通常不足。 */
+    private static final double HEAP_SHARE_WARNING_PERCENT = 75.0;
+    /** 被限流周期占比超过该值时告警。 */
+    private static final double THROTTLED_WARNING_PERCENT = 10.0;
+    /** 每线程已提交栈的估算值（KB）：栈按页按需提交，典型请求线程的调用深度只触及几十到一两百 KB。 */
+    static final long STACK_COMMIT_ESTIMATE_KB = 256;
+
+    private final Path root;
+    private final Path selfCgroup;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：读取当前进程所在的 cgroup。
+     * English: Report on the cgroup of the current process.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public CgroupResourceReporter() {
+        this(Paths.get("/sys/fs/cgroup"), Paths.get("/proc/self/cgroup"));
+    }
+
+    CgroupResourceReporter(Path root, Path selfCgroup) {
+        this.root = root;
+        this.selfCgroup = selfCgroup;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：生成容器资源报告：cgroup 内存与 CPU、JVM 各区域上限、最坏占用与容器上限的差距及告警。
+     * English: Build the container resource report: cgroup memory and CPU, JVM area limits, worst-case footprint versus the container limit, and warnings.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：报告 Map（字节值均为原始字节，-1 表示无上限或不可读） / English: Report map (byte values are raw bytes, -1 means unlimited or unreadable)
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        String version = detectVersion();
+        result.put("cgroupVersion", version);
+        Map<String, Object> memory = new LinkedHashMap<>();
+        Map<String, Object> cpu = new LinkedHashMap<>();
+        if ("v2".equals(version)) {
+            readV2(memory, cpu);
+        } else if ("v1".equals(version)) {
+            readV1(memory, cpu);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        cpu.put("availableProcessors", processors);
+        result.put("memory", memory);
+        result.put("cpu", cpu);
+
+        Map<String, Object> jvm = jvmLimits();
+        result.put("jvm", jvm);
+
+        long limit = (long) memory.getOrDefault("limitBytes", -1L);
+        long footprint = (long) jvm.get("worstCaseFootprintBytes");
+        Map<String, Object> headroom = new LinkedHashMap<>();
+        headroom.put("containerLimitBytes", limit);
+        headroom.put("worstCaseFootprintBytes", footprint);
+        headroom.put("headroomBytes", limit > 0 ? limit - footprint : -1);
+        headroom.put("heapSharePercent", limit > 0 ? percent((long) jvm.get("heapMaxBytes"), limit) : "N/A");
+        result.put("headroom", headroom);
+        result.put("warnings", warnings(memory, cpu, jvm, limit, footprint, processors));
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：只读取进程生命周期内不变的部分：cgroup 版本、内存上限、CPU 配额，以及内存用量文件的位置；供高频轮询的接口缓存后按需读取用量。
+     * English: Read only what stays fixed for the life of the process: cgroup version, memory limit, CPU quota and where the memory usage file is, so frequently polled endpoints can cache it and read usage on demand.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：容器上限 / English: Container limits
+     * 异常 / Exceptions: 无
+     */
+    public Limits limits() {
+        String version = detectVersion();
+        if ("v2".equals(version)) {
+            Path dir = resolve(root, controllerPath(""));
+            String[] max = readString(dir.resolve("cpu.max")).split("\\s+");
+            return new Limits(version, minOverAncestors(root, dir, "memory.max"), dir.resolve("memory.current"),
+                    max.length == 2 ? parseLimit(max[0]) : -1, max.length == 2 ? parseLimit(max[1]) : -1);
+        }
+        if ("v1".equals(version)) {
+            Path memoryRoot = root.resolve("memory");
+            Path memoryDir = resolve(memoryRoot, controllerPath("memory"));
+            Path cpuDir = resolve(root.resolve("cpu"), controllerPath("cpu"));
+            return new Limits(version, minOverAncestors(memoryRoot, memoryDir, "memory.limit_in_bytes"),
+                    memoryDir.resolve("memory.usage_in_bytes"),
+                    readLong(cpuDir.resolve("cpu.cfs_quota_us")), readLong(cpuDir.resolve("cpu.cfs_period_us")));
+        }
+        return new Limits(version, -1, null, -1, -1);
+    }
+
+    /** 判断 cgroup 版本：根目录有 cgroup.controllers 为 v2，有 memory 子目录为 v1。 */
+    private String detectVersion() {
+        if (Files.exists(root.resolve("cgroup.controllers"))) {
+            return "v2";
+        }
+        if (Files.isDirectory(root.resolve("memory")) || Files.isDirectory(root.resolve("cpu"))) {
+            return "v1";
+        }
+        return "none";
+    }
+
+    private void readV2(Map<String, Object> memory, Map<String, Object> cpu) {
+        Path dir = resolve(root, controllerPath(""));
+        memory.put("path", dir.toString());
+        memory.put("limitBytes", minOverAncestors(root, dir, "memory.max"));
+        memory.put("usageBytes", readLong(dir.resolve("memory.current")));
+        memory.put("peakBytes", readLong(dir.resolve("memory.peak")));
+        Map<String, Long> events = readKeyValues(dir.resolve("memory.events"));
+        memory.put("oomEvents", events.getOrDefault("oom", 0L));
+        memory.put("oomKills", events.getOrDefault("oom_kill", 0L));
+
+        // 中文：cpu.max 形如 "max 100000" 或 "200000 100000"
+        // English: cpu.max looks like "max 100000" or "200000 100000"
+        String[] max = readString(dir.resolve("cpu.max")).split("\\s+");
+        long quota = max.length == 2 ? parseLimit(max[0]) : -1;
+        long period = max.length == 2 ? parseLimit(max[1]) : -1;
+        Map<String, Long> stat = readKeyValues(dir.resolve("cpu.stat"));
+        putCpu(cpu, quota, period, stat.getOrDefault("nr_periods", 0L), stat.getOrDefault("nr_throttled", 0L),
+                stat.getOrDefault("throttled_usec", 0L) * 1000);
+    }
+
+    private void readV1(Map<String, Object> memory, Map<String, Object> cpu) {
+        Path memoryRoot = root.resolve("memory");
+        Path memoryDir = resolve(memoryRoot, controllerPath("memory"));
+        memory.put("path", memoryDir.toString());
+        memory.put("limitBytes", minOverAncestors(memoryRoot, memoryDir, "memory.limit_in_bytes"));
+        memory.put("usageBytes", readLong(memoryDir.resolve("memory.usage_in_bytes")));
+        memory.put("peakBytes", readLong(memoryDir.resolve("memory.max_usage_in_bytes")));
+        // 中文：v1 的 failcnt 是触达上限的次数，未必伴随 OOM Kill
+        // English: In v1 failcnt counts hits on the limit, which are not necessarily OOM kills
+        memory.put("limitHits", Math.max(0, readLong(memoryDir.resolve("memory.failcnt"))));
+
+        Path cpuRoot = root.resolve("cpu");
+        Path cpuDir = resolve(cpuRoot, controllerPath("cpu"));
+        Map<String, Long> stat = readKeyValues(cpuDir.resolve("cpu.stat"));
+        putCpu(cpu, readLong(cpuDir.resolve("cpu.cfs_quota_us")), readLong(cpuDir.resolve("cpu.cfs_period_us")),
+                stat.getOrDefault("nr_periods", 0L), stat.getOrDefault("nr_throttled", 0L),
+                stat.getOrDefault("throttled_time", 0L));
+    }
+
+    private static void putCpu(Map<String, Object> cpu, long quota, long period,
+                               long periods, long throttled, long throttledNanos) {
+        cpu.put("quotaMicros", quota);
+        cpu.put("periodMicros", period);
+        cpu.put("effectiveCpus", quota > 0 && period > 0
+                ? Double.parseDouble(String.format(Locale.ENGLISH, "%.2f", (double) quota / period)) : -1.0);
+        cpu.put("periods", periods);
+        cpu.put("throttledPeriods", throttled);
+        cpu.put("throttledTimeMs", throttledNanos / 1_000_000);
+        cpu.put("throttledPercent", periods > 0 ? percent(throttled, periods) : "0.00%");
+    }
+
+    /** 读取 JVM 各区域上限并估算最坏情况下的进程占用。 */
+    private static Map<String, Object> jvmLimits() {
+        long heapMax = Runtime.getRuntime().maxMemory();
+        // 中文：MaxDirectMemorySize 默认值为 0，表示“与最大堆相同”，此时 maxDirectMemory() 返回的就是堆上限
+        // English: MaxDirectMemorySize defaults to 0, meaning "same as the max heap", in which case maxDirectMemory() just returns the heap limit
+        long explicitDirect = vmOptionBytes("MaxDirectMemorySize");
+        long directUsed = directBufferUsed();
+        long metaspace = vmOptionBytes("MaxMetaspaceSize");
+        long codeCache = vmOptionBytes("ReservedCodeCacheSize");
+        long codeCacheCommitted = committedPool(name -> name.startsWith("CodeHeap") || "CodeCache".equals(name));
+        long stackSizeKb = vmOptionBytes("ThreadStackSize");
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        long stacks = estimatedStackBytes(threads, stackSizeKb);
+
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("heapMaxBytes", heapMax);
+        jvm.put("maxDirectMemoryBytes", explicitDirect > 0 ? explicitDirect : JvmMetricsSampler.maxDirectMemory());
+        jvm.put("maxDirectMemoryExplicit", explicitDirect > 0);
+        jvm.put("directMemoryUsedBytes", directUsed);
+        jvm.put("maxMetaspaceBytes", metaspace);
+        jvm.put("reservedCodeCacheBytes", codeCache);
+        jvm.put("committedCodeCacheBytes", codeCacheCommitted);
+        jvm.put("threads", threads);
+        jvm.put("threadStacksBytes", stacks);
+        jvm.put("worstCaseFootprintBytes", worstCaseFootprint(heapMax, explicitDirect, directUsed, metaspace,
+                committedPool("Metaspace"::equals), codeCacheCommitted, stacks));
+        jvm.put("totalMemoryVisibleToJvm", ((com.sun.management.OperatingSystemMXBean)
+                ManagementFactory.getOperatingSystemMXBean()).getTotalMemorySize());
+        return jvm;
+    }
+
+    /**
+     * 估算进程最坏占用：最大堆 + 直接内存（显式设置 MaxDirectMemorySize 时取上限，否则取当前用量，避免把堆再算一遍）
+     * + 元空间（有上限取上限，否则取已提交量）+ 代码缓存已提交量 + 线程栈估算。
+     * ReservedCodeCacheSize 与 -Xss 只是预留的地址空间，按上限计入会让常规配置也误报超限。
+     */
+    static long worstCaseFootprint(long heapMax, long explicitDirectMax, long directUsed, long metaspaceMax,
+                                   long metaspaceCommitted, long codeCacheCommitted, long threadStacks) {
+        long direct = explicitDirectMax > 0 ? explicitDirectMax : Math.max(0, directUsed);
+        long metaspace = metaspaceMax > 0 ? metaspaceMax : Math.max(0, metaspaceCommitted);
+        return heapMax + direct + metaspace + Math.max(0, codeCacheCommitted) + Math.max(0, threadStacks);
+    }
+
+    /**
+     * 线程栈估算：栈按需提交，多数线程只触及栈顶几十 KB，按每线程 STACK_COMMIT_ESTIMATE_KB（不超过 ThreadStackSize）计入；
+     * 精确值需 -XX:NativeMemoryTracking=summary 的 Thread 项。
+     */
+    static long estimatedStackBytes(int threads, long stackSizeKb) {
+        long perThreadKb = stackSizeKb > 0 ? Math.min(stackSizeKb, STACK_COMMIT_ESTIMATE_KB) : STACK_COMMIT_ESTIMATE_KB;
+        return perThreadKb * 1024 * Math.max(0, threads);
+    }
+
+    private static List<String> warnings(Map<String, Object> memory, Map<String, Object> cpu, Map<String, Object> jvm,
+                                         long limit, long footprint, int processors) {
+        List<String> warnings = new ArrayList<>();
+        if (limit > 0) {
+            long heapMax = (long) jvm.get("heapMaxBytes");
+            if (footprint > limit) {
+                warnings.add("JVM worst-case footprint exceeds the container limit 堆+直接内存+元空间+代码缓存+线程栈估算可达 "
+                        + JvmMemoryMonitor.formatSize(footprint) + "，超过容器上限 " + JvmMemoryMonitor.formatSize(limit)
+                        + "，进程可能被 OOM Killer 终止（退出码 137）而不是抛出 OutOfMemoryError");
+            }
+            if (heapMax * 100.0 / limit > HEAP_SHARE_WARNING_PERCENT) {
+                warnings.add("Heap takes " + percent(heapMax, limit) + " of the container limit 堆上限占容器上限比例过高，"
+                        + "建议改用 -XX:MaxRAMPercentage 并为本地内存预留至少 25%");
+            }
+            if ((long) jvm.get("maxMetaspaceBytes") < 0) {
+                warnings.add("MaxMetaspaceSize is unbounded 元空间未设上限，类加载泄漏会一直增长到容器上限，建议设置 -XX:MaxMetaspaceSize");
+            }
+        }
+        long oomKills = (long) memory.getOrDefault("oomKills", 0L);
+        long limitHits = (long) memory.getOrDefault("limitHits", 0L);
+        if (oomKills > 0 || limitHits > 0) {
+            warnings.add("Container memory limit reached 容器内存已触达上限 " + Math.max(oomKills, limitHits)
+                    + " 次（v2 为 oom_kill，v1 为 failcnt）");
+        }
+        double effectiveCpus = (double) cpu.getOrDefault("effectiveCpus", -1.0);
+        if (effectiveCpus > 0 && processors > Math.ceil(effectiveCpus)) {
+            warnings.add("availableProcessors=" + processors + " exceeds the CPU quota " + effectiveCpus
+                    + " 线程池与 GC 线程按 " + processors + " 核规划，会被频繁限流");
+        }
+        long periods = (long) cpu.getOrDefault("periods", 0L);
+        long throttled = (long) cpu.getOrDefault("throttledPeriods", 0L);
+        if (periods > 0 && throttled * 100.0 / periods > THROTTLED_WARNING_PERCENT) {
+            warnings.add("CPU throttled in " + percent(throttled, periods) + " of periods CPU 配额不足，GC 暂停与请求延迟会被放大");
+        }
+        return warnings;
+    }
+
+    /** 从 /proc/self/cgroup 取控制器路径；v2 的控制器名为空串。 */
+    private String controllerPath(String controller) {
+        try {
+            for (String line : Files.readAllLines(selfCgroup, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(":", 3);
+                if (parts.length == 3 && List.of(parts[1].split(",")).contains(controller)) {
+                    return parts[2];
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 中文：读取失败时退回挂载根目录
+            // English: Fall back to the mount root when unreadable
+        }
+        return "/";
+    }
+
+    /** 容器内 cgroup 命名空间常使路径在挂载点下不存在，此时退回挂载根目录。 */
+    private static Path resolve(Path mount, String path) {
+        Path dir = mount.resolve(path.startsWith("/") ? path.substring(1) : path);
+        return Files.isDirectory(dir) ? dir : mount;
+    }
+
+    /** 上限按层级生效，取当前目录到挂载根之间的最小值。 */
+    private static long minOverAncestors(Path mount, Path dir, String file) {
+        long min = -1;
+        for (Path current = dir; current != null && current.startsWith(mount); current = current.getParent()) {
+            long value = readLong(current.resolve(file));
+            if (value > 0 && (min < 0 || value < min)) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /** 读取单值文件，"max"、-1 与超大值均视为无上限返回 -1。 */
+    private static long readLong(Path file) {
+        return parseLimit(readString(file));
+    }
+
+    private static long parseLimit(String value) {
+        try {
+            long parsed = Long.parseLong(value);
+            return parsed >= UNLIMITED_THRESHOLD ? -1 : parsed;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String readString(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        } catch (IOException | RuntimeException e) {
+            return "";
+        }
+    }
+
+    /** 解析 "key value" 行格式的统计文件（cpu.stat、memory.events）。 */
+    private static Map<String, Long> readKeyValues(Path file) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (String line : readString(file).split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length == 2) {
+                try {
+                    values.put(parts[0], Long.parseLong(parts[1]));
+                } catch (NumberFormatException ignored) {
+                    // 中文：忽略非数值行 / English: Skip non-numeric lines
+                }
+            }
+        }
+        return values;
+    }
+
+    /** 读取 JVM 选项的字节值；无符号超大值（如未设置的 MaxMetaspaceSize）返回 -1。 */
+    private static long vmOptionBytes(String name) {
+        try {
+            long value = Long.parseUnsignedLong(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption(name).getValue());
+            return value < 0 || value >= UNLIMITED_THRESHOLD ? -1 : value;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /** 名称匹配的内存池当前已提交字节数之和（元空间、各 CodeHeap）。 */
+    private static long committedPool(Predicate<String> name) {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> name.test(pool.getName()))
+                .mapToLong(pool -> pool.getUsage().getCommitted())
+                .sum();
+    }
+
+    /** direct 缓冲池当前占用字节数。 */
+    private static long directBufferUsed() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    /**
+     * 类说明 / Class Description:
+     * 中文：进程生命周期内不变的容器上限快照；用量通过 {@link #memoryUsageBytes()} 每次单独读取一个伪文件。
+     * English: Snapshot of the container limits that stay fixed for the life of the process; usage is read from a single pseudo file on each {@link #memoryUsageBytes()} call.
+     */
+    public static final class Limits {
+        private final String cgroupVersion;
+        private final long memoryLimitBytes;
+        private final Path memoryUsageFile;
+        private final double effectiveCpus;
+
+        private Limits(String cgroupVersion, long memoryLimitBytes, Path memoryUsageFile, long quota, long period) {
+            this.cgroupVersion = cgroupVersion;
+            this.memoryLimitBytes = memoryLimitBytes;
+            this.memoryUsageFile = memoryUsageFile;
+            this.effectiveCpus = quota > 0 && period > 0
+                    ? Double.parseDouble(String.format(Locale.ENGLISH, "%.2f", (double) quota / period)) : -1.0;
+        }
+
+        public String getCgroupVersion() {
+            return cgroupVersion;
+        }
+
+        /** 内存上限字节数，-1 表示无上限。 */
+        public long getMemoryLimitBytes() {
+            return memoryLimitBytes;
+        }
+
+        /** 配额折算的 CPU 数，-1 表示无配额。 */
+        public double getEffectiveCpus() {
+            return effectiveCpus;
+        }
+
+        /** 当前 cgroup 内存用量字节数，不可读时返回 -1。 */
+        public long memoryUsageBytes() {
+            return memoryUsageFile == null ? -1 : readLong(memoryUsageFile);
+        }
+    }
+
+    private static String percent(long part, long whole) {
+        return String.format(Locale.ENGLISH, "%.2f%%", part * 100.0 / whole);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.jvmlab.common;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：直接缓冲区分配包装器，按调用方标签统计 ByteBuffer.allocateDirect 的分配与回收，并与 "direct" 缓冲池总量对账。
+ * English: Direct buffer allocation wrapper that attributes ByteBuffer.allocateDirect allocations and releases to a caller tag and reconciles them against the "direct" buffer pool total.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：BufferPoolMXBean 只给出进程总量；直接内存持续增长时，需要知道是哪个实验/模块持有这些缓冲区。
+ * English: BufferPoolMXBean only reports a process total; when direct memory keeps growing you need to know which experiment or module holds the buffers.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：分配路径只做 LongAdder 累加与一次 Cleaner 注册；缓冲区被 GC 回收时由 Cleaner 扣减，未经包装的分配体现为 untrackedBytes。
+ * English: The allocation path only bumps LongAdders and registers one Cleaner; when a buffer is collected the Cleaner decrements, and unwrapped allocations show up as untrackedBytes.
+ */
+public final class DirectBufferTracker {
+
+    /** 标签数上限，超出部分归入 OTHER_TAG，避免动态标签撑大统计表。 */
+    static final int MAX_TAGS = 256;
+    static final String OTHER_TAG = "[other]";
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final Map<String, TagStats> STATS = new ConcurrentHashMap<>();
+
+    private DirectBufferTracker() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：分配直接缓冲区并记入标签统计，缓冲区不可达并被回收后自动扣减。
+     * English: Allocate a direct buffer and account it to the tag; the tag is decremented automatically once the buffer becomes unreachable and is collected.
+     *
+     * 参数 / Parameters:
+     * @param tag 中文：调用方标签，例如 "chapter02.direct-memory" / English: Caller tag such as "chapter02.direct-memory"
+     * @param capacity 中文：容量（字节） / English: Capacity in bytes
+     *
+     * 返回值 / Return: 中文：新分配的直接缓冲区 / English: The newly allocated direct buffer
+     * 异常 / Exceptions: 中文：超过 MaxDirectMemorySize 时抛出 OutOfMemoryError，此时不计入统计 / English: OutOfMemoryError beyond MaxDirectMemorySize, in which case nothing is recorded
+     */
+    public static ByteBuffer allocate(String tag, int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+        TagStats stats = statsFor(tag);
+        stats.allocatedBuffers.increment();
+        stats.allocatedBytes.add(capacity);
+        CLEANER.register(buffer, new Release(stats, capacity));
+        return buffer;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按存活字节降序返回各标签统计，并附带 direct 缓冲池总量与未归属的字节数。
+     * English: Return per-tag statistics ordered by live bytes, together with the direct buffer pool totals and unattributed bytes.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：统计 Map / English: Statistics map
+     * 异常 / Exceptions: 无
+     */
+    public static Map<String, Object> snapshot() {
+        List<Map<String, Object>> tags = new ArrayList<>();
+        long trackedLiveBytes = 0;
+        for (Map.Entry<String, TagStats> entry : STATS.entrySet()) {
+            Map<String, Object> item = entry.getValue().toMap(entry.getKey());
+            trackedLiveBytes += (long) item.get("liveBytes");
+            tags.add(item);
+        }
+        tags.sort(Comparator.comparingLong((Map<String, Object> item) -> (long) item.get("liveBytes")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tags", tags);
+        result.put("trackedLiveBytes", trackedLiveBytes);
+        BufferPoolMXBean direct = directPool();
+        if (direct != null) {
+            result.put("directPoolCount", direct.getCount());
+            result.put("directPoolCapacity", direct.getTotalCapacity());
+            result.put("directPoolUsed", direct.getMemoryUsed());
+            // 中文：池内存中未经本包装器分配的部分（NIO 通道、Netty 等）
+            // English: Pool memory not allocated through this wrapper (NIO channels, Netty and so on)
+            result.put("untrackedBytes", Math.max(0, direct.getMemoryUsed() - trackedLiveBytes));
+        }
+        result.put("maxDirectMemory", JvmMetricsSampler.getInstance().current().getDirectMemoryMax());
+        return result;
+    }
+
+    /** 查找名为 direct 的缓冲池。 */
+    private static BufferPoolMXBean directPool() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    /** 取得标签统计，标签数超过上限时归入 OTHER_TAG。 */
+    private static TagStats statsFor(String tag) {
+        String key = tag == null || tag.isBlank() ? OTHER_TAG : tag;
+        TagStats stats = STATS.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (STATS.size() >= MAX_TAGS) {
+            key = OTHER_TAG;
+        }
+        return STATS.computeIfAbsent(key, ignored -> new TagStats());
+    }
+
+    private static final class TagStats {
+        private final LongAdder allocatedBuffers = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder releasedBuffers = new LongAdder();
+        private final LongAdder releasedBytes = new LongAdder();
+
+        private Map<String, Object> toMap(String tag) {
+            long allocatedCount = allocatedBuffers.sum();
+            long allocated = allocatedBytes.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("tag", tag);
+            item.put("liveBuffers", allocatedCount - releasedBuffers.sum());
+            item.put("liveBytes", allocated - releasedBytes.sum());
+            item.put("allocatedBuffers", allocatedCount);
+            item.put("allocatedBytes", allocated);
+            return item;
+        }
+    }
+
+    /**
+     * 中文：Cleaner 回调，不能引用缓冲区本身，否则缓冲区永远不可达回收。
+     * English: Cleaner action; it must not reference the buffer itself or the buffer would never become unreachable.
+     */
+    private static final class Release implements Runnable {
+        private final TagStats stats;
+        private final long capacity;
+
+        private Release(TagStats stats, long capacity) {
+            this.stats = stats;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void run() {
+            stats.releasedBuffers.increment();
+            stats.releasedBytes.add(capacity);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.jvmlab.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：单次 GC 周期的不可变统计：暂停时长、回收前后堆占用、分配速率、晋升速率与 GC 后存活集。
+ * English: Immutable statistics of a single GC cycle: pause duration, heap before/after, allocation rate, promotion rate and post-GC live set.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：由 {@link GcCycleTracker} 在每次 GC 通知后生成，供 Micrometer 指标与泄漏风险评估读取。
+ * English: Produced by {@link GcCycleTracker} after every GC notification and read by Micrometer gauges and leak-risk assessment.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：只保存原始数值，读取方无需加锁；速率单位统一为字节/秒。
+ * English: Holds primitives only so readers need no locking; rates are expressed in bytes per second.
+ */
+public final class GcCycleStats {
+
+    /** 尚未观察到任何 GC 时使用的空统计。 */
+    public static final GcCycleStats EMPTY = new GcCycleStats("none", "none", "none", false,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final String gcName;
+    private final String gcAction;
+    private final String gcCause;
+    private final boolean major;
+    private final long startUptimeMs;
+    private final long durationMs;
+    private final long heapBeforeBytes;
+    private final long heapAfterBytes;
+    private final long oldGenBeforeBytes;
+    private final long oldGenAfterBytes;
+    private final long allocatedBytes;
+    private final long promotedBytes;
+    private final double allocationRateBytesPerSec;
+    private final double promotionRateBytesPerSec;
+    private final long cycleNumber;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，由追踪器在通知线程中调用。
+     * English: Constructor invoked by the tracker on the notification thread.
+     *
+     * 参数 / Parameters:
+     * @param gcName 中文：收集器名称 / English: Collector name
+     * @param gcAction 中文：GC 动作（end of minor/major GC） / English: GC action (end of minor/major GC)
+     * @param gcCause 中文：GC 原因 / English: GC cause
+     * @param major 中文：是否为老年代/Full GC / English: Whether this is an old/full collection
+     * @param startUptimeMs 中文：开始时间（JVM 启动后毫秒） / English: Start time in ms since JVM start
+     * @param durationMs 中文：持续时长 / English: Duration in ms
+     * @param heapBeforeBytes 中文：回收前堆占用 / English: Heap used before GC
+     * @param heapAfterBytes 中文：回收后堆占用 / English: Heap used after GC
+     * @param oldGenBeforeBytes 中文：回收前老年代占用 / English: Old gen used before GC
+     * @param oldGenAfterBytes 中文：回收后老年代占用 / English: Old gen used after GC
+     * @param allocatedBytes 中文：距上次 GC 结束以来的分配量 / English: Bytes allocated since the previous GC ended
+     * @param promotedBytes 中文：本次晋升到老年代的字节数 / English: Bytes promoted into the old gen by this GC
+     * @param allocationRateBytesPerSec 中文：分配速率 / English: Allocation rate
+     * @param promotionRateBytesPerSec 中文：晋升速率 / English: Promotion rate
+     * @param cycleNumber 中文：追踪器观察到的周期序号 / English: Cycle sequence number observed by the tracker
+     */
+    GcCycleStats(String gcName, String gcAction, String gcCause, boolean major,
+                 long startUptimeMs, long durationMs, long heapBeforeBytes, long heapAfterBytes,
+                 long oldGenBeforeBytes, long oldGenAfterBytes, long allocatedBytes, long promotedBytes,
+                 double allocationRateBytesPerSec, double promotionRateBytesPerSec, long cycleNumber) {
+        this.gcName = gcName;
+        this.gcAction = gcAction;
+        this.gcCause = gcCause;
+        this.major = major;
+        this.startUptimeMs = startUptimeMs;
+        this.durationMs = durationMs;
+        this.heapBeforeBytes = heapBeforeBytes;
+        this.heapAfterBytes = heapAfterBytes;
+        this.oldGenBeforeBytes = oldGenBeforeBytes;
+        this.oldGenAfterBytes = oldGenAfterBytes;
+        this.allocatedBytes = allocatedBytes;
+        this.promotedBytes = promotedBytes;
+        this.allocationRateBytesPerSec = allocationRateBytesPerSec;
+        this.promotionRateBytesPerSec = promotionRateBytesPerSec;
+        this.cycleNumber = cycleNumber;
+    }
+
+    public String getGcName() {
+        return gcName;
+    }
+
+    public String getGcAction() {
+        return gcAction;
+    }
+
+    public String getGcCause() {
+        return gcCause;
+    }
+
+    public boolean isMajor() {
+        return major;
+    }
+
+    public long getStartUptimeMs() {
+        return startUptimeMs;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getHeapBeforeBytes() {
+        return heapBeforeBytes;
+    }
+
+    /** GC 后的堆占用，即本次回收后的存活集（live set）。 */
+    public long getHeapAfterBytes() {
+        return heapAfterBytes;
+    }
+
+    public long getOldGenBeforeBytes() {
+        return oldGenBeforeBytes;
+    }
+
+    public long getOldGenAfterBytes() {
+        return oldGenAfterBytes;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getPromotedBytes() {
+        return promotedBytes;
+    }
+
+    public double getAllocationRateBytesPerSec() {
+        return allocationRateBytesPerSec;
+    }
+
+    public double getPromotionRateBytesPerSec() {
+        return promotionRateBytesPerSec;
+    }
+
+    public long getCycleNumber() {
+        return cycleNumber;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：转换为便于 JSON 输出的 Map，容量字段附带可读格式。
+     * English: Convert to a JSON-friendly map with human-readable sizes.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：统计 Map / English: Statistics map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("cycle", cycleNumber);
+        map.put("gcName", gcName);
+        map.put("gcAction", gcAction);
+        map.put("gcCause", gcCause);
+        map.put("major", major);
+        map.put("durationMs", durationMs);
+        map.put("heapBefore", JvmMemoryMonitor.formatSize(heapBeforeBytes));
+        map.put("liveSetAfterGc", JvmMemoryMonitor.formatSize(heapAfterBytes));
+        map.put("oldGenAfterGc", JvmMemoryMonitor.formatSize(oldGenAfterBytes));
+        map.put("allocatedSinceLastGc", JvmMemoryMonitor.formatSize(allocatedBytes));
+        map.put("promoted", JvmMemoryMonitor.formatSize(promotedBytes));
+        map.put("allocationRatePerSec", JvmMemoryMonitor.formatSize((long) allocationRateBytesPerSec));
+        map.put("promotionRatePerSec", JvmMemoryMonitor.formatSize((long) promotionRateBytesPerSec));
+        return map;
+    }
+}
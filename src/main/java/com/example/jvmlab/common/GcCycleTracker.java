@@ -0,0 +1,347 @@
+package com.example.jvmlab.common;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：订阅 GarbageCollectorMXBean 的 GC 通知，逐周期计算分配速率、晋升速率、暂停时长与 GC 后存活集。
+ * English: Subscribes to GarbageCollectorMXBean GC notifications and computes per-cycle allocation rate, promotion rate, pause duration and post-GC live set.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：长时间运行的 JVM 上判断泄漏的真实信号是“每次 Full GC 后老年代存活集是否持续增长”，而非 used/max 的瞬时比例。
+ * English: On a long-running JVM the real leak signal is whether the old-gen live set keeps growing after each full GC, not an instantaneous used/max ratio.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：通知回调只做少量算术并发布不可变的 {@link GcCycleStats}，读取方（Micrometer、泄漏评估）无锁读取 volatile 字段。
+ * English: The notification callback does only a little arithmetic and publishes an immutable {@link GcCycleStats}; readers (Micrometer, leak assessment) read volatile fields lock-free.
+ */
+@Slf4j
+public final class GcCycleTracker implements NotificationListener {
+
+    /** 平滑速率使用的指数加权系数。 */
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final Set<String> heapPools;
+    private final OldGenTrendDetector trendDetector;
+
+    private volatile GcCycleStats last = GcCycleStats.EMPTY;
+    private volatile GcCycleStats lastMajor = GcCycleStats.EMPTY;
+    private volatile long liveSetGrowthBytes;
+    private volatile double smoothedAllocationRate;
+    private volatile double smoothedPromotionRate;
+    private volatile long maxPauseMs;
+    private volatile long totalAllocatedBytes;
+    private volatile long totalPromotedBytes;
+
+    /** 以下字段仅在 synchronized 的 record 中读写。 */
+    private long cycles;
+    private long previousEndUptime;
+    private long previousHeapAfter;
+
+    private static final class Holder {
+        private static final GcCycleTracker INSTANCE = createAndRegister();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：获取全局追踪器；首次调用时向所有支持通知的收集器注册监听。
+     * English: Obtain the global tracker; the first call registers the listener on every notifying collector.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：追踪器单例 / English: Tracker singleton
+     * 异常 / Exceptions: 无
+     */
+    public static GcCycleTracker getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造追踪器但不注册监听，供测试直接调用 {@link #record} 注入周期。
+     * English: Build a tracker without registering listeners so tests can feed cycles through {@link #record}.
+     *
+     * 参数 / Parameters:
+     * @param heapPools 中文：计入堆占用的内存池名称 / English: Names of pools counted as heap
+     * @param oldLimitBytes 中文：老年代（或堆）上限，用于趋势检测推算 OOM 时间 / English: Old-gen (or heap) limit used by trend detection to project OOM
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    GcCycleTracker(Set<String> heapPools, long oldLimitBytes) {
+        this.heapPools = Collections.unmodifiableSet(new HashSet<>(heapPools));
+        this.trendDetector = new OldGenTrendDetector(oldLimitBytes);
+    }
+
+    private static GcCycleTracker createAndRegister() {
+        Set<String> heapPools = new HashSet<>();
+        long oldLimit = -1;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+                if (isOldPool(pool.getName())) {
+                    oldLimit = pool.getUsage().getMax();
+                }
+            }
+        }
+        // 中文：没有独立老年代（ZGC/Shenandoah）或老年代无上限时退化为整堆上限
+        // English: Fall back to the whole-heap limit when there is no separate old gen (ZGC/Shenandoah) or it is unbounded
+        if (oldLimit <= 0) {
+            oldLimit = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        }
+        GcCycleTracker tracker = new GcCycleTracker(heapPools, oldLimit);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(tracker, null, null);
+                log.info("已订阅 GC 通知 Subscribed to GC notifications: {}", gc.getName());
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：JMX 通知回调，仅处理 GC 通知并委托给 {@link #record}。
+     * English: JMX notification callback handling only GC notifications and delegating to {@link #record}.
+     *
+     * 参数 / Parameters:
+     * @param notification 中文：JMX 通知 / English: JMX notification
+     * @param handback 中文：未使用 / English: Unused
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无（异常被记录，不会影响通知线程）
+     */
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        try {
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            GcInfo gcInfo = info.getGcInfo();
+            record(info.getGcName(), info.getGcAction(), info.getGcCause(),
+                    gcInfo.getStartTime(), gcInfo.getEndTime(), gcInfo.getDuration(),
+                    gcInfo.getMemoryUsageBeforeGc(), gcInfo.getMemoryUsageAfterGc());
+        } catch (RuntimeException e) {
+            log.warn("GC 通知解析失败 Failed to process GC notification: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：根据一次 GC 的前后内存池占用计算周期统计并发布。
+     * English: Compute and publish cycle statistics from one GC's before/after pool usage.
+     *
+     * 参数 / Parameters:
+     * @param gcName 中文：收集器名称 / English: Collector name
+     * @param gcAction 中文：GC 动作 / English: GC action
+     * @param gcCause 中文：GC 原因 / English: GC cause
+     * @param startUptime 中文：开始时间（JVM 启动后毫秒） / English: Start time in ms since JVM start
+     * @param endUptime 中文：结束时间（JVM 启动后毫秒） / English: End time in ms since JVM start
+     * @param durationMs 中文：持续时长 / English: Duration in ms
+     * @param before 中文：回收前各内存池占用 / English: Pool usage before GC
+     * @param after 中文：回收后各内存池占用 / English: Pool usage after GC
+     *
+     * 返回值 / Return: 中文：本周期统计 / English: Statistics of this cycle
+     * 异常 / Exceptions: 无
+     */
+    synchronized GcCycleStats record(String gcName, String gcAction, String gcCause,
+                                     long startUptime, long endUptime, long durationMs,
+                                     Map<String, MemoryUsage> before, Map<String, MemoryUsage> after) {
+        long heapBefore = sumHeap(before);
+        long heapAfter = sumHeap(after);
+        long oldBefore = sumOld(before);
+        long oldAfter = sumOld(after);
+        boolean hasOldPool = hasOldPool(after);
+
+        boolean major = gcAction != null && gcAction.contains("major");
+
+        // 中文：分配量 = 本次回收前堆占用 - 上次回收后堆占用；首个周期以 JVM 启动为起点
+        // English: Allocated = heap before this GC - heap after the previous GC; the first cycle starts at JVM start
+        long allocated = Math.max(0, heapBefore - previousHeapAfter);
+        // 中文：晋升只在 Young GC 中计算；Full GC 的老年代变化是压缩与回收的结果
+        // English: Promotion is only measured on young GCs; old-gen change in a full GC reflects compaction and reclamation
+        long promoted = major ? 0 : Math.max(0, oldAfter - oldBefore);
+        long intervalMs = startUptime - previousEndUptime;
+        double allocationRate = intervalMs > 0 ? allocated * 1000.0 / intervalMs : 0;
+        double promotionRate = intervalMs > 0 ? promoted * 1000.0 / intervalMs : 0;
+
+        cycles++;
+        GcCycleStats stats = new GcCycleStats(gcName, gcAction, gcCause, major, startUptime, durationMs,
+                heapBefore, heapAfter, oldBefore, oldAfter, allocated, promoted,
+                allocationRate, promotionRate, cycles);
+
+        smoothedAllocationRate = cycles == 1 ? allocationRate
+                : EWMA_ALPHA * allocationRate + (1 - EWMA_ALPHA) * smoothedAllocationRate;
+        smoothedPromotionRate = cycles == 1 ? promotionRate
+                : EWMA_ALPHA * promotionRate + (1 - EWMA_ALPHA) * smoothedPromotionRate;
+        maxPauseMs = Math.max(maxPauseMs, durationMs);
+        totalAllocatedBytes += allocated;
+        totalPromotedBytes += promoted;
+        if (major) {
+            GcCycleStats previousMajor = lastMajor;
+            liveSetGrowthBytes = previousMajor.getCycleNumber() > 0
+                    ? heapAfter - previousMajor.getHeapAfterBytes() : 0;
+            lastMajor = stats;
+        }
+        // 中文：只有 Full/Major GC 与并发周期结束后的占用才是可信的存活基线；Young/Mixed GC 后老年代仍含不可达对象，只计入周期统计
+        // English: Only occupancy after a full/major GC or a concurrent cycle end is a trustworthy live baseline; after young/mixed GCs the old gen still holds unreachable objects, so they only feed the per-cycle stats
+        if (isLiveSetSample(gcName, gcAction, gcCause)) {
+            trendDetector.addSample(endUptime, hasOldPool ? oldAfter : heapAfter);
+        }
+        last = stats;
+        previousEndUptime = endUptime;
+        previousHeapAfter = heapAfter;
+        return stats;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：判断一次 GC 后的占用能否作为存活集样本：动作为 major（Serial/Parallel/G1 Full GC），并发收集器（ZGC、Shenandoah）完整周期结束（分代 ZGC 的 Minor 周期除外），
+     *      或由堆转储/堆检查触发的整堆回收。
+     * English: Decide whether occupancy after a GC is a live-set sample: a major action (Serial/Parallel/G1 full GC), the end of a whole concurrent cycle (ZGC, Shenandoah; generational ZGC minor cycles excluded),
+     *      or a whole-heap collection triggered by a heap dump or heap inspection.
+     *
+     * 参数 / Parameters:
+     * @param gcName 中文：收集器名称 / English: Collector name
+     * @param gcAction 中文：GC 动作 / English: GC action
+     * @param gcCause 中文：GC 原因 / English: GC cause
+     *
+     * 返回值 / Return: 中文：是否喂给趋势检测 / English: Whether to feed the trend detector
+     * 异常 / Exceptions: 无
+     */
+    static boolean isLiveSetSample(String gcName, String gcAction, String gcCause) {
+        if (gcAction != null && gcAction.contains("major")) {
+            return true;
+        }
+        if ("end of GC cycle".equals(gcAction)) {
+            return gcName == null || !gcName.contains("Minor");
+        }
+        return "Heap Dump Initiated GC".equals(gcCause) || "Heap Inspection Initiated GC".equals(gcCause);
+    }
+
+    private long sumHeap(Map<String, MemoryUsage> usage) {
+        long total = 0;
+        for (Map.Entry<String, MemoryUsage> entry : usage.entrySet()) {
+            if (heapPools.contains(entry.getKey())) {
+                total += entry.getValue().getUsed();
+            }
+        }
+        return total;
+    }
+
+    private static long sumOld(Map<String, MemoryUsage> usage) {
+        long total = 0;
+        for (Map.Entry<String, MemoryUsage> entry : usage.entrySet()) {
+            if (isOldPool(entry.getKey())) {
+                total += entry.getValue().getUsed();
+            }
+        }
+        return total;
+    }
+
+    private static boolean hasOldPool(Map<String, MemoryUsage> usage) {
+        for (String poolName : usage.keySet()) {
+            if (isOldPool(poolName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：判断内存池是否为老年代（G1/Parallel/CMS 的 "Old Gen"，Serial 的 "Tenured Gen"）。
+     * English: Whether a pool is the old generation ("Old Gen" for G1/Parallel/CMS, "Tenured Gen" for Serial).
+     *
+     * 参数 / Parameters:
+     * @param poolName 中文：内存池名称 / English: Pool name
+     *
+     * 返回值 / Return: 中文：是否老年代 / English: Whether it is the old generation
+     * 异常 / Exceptions: 无
+     */
+    static boolean isOldPool(String poolName) {
+        return poolName.contains("Old Gen") || poolName.contains("Tenured Gen");
+    }
+
+    /** 最近一次 GC 周期的统计。 */
+    public GcCycleStats last() {
+        return last;
+    }
+
+    /** 最近一次老年代/Full GC 的统计，其 heapAfter 即存活集。 */
+    public GcCycleStats lastMajor() {
+        return lastMajor;
+    }
+
+    /** 最近两次 Full GC 之间存活集的变化量（字节），正值表示老年代在增长。 */
+    public long getLiveSetGrowthBytes() {
+        return liveSetGrowthBytes;
+    }
+
+    /** 老年代 GC 后基线的趋势检测器。 */
+    public OldGenTrendDetector getTrendDetector() {
+        return trendDetector;
+    }
+
+    /** EWMA 平滑后的分配速率（字节/秒）。 */
+    public double getSmoothedAllocationRate() {
+        return smoothedAllocationRate;
+    }
+
+    /** EWMA 平滑后的晋升速率（字节/秒）。 */
+    public double getSmoothedPromotionRate() {
+        return smoothedPromotionRate;
+    }
+
+    public long getMaxPauseMs() {
+        return maxPauseMs;
+    }
+
+    public long getTotalAllocatedBytes() {
+        return totalAllocatedBytes;
+    }
+
+    public long getTotalPromotedBytes() {
+        return totalPromotedBytes;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：汇总当前 GC 周期信号，用于泄漏风险结果与监控接口。
+     * English: Summarize the current GC cycle signals for the leak-risk result and monitoring endpoints.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：信号 Map / English: Signal map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("allocationRatePerSec", JvmMemoryMonitor.formatSize((long) smoothedAllocationRate));
+        map.put("promotionRatePerSec", JvmMemoryMonitor.formatSize((long) smoothedPromotionRate));
+        map.put("maxPauseMs", maxPauseMs);
+        map.put("totalAllocated", JvmMemoryMonitor.formatSize(totalAllocatedBytes));
+        map.put("totalPromoted", JvmMemoryMonitor.formatSize(totalPromotedBytes));
+        map.put("liveSetGrowthSinceLastMajor", liveSetGrowthBytes);
+        map.put("lastCycle", last.toMap());
+        map.put("lastMajorCycle", lastMajor.toMap());
+        return map;
+    }
+}
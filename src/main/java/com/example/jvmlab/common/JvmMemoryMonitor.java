@@ -17,10 +17,15 @@ import java.util.*;
  * 设计目的 / Design Purpose:
  * 中文：以静态方法暴露监控能力，确保调用简单与线程安全；返回结构化 Map 便于序列化。
  * English: Expose monitoring via static methods for simplicity and thread safety; return structured maps for serialization.
+ * 中文：结构化查询读取 {@link JvmMetricsSampler} 的缓存快照，打印类方法仍实时读取 MXBean。
+ * English: Structured queries read the cached snapshot of {@link JvmMetricsSampler}; print methods still read MXBeans live.
  */
 @Slf4j
 public final class JvmMemoryMonitor {
 
+    /** 直接内存占 MaxDirectMemorySize 的告警阈值（百分比）。 */
+    private static final double DIRECT_MEMORY_WARNING_PERCENT = 80.0;
+
     /**
      * 方法说明 / Method Description:
      * 中文：私有构造，禁止实例化工具类。
@@ -161,84 +166,28 @@ public final class JvmMemoryMonitor {
 
     /**
      * 方法说明 / Method Description:
-     * 中文：采集并返回堆/非堆/内存池/GC/线程/类加载的结构化监控数据。
-     * English: Collect and return structured monitoring data for heap/non-heap/pools/GC/threads/class-loading.
+     * 中文：返回堆/非堆/内存池/GC/线程/类加载的结构化监控数据，数据来自后台采样器的缓存快照。
+     * English: Return structured monitoring data for heap/non-heap/pools/GC/threads/class-loading, served from the background sampler's cached snapshot.
      *
      * 参数 / Parameters: 无
-     * 返回值 / Return: 中文：监控信息 Map / English: Monitoring info map
+     * 返回值 / Return: 中文：只读监控信息 Map（每个采样周期格式化一次） / English: Read-only monitoring info map (formatted once per sampling period)
      * 异常 / Exceptions: 无
      */
     public static Map<String, Object> getMemoryInfoMap() {
-        Map<String, Object> info = new LinkedHashMap<>();
-        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
-        MemoryUsage heapUsage = memoryMXBean.getHeapMemoryUsage();
-        Map<String, String> heapInfo = new LinkedHashMap<>();
-        heapInfo.put("init", formatSize(heapUsage.getInit()));
-        heapInfo.put("used", formatSize(heapUsage.getUsed()));
-        heapInfo.put("committed", formatSize(heapUsage.getCommitted()));
-        heapInfo.put("max", formatSize(heapUsage.getMax()));
-        heapInfo.put("usagePercent", heapUsage.getMax() > 0 ?
-                String.format(Locale.ENGLISH, "%.2f%%", (double) heapUsage.getUsed() / heapUsage.getMax() * 100) : "N/A");
-        info.put("heap", heapInfo);
-
-        MemoryUsage nonHeapUsage = memoryMXBean.getNonHeapMemoryUsage();
-        Map<String, String> nonHeapInfo = new LinkedHashMap<>();
-        nonHeapInfo.put("init", formatSize(nonHeapUsage.getInit()));
-        nonHeapInfo.put("used", formatSize(nonHeapUsage.getUsed()));
-        nonHeapInfo.put("committed", formatSize(nonHeapUsage.getCommitted()));
-        nonHeapInfo.put("max", nonHeapUsage.getMax() == -1 ? "Undefined" : formatSize(nonHeapUsage.getMax()));
-        info.put("nonHeap", nonHeapInfo);
-
-        Map<String, Map<String, String>> pools = new LinkedHashMap<>();
-        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
-            MemoryUsage usage = pool.getUsage();
-            Map<String, String> poolInfo = new LinkedHashMap<>();
-            poolInfo.put("type", pool.getType().toString());
-            poolInfo.put("used", formatSize(usage.getUsed()));
-            poolInfo.put("max", usage.getMax() == -1 ? "Undefined" : formatSize(usage.getMax()));
-            pools.put(pool.getName(), poolInfo);
-        }
-        info.put("pools", pools);
-
-        info.put("gc", getGCStats());
-
-        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
-        Map<String, Object> threadInfo = new LinkedHashMap<>();
-        threadInfo.put("count", threadMXBean.getThreadCount());
-        threadInfo.put("peak", threadMXBean.getPeakThreadCount());
-        threadInfo.put("daemon", threadMXBean.getDaemonThreadCount());
-        threadInfo.put("totalStarted", threadMXBean.getTotalStartedThreadCount());
-        info.put("threads", threadInfo);
-
-        ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
-        Map<String, Object> classInfo = new LinkedHashMap<>();
-        classInfo.put("loadedCount", classLoadingMXBean.getLoadedClassCount());
-        classInfo.put("totalLoadedCount", classLoadingMXBean.getTotalLoadedClassCount());
-        classInfo.put("unloadedCount", classLoadingMXBean.getUnloadedClassCount());
-        info.put("classes", classInfo);
-
-        return info;
+        return JvmMetricsSampler.getInstance().current().toMemoryInfoMap();
     }
 
     /**
      * 方法说明 / Method Description:
-     * 中文：返回所有垃圾回收器的统计信息，包括次数、耗时与相关内存池。
-     * English: Return statistics of all garbage collectors including counts, times and related memory pools.
+     * 中文：返回所有垃圾回收器的统计信息，包括次数、耗时、本采样周期增量与相关内存池。
+     * English: Return statistics of all garbage collectors including counts, times, per-interval deltas and related memory pools.
      *
      * 参数 / Parameters: 无
-     * 返回值 / Return: 中文：GC 信息 Map / English: GC info map
+     * 返回值 / Return: 中文：只读 GC 信息 Map / English: Read-only GC info map
      * 异常 / Exceptions: 无
      */
     public static Map<String, Map<String, Object>> getGCStats() {
-        Map<String, Map<String, Object>> gcInfo = new LinkedHashMap<>();
-        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
-            Map<String, Object> stats = new LinkedHashMap<>();
-            stats.put("count", gcBean.getCollectionCount());
-            stats.put("time", gcBean.getCollectionTime());
-            stats.put("memoryPoolNames", Arrays.toString(gcBean.getMemoryPoolNames()));
-            gcInfo.put(gcBean.getName(), stats);
-        }
-        return gcInfo;
+        return JvmMetricsSampler.getInstance().current().toGcStatsMap();
     }
 
     /**
@@ -294,6 +243,16 @@ public final class JvmMemoryMonitor {
         info.put("jvm.version", runtimeMXBean.getVmVersion());
         info.put("jvm.vendor", runtimeMXBean.getVmVendor());
         info.put("uptime", formatDuration(runtimeMXBean.getUptime()));
+        // 中文：容器上限与 JVM 看到的处理器数并列，完整对照见 /monitor/container；上限在进程生命周期内不变，只缓存一次，每次调用只读用量
+        // English: Container limits next to the processor count the JVM sees, full correlation at /monitor/container; limits never change for the process, so they are cached once and only usage is read per call
+        CgroupResourceReporter.Limits container = ContainerLimitsHolder.LIMITS;
+        long limit = container.getMemoryLimitBytes();
+        long usage = container.memoryUsageBytes();
+        info.put("container.cgroup", container.getCgroupVersion());
+        info.put("container.memoryLimit", limit > 0 ? formatSize(limit) : "unlimited");
+        info.put("container.memoryUsage", usage >= 0 ? formatSize(usage) : "N/A");
+        double cpus = container.getEffectiveCpus();
+        info.put("container.effectiveCpus", cpus > 0 ? String.valueOf(cpus) : "unlimited");
         return info;
     }
 
@@ -343,41 +302,69 @@ public final class JvmMemoryMonitor {
 
     /**
      * 方法说明 / Method Description:
-     * 中文：基于堆使用率与 GC 指标进行简单泄漏风险评估，返回结构化建议。
-     * English: Perform a simple leak risk assessment based on heap usage and GC metrics, returning structured advice.
+     * 中文：基于老年代 GC 后基线的滚动线性回归评估泄漏风险：基线稳定增长才升级风险，瞬时尖峰不会触发告警；直接内存按其上限占比单独评估。
+     * English: Assess leak risk via a rolling linear regression over the post-GC old-gen baseline: risk escalates only on steady baseline growth, never on transient spikes; direct memory is assessed separately against its limit.
      *
      * 参数 / Parameters: 无
-     * 返回值 / Return: 中文：风险评估 Map / English: Risk assessment map
+     * 返回值 / Return: 中文：风险评估 Map（riskLevel 来自趋势检测，heapUsagePercent 仅作参考） / English: Risk assessment map (riskLevel from trend detection, heapUsagePercent for reference only)
      * 异常 / Exceptions: 无
      */
     public static Map<String, Object> detectMemoryLeakRisk() {
         Map<String, Object> result = new LinkedHashMap<>();
-        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
-        MemoryUsage heapUsage = memoryMXBean.getHeapMemoryUsage();
-        double usagePercent = heapUsage.getMax() > 0 ? (double) heapUsage.getUsed() / heapUsage.getMax() * 100 : 0;
-        result.put("heapUsagePercent", String.format(Locale.ENGLISH, "%.2f%%", usagePercent));
-        String riskLevel;
-        if (usagePercent > 90) {
-            riskLevel = "HIGH 高风险 - 内存占用接近极限";
-        } else if (usagePercent > 75) {
-            riskLevel = "MEDIUM 中风险 - 内存使用偏高";
-        } else if (usagePercent > 60) {
-            riskLevel = "LOW 低风险 - 内存波动可接受";
-        } else {
-            riskLevel = "SAFE 安全 - 内存状态良好";
-        }
+        JvmMetricsSnapshot snapshot = JvmMetricsSampler.getInstance().current();
+        GcCycleTracker tracker = GcCycleTracker.getInstance();
+        // 中文：趋势和在每次整堆回收通知时更新，此处只做 O(1) 求解
+        // English: Trend sums are updated on each whole-heap GC notification; evaluation here is O(1)
+        Map<String, Object> trend = tracker.getTrendDetector().evaluate();
+        String riskLevel = String.valueOf(trend.get("riskLevel"));
         result.put("riskLevel", riskLevel);
+        result.put("trend", trend);
+        if (riskLevel.startsWith("HIGH") || riskLevel.startsWith("MEDIUM")) {
+            result.put("warning", "Post-GC baseline grows steadily 老年代 GC 后基线稳定增长，预计 "
+                    + trend.get("timeToOomSec") + " 秒后 OOM，需检查内存泄漏");
+        }
+        double usagePercent = snapshot.getHeapMax() > 0 ? (double) snapshot.getHeapUsed() / snapshot.getHeapMax() * 100 : 0;
+        result.put("heapUsagePercent", String.format(Locale.ENGLISH, "%.2f%%", usagePercent));
         long totalGCCount = 0;
         long totalGCTime = 0;
-        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
-            totalGCCount += gcBean.getCollectionCount();
-            totalGCTime += gcBean.getCollectionTime();
+        for (int i = 0; i < snapshot.getGcCount(); i++) {
+            totalGCCount += snapshot.getGcCollectionCount(i);
+            totalGCTime += snapshot.getGcCollectionTime(i);
         }
         result.put("totalGCCount", totalGCCount);
         result.put("totalGCTimeMs", totalGCTime);
-        if (totalGCCount > 100 && usagePercent > 70) {
-            result.put("warning", "Frequent GC with high heap usage 频繁GC且堆使用率高，需检查内存泄漏");
+        // 中文：逐周期 GC 信号：分配/晋升速率与 Full GC 后存活集的增长
+        // English: Per-cycle GC signals: allocation/promotion rates and live-set growth after full GCs
+        result.put("gcCycle", tracker.toMap());
+        if (tracker.lastMajor().getCycleNumber() > 0 && tracker.getLiveSetGrowthBytes() > 0) {
+            result.put("liveSetWarning", "Live set grew after full GC 老年代存活集在 Full GC 后仍增长 +"
+                    + formatSize(tracker.getLiveSetGrowthBytes()));
+        }
+        // 中文：直接内存不在堆上，堆趋势看不到它；按 MaxDirectMemorySize 的占用比例单独告警
+        // English: Direct memory is off-heap and invisible to the heap trend; warn separately on its share of MaxDirectMemorySize
+        int direct = snapshot.findBufferPool("direct");
+        if (direct >= 0) {
+            Map<String, Object> directMemory = new LinkedHashMap<>();
+            long used = snapshot.getBufferMemoryUsed(direct);
+            long max = snapshot.getDirectMemoryMax();
+            double directPercent = max > 0 ? (double) used / max * 100 : 0;
+            directMemory.put("count", snapshot.getBufferCount(direct));
+            directMemory.put("used", formatSize(used));
+            directMemory.put("capacity", formatSize(snapshot.getBufferTotalCapacity(direct)));
+            directMemory.put("max", max > 0 ? formatSize(max) : "unknown");
+            directMemory.put("usagePercent", String.format(Locale.ENGLISH, "%.2f%%", directPercent));
+            directMemory.put("owners", DirectBufferTracker.snapshot().get("tags"));
+            result.put("directMemory", directMemory);
+            if (directPercent >= DIRECT_MEMORY_WARNING_PERCENT) {
+                result.put("directMemoryWarning", "Direct memory near MaxDirectMemorySize 直接内存已用 "
+                        + directMemory.get("usagePercent") + "，接近上限，请查看 /monitor/buffer-pools 的归属");
+            }
         }
         return result;
     }
+
+    /** 首次访问时读取一次容器上限（按需持有者惰性初始化）。 */
+    private static final class ContainerLimitsHolder {
+        private static final CgroupResourceReporter.Limits LIMITS = new CgroupResourceReporter().limits();
+    }
 }
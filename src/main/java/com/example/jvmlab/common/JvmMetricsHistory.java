@@ -0,0 +1,282 @@
+package com.example.jvmlab.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：固定容量的 JVM 指标时间序列环形缓冲，以单个 long[] 按行存储堆、内存池、直接/映射缓冲池、GC 累计值与线程数。
+ * English: Fixed-capacity ring buffer of JVM metric time series, storing heap, pool, direct/mapped buffer pool, cumulative GC and thread values row-wise in a single long[].
+ *
+ * 使用场景 / Use Cases:
+ * 中文：/monitor/history 返回最近窗口内的降采样序列，用于观察分配趋势与 GC 频率，无需外部抓取器。
+ * English: /monitor/history returns downsampled series for a recent window to observe allocation trends and GC frequency without an external scraper.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：记录路径只向预分配数组写入原始值，不产生任何对象分配，避免观测行为干扰实验本身；
+ *      GC 以累计值保存，查询时按桶求差，记录周期与采样周期不一致时增量依然准确。
+ * English: The recording path only writes primitives into a preallocated array and never allocates, so observing does not distort experiments;
+ *      GC values are stored cumulatively and differenced per bucket at query time, keeping deltas exact even when periods differ.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.monitor.historyPeriodMs（默认等于采样间隔）、-Djvm.lab.monitor.historyCapacity（默认 3600 行）。
+ * English: -Djvm.lab.monitor.historyPeriodMs (defaults to the sampling interval), -Djvm.lab.monitor.historyCapacity (default 3600 rows).
+ */
+public final class JvmMetricsHistory implements JvmMetricsSampler.Listener {
+
+    static final String PROP_PERIOD_MS = "jvm.lab.monitor.historyPeriodMs";
+    static final String PROP_CAPACITY = "jvm.lab.monitor.historyCapacity";
+    private static final int DEFAULT_CAPACITY = 3600;
+
+    private static final int COL_UPTIME = 0;
+    private static final int COL_TIMESTAMP = 1;
+    private static final int COL_HEAP_USED = 2;
+    private static final int COL_HEAP_COMMITTED = 3;
+    private static final int COL_NON_HEAP_USED = 4;
+    private static final int COL_THREADS = 5;
+    private static final int COL_DAEMON_THREADS = 6;
+    private static final int FIXED_COLUMNS = 7;
+
+    private final String[] poolNames;
+    private final String[] bufferPoolNames;
+    private final String[] gcNames;
+    private final int poolBase;
+    private final int bufferBase;
+    private final int gcBase;
+    private final int width;
+    private final int capacity;
+    private final long periodMillis;
+    private final long[] rows;
+
+    /** 已写入的总行数（单调递增），写入位置为 written % capacity。 */
+    private long written;
+    private long lastRecordedUptime = Long.MIN_VALUE;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：根据首个快照确定列布局并一次性分配全部存储。
+     * English: Derive the column layout from the first snapshot and allocate all storage up front.
+     *
+     * 参数 / Parameters:
+     * @param layout 中文：用于确定内存池与 GC 列的快照 / English: Snapshot used to determine pool and GC columns
+     * @param samplerIntervalMillis 中文：采样器间隔，作为默认记录周期 / English: Sampler interval used as the default recording period
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    JvmMetricsHistory(JvmMetricsSnapshot layout, long samplerIntervalMillis) {
+        this.poolNames = new String[layout.getPoolCount()];
+        for (int i = 0; i < poolNames.length; i++) {
+            poolNames[i] = layout.getPoolName(i);
+        }
+        this.bufferPoolNames = new String[layout.getBufferPoolCount()];
+        for (int i = 0; i < bufferPoolNames.length; i++) {
+            bufferPoolNames[i] = layout.getBufferPoolName(i);
+        }
+        this.gcNames = new String[layout.getGcCount()];
+        for (int i = 0; i < gcNames.length; i++) {
+            gcNames[i] = layout.getGcName(i);
+        }
+        this.poolBase = FIXED_COLUMNS;
+        // 中文：缓冲池列与内存池同为容量类指标，放在 gcBase 之前以便降采样时取均值
+        // English: Buffer pool columns are gauges like the memory pools, so they sit before gcBase and are averaged when downsampling
+        this.bufferBase = poolBase + poolNames.length * 2;
+        this.gcBase = bufferBase + bufferPoolNames.length * 2;
+        this.width = gcBase + gcNames.length * 2;
+        this.capacity = Math.max(16, Integer.getInteger(PROP_CAPACITY, DEFAULT_CAPACITY));
+        this.periodMillis = Math.max(samplerIntervalMillis, Long.getLong(PROP_PERIOD_MS, samplerIntervalMillis));
+        this.rows = new long[capacity * width];
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：采样回调，满足记录周期时把快照写入环形缓冲的下一行；全程无对象分配。
+     * English: Sampling callback writing the snapshot into the next ring row when the period has elapsed; allocation-free throughout.
+     *
+     * 参数 / Parameters:
+     * @param snapshot 中文：最新快照 / English: Latest snapshot
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    @Override
+    public synchronized void onSample(JvmMetricsSnapshot snapshot) {
+        long uptime = snapshot.getUptimeMillis();
+        // 中文：允许半个采样间隔的抖动，避免定时漂移导致周期性漏记
+        // English: Tolerate half an interval of jitter so scheduling drift does not skip rows periodically
+        if (lastRecordedUptime != Long.MIN_VALUE && uptime - lastRecordedUptime < periodMillis - snapshot.getIntervalMillis() / 2) {
+            return;
+        }
+        lastRecordedUptime = uptime;
+        int base = (int) (written % capacity) * width;
+        rows[base + COL_UPTIME] = uptime;
+        rows[base + COL_TIMESTAMP] = snapshot.getTimestampMillis();
+        rows[base + COL_HEAP_USED] = snapshot.getHeapUsed();
+        rows[base + COL_HEAP_COMMITTED] = snapshot.getHeapCommitted();
+        rows[base + COL_NON_HEAP_USED] = snapshot.getNonHeapUsed();
+        rows[base + COL_THREADS] = snapshot.getThreadCount();
+        rows[base + COL_DAEMON_THREADS] = snapshot.getDaemonThreadCount();
+        int pools = Math.min(poolNames.length, snapshot.getPoolCount());
+        for (int i = 0; i < pools; i++) {
+            rows[base + poolBase + i * 2] = snapshot.getPoolUsed(i);
+            rows[base + poolBase + i * 2 + 1] = snapshot.getPoolCommitted(i);
+        }
+        int buffers = Math.min(bufferPoolNames.length, snapshot.getBufferPoolCount());
+        for (int i = 0; i < buffers; i++) {
+            rows[base + bufferBase + i * 2] = snapshot.getBufferCount(i);
+            rows[base + bufferBase + i * 2 + 1] = snapshot.getBufferMemoryUsed(i);
+        }
+        int gcs = Math.min(gcNames.length, snapshot.getGcCount());
+        for (int i = 0; i < gcs; i++) {
+            rows[base + gcBase + i * 2] = snapshot.getGcCollectionCount(i);
+            rows[base + gcBase + i * 2 + 1] = snapshot.getGcCollectionTime(i);
+        }
+        written++;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查询最近 windowMillis 内的序列并降采样到最多 maxPoints 个点：容量类指标取桶内均值，GC 取桶间累计差值。
+     * English: Query series within the last windowMillis, downsampled to at most maxPoints: gauges are averaged per bucket, GC uses cumulative differences between buckets.
+     *
+     * 参数 / Parameters:
+     * @param windowMillis 中文：时间窗口（毫秒） / English: Time window in milliseconds
+     * @param maxPoints 中文：最大返回点数 / English: Maximum number of points
+     *
+     * 返回值 / Return:
+     * 中文：列式序列 Map / English: Columnar series map
+     *
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> query(long windowMillis, int maxPoints) {
+        long[] window;
+        int count;
+        synchronized (this) {
+            int available = (int) Math.min(written, capacity);
+            if (available == 0) {
+                return describe(0, 0, new long[0][]);
+            }
+            long newestUptime = rows[(int) ((written - 1) % capacity) * width + COL_UPTIME];
+            // 中文：从最新一行向前找到窗口起点，额外保留一行作为 GC 差值基线
+            // English: Walk back from the newest row to the window start, keeping one extra row as the GC delta baseline
+            count = 0;
+            while (count < available) {
+                long row = written - 1 - count;
+                long uptime = rows[(int) (row % capacity) * width + COL_UPTIME];
+                if (newestUptime - uptime > windowMillis) {
+                    break;
+                }
+                count++;
+            }
+            int copyRows = Math.min(available, count + 1);
+            window = new long[copyRows * width];
+            for (int r = 0; r < copyRows; r++) {
+                long row = written - copyRows + r;
+                System.arraycopy(rows, (int) (row % capacity) * width, window, r * width, width);
+            }
+        }
+        int copyRows = window.length / width;
+        int baselineRows = copyRows - count;
+        int points = Math.max(1, Math.min(Math.max(1, maxPoints), count));
+        long[][] buckets = downsample(window, baselineRows, count, points);
+        return describe(count, points, buckets);
+    }
+
+    /**
+     * 将窗口行划分为 points 个桶：容量类列取均值，GC 累计列取“桶末值 - 上一桶末值”。
+     *
+     * @param window 拷贝出的窗口数据（可能包含一行基线）。
+     * @param baselineRows 基线行数（0 或 1）。
+     * @param count 窗口内有效行数。
+     * @param points 目标点数。
+     * @return 每个桶一行的结果。
+     */
+    private long[][] downsample(long[] window, int baselineRows, int count, int points) {
+        long[][] buckets = new long[points][width];
+        int start = 0;
+        for (int p = 0; p < points; p++) {
+            int end = (int) ((long) count * (p + 1) / points);
+            int size = Math.max(1, end - start);
+            long[] bucket = buckets[p];
+            for (int r = start; r < start + size; r++) {
+                int offset = (baselineRows + r) * width;
+                for (int c = 0; c < gcBase; c++) {
+                    bucket[c] += window[offset + c];
+                }
+            }
+            for (int c = 0; c < gcBase; c++) {
+                bucket[c] /= size;
+            }
+            int lastOffset = (baselineRows + start + size - 1) * width;
+            bucket[COL_UPTIME] = window[lastOffset + COL_UPTIME];
+            bucket[COL_TIMESTAMP] = window[lastOffset + COL_TIMESTAMP];
+            int prevRow = baselineRows + start - 1;
+            for (int c = gcBase; c < width; c++) {
+                long last = window[lastOffset + c];
+                bucket[c] = prevRow >= 0 ? last - window[prevRow * width + c] : 0;
+            }
+            start += size;
+        }
+        return buckets;
+    }
+
+    /**
+     * 将桶结果转换为按指标分组的列式 Map，便于前端直接绘图。
+     */
+    private Map<String, Object> describe(int rowsInWindow, int points, long[][] buckets) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("periodMs", periodMillis);
+        result.put("capacity", capacity);
+        result.put("rowsInWindow", rowsInWindow);
+        result.put("points", points);
+        result.put("uptimeMs", column(buckets, COL_UPTIME));
+        result.put("timestamp", column(buckets, COL_TIMESTAMP));
+
+        Map<String, Object> heap = new LinkedHashMap<>();
+        heap.put("used", column(buckets, COL_HEAP_USED));
+        heap.put("committed", column(buckets, COL_HEAP_COMMITTED));
+        result.put("heap", heap);
+        result.put("nonHeapUsed", column(buckets, COL_NON_HEAP_USED));
+
+        Map<String, Object> pools = new LinkedHashMap<>();
+        for (int i = 0; i < poolNames.length; i++) {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("used", column(buckets, poolBase + i * 2));
+            pool.put("committed", column(buckets, poolBase + i * 2 + 1));
+            pools.put(poolNames[i], pool);
+        }
+        result.put("pools", pools);
+
+        Map<String, Object> bufferPools = new LinkedHashMap<>();
+        for (int i = 0; i < bufferPoolNames.length; i++) {
+            Map<String, Object> buffer = new LinkedHashMap<>();
+            buffer.put("count", column(buckets, bufferBase + i * 2));
+            buffer.put("memoryUsed", column(buckets, bufferBase + i * 2 + 1));
+            bufferPools.put(bufferPoolNames[i], buffer);
+        }
+        result.put("bufferPools", bufferPools);
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        for (int i = 0; i < gcNames.length; i++) {
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("countDelta", column(buckets, gcBase + i * 2));
+            collector.put("timeDeltaMs", column(buckets, gcBase + i * 2 + 1));
+            gc.put(gcNames[i], collector);
+        }
+        result.put("gc", gc);
+
+        Map<String, Object> threads = new LinkedHashMap<>();
+        threads.put("count", column(buckets, COL_THREADS));
+        threads.put("daemon", column(buckets, COL_DAEMON_THREADS));
+        result.put("threads", threads);
+        return result;
+    }
+
+    private static long[] column(long[][] buckets, int index) {
+        long[] values = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            values[i] = buckets[i][index];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.jvmlab.common;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：后台 JVM 指标采样器，按固定间隔读取 MXBean 并发布单个不可变的 {@link JvmMetricsSnapshot}。
+ * English: Background JVM metrics sampler that reads MXBeans on a fixed interval and publishes a single immutable {@link JvmMetricsSnapshot}.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：监控面板每秒轮询 /monitor/overview、/chapter04/monitor 时，接口只读取缓存快照，MXBean 调用次数与客户端数量无关。
+ * English: When dashboards poll /monitor/overview or /chapter04/monitor every second, endpoints only read the cached snapshot so MXBean calls are independent of client count.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：MXBean 引用与名称在初始化时解析一次；采样线程为守护线程，异常（包括实验触发的 OOM）不会终止调度。
+ * English: MXBean references and names are resolved once; the sampling thread is a daemon and errors (including experiment-induced OOM) never cancel the schedule.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.monitor.sampleIntervalMs=1000 控制采样间隔（最小 100ms）。
+ * English: -Djvm.lab.monitor.sampleIntervalMs=1000 controls the sampling interval (minimum 100ms).
+ */
+@Slf4j
+public final class JvmMetricsSampler {
+
+    static final String PROP_INTERVAL_MS = "jvm.lab.monitor.sampleIntervalMs";
+    private static final long DEFAULT_INTERVAL_MS = 1000L;
+    private static final long MIN_INTERVAL_MS = 100L;
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+    private final RuntimeMXBean runtimeMXBean = ManagementFactory.getRuntimeMXBean();
+    private final MemoryPoolMXBean[] pools;
+    private final GarbageCollectorMXBean[] collectors;
+    private final String[] poolNames;
+    private final boolean[] poolHeap;
+    private final BufferPoolMXBean[] bufferPools;
+    private final String[] bufferPoolNames;
+    private final long directMemoryMax;
+    private final String[] gcNames;
+    private final String[] gcPoolNames;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final JvmMetricsHistory history;
+
+    private volatile JvmMetricsSnapshot current;
+    /** 监听器以数组保存，遍历时不创建迭代器，保证采样回调路径无额外分配。 */
+    private volatile Listener[] listeners = new Listener[0];
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：私有构造，解析 MXBean、同步采集首个快照并启动定时采样。
+     * English: Private constructor resolving MXBeans, capturing the first snapshot synchronously and starting scheduled sampling.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    private JvmMetricsSampler() {
+        List<MemoryPoolMXBean> poolBeans = ManagementFactory.getMemoryPoolMXBeans();
+        this.pools = poolBeans.toArray(new MemoryPoolMXBean[0]);
+        this.poolNames = new String[pools.length];
+        this.poolHeap = new boolean[pools.length];
+        for (int i = 0; i < pools.length; i++) {
+            poolNames[i] = pools[i].getName();
+            poolHeap[i] = pools[i].getType() == MemoryType.HEAP;
+        }
+        this.bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).toArray(new BufferPoolMXBean[0]);
+        this.bufferPoolNames = new String[bufferPools.length];
+        for (int i = 0; i < bufferPools.length; i++) {
+            bufferPoolNames[i] = bufferPools[i].getName();
+        }
+        this.directMemoryMax = maxDirectMemory();
+        List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+        this.collectors = gcBeans.toArray(new GarbageCollectorMXBean[0]);
+        this.gcNames = new String[collectors.length];
+        this.gcPoolNames = new String[collectors.length];
+        for (int i = 0; i < collectors.length; i++) {
+            gcNames[i] = collectors[i].getName();
+            gcPoolNames[i] = Arrays.toString(collectors[i].getMemoryPoolNames());
+        }
+        this.intervalMillis = Math.max(MIN_INTERVAL_MS, Long.getLong(PROP_INTERVAL_MS, DEFAULT_INTERVAL_MS));
+        this.current = capture(null);
+        this.history = new JvmMetricsHistory(current, intervalMillis);
+        history.onSample(current);
+        this.listeners = new Listener[]{history};
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("JVM 指标采样器已启动 Metrics sampler started, intervalMs={}", intervalMillis);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：获取进程级单例，首次调用时惰性初始化。
+     * English: Get the process-wide singleton, lazily initialized on first use.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：采样器实例 / English: Sampler instance
+     * 异常 / Exceptions: 无
+     */
+    public static JvmMetricsSampler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回最近一次采样的快照，不触发任何 MXBean 调用。
+     * English: Return the most recent snapshot without any MXBean calls.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：不可变快照 / English: Immutable snapshot
+     * 异常 / Exceptions: 无
+     */
+    public JvmMetricsSnapshot current() {
+        return current;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：立即采样并替换当前快照，适用于实验前后需要精确读数的场景。
+     * English: Sample immediately and replace the current snapshot, for experiments needing exact before/after readings.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：新快照 / English: Fresh snapshot
+     * 异常 / Exceptions: 无
+     */
+    public synchronized JvmMetricsSnapshot refresh() {
+        JvmMetricsSnapshot snapshot = capture(current);
+        current = snapshot;
+        Listener[] targets = listeners;
+        for (int i = 0; i < targets.length; i++) {
+            try {
+                targets[i].onSample(snapshot);
+            } catch (RuntimeException ex) {
+                log.warn("快照监听器执行失败 Snapshot listener failed: {}", ex.toString());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：注册快照监听器，每次采样完成后在采样线程中同步回调；监听器应保持轻量。
+     * English: Register a snapshot listener invoked synchronously on the sampling thread after each sample; listeners must stay lightweight.
+     *
+     * 参数 / Parameters:
+     * @param listener 中文：快照监听器 / English: Snapshot listener
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public synchronized void addListener(Listener listener) {
+        Listener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[updated.length - 1] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回随采样器一同记录的指标时间序列。
+     * English: Return the metric time series recorded alongside the sampler.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：时间序列环形缓冲 / English: Time-series ring buffer
+     * 异常 / Exceptions: 无
+     */
+    public JvmMetricsHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回配置的采样间隔（毫秒）。
+     * English: Return the configured sampling interval in milliseconds.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：采样间隔 / English: Sampling interval
+     * 异常 / Exceptions: 无
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 定时任务入口：吞掉所有 Throwable，避免 ScheduledExecutorService 静默取消后续调度。
+     */
+    private void tick() {
+        try {
+            refresh();
+        } catch (Throwable ex) {
+            log.warn("JVM 指标采样失败 Metrics sampling failed: {}", ex.toString());
+        }
+    }
+
+    /**
+     * 采集一次完整快照，并基于上一快照计算 GC 次数/耗时增量。
+     *
+     * @param previous 上一快照，首次采样为 null。
+     * @return 新快照。
+     */
+    private JvmMetricsSnapshot capture(JvmMetricsSnapshot previous) {
+        JvmMetricsSnapshot.Builder b = new JvmMetricsSnapshot.Builder();
+        b.timestampMillis = System.currentTimeMillis();
+        b.uptimeMillis = runtimeMXBean.getUptime();
+        b.intervalMillis = previous == null ? 0 : b.uptimeMillis - previous.getUptimeMillis();
+
+        MemoryUsage heap = memoryMXBean.getHeapMemoryUsage();
+        b.heapInit = heap.getInit();
+        b.heapUsed = heap.getUsed();
+        b.heapCommitted = heap.getCommitted();
+        b.heapMax = heap.getMax();
+        MemoryUsage nonHeap = memoryMXBean.getNonHeapMemoryUsage();
+        b.nonHeapInit = nonHeap.getInit();
+        b.nonHeapUsed = nonHeap.getUsed();
+        b.nonHeapCommitted = nonHeap.getCommitted();
+        b.nonHeapMax = nonHeap.getMax();
+
+        int poolCount = pools.length;
+        b.poolNames = poolNames;
+        b.poolHeap = poolHeap;
+        b.poolUsed = new long[poolCount];
+        b.poolCommitted = new long[poolCount];
+        b.poolMax = new long[poolCount];
+        for (int i = 0; i < poolCount; i++) {
+            // 中文：内存池可能在运行期失效（如 CodeHeap 被禁用），此时返回 null
+            // English: A pool may become invalid at runtime, in which case getUsage() returns null
+            MemoryUsage usage = pools[i].getUsage();
+            b.poolUsed[i] = usage == null ? -1 : usage.getUsed();
+            b.poolCommitted[i] = usage == null ? -1 : usage.getCommitted();
+            b.poolMax[i] = usage == null ? -1 : usage.getMax();
+        }
+
+        int bufferCount = bufferPools.length;
+        b.bufferPoolNames = bufferPoolNames;
+        b.bufferCount = new long[bufferCount];
+        b.bufferCapacity = new long[bufferCount];
+        b.bufferUsed = new long[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            b.bufferCount[i] = bufferPools[i].getCount();
+            b.bufferCapacity[i] = bufferPools[i].getTotalCapacity();
+            b.bufferUsed[i] = bufferPools[i].getMemoryUsed();
+        }
+        b.directMemoryMax = directMemoryMax;
+
+        int gcCount = collectors.length;
+        b.gcNames = gcNames;
+        b.gcPoolNames = gcPoolNames;
+        b.gcCount = new long[gcCount];
+        b.gcTime = new long[gcCount];
+        b.gcCountDelta = new long[gcCount];
+        b.gcTimeDelta = new long[gcCount];
+        for (int i = 0; i < gcCount; i++) {
+            b.gcCount[i] = collectors[i].getCollectionCount();
+            b.gcTime[i] = collectors[i].getCollectionTime();
+            if (previous != null) {
+                b.gcCountDelta[i] = b.gcCount[i] - previous.getGcCollectionCount(i);
+                b.gcTimeDelta[i] = b.gcTime[i] - previous.getGcCollectionTime(i);
+            }
+        }
+
+        b.threadCount = threadMXBean.getThreadCount();
+        b.peakThreadCount = threadMXBean.getPeakThreadCount();
+        b.daemonThreadCount = threadMXBean.getDaemonThreadCount();
+        b.totalStartedThreadCount = threadMXBean.getTotalStartedThreadCount();
+        b.loadedClassCount = classLoadingMXBean.getLoadedClassCount();
+        b.totalLoadedClassCount = classLoadingMXBean.getTotalLoadedClassCount();
+        b.unloadedClassCount = classLoadingMXBean.getUnloadedClassCount();
+        return b.build();
+    }
+
+    /**
+     * 读取 -XX:MaxDirectMemorySize；为 0（未设置）时 JDK 以最大堆作为直接内存上限。
+     *
+     * @return 直接内存上限字节数，无法读取时为 -1。
+     */
+    static long maxDirectMemory() {
+        try {
+            long configured = Long.parseLong(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("MaxDirectMemorySize").getValue());
+            return configured > 0 ? configured : Runtime.getRuntime().maxMemory();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 类说明 / Class Description:
+     * 中文：快照监听器，用于在采样线程上消费每个新快照（如时间序列记录）。
+     * English: Snapshot listener consuming every new snapshot on the sampling thread (e.g. time-series recording).
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onSample(JvmMetricsSnapshot snapshot);
+    }
+
+    /** 延迟初始化持有者（Initialization-on-demand holder）。 */
+    private static final class Holder {
+        private static final JvmMetricsSampler INSTANCE = new JvmMetricsSampler();
+    }
+}
@@ -0,0 +1,433 @@
+package com.example.jvmlab.common;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：JVM 指标的不可变快照，仅保存原始数值（long/int 数组），由 {@link JvmMetricsSampler} 定时生成。
+ * English: Immutable snapshot of JVM metrics holding only primitive values (long/int arrays), produced periodically by {@link JvmMetricsSampler}.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：监控接口直接读取缓存快照，无需每次请求都遍历 MXBean；格式化结果按快照惰性生成并复用。
+ * English: Monitoring endpoints read the cached snapshot instead of walking MXBeans per request; formatted views are built lazily once per snapshot.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：采样与格式化解耦，无论多少客户端轮询，每个采样周期最多格式化一次，抓取成本恒定。
+ * English: Decouple sampling from formatting so each sampling period formats at most once, keeping scrape cost constant regardless of pollers.
+ */
+public final class JvmMetricsSnapshot {
+
+    private final long timestampMillis;
+    private final long uptimeMillis;
+    private final long intervalMillis;
+
+    private final long heapInit;
+    private final long heapUsed;
+    private final long heapCommitted;
+    private final long heapMax;
+
+    private final long nonHeapInit;
+    private final long nonHeapUsed;
+    private final long nonHeapCommitted;
+    private final long nonHeapMax;
+
+    private final String[] poolNames;
+    private final boolean[] poolHeap;
+    private final long[] poolUsed;
+    private final long[] poolCommitted;
+    private final long[] poolMax;
+
+    private final String[] bufferPoolNames;
+    private final long[] bufferCount;
+    private final long[] bufferCapacity;
+    private final long[] bufferUsed;
+    private final long directMemoryMax;
+
+    private final String[] gcNames;
+    private final String[] gcPoolNames;
+    private final long[] gcCount;
+    private final long[] gcTime;
+    private final long[] gcCountDelta;
+    private final long[] gcTimeDelta;
+
+    private final int threadCount;
+    private final int peakThreadCount;
+    private final int daemonThreadCount;
+    private final long totalStartedThreadCount;
+
+    private final int loadedClassCount;
+    private final long totalLoadedClassCount;
+    private final long unloadedClassCount;
+
+    /** 惰性格式化缓存；并发下可能重复计算，但结果等价，无需加锁。 */
+    private volatile Map<String, Object> memoryInfoView;
+    private volatile Map<String, Map<String, Object>> gcStatsView;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：包内构造函数，由采样器传入已填充的数组，快照接管数组所有权且不再对外暴露。
+     * English: Package-private constructor; the sampler hands over filled arrays whose ownership moves to the snapshot and which are never exposed.
+     *
+     * 参数 / Parameters:
+     * @param builder 中文：采样器填充的可变缓冲 / English: Mutable buffer filled by the sampler
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    JvmMetricsSnapshot(Builder builder) {
+        this.timestampMillis = builder.timestampMillis;
+        this.uptimeMillis = builder.uptimeMillis;
+        this.intervalMillis = builder.intervalMillis;
+        this.heapInit = builder.heapInit;
+        this.heapUsed = builder.heapUsed;
+        this.heapCommitted = builder.heapCommitted;
+        this.heapMax = builder.heapMax;
+        this.nonHeapInit = builder.nonHeapInit;
+        this.nonHeapUsed = builder.nonHeapUsed;
+        this.nonHeapCommitted = builder.nonHeapCommitted;
+        this.nonHeapMax = builder.nonHeapMax;
+        this.poolNames = builder.poolNames;
+        this.poolHeap = builder.poolHeap;
+        this.poolUsed = builder.poolUsed;
+        this.poolCommitted = builder.poolCommitted;
+        this.poolMax = builder.poolMax;
+        this.bufferPoolNames = builder.bufferPoolNames;
+        this.bufferCount = builder.bufferCount;
+        this.bufferCapacity = builder.bufferCapacity;
+        this.bufferUsed = builder.bufferUsed;
+        this.directMemoryMax = builder.directMemoryMax;
+        this.gcNames = builder.gcNames;
+        this.gcPoolNames = builder.gcPoolNames;
+        this.gcCount = builder.gcCount;
+        this.gcTime = builder.gcTime;
+        this.gcCountDelta = builder.gcCountDelta;
+        this.gcTimeDelta = builder.gcTimeDelta;
+        this.threadCount = builder.threadCount;
+        this.peakThreadCount = builder.peakThreadCount;
+        this.daemonThreadCount = builder.daemonThreadCount;
+        this.totalStartedThreadCount = builder.totalStartedThreadCount;
+        this.loadedClassCount = builder.loadedClassCount;
+        this.totalLoadedClassCount = builder.totalLoadedClassCount;
+        this.unloadedClassCount = builder.unloadedClassCount;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getUptimeMillis() {
+        return uptimeMillis;
+    }
+
+    /** 距上一次采样的间隔（毫秒），首个快照为 0。 */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getHeapInit() {
+        return heapInit;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    public long getHeapCommitted() {
+        return heapCommitted;
+    }
+
+    public long getHeapMax() {
+        return heapMax;
+    }
+
+    public long getNonHeapInit() {
+        return nonHeapInit;
+    }
+
+    public long getNonHeapUsed() {
+        return nonHeapUsed;
+    }
+
+    public long getNonHeapCommitted() {
+        return nonHeapCommitted;
+    }
+
+    public long getNonHeapMax() {
+        return nonHeapMax;
+    }
+
+    public int getPoolCount() {
+        return poolNames.length;
+    }
+
+    public String getPoolName(int index) {
+        return poolNames[index];
+    }
+
+    public boolean isHeapPool(int index) {
+        return poolHeap[index];
+    }
+
+    public long getPoolUsed(int index) {
+        return poolUsed[index];
+    }
+
+    public long getPoolCommitted(int index) {
+        return poolCommitted[index];
+    }
+
+    public long getPoolMax(int index) {
+        return poolMax[index];
+    }
+
+    /** BufferPoolMXBean 数量（通常为 direct、mapped 与 mapped - 'non-volatile memory'）。 */
+    public int getBufferPoolCount() {
+        return bufferPoolNames.length;
+    }
+
+    public String getBufferPoolName(int index) {
+        return bufferPoolNames[index];
+    }
+
+    public long getBufferCount(int index) {
+        return bufferCount[index];
+    }
+
+    public long getBufferTotalCapacity(int index) {
+        return bufferCapacity[index];
+    }
+
+    public long getBufferMemoryUsed(int index) {
+        return bufferUsed[index];
+    }
+
+    /** 按名称查找缓冲池序号，不存在返回 -1。 */
+    public int findBufferPool(String name) {
+        for (int i = 0; i < bufferPoolNames.length; i++) {
+            if (bufferPoolNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** 直接内存上限（-XX:MaxDirectMemorySize，未设置时等于最大堆），未知为 -1。 */
+    public long getDirectMemoryMax() {
+        return directMemoryMax;
+    }
+
+    public int getGcCount() {
+        return gcNames.length;
+    }
+
+    public String getGcName(int index) {
+        return gcNames[index];
+    }
+
+    public long getGcCollectionCount(int index) {
+        return gcCount[index];
+    }
+
+    public long getGcCollectionTime(int index) {
+        return gcTime[index];
+    }
+
+    /** 本采样周期内该收集器新增的回收次数。 */
+    public long getGcCollectionCountDelta(int index) {
+        return gcCountDelta[index];
+    }
+
+    /** 本采样周期内该收集器新增的回收耗时（毫秒）。 */
+    public long getGcCollectionTimeDelta(int index) {
+        return gcTimeDelta[index];
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getPeakThreadCount() {
+        return peakThreadCount;
+    }
+
+    public int getDaemonThreadCount() {
+        return daemonThreadCount;
+    }
+
+    public long getTotalStartedThreadCount() {
+        return totalStartedThreadCount;
+    }
+
+    public int getLoadedClassCount() {
+        return loadedClassCount;
+    }
+
+    public long getTotalLoadedClassCount() {
+        return totalLoadedClassCount;
+    }
+
+    public long getUnloadedClassCount() {
+        return unloadedClassCount;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回与 {@link JvmMemoryMonitor#getMemoryInfoMap()} 结构一致的只读视图，每个快照仅格式化一次。
+     * English: Return a read-only view shaped like {@link JvmMemoryMonitor#getMemoryInfoMap()}, formatted once per snapshot.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：只读监控信息 Map / English: Read-only monitoring info map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> toMemoryInfoMap() {
+        Map<String, Object> view = memoryInfoView;
+        if (view == null) {
+            view = formatMemoryInfo();
+            memoryInfoView = view;
+        }
+        return view;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回与 {@link JvmMemoryMonitor#getGCStats()} 结构一致的只读 GC 视图，附带本周期增量。
+     * English: Return a read-only GC view shaped like {@link JvmMemoryMonitor#getGCStats()}, including per-interval deltas.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：只读 GC 信息 Map / English: Read-only GC info map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Map<String, Object>> toGcStatsMap() {
+        Map<String, Map<String, Object>> view = gcStatsView;
+        if (view == null) {
+            view = formatGcStats();
+            gcStatsView = view;
+        }
+        return view;
+    }
+
+    private Map<String, Object> formatMemoryInfo() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        Map<String, String> heapInfo = new LinkedHashMap<>();
+        heapInfo.put("init", JvmMemoryMonitor.formatSize(heapInit));
+        heapInfo.put("used", JvmMemoryMonitor.formatSize(heapUsed));
+        heapInfo.put("committed", JvmMemoryMonitor.formatSize(heapCommitted));
+        heapInfo.put("max", JvmMemoryMonitor.formatSize(heapMax));
+        heapInfo.put("usagePercent", heapMax > 0 ?
+                String.format(Locale.ENGLISH, "%.2f%%", (double) heapUsed / heapMax * 100) : "N/A");
+        info.put("heap", Collections.unmodifiableMap(heapInfo));
+
+        Map<String, String> nonHeapInfo = new LinkedHashMap<>();
+        nonHeapInfo.put("init", JvmMemoryMonitor.formatSize(nonHeapInit));
+        nonHeapInfo.put("used", JvmMemoryMonitor.formatSize(nonHeapUsed));
+        nonHeapInfo.put("committed", JvmMemoryMonitor.formatSize(nonHeapCommitted));
+        nonHeapInfo.put("max", nonHeapMax == -1 ? "Undefined" : JvmMemoryMonitor.formatSize(nonHeapMax));
+        info.put("nonHeap", Collections.unmodifiableMap(nonHeapInfo));
+
+        Map<String, Map<String, String>> pools = new LinkedHashMap<>();
+        for (int i = 0; i < poolNames.length; i++) {
+            Map<String, String> poolInfo = new LinkedHashMap<>();
+            poolInfo.put("type", poolHeap[i] ? "Heap memory" : "Non-heap memory");
+            poolInfo.put("used", JvmMemoryMonitor.formatSize(poolUsed[i]));
+            poolInfo.put("max", poolMax[i] == -1 ? "Undefined" : JvmMemoryMonitor.formatSize(poolMax[i]));
+            pools.put(poolNames[i], Collections.unmodifiableMap(poolInfo));
+        }
+        info.put("pools", Collections.unmodifiableMap(pools));
+
+        Map<String, Map<String, Object>> buffers = new LinkedHashMap<>();
+        for (int i = 0; i < bufferPoolNames.length; i++) {
+            Map<String, Object> bufferInfo = new LinkedHashMap<>();
+            bufferInfo.put("count", bufferCount[i]);
+            bufferInfo.put("totalCapacity", JvmMemoryMonitor.formatSize(bufferCapacity[i]));
+            bufferInfo.put("memoryUsed", JvmMemoryMonitor.formatSize(bufferUsed[i]));
+            buffers.put(bufferPoolNames[i], Collections.unmodifiableMap(bufferInfo));
+        }
+        info.put("bufferPools", Collections.unmodifiableMap(buffers));
+        info.put("directMemoryMax", JvmMemoryMonitor.formatSize(directMemoryMax));
+
+        info.put("gc", toGcStatsMap());
+
+        Map<String, Object> threadInfo = new LinkedHashMap<>();
+        threadInfo.put("count", threadCount);
+        threadInfo.put("peak", peakThreadCount);
+        threadInfo.put("daemon", daemonThreadCount);
+        threadInfo.put("totalStarted", totalStartedThreadCount);
+        info.put("threads", Collections.unmodifiableMap(threadInfo));
+
+        Map<String, Object> classInfo = new LinkedHashMap<>();
+        classInfo.put("loadedCount", loadedClassCount);
+        classInfo.put("totalLoadedCount", totalLoadedClassCount);
+        classInfo.put("unloadedCount", unloadedClassCount);
+        info.put("classes", Collections.unmodifiableMap(classInfo));
+
+        Map<String, Object> sampleInfo = new LinkedHashMap<>();
+        sampleInfo.put("timestamp", timestampMillis);
+        sampleInfo.put("uptimeMs", uptimeMillis);
+        sampleInfo.put("intervalMs", intervalMillis);
+        info.put("sample", Collections.unmodifiableMap(sampleInfo));
+        return Collections.unmodifiableMap(info);
+    }
+
+    private Map<String, Map<String, Object>> formatGcStats() {
+        Map<String, Map<String, Object>> gcInfo = new LinkedHashMap<>();
+        for (int i = 0; i < gcNames.length; i++) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", gcCount[i]);
+            stats.put("time", gcTime[i]);
+            stats.put("countDelta", gcCountDelta[i]);
+            stats.put("timeDeltaMs", gcTimeDelta[i]);
+            stats.put("memoryPoolNames", gcPoolNames[i]);
+            gcInfo.put(gcNames[i], Collections.unmodifiableMap(stats));
+        }
+        return Collections.unmodifiableMap(gcInfo);
+    }
+
+    /**
+     * 类说明 / Class Description:
+     * 中文：采样器内部使用的可变缓冲，字段直接赋值后一次性构建快照。
+     * English: Mutable buffer used inside the sampler; fields are assigned directly and then frozen into a snapshot.
+     */
+    static final class Builder {
+        long timestampMillis;
+        long uptimeMillis;
+        long intervalMillis;
+        long heapInit;
+        long heapUsed;
+        long heapCommitted;
+        long heapMax;
+        long nonHeapInit;
+        long nonHeapUsed;
+        long nonHeapCommitted;
+        long nonHeapMax;
+        String[] poolNames;
+        boolean[] poolHeap;
+        long[] poolUsed;
+        long[] poolCommitted;
+        long[] poolMax;
+        String[] bufferPoolNames = new String[0];
+        long[] bufferCount = new long[0];
+        long[] bufferCapacity = new long[0];
+        long[] bufferUsed = new long[0];
+        long directMemoryMax = -1;
+        String[] gcNames;
+        String[] gcPoolNames;
+        long[] gcCount;
+        long[] gcTime;
+        long[] gcCountDelta;
+        long[] gcTimeDelta;
+        int threadCount;
+        int peakThreadCount;
+        int daemonThreadCount;
+        long totalStartedThreadCount;
+        int loadedClassCount;
+        long totalLoadedClassCount;
+        long unloadedClassCount;
+
+        JvmMetricsSnapshot build() {
+            return new JvmMetricsSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.jvmlab.common;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：基于老年代 GC 后基线的滚动线性回归泄漏检测器，输出增长斜率、拟合度 r² 与预计 OOM 时间。
+ * English: Leak detector fitting a rolling linear regression over the post-GC old-generation baseline, reporting slope, r² and projected time-to-OOM.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：生产告警应在“GC 后基线稳定上涨”时触发，而不是瞬时尖峰越过 90% 时触发。
+ * English: Production alerts should fire when the post-GC baseline grows steadily, not when a transient spike crosses 90%.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：x 以窗口内最早样本的时刻为原点：原始 uptime 在长时间运行的进程上很大，n·Σx² − (Σx)² 会发生灾难性抵消；每次加入样本时对窗口（默认 20 个）重算 Σx、Σy、Σxy、Σx²、Σy²，
+ *      也不会累积滑动相减的误差，样本只来自整堆回收，GC 通知线程上几乎无开销。
+ * English: x is measured from the oldest sample in the window: raw uptime is large on a long-running process and n·Σx² − (Σx)² would cancel catastrophically; the sums Σx, Σy, Σxy, Σx², Σy² are recomputed over the window (20 samples by default) on each add,
+ *      which also avoids drift from sliding subtraction, and since samples come only from whole-heap collections the cost on the GC notification thread is negligible.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.monitor.leakWindow（回归窗口样本数，默认 20）、-Djvm.lab.monitor.leakMinSamples（最少样本数，默认 5）。
+ * English: -Djvm.lab.monitor.leakWindow (regression window in samples, default 20), -Djvm.lab.monitor.leakMinSamples (minimum samples, default 5).
+ */
+public final class OldGenTrendDetector {
+
+    static final String PROP_WINDOW = "jvm.lab.monitor.leakWindow";
+    static final String PROP_MIN_SAMPLES = "jvm.lab.monitor.leakMinSamples";
+
+    private static final double MB = 1024.0 * 1024.0;
+    private static final long HOUR_SECONDS = 3600;
+    private static final long DAY_SECONDS = 24 * HOUR_SECONDS;
+
+    /** 样本时刻（JVM 启动后毫秒），环形缓冲。 */
+    private final long[] uptimes;
+    private final double[] ys;
+    private final int minSamples;
+    private final long limitBytes;
+
+    private int size;
+    private int next;
+    private long totalSamples;
+    private double sumX;
+    private double sumY;
+    private double sumXY;
+    private double sumXX;
+    private double sumYY;
+    private long originUptimeMs;
+    private long lastUptimeMs;
+    private long lastLiveBytes;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：使用系统属性中的窗口配置构造检测器。
+     * English: Build a detector using the window configuration from system properties.
+     *
+     * 参数 / Parameters:
+     * @param limitBytes 中文：老年代（或堆）上限，用于推算 OOM 时间；≤0 表示未知 / English: Old-gen (or heap) limit used for the OOM projection; ≤0 means unknown
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public OldGenTrendDetector(long limitBytes) {
+        this(Math.max(3, Integer.getInteger(PROP_WINDOW, 20)),
+                Math.max(3, Integer.getInteger(PROP_MIN_SAMPLES, 5)), limitBytes);
+    }
+
+    OldGenTrendDetector(int window, int minSamples, long limitBytes) {
+        this.uptimes = new long[window];
+        this.ys = new double[window];
+        this.minSamples = Math.min(minSamples, window);
+        this.limitBytes = limitBytes;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：加入一个 GC 后存活集样本；窗口已满时淘汰最旧样本，并以新的最旧样本为原点重算各和。
+     * English: Add a post-GC live-set sample; when the window is full the oldest sample is evicted and the sums are recomputed from the new oldest sample.
+     *
+     * 参数 / Parameters:
+     * @param uptimeMs 中文：GC 结束时刻（JVM 启动后毫秒） / English: GC end time in ms since JVM start
+     * @param liveBytes 中文：GC 后老年代占用 / English: Old-gen occupancy after GC
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public synchronized void addSample(long uptimeMs, long liveBytes) {
+        uptimes[next] = uptimeMs;
+        ys[next] = liveBytes / MB;
+        next = (next + 1) % uptimes.length;
+        if (size < uptimes.length) {
+            size++;
+        }
+        // 中文：窗口满时 next 指向最早样本，未满时最早样本在下标 0；x 取相对它的秒数、y 取 MB，避免大数相减的精度损失
+        // English: When full, next points at the oldest sample, otherwise it is at index 0; x is seconds from it and y is MB, avoiding cancellation between large values
+        int oldest = size == uptimes.length ? next : 0;
+        originUptimeMs = uptimes[oldest];
+        sumX = 0;
+        sumY = 0;
+        sumXY = 0;
+        sumXX = 0;
+        sumYY = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (oldest + i) % uptimes.length;
+            double x = (uptimes[index] - originUptimeMs) / 1000.0;
+            double y = ys[index];
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+            sumYY += y * y;
+        }
+        totalSamples++;
+        lastUptimeMs = uptimeMs;
+        lastLiveBytes = liveBytes;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：由当前窗口和求解最小二乘斜率与 r²，推算 OOM 时间并给出风险等级。
+     * English: Solve the least-squares slope and r² from the current sums, project time-to-OOM and grade the risk.
+     *
+     * 参数 / Parameters: 无
+     *
+     * 返回值 / Return:
+     * 中文：包含 riskLevel、slope、r²、timeToOom 等字段的 Map / English: Map with riskLevel, slope, r², timeToOom and related fields
+     *
+     * 异常 / Exceptions: 无
+     */
+    public synchronized Map<String, Object> evaluate() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samplesInWindow", size);
+        result.put("totalSamples", totalSamples);
+        result.put("lastLiveSet", JvmMemoryMonitor.formatSize(size > 0 ? lastLiveBytes : -1));
+        result.put("limit", JvmMemoryMonitor.formatSize(limitBytes > 0 ? limitBytes : -1));
+        if (size < minSamples) {
+            result.put("riskLevel", "UNKNOWN 数据不足 - 需要至少 " + minSamples + " 次 GC 后基线样本");
+            return result;
+        }
+        double n = size;
+        double varX = sumXX - sumX * sumX / n;
+        double varY = sumYY - sumY * sumY / n;
+        double covXY = sumXY - sumX * sumY / n;
+        if (varX <= 0) {
+            result.put("riskLevel", "UNKNOWN 数据不足 - 样本时间跨度为零");
+            return result;
+        }
+        double slopeMbPerSec = covXY / varX;
+        double rSquared = varY > 0 ? Math.min(1.0, covXY * covXY / (varX * varY)) : 0;
+        double lastX = (lastUptimeMs - originUptimeMs) / 1000.0;
+        double fittedMb = sumY / n + slopeMbPerSec * (lastX - sumX / n);
+
+        result.put("slopePerHour", JvmMemoryMonitor.formatSize((long) (slopeMbPerSec * HOUR_SECONDS * MB)));
+        result.put("slopeBytesPerSec", (long) (slopeMbPerSec * MB));
+        result.put("rSquared", String.format(Locale.ENGLISH, "%.3f", rSquared));
+        result.put("fittedBaseline", JvmMemoryMonitor.formatSize((long) (fittedMb * MB)));
+
+        long secondsToOom = -1;
+        if (slopeMbPerSec > 0 && limitBytes > 0) {
+            double remainingMb = limitBytes / MB - fittedMb;
+            secondsToOom = (long) Math.max(0, remainingMb / slopeMbPerSec);
+            result.put("timeToOomSec", secondsToOom);
+        }
+        result.put("riskLevel", grade(slopeMbPerSec, rSquared, secondsToOom));
+        return result;
+    }
+
+    /**
+     * 依据斜率方向、拟合度与预计 OOM 时间分级：只有稳定上升（r² 足够高）才会升级风险。
+     */
+    private static String grade(double slope, double rSquared, long secondsToOom) {
+        if (slope <= 0 || rSquared < 0.5) {
+            return "SAFE 安全 - GC 后基线未呈稳定增长";
+        }
+        boolean known = secondsToOom >= 0;
+        if (rSquared >= 0.8 && known && secondsToOom < HOUR_SECONDS) {
+            return "HIGH 高风险 - GC 后基线稳定增长，预计 1 小时内 OOM";
+        }
+        if (rSquared >= 0.6 && known && secondsToOom < DAY_SECONDS) {
+            return "MEDIUM 中风险 - GC 后基线持续增长，预计 24 小时内 OOM";
+        }
+        return "LOW 低风险 - GC 后基线缓慢增长，需持续观察";
+    }
+}
@@ -1,23 +1,52 @@
 package com.example.jvmlab.config;
 
+import com.example.jvmlab.common.AppCdsSupport;
+import com.example.jvmlab.common.CgroupResourceReporter;
+import com.example.jvmlab.common.GcCycleTracker;
+import com.example.jvmlab.common.JvmMetricsSampler;
+import com.example.jvmlab.monitor.StartupTimelineAnalyzer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.lang.management.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class JvmStartupReport implements ApplicationListener<ApplicationReadyEvent> {
 
+    /** 就绪后打印报告并退出：AppCDS 训练运行与启动耗时对比（scripts/appcds/appcds.sh）使用。 */
+    static final String PROP_EXIT_AFTER_READY = "jvm.lab.startup.exitAfterReady";
+    /** 启动时间线缓冲的步骤数上限（每个 Bean 至少一步），超出的步骤被丢弃。 */
+    public static final int STEP_CAPACITY = Integer.getInteger("jvm.lab.startup.steps", 10_000);
+    private static final int LOG_TOP = 5;
+
+    /** 就绪时刻的 JVM 计数器快照，以及缓冲的启动时间线（未使用 BufferingApplicationStartup 时为 null）。 */
+    private volatile Map<String, Object> readySnapshot;
+    private volatile StartupTimeline timeline;
+
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
+        // 先取就绪时刻与计数器，避免把报告本身的耗时和类加载算进去
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        long readyMs = runtime.getUptime();
+        captureStartup(readyMs, event);
+
         log.info("===================== JVM 参数自检 =====================");
 
-        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
         List<String> args = runtime.getInputArguments();
 
         printHeapFlags(args);
@@ -27,11 +56,23 @@ public class JvmStartupReport implements ApplicationListener<ApplicationReadyEve
         printXlog(args);
         printOomDump(args);
         printGcInfo();
+        printContainerLimits();
+        printStartupAndCds(readyMs, event);
 
         log.info("\n===================== JVM 运行时内存区域 =====================");
         printRuntimeMemoryAreas();
 
+        // 启动后台指标采样，使 /monitor/history 从应用就绪时刻开始积累数据
+        JvmMetricsSampler.getInstance();
+        // 订阅 GC 通知，逐周期计算分配/晋升速率
+        GcCycleTracker.getInstance();
+
         log.info("\n========================== 结束 ==========================\n");
+
+        if (Boolean.getBoolean(PROP_EXIT_AFTER_READY)) {
+            // 以 SpringApplication.exit 正常关闭容器；训练运行的 -XX:ArchiveClassesAtExit 在 JVM 退出时写出归档
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
     }
 
     // ----------------------------- 参数区 -----------------------------
@@ -84,6 +125,146 @@ public class JvmStartupReport implements ApplicationListener<ApplicationReadyEve
         log.info("  使用的 GC = {}", gcNames);
     }
 
+    private void printContainerLimits() {
+        log.info("\n【容器资源（cgroup）】");
+        Map<String, Object> report = new CgroupResourceReporter().report();
+        log.info("  cgroup = {}", report.get("cgroupVersion"));
+        log.info("  内存 = {}", report.get("memory"));
+        log.info("  CPU = {}", report.get("cpu"));
+        log.info("  余量 = {}", report.get("headroom"));
+        for (Object warning : (List<?>) report.get("warnings")) {
+            log.warn("  ⚠ {}", warning);
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回就绪时刻的启动报告：耗时、类加载数、JIT 编译耗时、GC、CDS 状态，以及最慢的 Bean 与阶段。
+     * English: Return the startup report captured at ready: timings, class loading counts, JIT compilation time, GC, CDS state, and the slowest beans and phases.
+     *
+     * 参数 / Parameters:
+     * @param top 中文：最慢 Bean / 阶段各返回的条数 / English: Number of slowest beans and phases to return
+     *
+     * 返回值 / Return: 中文：启动报告 / English: Startup report
+     * 异常 / Exceptions: 中文：应用尚未就绪时抛出 IllegalStateException / English: IllegalStateException before the application is ready
+     */
+    public Map<String, Object> getStartupReport(int top) {
+        Map<String, Object> snapshot = readySnapshot;
+        if (snapshot == null) {
+            throw new IllegalStateException("应用尚未就绪 / Application is not ready yet");
+        }
+        Map<String, Object> report = new LinkedHashMap<>(snapshot);
+        StartupTimeline buffered = timeline;
+        if (buffered != null) {
+            Map<String, Object> analysis = StartupTimelineAnalyzer.analyze(buffered, top);
+            analysis.put("capacity", STEP_CAPACITY);
+            analysis.put("truncated", buffered.getEvents().size() >= STEP_CAPACITY);
+            report.put("timeline", analysis);
+        } else {
+            report.put("timeline", Map.of("available", false,
+                    "hint", "以 JvmLearningApplication.main 启动才会使用 BufferingApplicationStartup 记录启动步骤"));
+        }
+        return report;
+    }
+
+    private void captureStartup(long readyMs, ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("jvmStartTime", Instant.ofEpochMilli(runtime.getStartTime()));
+        snapshot.put("timeToReadyMs", readyMs);
+        snapshot.put("springMs", event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis());
+
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        Map<String, Object> classes = new LinkedHashMap<>();
+        classes.put("loaded", classLoading.getLoadedClassCount());
+        classes.put("totalLoaded", classLoading.getTotalLoadedClassCount());
+        classes.put("unloaded", classLoading.getUnloadedClassCount());
+        snapshot.put("classLoading", classes);
+
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        Map<String, Object> jit = new LinkedHashMap<>();
+        jit.put("compiler", compilation == null ? null : compilation.getName());
+        jit.put("totalCompilationMs", compilation != null && compilation.isCompilationTimeMonitoringSupported()
+                ? compilation.getTotalCompilationTime() : -1);
+        snapshot.put("jit", jit);
+
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+        snapshot.put("gc", Map.of("count", gcCount, "timeMs", gcTimeMs));
+
+        // 常驻内存与堆/非堆用量：对比 lazy 配置前后的内存占用
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        Map<String, Object> memory = new LinkedHashMap<>();
+        memory.put("residentKb", residentKb());
+        memory.put("heapUsedKb", memoryBean.getHeapMemoryUsage().getUsed() / 1024);
+        memory.put("nonHeapUsedKb", memoryBean.getNonHeapMemoryUsage().getUsed() / 1024);
+        memory.put("threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        snapshot.put("memory", memory);
+        snapshot.put("lazyInitialization", event.getApplicationContext().getEnvironment()
+                .getProperty("spring.main.lazy-initialization", Boolean.class, false));
+        snapshot.put("cds", AppCdsSupport.status());
+        readySnapshot = snapshot;
+
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            // getBufferedTimeline 返回副本，/actuator/startup 之后 drain 不影响这里保存的时间线
+            timeline = buffering.getBufferedTimeline();
+        }
+    }
+
+    /** 读取 /proc/self/status 的 VmRSS（KB），非 Linux 或读取失败时返回 -1。 */
+    private static long residentKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("读取 VmRSS 失败: {}", e.toString());
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void printStartupAndCds(long readyMs, ApplicationReadyEvent event) {
+        log.info("\n【启动耗时与类数据共享（AppCDS）】");
+        Map<String, Object> report = getStartupReport(LOG_TOP);
+        Map<String, Object> memory = (Map<String, Object>) report.get("memory");
+        // 固定格式，scripts/appcds/appcds.sh compare 按此行解析
+        log.info("  time-to-ready = {} ms (JVM uptime), Spring = {} ms, RSS = {} MB, lazy = {}", readyMs,
+                event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis(),
+                (long) memory.get("residentKb") / 1024, report.get("lazyInitialization"));
+        log.info("  类加载 = {}，JIT = {}，GC = {}", report.get("classLoading"), report.get("jit"), report.get("gc"));
+        Map<String, Object> analysis = (Map<String, Object>) report.get("timeline");
+        if (analysis.containsKey("slowestBeans")) {
+            log.info("  启动步骤 = {}，实例化 Bean = {}，Bean 自身耗时合计 = {} ms（详见 GET /monitor/startup）",
+                    analysis.get("steps"), analysis.get("beansInstantiated"), analysis.get("beanSelfMsTotal"));
+            for (Map<String, Object> bean : (List<Map<String, Object>>) analysis.get("slowestBeans")) {
+                log.info("  慢 Bean   {} self={} ms total={} ms", bean.get("bean"), bean.get("selfMs"), bean.get("totalMs"));
+            }
+            for (Map<String, Object> phase : (List<Map<String, Object>>) analysis.get("phasesByName")) {
+                log.info("  慢阶段    {} x{} self={} ms", phase.get("phase"), phase.get("count"), phase.get("selfMs"));
+            }
+        }
+        Map<String, Object> modules = event.getApplicationContext().getBean(LabModuleActivationTracker.class).snapshot();
+        log.info("  实验模块已激活 = {} / {}（lazy 配置下首次请求时激活，详见 GET /monitor/startup/modules）",
+                modules.get("activeModules"), modules.get("declaredModules"));
+        Map<String, Object> cds = AppCdsSupport.status();
+        log.info("  共享归档 = {} ({})", cds.get("sharingEnabled"),
+                cds.get("sharedArchiveFile") == null ? "JDK 默认归档或未启用" : cds.get("sharedArchiveFile"));
+        if (cds.get("archiveClassesAtExit") != null) {
+            log.info("  训练运行：退出时写出动态归档 {}", cds.get("archiveClassesAtExit"));
+        }
+        if (!Boolean.TRUE.equals(cds.get("classPathArchivable"))) {
+            log.info("  类路径含非空目录，无法生成动态归档；请先解压可执行 jar（见 scripts/appcds/README.txt）");
+        }
+    }
+
     private void print(List<String> args, String key, String desc) {
         String value = args.stream()
                 .filter(arg -> arg.contains(key))
@@ -0,0 +1,234 @@
+package com.example.jvmlab.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：实验模块激活跟踪器：把 chapterNN、exceptionlab、benchlab 与 jvmstress 包下的 Bean 归为“实验模块”，记录每个模块第一次创建 Bean 的时刻、激活耗时与期间新加载的类数。
+ * English: Lab module activation tracker: groups the beans under the chapterNN, exceptionlab, benchlab and jvmstress packages into lab modules and records when each module first created a bean, how long activation took and how many classes it loaded.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：lazy 配置下确认只服务监控的实例没有激活任何实验模块，并观察首次请求某章节时付出的初始化成本（ASM、JOL、javac 等类在此时才加载）。
+ * English: Under the lazy profile, confirm that a monitoring-only instance activated no lab module, and observe the initialization cost paid by the first request to a chapter (ASM, JOL, javac and similar classes load only then).
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：以 Bean 后处理器在实例化前后打点，同一线程内嵌套创建的依赖 Bean 计入最外层 Bean 的激活耗时；模块划分只看包名，新增章节无需登记。
+ * English: As a bean post-processor it takes timestamps before instantiation and after initialization, so dependencies created on the same thread count toward the outermost bean's activation; modules are derived from package names, so new chapters need no registration.
+ */
+@Slf4j
+public class LabModuleActivationTracker implements InstantiationAwareBeanPostProcessor, BeanFactoryAware,
+        EnvironmentAware, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String LAB_PACKAGE = "com.example.jvmlab.";
+    private static final String STRESS_PACKAGE = "com.example.jvmstress.";
+    private static final Set<String> LAB_MODULES = Set.of("exceptionlab", "benchlab");
+
+    private final Map<String, Activation> activations = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<Pending>> pending = ThreadLocal.withInitial(ArrayDeque::new);
+    private volatile ConfigurableListableBeanFactory beanFactory;
+    private volatile boolean lazyInitialization;
+    private volatile long readyAtMs = -1;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回类型所属的实验模块名（chapter02、exceptionlab、jvmstress 等）；监控、公共组件与框架类型返回 null。
+     * English: Return the lab module a type belongs to (chapter02, exceptionlab, jvmstress, ...); monitoring, common components and framework types return null.
+     *
+     * 参数 / Parameters:
+     * @param type 中文：Bean 类型，可为 null / English: Bean type, may be null
+     *
+     * 返回值 / Return: 中文：模块名或 null / English: Module name or null
+     * 异常 / Exceptions: 无
+     */
+    public static String moduleOf(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+        String name = type.getName();
+        if (name.startsWith(STRESS_PACKAGE)) {
+            return "jvmstress";
+        }
+        if (!name.startsWith(LAB_PACKAGE)) {
+            return null;
+        }
+        int dot = name.indexOf('.', LAB_PACKAGE.length());
+        if (dot < 0) {
+            return null;
+        }
+        String module = name.substring(LAB_PACKAGE.length(), dot);
+        return module.startsWith("chapter") || LAB_MODULES.contains(module) ? module : null;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (beanFactory instanceof ConfigurableListableBeanFactory listable) {
+            this.beanFactory = listable;
+        }
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        lazyInitialization = environment.getProperty("spring.main.lazy-initialization", Boolean.class, false);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        readyAtMs = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        String module = moduleOf(beanClass);
+        if (module != null) {
+            ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+            long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+            // 中文：模块的第一个 Bean 成为“激活者”，它（含依赖）创建完成时结算激活耗时
+            // English: The module's first bean becomes the activator; activation is settled when it (with its dependencies) completes
+            boolean activator = activations.putIfAbsent(module, new Activation(uptimeMs, readyAtMs >= 0)) == null;
+            pending.get().push(new Pending(module, beanName, activator, System.nanoTime(),
+                    classLoading.getTotalLoadedClassCount()));
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Pending> stack = pending.get();
+        if (stack.isEmpty()) {
+            return bean;
+        }
+        Pending done = null;
+        Iterator<Pending> iterator = stack.iterator();
+        while (iterator.hasNext()) {
+            Pending candidate = iterator.next();
+            if (candidate.beanName.equals(beanName)) {
+                done = candidate;
+                break;
+            }
+        }
+        if (done == null) {
+            return bean;
+        }
+        // 中文：栈顶到匹配项之间是创建失败、没有走到初始化后回调的 Bean，一并丢弃
+        // English: Entries above the match belong to beans whose creation failed before this callback; drop them too
+        Pending popped;
+        do {
+            popped = stack.pop();
+        } while (popped != done);
+        if (stack.isEmpty()) {
+            pending.remove();
+        }
+        Activation activation = activations.get(done.module);
+        activation.beans.add(beanName);
+        if (done.activator) {
+            activation.activationMs = (System.nanoTime() - done.startNanos) / 1_000_000.0;
+            activation.classesLoaded = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount()
+                    - done.loadedClasses;
+            if (activation.afterReady) {
+                log.info("实验模块 {} 首次请求时激活：{} ms，新加载类 {} 个，Bean {}", done.module,
+                        String.format("%.1f", activation.activationMs), activation.classesLoaded, activation.beans);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回懒加载开关、就绪时刻与每个实验模块的状态：声明的 Bean、是否已激活、激活时刻（JVM uptime）、是否在就绪之后、激活耗时与新加载类数。
+     * English: Return the lazy-init flag, ready time and each lab module's state: declared beans, whether it is active, activation time (JVM uptime), whether that was after ready, activation duration and classes loaded.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：模块状态字典 / English: Module status map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, List<String>> declared = new TreeMap<>();
+        ConfigurableListableBeanFactory factory = beanFactory;
+        if (factory != null) {
+            for (String name : factory.getBeanDefinitionNames()) {
+                String module = moduleOf(factory.getType(name, false));
+                if (module != null) {
+                    declared.computeIfAbsent(module, ignored -> new ArrayList<>()).add(name);
+                }
+            }
+        }
+        List<Map<String, Object>> modules = new ArrayList<>();
+        int active = 0;
+        for (Map.Entry<String, List<String>> entry : declared.entrySet()) {
+            Map<String, Object> module = new LinkedHashMap<>();
+            module.put("module", entry.getKey());
+            module.put("beans", entry.getValue());
+            Activation activation = activations.get(entry.getKey());
+            module.put("active", activation != null);
+            if (activation != null) {
+                active++;
+                module.put("activatedAtMs", activation.activatedAtMs);
+                module.put("afterReady", activation.afterReady);
+                module.put("activationMs", Math.round(activation.activationMs * 10) / 10.0);
+                module.put("classesLoaded", activation.classesLoaded);
+                module.put("createdBeans", List.copyOf(activation.beans));
+            }
+            modules.add(module);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lazyInitialization", lazyInitialization);
+        result.put("readyAtMs", readyAtMs);
+        result.put("activeModules", active);
+        result.put("declaredModules", declared.size());
+        result.put("modules", modules);
+        return result;
+    }
+
+    /** 进行中的模块 Bean 创建。 */
+    private static final class Pending {
+        private final String module;
+        private final String beanName;
+        private final boolean activator;
+        private final long startNanos;
+        private final long loadedClasses;
+
+        private Pending(String module, String beanName, boolean activator, long startNanos, long loadedClasses) {
+            this.module = module;
+            this.beanName = beanName;
+            this.activator = activator;
+            this.startNanos = startNanos;
+            this.loadedClasses = loadedClasses;
+        }
+    }
+
+    /** 模块的激活记录，耗时与类数在激活者 Bean 创建完成后写入。 */
+    private static final class Activation {
+        private final long activatedAtMs;
+        private final boolean afterReady;
+        private final List<String> beans = new CopyOnWriteArrayList<>();
+        private volatile double activationMs;
+        private volatile long classesLoaded;
+
+        private Activation(long activatedAtMs, boolean afterReady) {
+            this.activatedAtMs = activatedAtMs;
+            this.afterReady = afterReady;
+        }
+    }
+}
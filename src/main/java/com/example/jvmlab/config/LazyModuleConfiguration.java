@@ -0,0 +1,50 @@
+package com.example.jvmlab.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：实验模块按需激活配置：spring.main.lazy-initialization=true（lazy 配置）时只把实验模块（各章节、异常实验、基准实验、jvmstress）的 Bean 设为懒加载，框架、监控与公共组件仍在启动时创建。
+ * English: On-demand lab module configuration: with spring.main.lazy-initialization=true (the lazy profile) only lab module beans (chapters, exception lab, benchmark lab, jvmstress) become lazy, while framework, monitoring and common beans are still created at startup.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：生产实例只提供 /monitor、/actuator 等监控接口时，以 --spring.profiles.active=lazy 启动，不为未使用的实验付出启动时间、线程池与 ASM/JOL/javac 等类加载开销。
+ * English: A production instance that only serves /monitor, /actuator and similar endpoints starts with --spring.profiles.active=lazy and pays no startup time, executors or ASM/JOL/javac class loading for unused experiments.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：Spring MVC 按 Bean 名登记处理器方法，懒加载的控制器在首次请求时才实例化；全局懒加载会把 JFR 流、指标采样等监控组件一并推迟，因此用排除过滤器把非实验模块留在启动阶段。
+ * English: Spring MVC registers handler methods by bean name, so a lazy controller is instantiated on its first request; global lazy-init would also defer monitoring components such as the JFR stream and metric samplers, so an exclude filter keeps everything outside the lab modules eager.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyModuleConfiguration {
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：懒加载排除过滤器：不属于实验模块的 Bean 保持立即创建；仅在 spring.main.lazy-initialization=true 时生效。
+     * English: Lazy-init exclude filter that keeps beans outside the lab modules eager; only takes effect with spring.main.lazy-initialization=true.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：排除过滤器 / English: Exclude filter
+     * 异常 / Exceptions: 无
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerOutsideLabModules() {
+        return (beanName, beanDefinition, beanType) -> LabModuleActivationTracker.moduleOf(beanType) == null;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：注册实验模块激活跟踪器（后处理器须以静态方法声明，避免提前实例化配置类）。
+     * English: Register the lab module activation tracker (post-processors are declared static so the configuration class is not instantiated early).
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：激活跟踪器 / English: Activation tracker
+     * 异常 / Exceptions: 无
+     */
+    @Bean
+    static LabModuleActivationTracker labModuleActivationTracker() {
+        return new LabModuleActivationTracker();
+    }
+}
@@ -2,9 +2,12 @@ package com.example.jvmlab.exceptionlab;
 
 import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
 import com.example.jvmlab.common.ExperimentSafetyGuard;
+import com.example.jvmlab.monitor.AllocationHotspotProfiler;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntFunction;
 
 /**
  * 类说明 / Class Description:
@@ -22,6 +25,8 @@ import java.util.Map;
 public abstract class AbstractMemoryExceptionScenario implements MemoryExceptionScenario {
 
     protected static final String PARAM_DRY_RUN = "dryRun";
+    protected static final String PARAM_RATE_MB_PER_SEC = "rateMbPerSec";
+    protected static final String PARAM_ALLOCATION_PROFILE = "allocationProfile";
 
     /**
      * 方法说明 / Method Description:
@@ -48,11 +53,42 @@ public abstract class AbstractMemoryExceptionScenario implements MemoryException
             return buildDryRunResult();
         }
         ExperimentSafetyGuard.assertEnabled();
+        if (parseBoolean(requestParams, PARAM_ALLOCATION_PROFILE, false)) {
+            return executeWithAllocationProfile(requestParams);
+        }
         // 中文：进入真实执行路径，触发异常场景
         // English: Go into real execution path to trigger scenario
         return doExecute(requestParams);
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在 JFR 分配热点会话中执行场景，把按字节排序的热点类与调用栈作为 allocationProfile 指标附加到结果。
+     * English: Run the scenario inside a JFR allocation hotspot session and attach the classes and call stacks ranked by bytes as the allocationProfile metric.
+     *
+     * 参数 / Parameters:
+     * @param requestParams 中文：请求参数，allocationProfileTop（默认 10）、allocationProfileDepth（默认 8） / English: Request params, allocationProfileTop (default 10), allocationProfileDepth (default 8)
+     *
+     * 返回值 / Return: 中文：附带分配画像的执行结果 / English: Execution result with the allocation profile
+     *
+     * 异常 / Exceptions: 中文：与 doExecute 相同 / English: Same as doExecute
+     */
+    private ScenarioExecutionResult executeWithAllocationProfile(Map<String, Object> requestParams) throws Exception {
+        AllocationHotspotProfiler.Session session = AllocationHotspotProfiler.start(
+                Thread.currentThread().getId(), parseInt(requestParams, "allocationProfileDepth", 8));
+        int top = parseInt(requestParams, "allocationProfileTop", 10);
+        ScenarioExecutionResult result;
+        try {
+            result = doExecute(requestParams);
+        } catch (Throwable t) {
+            // 中文：取消或失败时也要关闭事件流，避免遗留录制
+            // English: Close the stream on cancellation or failure too so no recording is left behind
+            session.finish(top);
+            throw t;
+        }
+        return result.withMetric("allocationProfile", session.finish(top));
+    }
+
     /**
      * 方法说明 / Method Description:
      * 中文：抽象方法，子类实现具体异常触发与指标采集。
@@ -87,6 +123,110 @@ public abstract class AbstractMemoryExceptionScenario implements MemoryException
                 List.of("按照返回的指南配置 JVM 参数并重新调用接口。"));
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：协作式取消检查点；作业被取消或超时时执行线程会被中断，子类在分配循环中调用以尽快退出。
+     * English: Cooperative cancellation checkpoint; cancelled or timed-out jobs interrupt the executing thread, so subclasses call this inside allocation loops to exit promptly.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     *
+     * 异常 / Exceptions:
+     * 中文：当前线程已被中断时抛出 CancellationException / English: CancellationException when the current thread is interrupted
+     */
+    protected void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Scenario " + getId() + " cancelled");
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：向当前作业的进度通道报告计数器；只做一次非阻塞写入，同步执行时为空操作，可在分配循环中直接调用。
+     * English: Report a counter to the current job's progress channel; a single non-blocking write, a no-op on the synchronous path, safe to call inside allocation loops.
+     *
+     * 参数 / Parameters:
+     * @param key 中文：计数器名称 / English: Counter name
+     * @param value 中文：当前值 / English: Current value
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    protected void reportProgress(String key, long value) {
+        ScenarioProgress.current().report(key, value);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：请求是否指定了目标分配速率，指定时子类应改用 {@link #pressureGenerator} 而非无节制的循环分配。
+     * English: Whether the request specifies a target allocation rate; if so subclasses use {@link #pressureGenerator} instead of an unthrottled loop.
+     *
+     * 参数 / Parameters:
+     * @param params 中文：参数映射 / English: Parameter map
+     * 返回值 / Return: 中文：是否包含 rateMbPerSec / English: Whether rateMbPerSec is present
+     * 异常 / Exceptions: 无
+     */
+    protected boolean isPaced(Map<String, Object> params) {
+        return params != null && params.get(PARAM_RATE_MB_PER_SEC) != null;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按请求参数构造分配压力发生器：rateMbPerSec、survivorRatio、chunkKb、retainMb。
+     * English: Build an allocation pressure generator from request params: rateMbPerSec, survivorRatio, chunkKb, retainMb.
+     *
+     * 参数 / Parameters:
+     * @param params 中文：参数映射 / English: Parameter map
+     * @param defaultSurvivorRatio 中文：未指定 survivorRatio 时的默认值 / English: Default when survivorRatio is absent
+     * @param defaultChunkKb 中文：未指定 chunkKb 时的默认值 / English: Default when chunkKb is absent
+     * @param allocator 中文：块分配函数 / English: Chunk allocation function
+     *
+     * 返回值 / Return: 中文：压力发生器 / English: Pressure generator
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界时抛出 IllegalArgumentException / English: IllegalArgumentException when a parameter is out of range
+     */
+    protected AllocationPressureGenerator pressureGenerator(Map<String, Object> params, double defaultSurvivorRatio,
+                                                           int defaultChunkKb, IntFunction<Object> allocator) {
+        return new AllocationPressureGenerator(
+                parseDouble(params, PARAM_RATE_MB_PER_SEC, 0),
+                parseDouble(params, "survivorRatio", defaultSurvivorRatio),
+                parseInt(params, "chunkKb", defaultChunkKb),
+                (long) Math.max(0, parseInt(params, "retainMb", 0)) * 1024 * 1024,
+                allocator);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：解析浮点参数，支持数字/字符串输入并在异常时使用默认值。
+     * English: Parse a double parameter, supporting numeric/string input and defaulting on errors.
+     *
+     * 参数 / Parameters:
+     * @param params 中文：参数映射 / English: Parameter map
+     * @param key 中文：参数键 / English: Parameter key
+     * @param defaultValue 中文：默认值 / English: Default value
+     *
+     * 返回值 / Return:
+     * 中文：解析后的浮点值 / English: Parsed double value
+     *
+     * 异常 / Exceptions:
+     * 中文：捕获 NumberFormatException 并返回默认值 / English: Catches NumberFormatException and returns default
+     */
+    protected double parseDouble(Map<String, Object> params, String key, double defaultValue) {
+        if (params == null || !params.containsKey(key)) {
+            return defaultValue;
+        }
+        Object value = params.get(key);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
     /**
      * 方法说明 / Method Description:
      * 中文：解析布尔参数，兼容字符串/布尔类型并提供默认值。
@@ -0,0 +1,106 @@
+package com.example.jvmlab.exceptionlab;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：基于 System.nanoTime 的令牌桶限速器，按字节/秒发放分配额度，允许短暂透支以支持大于桶容量的单次分配。
+ * English: Token-bucket pacer on System.nanoTime issuing allocation budget in bytes per second; brief debt is allowed so a single allocation may exceed the bucket.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：由 {@link AllocationPressureGenerator} 在每次分配前调用，使长期平均分配速率精确贴合目标值。
+ * English: Called by {@link AllocationPressureGenerator} before each allocation so the long-run average rate tracks the target precisely.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：parkNanos 的实际精度受操作系统调度影响，采用“透支-偿还”模型，早醒或晚醒的误差会在后续请求中自动抵消。
+ * English: parkNanos precision depends on OS scheduling, so a debt-and-repay model is used; early or late wake-ups are absorbed by subsequent requests.
+ */
+public final class AllocationPacer {
+
+    private final double bytesPerNano;
+    private final double burstBytes;
+    private final long startNanos;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long grantedBytes;
+    private long throttledNanos;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，按目标速率与突发窗口初始化令牌桶；桶初始为空，避免启动瞬间的突发分配。
+     * English: Constructor initializing the bucket from the target rate and burst window; it starts empty to avoid a start-up burst.
+     *
+     * 参数 / Parameters:
+     * @param bytesPerSecond 中文：目标速率（字节/秒，必须大于 0） / English: Target rate in bytes per second (must be positive)
+     * @param burstNanos 中文：允许累积的最长空闲额度（纳秒） / English: Longest idle budget that may accumulate, in nanoseconds
+     *
+     * 异常 / Exceptions:
+     * 中文：速率不大于 0 时抛出 IllegalArgumentException / English: IllegalArgumentException when the rate is not positive
+     */
+    public AllocationPacer(double bytesPerSecond, long burstNanos) {
+        if (!(bytesPerSecond > 0)) {
+            throw new IllegalArgumentException("bytesPerSecond must be positive: " + bytesPerSecond);
+        }
+        this.bytesPerNano = bytesPerSecond / 1_000_000_000d;
+        this.burstBytes = Math.max(1, burstNanos) * bytesPerNano;
+        this.startNanos = System.nanoTime();
+        this.lastRefillNanos = startNanos;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：申请 bytes 字节的分配额度；额度不足时阻塞到欠额按目标速率偿还完毕。
+     * English: Acquire budget for bytes; when short, blocks until the debt is repaid at the target rate.
+     *
+     * 参数 / Parameters:
+     * @param bytes 中文：即将分配的字节数 / English: Bytes about to be allocated
+     *
+     * 返回值 / Return: 无
+     *
+     * 异常 / Exceptions:
+     * 中文：等待期间线程被中断时抛出 CancellationException（保留中断标记） / English: CancellationException when interrupted while waiting (interrupt flag kept)
+     */
+    public void acquire(long bytes) {
+        refill(System.nanoTime());
+        tokens -= bytes;
+        grantedBytes += bytes;
+        if (tokens >= 0) {
+            return;
+        }
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + (long) Math.ceil(-tokens / bytesPerNano);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Allocation pacing interrupted");
+            }
+        }
+        long now = System.nanoTime();
+        throttledNanos += now - waitStart;
+        refill(now);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burstBytes, tokens + (now - lastRefillNanos) * bytesPerNano);
+        lastRefillNanos = now;
+    }
+
+    /** 自创建以来发放的总字节数。 */
+    public long getGrantedBytes() {
+        return grantedBytes;
+    }
+
+    /** 因限速而等待的总纳秒数；接近 0 而速率仍未达标说明分配本身已饱和。 */
+    public long getThrottledNanos() {
+        return throttledNanos;
+    }
+
+    /** 自创建以来的实际发放速率（字节/秒）。 */
+    public double getAchievedBytesPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : grantedBytes / (elapsed / 1_000_000_000d);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.jvmlab.exceptionlab;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：可复现的分配压力发生器：以精确的 MB/s 速率分配固定大小的块，并按存活比例保留其中一部分，结束时报告实际速率与 GC 增量。
+ * English: Reproducible allocation pressure generator: allocates fixed-size chunks at a precise MB/s rate, retains a given survivor fraction, and reports the achieved rate and GC deltas.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：重放“300 MB/s、5% 存活”之类的生产分配画像，用于比较不同 GC 参数下的停顿与晋升。
+ * English: Replay production profiles such as "300 MB/s with 5% surviving" to compare pauses and promotion under different GC settings.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：速率由 {@link AllocationPacer} 控制；存活选择使用确定性累加器而非随机数，保证同一参数每次都得到相同的存活比例；
+ *      retainCapBytes 大于 0 时按先进先出淘汰，模拟“中等寿命”对象，否则一直保留直至 OOM。
+ * English: Rate is governed by {@link AllocationPacer}; survivors are chosen by a deterministic accumulator instead of random numbers so the same params always yield the same ratio;
+ *      with retainCapBytes above 0 the oldest survivors are dropped FIFO to model medium-lived objects, otherwise they are kept until OOM.
+ */
+public final class AllocationPressureGenerator {
+
+    /** 阻止 JIT 消除未保留的分配。 */
+    private static volatile Object sink;
+
+    private final double targetMbPerSec;
+    private final double survivorRatio;
+    private final int chunkBytes;
+    private final long retainCapBytes;
+    private final IntFunction<Object> allocator;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，校验并保存压力参数。
+     * English: Constructor validating and storing the pressure parameters.
+     *
+     * 参数 / Parameters:
+     * @param targetMbPerSec 中文：目标分配速率（MB/s） / English: Target allocation rate in MB/s
+     * @param survivorRatio 中文：存活比例 0..1 / English: Survivor fraction 0..1
+     * @param chunkKb 中文：每块大小（KB） / English: Chunk size in KB
+     * @param retainCapBytes 中文：存活集合上限，0 表示不限 / English: Survivor set cap, 0 for unbounded
+     * @param allocator 中文：按字节数分配一个块，例如 byte[]::new 或 ByteBuffer::allocateDirect / English: Allocates one chunk of the given bytes, e.g. byte[]::new or ByteBuffer::allocateDirect
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界时抛出 IllegalArgumentException / English: IllegalArgumentException when a parameter is out of range
+     */
+    public AllocationPressureGenerator(double targetMbPerSec, double survivorRatio, int chunkKb, long retainCapBytes,
+                                       IntFunction<Object> allocator) {
+        if (!(targetMbPerSec > 0)) {
+            throw new IllegalArgumentException("rateMbPerSec must be positive: " + targetMbPerSec);
+        }
+        if (!(survivorRatio >= 0 && survivorRatio <= 1)) {
+            throw new IllegalArgumentException("survivorRatio must be within [0, 1]: " + survivorRatio);
+        }
+        if (chunkKb < 1 || chunkKb > 1024 * 1024) {
+            throw new IllegalArgumentException("chunkKb must be within [1, 1048576]: " + chunkKb);
+        }
+        this.targetMbPerSec = targetMbPerSec;
+        this.survivorRatio = survivorRatio;
+        this.chunkBytes = chunkKb * 1024;
+        this.retainCapBytes = Math.max(0, retainCapBytes);
+        this.allocator = allocator;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按设定速率持续分配，直到到达时长、发生 OOM 或线程被取消；OOM 时先释放存活集合再生成报告。
+     * English: Allocate at the configured rate until the duration elapses, an OOM occurs or the thread is cancelled; on OOM the survivor set is released before reporting.
+     *
+     * 参数 / Parameters:
+     * @param durationMs 中文：运行时长，不大于 0 表示直到 OOM / English: Run duration, 0 or less runs until OOM
+     *
+     * 返回值 / Return:
+     * 中文：报告（请求/实际速率、存活比例、GC 次数与耗时增量、结束原因） / English: Report (requested/achieved rate, survivor ratio, GC count/time deltas, stop reason)
+     *
+     * 异常 / Exceptions:
+     * 中文：线程被中断时抛出 CancellationException / English: CancellationException when the thread is interrupted
+     */
+    public Map<String, Object> run(long durationMs) {
+        List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+        long gcCountBefore = gcCount(gcBeans);
+        long gcTimeBefore = gcTimeMs(gcBeans);
+        AllocationPacer pacer = new AllocationPacer(targetMbPerSec * 1024 * 1024, TimeUnit.MILLISECONDS.toNanos(10));
+        Deque<Object> survivors = new ArrayDeque<>();
+        ScenarioProgress progress = ScenarioProgress.current();
+        long deadline = durationMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs) : Long.MAX_VALUE;
+        long start = System.nanoTime();
+        long chunks = 0;
+        long retainedChunks = 0;
+        long retainedBytes = 0;
+        double survivorCredit = 0;
+        String stopReason = "DURATION";
+        String oomMessage = null;
+        try {
+            while (System.nanoTime() < deadline) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Allocation pressure cancelled");
+                }
+                pacer.acquire(chunkBytes);
+                Object chunk = allocator.apply(chunkBytes);
+                chunks++;
+                survivorCredit += survivorRatio;
+                if (survivorCredit >= 1) {
+                    // 中文：累加器越过 1 时保留本块，保留块数为 floor(chunks·survivorRatio)，比例误差小于 1/chunks
+                    // English: Retain this chunk when the accumulator crosses 1, so floor(chunks * survivorRatio) chunks are kept and the ratio is off by less than 1/chunks
+                    survivorCredit -= 1;
+                    survivors.addLast(chunk);
+                    retainedChunks++;
+                    retainedBytes += chunkBytes;
+                    while (retainCapBytes > 0 && retainedBytes > retainCapBytes) {
+                        survivors.pollFirst();
+                        retainedBytes -= chunkBytes;
+                    }
+                } else {
+                    sink = chunk;
+                }
+                if ((chunks & 63) == 0) {
+                    progress.report("allocatedMb", pacer.getGrantedBytes() / 1024 / 1024);
+                    progress.report("retainedMb", retainedBytes / 1024 / 1024);
+                }
+            }
+        } catch (OutOfMemoryError error) {
+            survivors.clear();
+            sink = null;
+            stopReason = "OOM";
+            oomMessage = error.getMessage();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        double elapsedSec = elapsedNanos / 1_000_000_000d;
+        double achievedMbPerSec = elapsedSec <= 0 ? 0 : pacer.getGrantedBytes() / 1024d / 1024d / elapsedSec;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requestedMbPerSec", targetMbPerSec);
+        report.put("achievedMbPerSec", round2(achievedMbPerSec));
+        report.put("rateAccuracyPercent", round2(achievedMbPerSec / targetMbPerSec * 100));
+        report.put("requestedSurvivorRatio", survivorRatio);
+        report.put("achievedSurvivorRatio", chunks == 0 ? 0d : round4((double) retainedChunks / chunks));
+        report.put("chunkKb", chunkBytes / 1024);
+        report.put("chunks", chunks);
+        report.put("retainedChunks", retainedChunks);
+        report.put("allocatedMb", pacer.getGrantedBytes() / 1024 / 1024);
+        report.put("retainedMbAtEnd", "OOM".equals(stopReason) ? 0 : retainedBytes / 1024 / 1024);
+        report.put("retainCapMb", retainCapBytes / 1024 / 1024);
+        report.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.put("throttledMs", TimeUnit.NANOSECONDS.toMillis(pacer.getThrottledNanos()));
+        // 中文：几乎没有限速等待却仍未达标，说明分配线程已饱和，目标速率不可达
+        // English: Falling short with almost no throttling means the allocating thread is saturated and the target is unreachable
+        report.put("saturated", achievedMbPerSec < targetMbPerSec * 0.95 && pacer.getThrottledNanos() < elapsedNanos / 20);
+        report.put("gcCountDelta", gcCount(gcBeans) - gcCountBefore);
+        report.put("gcTimeMsDelta", gcTimeMs(gcBeans) - gcTimeBefore);
+        report.put("stopReason", stopReason);
+        if (oomMessage != null) {
+            report.put("oomMessage", oomMessage);
+        }
+        return report;
+    }
+
+    private static long gcCount(List<GarbageCollectorMXBean> beans) {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : beans) {
+            total += Math.max(0, bean.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTimeMs(List<GarbageCollectorMXBean> beans) {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : beans) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100d;
+    }
+
+    private static double round4(double value) {
+        return Math.round(value * 10_000) / 10_000d;
+    }
+}
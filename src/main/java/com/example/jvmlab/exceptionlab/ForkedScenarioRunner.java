@@ -0,0 +1,268 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.common.ExperimentSafetyGuard;
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：子进程场景执行器：为一次真实场景执行从 {@link ForkedWorkerPool} 取得一个全新的子 JVM（独立的 -Xmx/-Xss/MaxMetaspaceSize/MaxDirectMemorySize），经 stdin 发送请求、经 stdout 管道接收进度与结果。
+ * English: Out-of-process scenario runner: takes a fresh child JVM (own -Xmx/-Xss/MaxMetaspaceSize/MaxDirectMemorySize) from {@link ForkedWorkerPool} for one real scenario execution, sends the request over stdin and receives progress and the result over its stdout pipe.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：fork=true 时 heap-oom、metaspace-oom、thread-oom 在子进程中耗尽资源，提供 API 的主 JVM 保持健康，多个实验可在不同核上并行。
+ * English: With fork=true, heap-oom, metaspace-oom and thread-oom exhaust resources in the child, the JVM serving the API stays healthy, and several experiments can run in parallel across cores.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：子进程参数只接受校验过的内存大小，不透传任意 JVM 选项；等待子进程可被中断，取消或超时会强制结束子进程；并发子进程数受信号量限制。
+ * English: Only validated memory sizes become child options, never arbitrary JVM flags; waiting for the child is interruptible and cancellation or timeout destroys it; concurrent children are bounded by a semaphore.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.fork.xmx=256m、maxMetaspace=128m、maxDirect=64m、xss（默认不设）、maxChildren（默认 CPU 核数）、timeoutMs=300000。
+ * English: -Djvm.lab.fork.xmx=256m, maxMetaspace=128m, maxDirect=64m, xss (unset by default), maxChildren (default CPU count), timeoutMs=300000.
+ */
+@Slf4j
+public final class ForkedScenarioRunner {
+
+    static final String PARAM_FORK = "fork";
+    static final String PARAM_XMX = "forkXmx";
+    static final String PARAM_XSS = "forkXss";
+    static final String PARAM_MAX_METASPACE = "forkMaxMetaspace";
+    static final String PARAM_MAX_DIRECT = "forkMaxDirect";
+    private static final Pattern SIZE = Pattern.compile("\\d{1,9}[kKmMgG]?");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ForkedWorkerPool pool;
+    private final int maxChildren;
+    private final Semaphore children;
+    private final long timeoutMs;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按系统属性创建执行器。
+     * English: Create the runner from system properties.
+     *
+     * 参数 / Parameters:
+     * @param pool 中文：子 JVM 进程池 / English: Child JVM pool
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public ForkedScenarioRunner(ForkedWorkerPool pool) {
+        this(Integer.getInteger("jvm.lab.fork.maxChildren", Runtime.getRuntime().availableProcessors()),
+                Long.getLong("jvm.lab.fork.timeoutMs", TimeUnit.MINUTES.toMillis(5)), pool);
+    }
+
+    ForkedScenarioRunner(int maxChildren, long timeoutMs, ForkedWorkerPool pool) {
+        this.pool = pool;
+        this.maxChildren = Math.max(1, maxChildren);
+        this.children = new Semaphore(this.maxChildren);
+        this.timeoutMs = Math.max(1, timeoutMs);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：判断本次执行是否应放到子 JVM：fork=true 且不是 Dry-Run。
+     * English: Whether this execution should run in a child JVM: fork=true and not a dry run.
+     *
+     * 参数 / Parameters:
+     * @param params 中文：执行参数 / English: Execution params
+     * 返回值 / Return: 中文：是否 fork / English: Whether to fork
+     * 异常 / Exceptions: 无
+     */
+    static boolean isRequested(Map<String, Object> params) {
+        return params != null && Boolean.parseBoolean(String.valueOf(params.get(PARAM_FORK)))
+                && !Boolean.parseBoolean(String.valueOf(params.getOrDefault("dryRun", "true")));
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在子 JVM 中执行场景并等待结果；进度实时写入 progress，结果附带 fork 指标（pid、退出码、JVM 参数、耗时、是否取自预热池、是否映射 CDS 归档）。
+     * English: Execute the scenario in a child JVM and wait for the result; progress flows into the channel as it arrives, and the result carries a fork metric (pid, exit code, JVM options, wall time, whether the worker came warm from the pool and whether it mapped a CDS archive).
+     *
+     * 参数 / Parameters:
+     * @param scenario 中文：场景（取其实现类名，在子进程中以无参构造实例化） / English: Scenario (its class is instantiated with the no-arg constructor in the child)
+     * @param params 中文：执行参数，fork* 键控制子进程内存上限 / English: Execution params; fork* keys set the child's memory limits
+     * @param progress 中文：进度通道 / English: Progress channel
+     *
+     * 返回值 / Return: 中文：子进程返回的执行结果 / English: The result returned by the child
+     *
+     * 异常 / Exceptions:
+     * 中文：InterruptedException（取消，子进程被强制结束）；IllegalArgumentException（内存参数非法）；IllegalStateException（子进程数已满、超时或未返回结果）
+     * English: InterruptedException (cancelled, the child is destroyed); IllegalArgumentException (invalid size); IllegalStateException (too many children, timeout, or no result from the child)
+     */
+    public ScenarioExecutionResult execute(MemoryExceptionScenario scenario, Map<String, Object> params,
+                                           ScenarioProgress progress) throws Exception {
+        ExperimentSafetyGuard.assertEnabled();
+        List<String> jvmOptions = jvmOptions(params);
+        if (!children.tryAcquire()) {
+            throw new IllegalStateException("子 JVM 数量已达上限 / Too many forked scenario JVMs (max="
+                    + maxChildren + ")");
+        }
+        Process process = null;
+        try {
+            long started = System.nanoTime();
+            ForkedWorkerPool.Worker worker = pool.acquire(jvmOptions);
+            process = worker.process;
+            long pid = process.pid();
+            log.info("子 JVM 执行场景 Forked scenario {} in pid {} (warm={}) with {}",
+                    scenario.getId(), pid, worker.warm, jvmOptions);
+            // 中文：子进程回传首个进度前，进度事件也不应展示本进程的内存数据
+            // English: Until the child's first progress arrives, progress events must not show this process's memory either
+            progress.acceptRemote(Map.of("childPid", pid));
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("scenarioClass", userClassName(scenario));
+            request.put("params", childParams(params));
+            try (OutputStream stdin = process.getOutputStream()) {
+                mapper.writeValue(stdin, request);
+            }
+            AtomicReference<Map<String, Object>> last = new AtomicReference<>();
+            Thread reader = startReader(worker, pid, progress, last);
+            if (!process.waitFor(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("子 JVM 超时 / Forked JVM " + pid + " timed out after " + timeoutMs + "ms");
+            }
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+            return toResult(scenario, last.get(), worker, pid, process.exitValue(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            if (process != null && process.isAlive()) {
+                // 中文：取消、超时或异常时不留下孤儿进程
+                // English: Never leave an orphan child behind on cancellation, timeout or failure
+                process.destroyForcibly();
+            }
+            children.release();
+            pool.refill(jvmOptions);
+        }
+    }
+
+    /** 由参数与系统属性生成子 JVM 内存选项，只接受形如 256m 的大小。 */
+    List<String> jvmOptions(Map<String, Object> params) {
+        List<String> options = new ArrayList<>();
+        addSize(options, "-Xmx", params, PARAM_XMX, System.getProperty("jvm.lab.fork.xmx", "256m"));
+        addSize(options, "-Xss", params, PARAM_XSS, System.getProperty("jvm.lab.fork.xss"));
+        addSize(options, "-XX:MaxMetaspaceSize=", params, PARAM_MAX_METASPACE,
+                System.getProperty("jvm.lab.fork.maxMetaspace", "128m"));
+        addSize(options, "-XX:MaxDirectMemorySize=", params, PARAM_MAX_DIRECT,
+                System.getProperty("jvm.lab.fork.maxDirect", "64m"));
+        return options;
+    }
+
+    private static void addSize(List<String> options, String flag, Map<String, Object> params, String key, String fallback) {
+        Object value = params.get(key);
+        String size = value == null ? fallback : String.valueOf(value).trim();
+        if (size == null || size.isEmpty()) {
+            return;
+        }
+        if (!SIZE.matcher(size).matches()) {
+            throw new IllegalArgumentException(key + " 必须是内存大小，如 64m / " + key + " must be a size such as 64m: " + size);
+        }
+        options.add(flag + size);
+    }
+
+    /** Spring 可能返回 CGLIB 子类，子进程需要原始实现类。 */
+    static String userClassName(MemoryExceptionScenario scenario) {
+        String name = scenario.getClass().getName();
+        int proxy = name.indexOf("$$");
+        return proxy > 0 ? name.substring(0, proxy) : name;
+    }
+
+    /** 去掉只对父进程有意义的 fork 参数；null 值无法进入不可变结果，也一并剔除。 */
+    private static Map<String, Object> childParams(Map<String, Object> params) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        params.forEach((key, value) -> {
+            if (value != null && !key.startsWith(PARAM_FORK)) {
+                copy.put(key, value);
+            }
+        });
+        return copy;
+    }
+
+    /** 读取子进程输出：协议行解析为进度或最终消息，其余行转发到日志并保留末尾若干行用于报错。 */
+    @SuppressWarnings("unchecked")
+    private Thread startReader(ForkedWorkerPool.Worker worker, long pid, ScenarioProgress progress,
+                               AtomicReference<Map<String, Object>> last) {
+        Thread thread = new Thread(() -> {
+            try (worker.output) {
+                String line;
+                while ((line = worker.output.readLine()) != null) {
+                    if (!line.startsWith(ForkedScenarioWorker.PREFIX)) {
+                        log.debug("[fork-{}] {}", pid, line);
+                        worker.remember(line);
+                        continue;
+                    }
+                    Map<String, Object> message;
+                    try {
+                        message = mapper.readValue(line.substring(ForkedScenarioWorker.PREFIX.length()), Map.class);
+                    } catch (IOException e) {
+                        // 中文：单行损坏时继续读取，停止读取会让子进程写满管道后阻塞
+                        // English: Keep reading past a corrupt line; stopping would block the child once the pipe fills
+                        log.debug("[fork-{}] 无法解析协议行 Unparseable protocol line: {}", pid, line);
+                        continue;
+                    }
+                    if ("progress".equals(message.get("type"))) {
+                        message.put("childPid", pid);
+                        progress.acceptRemote(message);
+                    } else if (!"ready".equals(message.get("type"))) {
+                        last.set(message);
+                    }
+                }
+            } catch (IOException e) {
+                // 中文：子进程被强制结束时管道关闭 / English: The pipe closes when the child is destroyed
+            }
+        }, "jvm-lab-fork-reader-" + pid);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ScenarioExecutionResult toResult(MemoryExceptionScenario scenario, Map<String, Object> message,
+                                                    ForkedWorkerPool.Worker worker, long pid, int exitCode, long wallMs) {
+        if (message == null || !"result".equals(message.get("type"))) {
+            String reason = message == null ? "no result" : String.valueOf(message.get("error"));
+            String output;
+            synchronized (worker.tail) {
+                output = String.join("\n", worker.tail);
+            }
+            throw new IllegalStateException("子 JVM 未返回结果 / Forked JVM " + pid + " exited with code " + exitCode
+                    + ": " + reason + (output.isEmpty() ? "" : "\n" + output));
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Object childMetrics = message.get("metrics");
+        if (childMetrics instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> {
+                if (value != null) {
+                    metrics.put(String.valueOf(key), value);
+                }
+            });
+        }
+        Map<String, Object> fork = new LinkedHashMap<>();
+        fork.put("pid", pid);
+        fork.put("exitCode", exitCode);
+        fork.put("jvmOptions", worker.jvmOptions);
+        fork.put("warm", worker.warm);
+        fork.put("cds", worker.cds);
+        fork.put("wallMs", wallMs);
+        metrics.put("fork", fork);
+        Object nextActions = message.get("nextActions");
+        return new ScenarioExecutionResult(
+                String.valueOf(message.getOrDefault("scenarioId", scenario.getId())),
+                Boolean.TRUE.equals(message.get("dryRun")),
+                Boolean.TRUE.equals(message.get("triggered")),
+                String.valueOf(message.get("message")),
+                metrics,
+                nextActions instanceof List<?> list ? (List<String>) list : List.of());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.common.JvmMetricsSampler;
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：子 JVM 入口：完成预热后发送 ready，从 stdin 读取一个 JSON 请求（场景类与参数），在本进程内执行该场景，并通过 stdout 以带前缀的 JSON 行回传进度与结果。
+ * English: Child JVM entry point: sends ready once warmed up, reads one JSON request (scenario class and params) from stdin, executes that scenario in this process, and sends progress and the result back over stdout as prefixed JSON lines.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：由 {@link ForkedWorkerPool} 以独立的 -Xmx/-Xss/MaxMetaspaceSize 预先启动，heap-oom、metaspace-oom、thread-oom 只损坏这个一次性进程。
+ * English: Pre-started by {@link ForkedWorkerPool} with its own -Xmx/-Xss/MaxMetaspaceSize, so heap-oom, metaspace-oom and thread-oom only damage this throwaway process.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：不启动 Spring，直接以无参构造实例化场景；日志仍写到 stdout，只有以 {@link #PREFIX} 开头的行属于协议，其余行由父进程转发到日志。
+ *      等待请求前加载参数中列出的场景类并预热序列化路径；执行前预留一块内存，场景返回后释放，保证堆或元空间 OOM 之后仍能写出结果。
+ *      父进程退出后 stdin 关闭，空闲进程读到 EOF 随即退出，不会成为孤儿；{@link ForkedWorkerPool} 的 AppCDS 训练运行也借助这一路径退出。
+ * English: Spring is not started; the scenario is instantiated through its no-arg constructor. Logs still go to stdout: only lines starting with {@link #PREFIX} belong to the protocol and the parent forwards the rest to its log.
+ *      Before waiting for the request it loads the scenario classes named in its arguments and warms up the serialisation path; a block of memory is reserved before execution and released when the scenario returns, so the result can still be written after a heap or metaspace OOM.
+ *      When the parent exits stdin closes, and an idle worker reads EOF and exits instead of lingering as an orphan; the AppCDS training run of {@link ForkedWorkerPool} relies on the same path.
+ */
+public final class ForkedScenarioWorker {
+
+    /** 协议行前缀；后接一个 JSON 对象，type 为 ready、progress、result 或 error。 */
+    static final String PREFIX = "@@jvm-lab-fork@@ ";
+    static final String PROP_PROGRESS_INTERVAL_MS = "jvm.lab.fork.progressIntervalMs";
+    private static final int RESERVE_BYTES = 2 * 1024 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    private static final PrintStream OUT = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+
+    /** 静态字段持有预留内存，避免 JIT 把未再读取的局部变量视为已死而提前回收。 */
+    private static byte[] reserve;
+
+    private ForkedScenarioWorker() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：预热后等待 stdin 上的请求 {scenarioClass, params} 并执行；正常返回或场景抛错时都写出最后一行协议消息后退出。
+     * English: Warm up, then wait for the {scenarioClass, params} request on stdin and execute it; on return or failure the last protocol line is written before exiting.
+     *
+     * 参数 / Parameters:
+     * @param args 中文：预热时加载的场景实现类全限定名 / English: Fully qualified scenario class names loaded during warm-up
+     *
+     * 返回值 / Return: 无（退出码 0 表示已写出 result，1 表示 error） / English: None (exit code 0 means a result was written, 1 an error)
+     * 异常 / Exceptions: 无
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) {
+        reserve = new byte[RESERVE_BYTES];
+        int exitCode;
+        Thread pusher = null;
+        try {
+            ScenarioProgress progress = new ScenarioProgress(null);
+            warmUp(progress, args);
+            // 中文：父进程写完请求即关闭 stdin；未收到任何请求就读到 EOF 表示父进程已退出或这是 CDS 训练运行
+            // English: The parent closes stdin right after the request; EOF without a request means the parent is gone or this is a CDS training run
+            byte[] input = System.in.readAllBytes();
+            if (input.length == 0) {
+                System.exit(0);
+            }
+            Map<String, Object> request = MAPPER.readValue(input, Map.class);
+            MemoryExceptionScenario scenario = (MemoryExceptionScenario) Class.forName(
+                    String.valueOf(request.get("scenarioClass"))).getDeclaredConstructor().newInstance();
+            Map<String, Object> params = (Map<String, Object>) request.getOrDefault("params", Map.of());
+            progress.bind();
+            pusher = startPusher(progress);
+            ScenarioExecutionResult result;
+            try {
+                result = scenario.execute(params);
+            } finally {
+                reserve = null;
+                pusher.interrupt();
+            }
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "result");
+            message.put("scenarioId", result.getScenarioId());
+            message.put("dryRun", result.isDryRun());
+            message.put("triggered", result.isTriggered());
+            message.put("message", result.getMessage());
+            message.put("metrics", result.getMetrics());
+            message.put("nextActions", result.getNextActions());
+            send(message);
+            exitCode = 0;
+        } catch (Throwable t) {
+            reserve = null;
+            if (pusher != null) {
+                pusher.interrupt();
+            }
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "error");
+            message.put("error", t.toString());
+            send(message);
+            exitCode = 1;
+        }
+        // 中文：thread-oom 等场景会留下大量非守护线程，直接退出而不是等待它们结束
+        // English: Scenarios such as thread-oom leave many non-daemon threads behind, so exit instead of waiting for them
+        System.exit(exitCode);
+    }
+
+    /**
+     * 中文：加载并初始化场景类；元空间耗尽后无法再加载 Jackson 序列化器或字符串拼接引导类，因此先序列化一次各类取值与进度事件，最后发送 ready。
+     * English: Load and initialise the scenario classes; once metaspace is exhausted Jackson serialisers and string-concat bootstrap classes can no longer load, so every value type and a progress event are serialised first, then ready is sent.
+     */
+    private static void warmUp(ScenarioProgress progress, String[] preloadClasses) throws Exception {
+        List<String> loaded = new ArrayList<>();
+        for (String name : preloadClasses) {
+            try {
+                Class.forName(name);
+                loaded.add(name);
+            } catch (ClassNotFoundException | LinkageError e) {
+                // 中文：预加载失败不影响执行，请求到达时会再次加载并报告错误
+                // English: A failed preload is not fatal; the class is loaded again when the request arrives and errors surface then
+            }
+        }
+        MAPPER.writeValueAsString(Map.of("int", 1, "long", 1L, "double", 1.0, "boolean", true,
+                "list", List.of("text"), "map", Map.of("key", "value")));
+        MAPPER.writeValueAsString(progress.toEvent(JvmMetricsSampler.getInstance().current()));
+        Map<String, Object> ready = new LinkedHashMap<>();
+        ready.put("type", "ready");
+        ready.put("pid", ProcessHandle.current().pid());
+        ready.put("preloaded", loaded.size());
+        send(ready);
+    }
+
+    /** 启动守护线程，定期把计数器与本 JVM 的内存/GC 快照写成 progress 行。 */
+    private static Thread startPusher(ScenarioProgress progress) {
+        long interval = Math.max(100L, Long.getLong(PROP_PROGRESS_INTERVAL_MS, 500L));
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    // 中文：先推送一次，父进程的 SSE 立即看到子进程自身的内存数据
+                    // English: Push first so the parent's SSE shows the child's own memory data right away
+                    Map<String, Object> message = new LinkedHashMap<>();
+                    message.put("type", "progress");
+                    message.putAll(progress.toEvent(JvmMetricsSampler.getInstance().current()));
+                    send(message);
+                } catch (Throwable t) {
+                    // 中文：场景逼近 OOM 时序列化也可能失败，跳过本次推送
+                    // English: Serialisation may fail too while the scenario nears OOM; skip this push
+                }
+                // 中文：无论推送成功与否都要休眠，否则持续失败时线程会空转占满一个 CPU，干扰子进程的 GC 与 CPU 读数
+                // English: Sleep whether or not the push succeeded; otherwise repeated failures spin a full CPU and distort the child's GC and CPU readings
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "jvm-lab-fork-progress");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void send(Map<String, Object> message) {
+        try {
+            OUT.println(PREFIX + MAPPER.writeValueAsString(message));
+        } catch (Exception e) {
+            OUT.println(PREFIX + "{\"type\":\"error\",\"error\":\"unserialisable message: " + e.getClass().getName() + "\"}");
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.common.AppCdsSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：预启动的子 JVM 池：按 JVM 参数组合缓存已完成启动与预热、正在等待请求的 {@link ForkedScenarioWorker} 进程。
+ * English: Pool of pre-started child JVMs: caches {@link ForkedScenarioWorker} processes that have finished startup and warm-up and are waiting for a request, keyed by JVM option set.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：fork=true 的短场景不再为 JVM 启动、类加载与序列化预热付出一秒以上的等待，隔离执行接近进程内执行的速度。
+ * English: Short fork=true scenarios no longer pay a second or more for JVM startup, class loading and serialisation warm-up, so isolated runs come close to in-process speed.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：场景把分配结果留在静态集合中，执行过的进程无法复用，因此每个工作进程只执行一次，执行结束后由单个后台线程按组合补足空闲数量（不在实验运行时启动新 JVM 争抢 CPU）；
+ *      池中没有可用进程时立即冷启动一个，不等待补充；参数组合数有上限，最久未用的组合连同空闲进程一起淘汰。
+ * English: Scenarios leave their allocations in static collections, so a process that has run one cannot be reused: every worker runs exactly once and a single background thread tops each option set back up after the run ends (no new JVM competes for CPU while an experiment runs).
+ *      When no idle worker is available one is cold-started immediately instead of waiting for the refill; the number of option sets is capped and the least recently used set is evicted together with its idle workers.
+ *
+ * AppCDS:
+ * 中文：配置 jvm.lab.fork.cdsArchive 后，归档不存在时先在后台做一次训练运行（-XX:ArchiveClassesAtExit，工作进程完成预热后关闭 stdin 使其退出并写出归档），
+ *      之后所有工作进程以 -XX:SharedArchiveFile 启动；类路径含非空目录时无法生成动态归档，此时只记录告警。
+ * English: With jvm.lab.fork.cdsArchive set and no archive present, a background training run happens first (-XX:ArchiveClassesAtExit; once the worker has warmed up its stdin is closed so it exits and writes the archive),
+ *      after which every worker starts with -XX:SharedArchiveFile; a class path with non-empty directories cannot produce a dynamic archive, so only a warning is logged then.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.fork.pool.size=1（每个参数组合的空闲进程数，0 关闭池）、maxKeys=4、readyTimeoutMs=30000、prewarm=false（启动时为默认参数预热）；-Djvm.lab.fork.cdsArchive（工作进程动态归档路径，默认不启用）。
+ * English: -Djvm.lab.fork.pool.size=1 (idle workers per option set, 0 disables the pool), maxKeys=4, readyTimeoutMs=30000, prewarm=false (warm the default option set at startup); -Djvm.lab.fork.cdsArchive (worker dynamic archive path, off by default).
+ */
+@Slf4j
+public final class ForkedWorkerPool {
+
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+    private static final int TAIL_LINES = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int idlePerKey;
+    private final int maxKeys;
+    private final long readyTimeoutMs;
+    private final List<String> preloadClasses;
+    private final Path cdsArchive;
+    private final Map<List<String>, Deque<Worker>> idle;
+    private final ExecutorService refiller;
+    private final AtomicLong warmHits = new AtomicLong();
+    private final AtomicLong coldStarts = new AtomicLong();
+    private final AtomicLong startFailures = new AtomicLong();
+
+    /**
+     * 类说明 / Class Description:
+     * 中文：一个子 JVM 工作进程及其输出读取器；warm 表示取出时已发送 ready。
+     * English: One child JVM worker and its output reader; warm means it had already sent ready when taken.
+     */
+    static final class Worker {
+        final Process process;
+        final BufferedReader output;
+        final Deque<String> tail = new ArrayDeque<>();
+        final List<String> jvmOptions;
+        final boolean cds;
+        boolean warm;
+
+        Worker(Process process, List<String> jvmOptions, boolean cds) {
+            this.process = process;
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            this.jvmOptions = jvmOptions;
+            this.cds = cds;
+        }
+
+        /** 记录非协议输出行，保留末尾若干行用于报错。 */
+        void remember(String line) {
+            synchronized (tail) {
+                tail.addLast(line);
+                if (tail.size() > TAIL_LINES) {
+                    tail.removeFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按系统属性创建进程池。
+     * English: Create the pool from system properties.
+     *
+     * 参数 / Parameters:
+     * @param preloadClasses 中文：工作进程预热时加载并初始化的类（通常是全部场景实现类） / English: Classes each worker loads and initialises while warming up (usually every scenario class)
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public ForkedWorkerPool(List<String> preloadClasses) {
+        this(Integer.getInteger("jvm.lab.fork.pool.size", 1), Integer.getInteger("jvm.lab.fork.pool.maxKeys", 4),
+                Long.getLong("jvm.lab.fork.pool.readyTimeoutMs", TimeUnit.SECONDS.toMillis(30)), preloadClasses,
+                System.getProperty("jvm.lab.fork.cdsArchive") == null ? null : Paths.get(System.getProperty("jvm.lab.fork.cdsArchive")));
+    }
+
+    ForkedWorkerPool(int idlePerKey, int maxKeys, long readyTimeoutMs, List<String> preloadClasses) {
+        this(idlePerKey, maxKeys, readyTimeoutMs, preloadClasses, null);
+    }
+
+    ForkedWorkerPool(int idlePerKey, int maxKeys, long readyTimeoutMs, List<String> preloadClasses, Path cdsArchive) {
+        this.idlePerKey = Math.max(0, idlePerKey);
+        this.maxKeys = Math.max(1, maxKeys);
+        this.readyTimeoutMs = Math.max(1, readyTimeoutMs);
+        this.preloadClasses = List.copyOf(preloadClasses);
+        this.cdsArchive = cdsArchive == null ? null : cdsArchive.toAbsolutePath();
+        // 中文：访问顺序的 LinkedHashMap，淘汰最久未用的参数组合
+        // English: Access-ordered LinkedHashMap so the least recently used option set is evicted
+        this.idle = new LinkedHashMap<>(16, 0.75f, true);
+        this.refiller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-fork-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.cdsArchive != null && !Files.isRegularFile(this.cdsArchive)) {
+            if (AppCdsSupport.isArchivableClassPath(System.getProperty("java.class.path"))) {
+                // 中文：排在任何补充任务之前，后续预启动的工作进程即可使用归档
+                // English: Queued ahead of any refill so workers pre-started afterwards already use the archive
+                refiller.execute(this::trainCdsArchive);
+            } else {
+                log.warn("类路径含非空目录，无法生成工作进程 CDS 归档 / Class path has non-empty directories, "
+                        + "cannot dump worker CDS archive {}", this.cdsArchive);
+            }
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：取出一个该参数组合的工作进程：优先返回已预热的空闲进程，否则立即冷启动；调用方在执行结束后调用 {@link #refill}。
+     * English: Take a worker for the option set: an idle warmed-up one when available, otherwise one cold-started right away; callers invoke {@link #refill} once the run ends.
+     *
+     * 参数 / Parameters:
+     * @param jvmOptions 中文：已校验的子 JVM 选项 / English: Validated child JVM options
+     *
+     * 返回值 / Return: 中文：尚未收到请求的工作进程 / English: A worker that has not received a request yet
+     *
+     * 异常 / Exceptions: 中文：IOException（无法启动进程） / English: IOException (process could not be started)
+     */
+    Worker acquire(List<String> jvmOptions) throws IOException {
+        List<String> key = List.copyOf(jvmOptions);
+        Worker worker = pollIdle(key);
+        if (worker != null) {
+            warmHits.incrementAndGet();
+        } else {
+            worker = start(key);
+            coldStarts.incrementAndGet();
+        }
+        return worker;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在后台为该参数组合补足空闲进程（池关闭时不做任何事）。
+     * English: Top up idle workers for the option set in the background (no-op when the pool is disabled).
+     *
+     * 参数 / Parameters:
+     * @param jvmOptions 中文：已校验的子 JVM 选项 / English: Validated child JVM options
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    void refill(List<String> jvmOptions) {
+        if (idlePerKey == 0) {
+            return;
+        }
+        List<String> key = List.copyOf(jvmOptions);
+        try {
+            refiller.execute(() -> fill(key));
+        } catch (RejectedExecutionException e) {
+            // 中文：池已关闭 / English: The pool has been shut down
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回池状态：每个参数组合的空闲进程数与 pid，以及预热命中、冷启动与启动失败次数。
+     * English: Return pool state: idle workers and pids per option set, plus warm hit, cold start and start failure counts.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：状态字典 / English: Status map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> snapshot() {
+        List<Map<String, Object>> sets = new ArrayList<>();
+        synchronized (idle) {
+            idle.forEach((key, workers) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("jvmOptions", key);
+                entry.put("idle", workers.size());
+                entry.put("pids", workers.stream().map(worker -> worker.process.pid()).toList());
+                sets.add(entry);
+            });
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", idlePerKey > 0);
+        status.put("idlePerOptionSet", idlePerKey);
+        status.put("maxOptionSets", maxKeys);
+        status.put("optionSets", sets);
+        status.put("warmHits", warmHits.get());
+        status.put("coldStarts", coldStarts.get());
+        status.put("startFailures", startFailures.get());
+        status.put("cdsArchive", cdsArchive == null ? null : cdsArchive.toString());
+        status.put("cdsArchiveReady", usesCds());
+        return status;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：停止补充线程并结束全部空闲进程。
+     * English: Stop the refill thread and destroy every idle worker.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public void shutdown() {
+        refiller.shutdownNow();
+        synchronized (idle) {
+            idle.values().forEach(workers -> workers.forEach(worker -> worker.process.destroyForcibly()));
+            idle.clear();
+        }
+    }
+
+    /** 取出一个仍存活的空闲进程；已退出的直接丢弃。 */
+    private Worker pollIdle(List<String> key) {
+        synchronized (idle) {
+            Deque<Worker> workers = idle.get(key);
+            while (workers != null && !workers.isEmpty()) {
+                Worker worker = workers.pollFirst();
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** 在补充线程上逐个启动并等待 ready，直到该组合的空闲进程数达到目标。 */
+    private void fill(List<String> key) {
+        while (!Thread.currentThread().isInterrupted() && idleCount(key) < idlePerKey) {
+            Worker worker = null;
+            try {
+                worker = start(key);
+                awaitReady(worker);
+                worker.warm = true;
+                offer(key, worker);
+            } catch (Exception e) {
+                startFailures.incrementAndGet();
+                if (worker != null) {
+                    worker.process.destroyForcibly();
+                }
+                log.warn("预热子 JVM 失败 Failed to pre-start forked worker with {}: {}", key, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private int idleCount(List<String> key) {
+        synchronized (idle) {
+            Deque<Worker> workers = idle.get(key);
+            if (workers == null) {
+                return 0;
+            }
+            workers.removeIf(worker -> !worker.process.isAlive());
+            return workers.size();
+        }
+    }
+
+    /** 放入空闲队列；参数组合超出上限时结束最久未用组合的空闲进程。 */
+    private void offer(List<String> key, Worker worker) {
+        synchronized (idle) {
+            if (refiller.isShutdown()) {
+                worker.process.destroyForcibly();
+                return;
+            }
+            idle.computeIfAbsent(key, ignored -> new ArrayDeque<>()).addLast(worker);
+            Iterator<Map.Entry<List<String>, Deque<Worker>>> iterator = idle.entrySet().iterator();
+            while (idle.size() > maxKeys && iterator.hasNext()) {
+                Map.Entry<List<String>, Deque<Worker>> eldest = iterator.next();
+                if (!eldest.getKey().equals(key)) {
+                    eldest.getValue().forEach(stale -> stale.process.destroyForcibly());
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /** 读取启动输出直到 ready 协议行；超时或进程先退出时抛出异常。 */
+    @SuppressWarnings("unchecked")
+    private void awaitReady(Worker worker) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readyTimeoutMs);
+        // 中文：readLine 没有超时，由看门狗在截止时间结束进程使其返回
+        // English: readLine has no timeout, so a watchdog destroys the process at the deadline to unblock it
+        Thread watchdog = new Thread(() -> {
+            try {
+                Thread.sleep(readyTimeoutMs);
+                worker.process.destroyForcibly();
+            } catch (InterruptedException ignored) {
+                // 中文：已就绪 / English: Ready in time
+            }
+        }, "jvm-lab-fork-ready-" + worker.process.pid());
+        watchdog.setDaemon(true);
+        watchdog.start();
+        try {
+            String line;
+            while ((line = worker.output.readLine()) != null) {
+                if (!line.startsWith(ForkedScenarioWorker.PREFIX)) {
+                    worker.remember(line);
+                    continue;
+                }
+                Map<String, Object> message = mapper.readValue(line.substring(ForkedScenarioWorker.PREFIX.length()), Map.class);
+                if ("ready".equals(message.get("type"))) {
+                    return;
+                }
+            }
+            throw new IllegalStateException(System.nanoTime() > deadline
+                    ? "子 JVM 未在时限内就绪 / Worker not ready within " + readyTimeoutMs + "ms"
+                    : "子 JVM 启动时退出 / Worker exited during startup: " + String.join(" | ", worker.tail));
+        } finally {
+            watchdog.interrupt();
+        }
+    }
+
+    private Worker start(List<String> jvmOptions) throws IOException {
+        boolean cds = usesCds();
+        List<String> cdsOptions = cds
+                ? List.of("-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto")
+                : List.of();
+        Process process = new ProcessBuilder(command(jvmOptions, cdsOptions)).redirectErrorStream(true).start();
+        return new Worker(process, jvmOptions, cds);
+    }
+
+    private boolean usesCds() {
+        return cdsArchive != null && Files.isRegularFile(cdsArchive);
+    }
+
+    /**
+     * 中文：训练运行：工作进程以 -XX:ArchiveClassesAtExit 启动并完成预热（JVM 启动、场景类、Jackson），收到 ready 后关闭 stdin 让它退出，
+     *      退出时写出的动态归档先落到临时文件再原子替换，避免其他进程读到写了一半的归档。
+     * English: Training run: a worker starts with -XX:ArchiveClassesAtExit and warms up (JVM startup, scenario classes, Jackson); after ready its stdin is closed so it exits,
+     *      and the dynamic archive written at exit lands in a temporary file that is then moved atomically, so no process maps a half-written archive.
+     */
+    private void trainCdsArchive() {
+        Path temp = cdsArchive.resolveSibling(cdsArchive.getFileName() + ".tmp");
+        long started = System.nanoTime();
+        Process process = null;
+        try {
+            Files.createDirectories(cdsArchive.getParent());
+            Files.deleteIfExists(temp);
+            process = new ProcessBuilder(command(List.of(), List.of("-XX:ArchiveClassesAtExit=" + temp)))
+                    .redirectErrorStream(true).start();
+            Worker worker = new Worker(process, List.of(), false);
+            awaitReady(worker);
+            process.getOutputStream().close();
+            // 中文：排空剩余输出，避免写归档时的日志填满管道
+            // English: Drain the remaining output so logging during the dump cannot fill the pipe
+            while (worker.output.readLine() != null) {
+                // 中文：丢弃 / English: discarded
+            }
+            if (!process.waitFor(readyTimeoutMs, TimeUnit.MILLISECONDS) || !Files.isRegularFile(temp)) {
+                throw new IllegalStateException("训练运行未生成归档 / Training run produced no archive");
+            }
+            Files.move(temp, cdsArchive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("工作进程 CDS 归档已生成 Worker CDS archive {} ({} KB) in {} ms", cdsArchive,
+                    Files.size(cdsArchive) / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("工作进程 CDS 归档训练失败 Failed to train worker CDS archive {}: {}", cdsArchive, e.getMessage());
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /** 组装子进程命令行；从 Spring Boot 可执行 jar 运行时经 PropertiesLauncher 加载 BOOT-INF 下的类。 */
+    List<String> command(List<String> jvmOptions, List<String> cdsOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.addAll(cdsOptions);
+        command.add("-Djvm.lab.enableDanger=true");
+        command.add("-Dfile.encoding=UTF-8");
+        String classPath = System.getProperty("java.class.path");
+        command.add("-cp");
+        command.add(classPath);
+        if (isBootJar(classPath)) {
+            command.add("-Dloader.main=" + ForkedScenarioWorker.class.getName());
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(ForkedScenarioWorker.class.getName());
+        }
+        command.addAll(preloadClasses);
+        return command;
+    }
+
+    private static boolean isBootJar(String classPath) {
+        if (classPath.contains(File.pathSeparator) || !classPath.endsWith(".jar")) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/classes/") != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.example.jvmlab.exceptionlab;
 
 import com.example.jvmlab.exceptionlab.model.ScenarioDetail;
 import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.model.ScenarioJob;
 import com.example.jvmlab.exceptionlab.model.ScenarioMetadata;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +39,7 @@ import java.util.Map;
 public class MemoryExceptionLabController {
 
     private final MemoryExceptionLabService labService;
+    private final ScenarioJobEngine jobEngine;
 
     /**
      * 方法说明 / Method Description:
@@ -44,6 +48,7 @@ public class MemoryExceptionLabController {
      *
      * 参数 / Parameters:
      * @param labService 中文：异常实验服务 / English: Service handling exception scenarios
+     * @param jobEngine 中文：异步场景作业引擎 / English: Asynchronous scenario job engine
      *
      * 返回值 / Return:
      * 中文：无 / English: None
@@ -51,8 +56,9 @@ public class MemoryExceptionLabController {
      * 异常 / Exceptions:
      * 中文：无 / English: None
      */
-    public MemoryExceptionLabController(MemoryExceptionLabService labService) {
+    public MemoryExceptionLabController(MemoryExceptionLabService labService, ScenarioJobEngine jobEngine) {
         this.labService = labService;
+        this.jobEngine = jobEngine;
     }
 
     /**
@@ -105,6 +111,7 @@ public class MemoryExceptionLabController {
      * 参数 / Parameters:
      * @param id 中文：场景 ID / English: Scenario ID
      * @param dryRun 中文：是否仅演练不触发异常 / English: Whether to dry-run without triggering
+     * @param fork 中文：是否在独立子 JVM 中执行（forkXmx 等请求体参数设定其内存上限） / English: Whether to run in a separate child JVM (body params such as forkXmx set its memory limits)
      * @param bodyParams 中文：请求体参数，用于定制实验 / English: Request body parameters for customization
      *
      * 返回值 / Return:
@@ -116,6 +123,7 @@ public class MemoryExceptionLabController {
     @PostMapping("/scenarios/{id}/execute")
     public ScenarioExecutionResult executeScenario(@PathVariable String id,
                                                    @RequestParam(name = "dryRun", defaultValue = "true") boolean dryRun,
+                                                   @RequestParam(name = "fork", defaultValue = "false") boolean fork,
                                                    @RequestBody(required = false) Map<String, Object> bodyParams) throws Exception {
         // 中文：合并查询参数与请求体，统一传递给服务层
         // English: Merge query and body parameters to pass to service
@@ -126,7 +134,125 @@ public class MemoryExceptionLabController {
         // 中文：显式透传 Dry-Run 标记，用于模板方法控制分支
         // English: Pass Dry-Run flag explicitly to control template logic
         params.put("dryRun", dryRun);
+        if (fork) {
+            params.put(ForkedScenarioRunner.PARAM_FORK, true);
+        }
         log.info("Executing scenario {} with params {}", id, params);
         return labService.execute(id, params);
     }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以异步作业方式执行场景，立即返回作业 ID，不占用 Web 工作线程；参数含义与同步执行接口一致，另支持 timeoutMs。
+     * English: Execute a scenario as an asynchronous job and return its ID immediately without holding a web worker; params match the synchronous endpoint plus timeoutMs.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：场景 ID / English: Scenario ID
+     * @param dryRun 中文：是否仅演练不触发异常 / English: Whether to dry-run without triggering
+     * @param fork 中文：是否在独立子 JVM 中执行（forkXmx 等请求体参数设定其内存上限） / English: Whether to run in a separate child JVM (body params such as forkXmx set its memory limits)
+     * @param timeoutMs 中文：超时毫秒数，缺省使用 jvm.lab.scenario.timeoutMs / English: Timeout in ms, defaults to jvm.lab.scenario.timeoutMs
+     * @param bodyParams 中文：请求体参数 / English: Request body parameters
+     *
+     * 返回值 / Return:
+     * 中文：排队中的作业 / English: The queued job
+     *
+     * 异常 / Exceptions:
+     * 中文：场景不存在或队列已满时抛出运行时异常 / English: Runtime exceptions when the scenario is unknown or the queue is full
+     */
+    @PostMapping("/scenarios/{id}/jobs")
+    public ScenarioJob submitJob(@PathVariable String id,
+                                 @RequestParam(name = "dryRun", defaultValue = "true") boolean dryRun,
+                                 @RequestParam(name = "fork", defaultValue = "false") boolean fork,
+                                 @RequestParam(name = "timeoutMs", required = false) Long timeoutMs,
+                                 @RequestBody(required = false) Map<String, Object> bodyParams) {
+        Map<String, Object> params = new HashMap<>();
+        if (bodyParams != null) {
+            params.putAll(bodyParams);
+        }
+        params.put("dryRun", dryRun);
+        if (fork) {
+            params.put(ForkedScenarioRunner.PARAM_FORK, true);
+        }
+        if (timeoutMs != null) {
+            params.put(ScenarioJobEngine.PARAM_TIMEOUT_MS, timeoutMs);
+        }
+        log.info("Submitting scenario job {} with params {}", id, params);
+        return jobEngine.submit(id, params);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查看 fork=true 使用的子 JVM 进程池：各参数组合的空闲预热进程、预热命中与冷启动次数。
+     * English: Inspect the child JVM pool used by fork=true: idle warmed-up workers per option set, warm hits and cold starts.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：进程池状态 / English: Pool status
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/fork-pool")
+    public Map<String, Object> forkPool() {
+        return labService.forkPoolStatus();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：列出最近的场景作业（新的在前）。
+     * English: List recent scenario jobs, newest first.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：作业列表 / English: Job list
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/jobs")
+    public List<ScenarioJob> listJobs() {
+        return jobEngine.listJobs();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查询作业状态与结果。
+     * English: Fetch a job's state and result.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * 返回值 / Return: 中文：作业 / English: Job
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ScenarioJob getJob(@PathVariable String jobId) {
+        return jobEngine.getJob(jobId);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：取消作业；运行中的场景在下一个循环检查点退出，随后状态变为 CANCELLED。
+     * English: Cancel a job; a running scenario exits at its next loop checkpoint and the state then becomes CANCELLED.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * 返回值 / Return: 中文：作业当前状态 / English: The job in its current state
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ScenarioJob cancelJob(@PathVariable String jobId) {
+        return jobEngine.cancel(jobId);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以 Server-Sent Events 推送作业进度（progress 事件）与最终结果（result 事件），替代运行期间轮询 /monitor/overview。
+     * English: Stream job progress (progress events) and the final result (result event) via Server-Sent Events, replacing polling /monitor/overview during a run.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * @param intervalMs 中文：推送间隔（毫秒，可选） / English: Push interval in ms (optional)
+     *
+     * 返回值 / Return: 中文：SSE 流 / English: SSE stream
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    @GetMapping(path = "/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@PathVariable String jobId,
+                                @RequestParam(name = "intervalMs", required = false) Long intervalMs) {
+        return jobEngine.stream(jobId, intervalMs);
+    }
 }
@@ -1,8 +1,10 @@
 package com.example.jvmlab.exceptionlab;
 
+import com.example.jvmlab.common.ExperimentSafetyGuard;
 import com.example.jvmlab.exceptionlab.model.ScenarioDetail;
 import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
 import com.example.jvmlab.exceptionlab.model.ScenarioMetadata;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
@@ -28,11 +30,15 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MemoryExceptionLabService {
 
     private final Map<String, MemoryExceptionScenario> scenarioRegistry = new ConcurrentHashMap<>();
+    private final ForkedWorkerPool forkPool;
+    private final ForkedScenarioRunner forkedRunner;
 
     /**
      * 方法说明 / Method Description:
-     * 中文：构造函数，接收 Spring 注入的场景列表并注册到并发字典。
-     * English: Constructor receiving Spring-injected scenario list and registering into a concurrent map.
+     * 中文：构造函数，接收 Spring 注入的场景列表并注册到并发字典；子 JVM 进程池预加载全部场景类，
+     *      -Djvm.lab.fork.pool.prewarm=true 且允许危险实验时立即为默认参数组合预启动工作进程。
+     * English: Constructor receiving Spring-injected scenario list and registering into a concurrent map; the child JVM pool preloads every scenario class,
+     *      and with -Djvm.lab.fork.pool.prewarm=true and dangerous experiments enabled it pre-starts workers for the default option set right away.
      *
      * 参数 / Parameters:
      * @param scenarios 中文：所有实现了异常场景接口的 Bean 列表 / English: List of beans implementing the scenario interface
@@ -47,6 +53,14 @@ public class MemoryExceptionLabService {
         // 中文：以场景 ID 作为键注册，保证查找高效
         // English: Register by scenario ID for efficient lookup
         scenarios.forEach(scenario -> scenarioRegistry.put(scenario.getId(), scenario));
+        this.forkPool = new ForkedWorkerPool(scenarios.stream()
+                .map(ForkedScenarioRunner::userClassName)
+                .sorted()
+                .toList());
+        this.forkedRunner = new ForkedScenarioRunner(forkPool);
+        if (Boolean.getBoolean("jvm.lab.fork.pool.prewarm") && ExperimentSafetyGuard.isDangerEnabled()) {
+            forkPool.refill(forkedRunner.jvmOptions(Map.of()));
+        }
     }
 
     /**
@@ -104,8 +118,8 @@ public class MemoryExceptionLabService {
 
     /**
      * 方法说明 / Method Description:
-     * 中文：执行指定场景的实验逻辑，支持 Dry-Run 与参数化行为。
-     * English: Execute the specified scenario; supports Dry-Run and parameterized behavior.
+     * 中文：执行指定场景的实验逻辑，支持 Dry-Run 与参数化行为；fork=true 时在子 JVM 中执行。
+     * English: Execute the specified scenario; supports Dry-Run and parameterized behavior, and runs in a child JVM when fork=true.
      *
      * 参数 / Parameters:
      * @param id 中文：场景 ID / English: Scenario ID
@@ -120,10 +134,46 @@ public class MemoryExceptionLabService {
     public ScenarioExecutionResult execute(String id, Map<String, Object> params) throws Exception {
         // 中文：按 ID 查找场景并委托执行
         // English: Lookup by ID and delegate execution
-        MemoryExceptionScenario scenario = getScenario(id);
+        return run(getScenario(id), params);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：执行场景：fork=true 且非 Dry-Run 时交给 {@link ForkedScenarioRunner}，否则在当前线程执行；同步接口与作业引擎共用此入口。
+     * English: Execute a scenario: with fork=true and not a dry run it goes to {@link ForkedScenarioRunner}, otherwise it runs on the current thread; shared by the synchronous endpoint and the job engine.
+     *
+     * 参数 / Parameters:
+     * @param scenario 中文：场景 / English: Scenario
+     * @param params 中文：执行参数 / English: Execution params
+     *
+     * 返回值 / Return: 中文：执行结果 / English: Execution result
+     * 异常 / Exceptions: 中文：场景或子进程执行异常 / English: Scenario or child process failures
+     */
+    ScenarioExecutionResult run(MemoryExceptionScenario scenario, Map<String, Object> params) throws Exception {
+        if (ForkedScenarioRunner.isRequested(params)) {
+            return forkedRunner.execute(scenario, params, ScenarioProgress.current());
+        }
         return scenario.execute(params);
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回子 JVM 进程池状态（各参数组合的空闲进程、预热命中与冷启动次数）。
+     * English: Return the child JVM pool state (idle workers per option set, warm hits and cold starts).
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：状态字典 / English: Status map
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> forkPoolStatus() {
+        return forkPool.snapshot();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        forkPool.shutdown();
+    }
+
     /**
      * 方法说明 / Method Description:
      * 中文：内部查找场景的工具方法，未找到时抛出异常。
@@ -138,7 +188,7 @@ public class MemoryExceptionLabService {
      * 异常 / Exceptions:
      * 中文：NoSuchElementException 当场景未注册 / English: NoSuchElementException when not registered
      */
-    private MemoryExceptionScenario getScenario(String id) {
+    MemoryExceptionScenario getScenario(String id) {
         // 中文：并发字典查找场景，缺失则明确抛出异常
         // English: Lookup from concurrent map; throw explicit exception if missing
         MemoryExceptionScenario scenario = scenarioRegistry.get(id);
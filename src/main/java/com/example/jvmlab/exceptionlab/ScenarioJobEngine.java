@@ -0,0 +1,341 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.common.JvmMetricsSampler;
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.model.ScenarioJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：场景作业引擎：把场景执行提交为带 ID 的作业，在有界的专用线程池中并行运行，支持取消与超时。
+ * English: Scenario job engine: submits scenario executions as jobs with IDs, runs them in parallel on a bounded dedicated pool, and supports cancellation and timeouts.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：heap-oom、gc-overhead 等长时间实验不再占用 Tomcat 工作线程，可同时运行多个实验并随时停止。
+ * English: Long experiments such as heap-oom and gc-overhead no longer hold a Tomcat worker; several can run at once and be stopped at any time.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：线程数与队列长度有上限，队列满时直接拒绝而不是无限堆积；取消通过中断执行线程实现，场景在循环检查点协作退出。
+ * English: Thread count and queue length are bounded, so a full queue rejects instead of piling up; cancellation interrupts the worker and scenarios exit cooperatively at loop checkpoints.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.scenario.workers（默认 4）、-Djvm.lab.scenario.queue（默认 16）、-Djvm.lab.scenario.timeoutMs（默认 300000）。
+ * English: -Djvm.lab.scenario.workers (default 4), -Djvm.lab.scenario.queue (default 16), -Djvm.lab.scenario.timeoutMs (default 300000).
+ */
+@Slf4j
+@Service
+public class ScenarioJobEngine {
+
+    static final String PARAM_TIMEOUT_MS = "timeoutMs";
+    private static final long MAX_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final long MIN_STREAM_INTERVAL_MS = 200;
+    private static final long STREAM_GRACE_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final MemoryExceptionLabService labService;
+    private final long defaultTimeoutMs;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, ScenarioJob> jobs = new LinkedHashMap<>();
+    private final Map<String, Future<?>> running = new ConcurrentHashMap<>();
+    private final Map<String, ScenarioProgress> progressByJob = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService streamer;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，按系统属性创建有界线程池与超时调度器。
+     * English: Constructor creating the bounded pool and timeout scheduler from system properties.
+     *
+     * 参数 / Parameters:
+     * @param labService 中文：场景注册服务 / English: Scenario registry service
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    @Autowired
+    public ScenarioJobEngine(MemoryExceptionLabService labService) {
+        this(labService,
+                Integer.getInteger("jvm.lab.scenario.workers", 4),
+                Integer.getInteger("jvm.lab.scenario.queue", 16),
+                Long.getLong("jvm.lab.scenario.timeoutMs", TimeUnit.MINUTES.toMillis(5)));
+    }
+
+    ScenarioJobEngine(MemoryExceptionLabService labService, int workerCount, int queueCapacity, long defaultTimeoutMs) {
+        this.labService = labService;
+        this.defaultTimeoutMs = clampTimeout(defaultTimeoutMs);
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(1, workerCount);
+        // 中文：Java 17 没有虚拟线程；场景会分配大量内存或阻塞，使用固定数量的平台线程并以有界队列背压
+        // English: Java 17 has no virtual threads; scenarios allocate heavily or block, so use a fixed set of platform threads with a bounded queue for back-pressure
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-scenario-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-scenario-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 中文：进度推送使用独立线程，慢客户端不会拖延超时调度
+        // English: Progress pushing has its own thread so slow clients never delay timeout scheduling
+        this.streamer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-scenario-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：提交场景作业并立即返回；场景不存在或队列已满时同步失败。
+     * English: Submit a scenario job and return immediately; fails synchronously when the scenario is unknown or the queue is full.
+     *
+     * 参数 / Parameters:
+     * @param scenarioId 中文：场景 ID / English: Scenario ID
+     * @param params 中文：执行参数，可含 timeoutMs / English: Execution params, may include timeoutMs
+     *
+     * 返回值 / Return: 中文：排队中的作业 / English: The queued job
+     *
+     * 异常 / Exceptions:
+     * 中文：NoSuchElementException（场景不存在）、IllegalStateException（队列已满）
+     * English: NoSuchElementException (unknown scenario), IllegalStateException (queue full)
+     */
+    public ScenarioJob submit(String scenarioId, Map<String, Object> params) {
+        MemoryExceptionScenario scenario = labService.getScenario(scenarioId);
+        long timeoutMs = parseTimeout(params.get(PARAM_TIMEOUT_MS));
+        ScenarioJob job = new ScenarioJob("job-" + sequence.incrementAndGet(), scenarioId, params, timeoutMs);
+        ScenarioProgress progress = new ScenarioProgress(null);
+        job.attachProgress(progress.getCounters());
+        progressByJob.put(job.getId(), progress);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            evictFinishedJobs();
+        }
+        // 中文：先登记 Future 再入队，保证取消请求总能找到执行线程，且运行结束后的移除不会被覆盖
+        // English: Register the Future before queueing so cancellation always finds the worker and the post-run removal is never overwritten
+        FutureTask<Void> task = new FutureTask<>(() -> run(job, scenario, progress), null);
+        running.put(job.getId(), task);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            running.remove(job.getId());
+            job.markFailed("队列已满 / Queue full");
+            throw new IllegalStateException("场景作业队列已满，请稍后重试 / Scenario job queue is full (workers="
+                    + workers.getMaximumPoolSize() + ", queue=" + workers.getQueue().size() + ")");
+        }
+        log.info("场景作业已提交 Scenario job submitted: id={} scenario={} timeoutMs={}", job.getId(), scenarioId, timeoutMs);
+        return job;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按 ID 查询作业。
+     * English: Look up a job by ID.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * 返回值 / Return: 中文：作业 / English: Job
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    public ScenarioJob getJob(String jobId) {
+        synchronized (jobs) {
+            ScenarioJob job = jobs.get(jobId);
+            if (job == null) {
+                throw new NoSuchElementException("Scenario job not found: " + jobId);
+            }
+            return job;
+        }
+    }
+
+    public List<ScenarioJob> listJobs() {
+        synchronized (jobs) {
+            List<ScenarioJob> list = new ArrayList<>(jobs.values());
+            Collections.reverse(list);
+            return list;
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：取消作业：排队中的作业直接结束，运行中的作业中断其执行线程并在下一个检查点退出。
+     * English: Cancel a job: a queued job ends at once; a running job has its worker interrupted and exits at the next checkpoint.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * 返回值 / Return: 中文：作业当前状态 / English: The job in its current state
+     * 异常 / Exceptions: 中文：不存在时抛出 NoSuchElementException / English: NoSuchElementException when absent
+     */
+    public ScenarioJob cancel(String jobId) {
+        ScenarioJob job = getJob(jobId);
+        terminate(job, ScenarioJob.Status.CANCELLED, "用户取消 / Cancelled by request");
+        return job;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：以 SSE 定期推送作业进度（progress 事件：场景计数器、内存池使用量、自开始以来的 GC 增量），结束时推送 result 事件并关闭。
+     * English: Stream job progress over SSE periodically (progress events: scenario counters, pool usage, GC deltas since start), then send a result event and complete.
+     *
+     * 参数 / Parameters:
+     * @param jobId 中文：作业 ID / English: Job ID
+     * @param intervalMs 中文：推送间隔，不小于 200ms，缺省为采样器间隔 / English: Push interval, at least 200ms, defaults to the sampler interval
+     *
+     * 返回值 / Return: 中文：SSE 发射器 / English: SSE emitter
+     * 异常 / Exceptions: 中文：作业不存在时抛出 NoSuchElementException / English: NoSuchElementException when the job is absent
+     */
+    public SseEmitter stream(String jobId, Long intervalMs) {
+        ScenarioJob job = getJob(jobId);
+        ScenarioProgress progress = progressByJob.getOrDefault(jobId, new ScenarioProgress(null));
+        JvmMetricsSampler sampler = JvmMetricsSampler.getInstance();
+        long period = Math.max(MIN_STREAM_INTERVAL_MS, intervalMs == null ? sampler.getIntervalMillis() : intervalMs);
+        SseEmitter emitter = new SseEmitter(job.getTimeoutMs() + STREAM_GRACE_MS);
+        AtomicReference<ScheduledFuture<?>> tick = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Runnable stop = () -> {
+            done.set(true);
+            ScheduledFuture<?> future = tick.get();
+            if (future != null) {
+                future.cancel(false);
+            }
+        };
+        Runnable push = () -> {
+            if (done.get()) {
+                return;
+            }
+            try {
+                if (job.isFinished()) {
+                    stop.run();
+                    emitter.send(SseEmitter.event().name("result").data(job));
+                    emitter.complete();
+                    return;
+                }
+                // 中文：只读取进度计数器与缓存快照，不触碰执行线程，也不发起 MXBean 调用
+                // English: Only reads progress counters and the cached snapshot; never touches the worker or calls MXBeans
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("jobId", job.getId());
+                event.put("scenarioId", job.getScenarioId());
+                event.put("status", job.getStatus());
+                event.put("elapsedMs", job.getElapsedMs());
+                event.putAll(progress.toEvent(sampler.current()));
+                emitter.send(SseEmitter.event().name("progress").data(event));
+            } catch (IOException | RuntimeException e) {
+                // 中文：客户端断开或流已关闭，停止推送；异常不能逃逸，否则调度会被静默取消
+                // English: The client left or the stream closed; stop pushing. Nothing may escape, or the schedule is silently cancelled
+                stop.run();
+            }
+        };
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+        tick.set(streamer.scheduleAtFixedRate(push, 0, period, TimeUnit.MILLISECONDS));
+        if (done.get()) {
+            tick.get().cancel(false);
+        }
+        return emitter;
+    }
+
+    /**
+     * 在工作线程中执行场景：登记超时，执行完毕后按结果、取消或异常落定终态。
+     */
+    private void run(ScenarioJob job, MemoryExceptionScenario scenario, ScenarioProgress progress) {
+        if (!job.markRunning()) {
+            running.remove(job.getId());
+            return;
+        }
+        progress.bind();
+        ScheduledFuture<?> timeout = timer.schedule(
+                () -> terminate(job, ScenarioJob.Status.TIMED_OUT, "超时 / Timed out after " + job.getTimeoutMs() + "ms"),
+                job.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        try {
+            ScenarioExecutionResult result = labService.run(scenario, job.getParams());
+            job.markSucceeded(result);
+            log.info("场景作业完成 Scenario job succeeded: id={} elapsedMs={}", job.getId(), job.getElapsedMs());
+        } catch (CancellationException | InterruptedException e) {
+            job.markCancelled(e.getMessage());
+            log.info("场景作业已停止 Scenario job stopped: id={} status={}", job.getId(), job.getStatus());
+        } catch (Throwable t) {
+            // 中文：场景未自行捕获的 OOM 等错误也记录为失败，避免工作线程静默死亡
+            // English: Errors the scenario did not catch (e.g. OOM) are recorded as failures so the worker never dies silently
+            job.markFailed(t.toString());
+            log.warn("场景作业失败 Scenario job failed: id={} error={}", job.getId(), t.toString());
+        } finally {
+            progress.unbind();
+            timeout.cancel(false);
+            running.remove(job.getId());
+        }
+    }
+
+    private void terminate(ScenarioJob job, ScenarioJob.Status reason, String message) {
+        if (job.requestCancel(reason, message)) {
+            Future<?> future = running.get(job.getId());
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private long parseTimeout(Object value) {
+        if (value == null) {
+            return defaultTimeoutMs;
+        }
+        try {
+            return clampTimeout(value instanceof Number number ? number.longValue() : Long.parseLong(String.valueOf(value)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("timeoutMs 必须为整数 / timeoutMs must be an integer: " + value);
+        }
+    }
+
+    private static long clampTimeout(long timeoutMs) {
+        return Math.max(1, Math.min(MAX_TIMEOUT_MS, timeoutMs));
+    }
+
+    /** 只淘汰已结束的最旧作业，排队或运行中的作业始终保留。 */
+    private void evictFinishedJobs() {
+        Iterator<ScenarioJob> iterator = jobs.values().iterator();
+        while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+            ScenarioJob candidate = iterator.next();
+            if (candidate.isFinished()) {
+                iterator.remove();
+                progressByJob.remove(candidate.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamer.shutdownNow();
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
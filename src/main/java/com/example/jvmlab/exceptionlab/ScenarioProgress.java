@@ -0,0 +1,163 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.common.JvmMetricsSampler;
+import com.example.jvmlab.common.JvmMetricsSnapshot;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：场景运行中的进度通道：执行线程只写入少量计数器，推送线程定期读取并结合缓存的 JVM 快照生成进度事件。
+ * English: Progress channel of a running scenario: the worker only writes a few counters, and the pushing thread periodically reads them together with the cached JVM snapshot to build progress events.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：threadlocal-leak、metaspace-oom 等长时间场景通过 {@link AbstractMemoryExceptionScenario#reportProgress} 报告进度，经 SSE 推送给客户端。
+ * English: Long scenarios such as threadlocal-leak and metaspace-oom report via {@link AbstractMemoryExceptionScenario#reportProgress}, streamed to clients over SSE.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：通道通过 ThreadLocal 绑定到作业线程，场景接口无需改动；写入不阻塞、不做 I/O，内存与 GC 数据取自 {@link JvmMetricsSampler} 缓存快照，推送不触发 MXBean 调用。
+ *      同步执行路径未绑定通道时使用空实现，报告调用退化为空操作。
+ * English: The channel is bound to the job thread through a ThreadLocal, so the scenario interface is unchanged; writes never block or do I/O, and memory/GC data come from the cached {@link JvmMetricsSampler} snapshot so pushing makes no MXBean calls.
+ *      The synchronous execution path has no bound channel and uses a no-op instance.
+ */
+public class ScenarioProgress {
+
+    private static final ScenarioProgress NOOP = new ScenarioProgress(null) {
+        @Override
+        public void report(String key, long value) {
+            // 中文：同步执行路径无人订阅 / English: Nobody subscribes on the synchronous path
+        }
+
+        @Override
+        void acceptRemote(Map<String, Object> event) {
+            // 中文：同步执行路径无人订阅 / English: Nobody subscribes on the synchronous path
+        }
+    };
+    private static final ThreadLocal<ScenarioProgress> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private volatile JvmMetricsSnapshot baseline;
+    private volatile Map<String, Object> remote;
+
+    ScenarioProgress(JvmMetricsSnapshot baseline) {
+        this.baseline = baseline;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回当前线程绑定的进度通道，未绑定时返回空实现。
+     * English: Return the channel bound to the current thread, or the no-op instance when unbound.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：进度通道 / English: Progress channel
+     * 异常 / Exceptions: 无
+     */
+    public static ScenarioProgress current() {
+        ScenarioProgress progress = CURRENT.get();
+        return progress == null ? NOOP : progress;
+    }
+
+    /** 在作业线程上绑定通道，并以当前缓存快照作为 GC 增量基线。 */
+    void bind() {
+        baseline = JvmMetricsSampler.getInstance().current();
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：记录一个进度计数器的最新值（覆盖写）。
+     * English: Record the latest value of a progress counter (overwrite).
+     *
+     * 参数 / Parameters:
+     * @param key 中文：计数器名称，如 allocations / English: Counter name, e.g. allocations
+     * @param value 中文：当前值 / English: Current value
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public void report(String key, long value) {
+        counters.put(key, value);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：接收子 JVM 回传的进度事件：计数器并入本通道，内存与 GC 数据替代本进程快照，用于之后的 {@link #toEvent}。
+     * English: Accept a progress event from a forked child JVM: counters are merged into this channel and the child's memory and GC data replace the local snapshot in later {@link #toEvent} calls.
+     *
+     * 参数 / Parameters:
+     * @param event 中文：子进程 {@link #toEvent} 的 JSON 解码结果 / English: JSON-decoded output of the child's {@link #toEvent}
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    void acceptRemote(Map<String, Object> event) {
+        if (event.get("counters") instanceof Map<?, ?> remoteCounters) {
+            remoteCounters.forEach((key, value) -> {
+                if (value instanceof Number number) {
+                    counters.put(String.valueOf(key), number.longValue());
+                }
+            });
+        }
+        Map<String, Object> copy = new LinkedHashMap<>(event);
+        copy.remove("counters");
+        copy.remove("type");
+        remote = copy;
+    }
+
+    /** 场景上报的计数器只读视图。 */
+    public Map<String, Long> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：结合最新缓存快照生成进度事件：场景计数器、堆与各内存池使用量、线程与类数量，以及相对作业开始时的 GC 次数与耗时增量；子 JVM 作业使用其回传的数据。
+     * English: Build a progress event from the latest cached snapshot: scenario counters, heap and per-pool usage, thread and class counts, and GC count/time deltas since the job started; forked jobs use the data their child sent back.
+     *
+     * 参数 / Parameters:
+     * @param now 中文：最新快照 / English: Latest snapshot
+     * 返回值 / Return: 中文：进度事件数据 / English: Progress event data
+     * 异常 / Exceptions: 无
+     */
+    Map<String, Object> toEvent(JvmMetricsSnapshot now) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("counters", new LinkedHashMap<>(counters));
+        Map<String, Object> child = remote;
+        if (child != null) {
+            // 中文：子 JVM 中运行的场景，内存与 GC 数据取自子进程而不是本进程
+            // English: For a scenario running in a child JVM, memory and GC data come from the child rather than this process
+            event.put("forked", true);
+            event.putAll(child);
+            return event;
+        }
+        event.put("heapUsedMb", now.getHeapUsed() / 1024 / 1024);
+        event.put("nonHeapUsedMb", now.getNonHeapUsed() / 1024 / 1024);
+        Map<String, Long> pools = new LinkedHashMap<>();
+        for (int i = 0; i < now.getPoolCount(); i++) {
+            pools.put(now.getPoolName(i), now.getPoolUsed(i) / 1024 / 1024);
+        }
+        event.put("poolUsedMb", pools);
+        event.put("threadCount", now.getThreadCount());
+        event.put("loadedClassCount", now.getLoadedClassCount());
+        JvmMetricsSnapshot base = baseline;
+        Map<String, Map<String, Long>> gc = new LinkedHashMap<>();
+        for (int i = 0; i < now.getGcCount(); i++) {
+            long countBefore = base == null ? 0 : base.getGcCollectionCount(i);
+            long timeBefore = base == null ? 0 : base.getGcCollectionTime(i);
+            Map<String, Long> delta = new LinkedHashMap<>();
+            delta.put("countDelta", now.getGcCollectionCount(i) - countBefore);
+            delta.put("timeMsDelta", now.getGcCollectionTime(i) - timeBefore);
+            gc.put(now.getGcName(i), delta);
+        }
+        event.put("gcSinceStart", gc);
+        event.put("sampledAtUptimeMs", now.getUptimeMillis());
+        return event;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.jvmlab.exceptionlab.model;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +52,34 @@ public class ScenarioExecutionResult {
         this.timestamp = Instant.now();
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回追加一项指标后的新结果，其余字段与时间戳保持不变。
+     * English: Return a copy with one more metric; all other fields and the timestamp are unchanged.
+     *
+     * 参数 / Parameters:
+     * @param key 中文：指标名 / English: Metric name
+     * @param value 中文：指标值 / English: Metric value
+     *
+     * 返回值 / Return: 中文：新的执行结果 / English: New execution result
+     */
+    public ScenarioExecutionResult withMetric(String key, Object value) {
+        Map<String, Object> merged = new LinkedHashMap<>(metrics);
+        merged.put(key, value);
+        return new ScenarioExecutionResult(scenarioId, dryRun, triggered, message, merged, nextActions, timestamp);
+    }
+
+    private ScenarioExecutionResult(String scenarioId, boolean dryRun, boolean triggered, String message,
+                                    Map<String, Object> metrics, List<String> nextActions, Instant timestamp) {
+        this.scenarioId = scenarioId;
+        this.dryRun = dryRun;
+        this.triggered = triggered;
+        this.message = message;
+        this.metrics = Map.copyOf(metrics);
+        this.nextActions = nextActions;
+        this.timestamp = timestamp;
+    }
+
     /**
      * 方法说明 / Method Description:
      * 中文：获取场景 ID。
@@ -0,0 +1,211 @@
+package com.example.jvmlab.exceptionlab.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：一次异步场景执行作业的状态：排队/运行/成功/失败/取消/超时，以及执行结果或错误信息。
+ * English: State of one asynchronous scenario job: queued/running/succeeded/failed/cancelled/timed out, plus the result or error.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：通过 /memory-exception-lab/jobs/{id} 轮询，或取消长时间运行的 heap-oom、gc-overhead 实验。
+ * English: Polled via /memory-exception-lab/jobs/{id}, or used to cancel long heap-oom / gc-overhead runs.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：由执行线程写入、请求线程读取，字段使用 volatile 保证可见性；终态只能设置一次。
+ * English: Written by the worker thread and read by request threads; volatile fields ensure visibility and the terminal state is set only once.
+ */
+public class ScenarioJob {
+
+    /** 作业状态。 */
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED, TIMED_OUT }
+
+    private final String id;
+    private final String scenarioId;
+    private final Map<String, Object> params;
+    private final long timeoutMs;
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String workerThread;
+    private volatile ScenarioExecutionResult result;
+    private volatile String error;
+    private volatile Status cancelRequested;
+    private volatile Map<String, Long> progress = Map.of();
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，记录作业 ID、场景 ID、执行参数与超时时间。
+     * English: Constructor recording job ID, scenario ID, execution params and timeout.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：作业 ID / English: Job ID
+     * @param scenarioId 中文：场景 ID / English: Scenario ID
+     * @param params 中文：执行参数（可含 null 值） / English: Execution params (may contain null values)
+     * @param timeoutMs 中文：超时毫秒数 / English: Timeout in milliseconds
+     */
+    public ScenarioJob(String id, String scenarioId, Map<String, Object> params, long timeoutMs) {
+        this.id = id;
+        this.scenarioId = scenarioId;
+        this.params = Collections.unmodifiableMap(new HashMap<>(params));
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：标记作业开始运行；若作业在排队期间已被取消则返回 false，调用方应直接放弃执行。
+     * English: Mark the job running; returns false if it was cancelled while queued, in which case the caller skips execution.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：是否成功进入运行态 / English: Whether the job entered RUNNING
+     * 异常 / Exceptions: 无
+     */
+    public synchronized boolean markRunning() {
+        if (status != Status.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        workerThread = Thread.currentThread().getName();
+        status = Status.RUNNING;
+        return true;
+    }
+
+    public synchronized void markSucceeded(ScenarioExecutionResult executionResult) {
+        finish(Status.SUCCEEDED, executionResult, null);
+    }
+
+    public synchronized void markFailed(String message) {
+        finish(Status.FAILED, null, message);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：请求取消或超时终止：排队中的作业立即结束；运行中的作业只记录原因，由执行线程在退出时落定终态。
+     * English: Request cancellation or timeout: a queued job ends immediately; a running job only records the reason and the worker settles the terminal state when it exits.
+     *
+     * 参数 / Parameters:
+     * @param reason 中文：CANCELLED 或 TIMED_OUT / English: CANCELLED or TIMED_OUT
+     * @param message 中文：说明信息 / English: Description
+     *
+     * 返回值 / Return: 中文：作业是否仍在运行、需要中断执行线程 / English: Whether the job is still running and its worker must be interrupted
+     * 异常 / Exceptions: 无
+     */
+    public synchronized boolean requestCancel(Status reason, String message) {
+        if (status == Status.QUEUED) {
+            finish(reason, null, message);
+            return false;
+        }
+        if (status != Status.RUNNING) {
+            return false;
+        }
+        if (cancelRequested == null) {
+            cancelRequested = reason;
+            error = message;
+        }
+        return true;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：执行线程响应中断退出后调用，按请求原因（默认 CANCELLED）落定终态。
+     * English: Called by the worker after it exits on interruption; settles the terminal state using the requested reason (CANCELLED by default).
+     *
+     * 参数 / Parameters:
+     * @param message 中文：退出原因 / English: Exit reason
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public synchronized void markCancelled(String message) {
+        Status reason = cancelRequested == null ? Status.CANCELLED : cancelRequested;
+        finish(reason, null, error == null ? message : error);
+    }
+
+    private void finish(Status terminal, ScenarioExecutionResult executionResult, String message) {
+        if (isFinished()) {
+            return;
+        }
+        result = executionResult;
+        error = message;
+        finishedAt = Instant.now();
+        status = terminal;
+    }
+
+    public boolean isFinished() {
+        Status current = status;
+        return current != Status.QUEUED && current != Status.RUNNING;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getScenarioId() {
+        return scenarioId;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /** 运行耗时（毫秒）；尚未开始时为 0，运行中为已耗时。 */
+    public long getElapsedMs() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt;
+        return Duration.between(start, end == null ? Instant.now() : end).toMillis();
+    }
+
+    public String getWorkerThread() {
+        return workerThread;
+    }
+
+    public ScenarioExecutionResult getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /** 场景上报的最新进度计数器（运行期间持续变化）。 */
+    public Map<String, Long> getProgress() {
+        return progress;
+    }
+
+    public void attachProgress(Map<String, Long> counters) {
+        this.progress = counters;
+    }
+
+    /** 已请求但尚未生效的取消原因；场景需运行到下一个检查点才会退出。 */
+    public Status getCancelRequested() {
+        return cancelRequested;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.jvmlab.exceptionlab.scenario;
 
+import com.example.jvmlab.common.DirectBufferTracker;
 import com.example.jvmlab.exceptionlab.AbstractMemoryExceptionScenario;
 import com.example.jvmlab.exceptionlab.model.JvmMemoryArea;
 import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
@@ -29,6 +30,9 @@ import java.util.Map;
 @Component
 public class DirectMemoryOomScenario extends AbstractMemoryExceptionScenario {
 
+    /** 直接缓冲区归属标签，在 /monitor/buffer-pools 中可见。 */
+    private static final String TRACKER_TAG = "scenario.direct-memory-oom";
+
     private static final List<ByteBuffer> DIRECT_BUFFERS = new ArrayList<>();
 
     @Override
@@ -60,12 +64,13 @@ public class DirectMemoryOomScenario extends AbstractMemoryExceptionScenario {
                         "调用 /memory-exception-lab/scenarios/direct-memory-oom/execute?dryRun=false&sizeMb=1。",
                         "观察接口快速抛出 OutOfMemoryError。"))
                 .diagnosticSteps(List.of(
-                        "执行 jcmd <pid> VM.native_memory summary | grep -i internal。",
+                        "以 -XX:NativeMemoryTracking=summary 启动，执行前 POST /monitor/native-memory/baseline，执行后 GET /monitor/native-memory/diff 查看 Other（DirectByteBuffer 的 malloc）增量；等价于 jcmd <pid> VM.native_memory summary.diff。",
+                        "GET /monitor/buffer-pools 查看 direct 缓冲池总量与按标签归属（本场景标签 scenario.direct-memory-oom），untrackedBytes 为未经包装分配的部分。",
                         "排查是否有 DirectByteBuffer 未被回收（可使用 Netty 泄漏检测）。"))
                 .solutionSteps(List.of(
                         "复用直接内存缓冲区，或及时调用 Cleaner 释放。",
                         "在高吞吐场景下使用池化技术，例如 Netty PooledByteBufAllocator。"))
-                .recommendedJvmOptions(List.of("-XX:MaxDirectMemorySize=10m"))
+                .recommendedJvmOptions(List.of("-XX:MaxDirectMemorySize=10m", "-XX:NativeMemoryTracking=summary"))
                 .toolingTips(List.of(
                         "NMT (Native Memory Tracking) 分析直接内存使用。",
                         "JProfiler → Memory Views → Allocation Call Tree。"))
@@ -88,15 +93,30 @@ public class DirectMemoryOomScenario extends AbstractMemoryExceptionScenario {
      */
     @Override
     protected ScenarioExecutionResult doExecute(Map<String, Object> requestParams) {
+        if (isPaced(requestParams)) {
+            // 中文：直接内存块默认 1MB 且全部存活，按设定速率逼近 MaxDirectMemorySize
+            // English: Direct chunks default to 1MB and all survive, approaching MaxDirectMemorySize at the configured rate
+            Map<String, Object> report = pressureGenerator(requestParams, 1.0, 1024,
+                    bytes -> DirectBufferTracker.allocate(TRACKER_TAG, bytes))
+                    .run(parseInt(requestParams, "durationMs", 0));
+            boolean oom = "OOM".equals(report.get("stopReason"));
+            return new ScenarioExecutionResult(getId(), false, oom,
+                    oom ? "Direct buffer memory OOM at " + report.get("achievedMbPerSec") + " MB/s"
+                            : "Sustained " + report.get("achievedMbPerSec") + " MB/s of direct allocation",
+                    report,
+                    List.of("对比 achievedMbPerSec 与 requestedMbPerSec，观察 Cleaner 回收能否跟上分配速率"));
+        }
         int sizeMb = Math.max(1, parseInt(requestParams, "sizeMb", 1));
         int allocations = 0;
         try {
             while (true) {
+                checkCancelled();
                 // 中文：分配指定大小的直接缓冲区并保存引用，避免被回收
                 // English: Allocate a direct buffer of given size and retain reference to avoid reclamation
-                ByteBuffer buffer = ByteBuffer.allocateDirect(sizeMb * 1024 * 1024);
+                ByteBuffer buffer = DirectBufferTracker.allocate(TRACKER_TAG, sizeMb * 1024 * 1024);
                 DIRECT_BUFFERS.add(buffer);
                 allocations++;
+                reportProgress("allocations", allocations);
             }
         } catch (OutOfMemoryError error) {
             // 中文：成功触发 Direct Memory OOM，打印成功确认日志
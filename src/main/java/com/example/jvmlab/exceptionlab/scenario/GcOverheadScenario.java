@@ -93,11 +93,17 @@ public class GcOverheadScenario extends AbstractMemoryExceptionScenario {
         int counter = 0;
         try {
             while (true) {
+                checkCancelled();
                 // 中文：生成字符串并根据参数决定是否放入常量池
                 // English: Generate a string and decide whether to intern based on parameter
                 String value = "value" + counter;
                 pressureMap.put(counter, internStrings ? value.intern() : value);
                 counter++;
+                // 中文：单次插入极轻，每 1024 次报告一次即可
+                // English: Each insert is tiny, so reporting every 1024 iterations is enough
+                if ((counter & 1023) == 0) {
+                    reportProgress("entries", counter);
+                }
             }
         } catch (OutOfMemoryError error) {
             Map<String, Object> metrics = Map.of(
@@ -90,11 +90,15 @@ public class HeapOomScenario extends AbstractMemoryExceptionScenario {
      */
     @Override
     protected ScenarioExecutionResult doExecute(Map<String, Object> requestParams) throws InterruptedException {
+        if (isPaced(requestParams)) {
+            return executePaced(requestParams);
+        }
         int sizeMb = Math.max(1, parseInt(requestParams, "sizeMb", 1));
         int delayMs = Math.max(0, parseInt(requestParams, "delayMs", 50));
         long allocationCount = 0;
         try {
             while (true) {
+                checkCancelled();
                 // 中文：分配指定大小的字节块并保存引用，防止 GC 回收
                 // English: Allocate a byte block of given size and retain reference to prevent GC reclamation
                 byte[] block = new byte[sizeMb * 1024 * 1024];
@@ -102,6 +106,7 @@ public class HeapOomScenario extends AbstractMemoryExceptionScenario {
                 // English: Use thread-safe collection to store for potential concurrent calls
                 HEAP_STORAGE.add(block);
                 allocationCount++;
+                reportProgress("allocations", allocationCount);
                 if (delayMs > 0) {
                     // 中文：可选延迟以控制触发速度并便于观察监控曲线
                     // English: Optional delay to control trigger speed and observe monitoring curves
@@ -124,4 +129,31 @@ public class HeapOomScenario extends AbstractMemoryExceptionScenario {
                     List.of("分析 heap dump 或调整 sizeMb/delayMs 控制触发速度"));
         }
     }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按 rateMbPerSec/survivorRatio 重放分配画像：默认全部存活直至 OOM；指定 durationMs 或 retainMb 时可在不 OOM 的情况下观察 GC。
+     * English: Replay an allocation profile via rateMbPerSec/survivorRatio: by default everything survives until OOM; with durationMs or retainMb GC can be observed without OOM.
+     *
+     * 参数 / Parameters:
+     * @param requestParams 中文：rateMbPerSec、survivorRatio（默认 1.0）、chunkKb（默认 64）、retainMb、durationMs / English: rateMbPerSec, survivorRatio (default 1.0), chunkKb (default 64), retainMb, durationMs
+     *
+     * 返回值 / Return:
+     * 中文：包含请求与实际速率的执行结果 / English: Execution result with requested and achieved rates
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界时抛出 IllegalArgumentException / English: IllegalArgumentException when a parameter is out of range
+     */
+    private ScenarioExecutionResult executePaced(Map<String, Object> requestParams) {
+        Map<String, Object> report = pressureGenerator(requestParams, 1.0, 64, byte[]::new)
+                .run(parseInt(requestParams, "durationMs", 0));
+        boolean oom = "OOM".equals(report.get("stopReason"));
+        log.info("限速分配结束 Paced allocation finished: {}", report);
+        return new ScenarioExecutionResult(getId(), false, oom,
+                oom ? "Java heap space OOM at " + report.get("achievedMbPerSec") + " MB/s"
+                        : "Sustained " + report.get("achievedMbPerSec") + " MB/s for " + report.get("elapsedMs") + " ms",
+                report,
+                List.of("对比 achievedMbPerSec 与 requestedMbPerSec，saturated=true 表示目标速率超出单线程分配能力",
+                        "结合 /actuator/prometheus 中的 jvm_lab_gc_* 指标比较不同 GC 参数下的停顿与晋升"));
+    }
 }
@@ -61,7 +61,7 @@ public class MetaspaceOomScenario extends AbstractMemoryExceptionScenario {
                         "调用 /memory-exception-lab/scenarios/metaspace-oom/execute?dryRun=false&classCount=100000。",
                         "观察日志中打印的 Metaspace 使用情况。"))
                 .diagnosticSteps(List.of(
-                        "执行 jcmd <pid> VM.native_memory summary | grep -i class。",
+                        "执行 jcmd <pid> VM.native_memory summary | grep -i class，或开启 NMT 后 GET /monitor/native-memory/diff 查看 Class / Metaspace 增量。",
                         "使用 JProfiler 查看 Recorded Objects → Class 实例数量。"))
                 .solutionSteps(List.of(
                         "排查自定义 ClassLoader 是否存在泄漏。",
@@ -96,6 +96,7 @@ public class MetaspaceOomScenario extends AbstractMemoryExceptionScenario {
         int generated = 0;
         try {
             while (generated < target) {
+                checkCancelled();
                 // 中文：生成唯一类名并创建返回常量 toString 的类
                 // English: Generate unique class name and create a class with constant toString
                 String className = "com.example.jvmlab.exceptionlab.dynamic.DynamicClass" +
@@ -108,6 +109,7 @@ public class MetaspaceOomScenario extends AbstractMemoryExceptionScenario {
                 // English: Retain class reference to prevent unloading and releasing Metaspace
                 GENERATED_CLASSES.add(clazz);
                 generated++;
+                reportProgress("generatedClasses", generated);
             }
             return new ScenarioExecutionResult(getId(), false, false,
                     "Generated " + generated + " classes without triggering OOM",
@@ -117,8 +119,10 @@ public class MetaspaceOomScenario extends AbstractMemoryExceptionScenario {
             // 中文：成功触发 Metaspace OOM，打印成功确认日志
             // English: Successfully triggered Metaspace OOM; print success confirmation log
             log.info("【成功】Metaspace OOM 触发，已生成类数量={} / Success: Metaspace OOM triggered", generated);
+            // 中文：元空间已满时字符串拼接的 invokedynamic 引导需要定义新类，会再次 OOM，这里改用 String.concat
+            // English: With Metaspace full, bootstrapping an invokedynamic string concat defines new classes and fails again, so String.concat is used here
             return new ScenarioExecutionResult(getId(), false, true,
-                    "Metaspace OOM after generating " + generated + " classes",
+                    "Metaspace OOM after generating ".concat(String.valueOf(generated)).concat(" classes"),
                     Map.of("generatedClasses", generated),
                     List.of("执行 jcmd 查看 Class Space 使用情况"));
         }
@@ -91,10 +91,14 @@ public class StringPoolPressureScenario extends AbstractMemoryExceptionScenario
         int startIndex = STRING_HOLDER.size();
         try {
             for (int i = 0; i < batch; i++) {
+                checkCancelled();
                 // 中文：生成唯一字符串并放入常量池，保留引用避免回收
                 // English: Generate unique string, intern it and retain reference to avoid reclamation
                 String value = (startIndex + i) + "-jvm-lab";
                 STRING_HOLDER.add(value.intern());
+                if ((i & 1023) == 0) {
+                    reportProgress("interned", i);
+                }
             }
             return new ScenarioExecutionResult(getId(), false, false,
                     "Appended " + batch + " strings to the intern pool",
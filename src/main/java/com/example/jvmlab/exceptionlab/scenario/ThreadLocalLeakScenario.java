@@ -60,8 +60,8 @@ public class ThreadLocalLeakScenario extends AbstractMemoryExceptionScenario {
                         "调用 /memory-exception-lab/scenarios/threadlocal-leak/execute?dryRun=false&entries=500&sizeKb=256",
                         "观察接口返回的分配统计与服务端日志"))
                 .diagnosticSteps(List.of(
-                        "通过 jmap -histo 查看 byte[] 或自定义对象占比",
-                        "使用 MAT 查看 GC Roots 链路，确认 ThreadLocalMap 中的 Value 被静态集合间接引用"))
+                        "执行前 POST /monitor/class-histogram/baselines/before?live=true，执行后 GET /monitor/class-histogram/diff?baseline=before&live=true 查看 byte[] 增长（进程内等价于 jmap -histo:live）",
+                        "POST /monitor/heap-dump?analyze=true 查看 dominators 的 accumulationPoint 与 pathFromGcRoot（或使用 MAT 查看 GC Roots 链路），确认 ThreadLocalMap 中的 Value 被静态集合间接引用"))
                 .solutionSteps(List.of(
                         "在使用 ThreadLocal 后及时调用 remove()",
                         "避免将 ThreadLocal 值对象放入静态集合"))
@@ -94,10 +94,12 @@ public class ThreadLocalLeakScenario extends AbstractMemoryExceptionScenario {
         int added = 0;
         try {
             for (int i = 0; i < entries; i++) {
+                checkCancelled();
                 // 中文：创建指定大小的字节数组并放入 ThreadLocal 列表
                 // English: Create a byte array of given size and store into ThreadLocal list
                 list.add(new byte[sizeKb * 1024]);
                 added++;
+                reportProgress("entries", added);
             }
             // 中文：将列表放入静态集合，模拟业务误用导致的值对象无法释放
             // English: Put list into static collection to simulate misuse keeping value objects alive
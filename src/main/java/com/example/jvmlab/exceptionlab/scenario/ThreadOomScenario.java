@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 /**
  * 类说明 / Class Description:
@@ -90,6 +91,7 @@ public class ThreadOomScenario extends AbstractMemoryExceptionScenario {
         int count = 0;
         try {
             while (count < maxThreads) {
+                checkCancelled();
                 // 中文：每个线程休眠以保持栈与本地资源占用
                 // English: Each thread sleeps to keep stack and native resources occupied
                 Thread thread = new Thread(() -> {
@@ -105,11 +107,17 @@ public class ThreadOomScenario extends AbstractMemoryExceptionScenario {
                 thread.start();
                 startedThreads.add(thread);
                 count++;
+                reportProgress("createdThreads", count);
             }
             return new ScenarioExecutionResult(getId(), false, false,
                     "Created " + count + " threads without hitting OS limit",
                     Map.of("createdThreads", count),
                     List.of("提高 maxThreads 或调整 ulimit 限制"));
+        } catch (CancellationException cancelled) {
+            // 中文：作业被取消时释放已创建的线程，避免非守护线程永久驻留
+            // English: Release created threads when the job is cancelled so non-daemon threads do not linger
+            startedThreads.forEach(Thread::interrupt);
+            throw cancelled;
         } catch (OutOfMemoryError error) {
             // 中文：在异常场景下尽可能中断已创建线程，降低资源占用
             // English: Interrupt created threads to reduce resource usage upon error
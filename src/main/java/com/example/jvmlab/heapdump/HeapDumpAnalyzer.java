@@ -0,0 +1,1002 @@
+package com.example.jvmlab.heapdump;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：流式 HPROF 堆转储分析器：多遍顺序扫描内存映射的转储文件，给出类直方图、GC Root 统计，以及在内存预算内构建对象图后计算支配树、保留大小、堆积点与到 GC Root 的最短路径。
+ * English: Streaming HPROF heap-dump analyzer: scans the memory-mapped dump sequentially in several passes to produce a class histogram and GC-root counts, and, when the object graph fits the memory budget, the dominator tree, retained sizes, accumulation points and shortest paths from GC roots.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：无图形界面的主机上代替 MAT / JProfiler：heap-oom 或 threadlocal-leak 后转储并分析，直接看到“哪个对象保留了多少、从哪个 GC Root 可达”。
+ * English: Replaces MAT / JProfiler on headless hosts: dump and analyse after heap-oom or threadlocal-leak and see which object retains how much and from which GC root it is reachable.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：第 1 遍只保留与类数量成正比的数据（字符串偏移、类布局、按类计数）和对象 ID 数组，直方图对任意大小的转储都可用；
+ *      对象图以 CSR 压缩数组存储（每对象约 {@value #BYTES_PER_OBJECT} 字节、每条引用 {@value #BYTES_PER_EDGE} 字节），预计超出预算时跳过图分析而不是 OOM。
+ *      支配树用带路径压缩的 Lengauer-Tarjan 算法单遍求出，所有类对象视为 GC Root（近似类加载器可达性），WeakReference 等的 referent 字段不计为强引用；
+ *      浅大小取自 CLASS_DUMP 中的实例大小，数组按 16 字节头 + 元素大小估算（对象 ID 跨度小于 32GB 时按压缩指针 4 字节计），因此保留大小是近似值。
+ * English: Pass 1 keeps only data proportional to the number of classes (string offsets, class layouts, per-class counts) plus an array of object IDs, so the histogram works for dumps of any size;
+ *      the object graph is stored as CSR arrays (about {@value #BYTES_PER_OBJECT} bytes per object and {@value #BYTES_PER_EDGE} per reference), and graph analysis is skipped rather than risking OOM when the estimate exceeds the budget.
+ *      Dominators come from a single pass of Lengauer-Tarjan with path compression; every class object is treated as a GC root (approximating class-loader reachability) and the referent of WeakReference and friends is not a strong edge;
+ *      shallow sizes come from the instance size in CLASS_DUMP and arrays are estimated as a 16-byte header plus elements (4-byte references when the object ID span is under 32GB), so retained sizes are approximate.
+ */
+public final class HeapDumpAnalyzer {
+
+    static final int BYTES_PER_OBJECT = 72;
+    static final int BYTES_PER_EDGE = 8;
+
+    private static final int TAG_STRING = 0x01;
+    private static final int TAG_LOAD_CLASS = 0x02;
+    private static final int TAG_HEAP_DUMP = 0x0C;
+    private static final int TAG_HEAP_DUMP_SEGMENT = 0x1C;
+
+    private static final int ROOT_UNKNOWN = 0xFF;
+    private static final int ROOT_JNI_GLOBAL = 0x01;
+    private static final int ROOT_JNI_LOCAL = 0x02;
+    private static final int ROOT_JAVA_FRAME = 0x03;
+    private static final int ROOT_NATIVE_STACK = 0x04;
+    private static final int ROOT_STICKY_CLASS = 0x05;
+    private static final int ROOT_THREAD_BLOCK = 0x06;
+    private static final int ROOT_MONITOR_USED = 0x07;
+    private static final int ROOT_THREAD_OBJECT = 0x08;
+    private static final int CLASS_DUMP = 0x20;
+    private static final int INSTANCE_DUMP = 0x21;
+    private static final int OBJ_ARRAY_DUMP = 0x22;
+    private static final int PRIM_ARRAY_DUMP = 0x23;
+
+    private static final int TYPE_OBJECT = 2;
+    private static final int[] PRIMITIVE_SIZES = {0, 0, 0, 0, 1, 2, 4, 8, 1, 2, 4, 8};
+    private static final String[] PRIMITIVE_NAMES = {null, null, null, null,
+            "boolean[]", "char[]", "float[]", "double[]", "byte[]", "short[]", "int[]", "long[]"};
+    private static final String[] ROOT_KINDS = new String[256];
+    private static final long COMPRESSED_OOPS_SPAN = 32L * 1024 * 1024 * 1024;
+    private static final double ACCUMULATION_SHARE = 0.8;
+    private static final int MAX_PATH = 32;
+
+    static {
+        ROOT_KINDS[ROOT_UNKNOWN] = "unknown";
+        ROOT_KINDS[ROOT_JNI_GLOBAL] = "jni-global";
+        ROOT_KINDS[ROOT_JNI_LOCAL] = "jni-local";
+        ROOT_KINDS[ROOT_JAVA_FRAME] = "java-frame";
+        ROOT_KINDS[ROOT_NATIVE_STACK] = "native-stack";
+        ROOT_KINDS[ROOT_STICKY_CLASS] = "sticky-class";
+        ROOT_KINDS[ROOT_THREAD_BLOCK] = "thread-block";
+        ROOT_KINDS[ROOT_MONITOR_USED] = "monitor-used";
+        ROOT_KINDS[ROOT_THREAD_OBJECT] = "thread-object";
+    }
+
+    private enum Phase { SCAN, COUNT, FILL }
+
+    private final Path file;
+    private final int top;
+    private final long graphBudgetBytes;
+    private final int window;
+    private HprofReader reader;
+    private String format;
+    private long firstRecord;
+
+    private final LongLongMap stringRecords = new LongLongMap(1 << 16, -1);
+    private final LongLongMap classNameIds = new LongLongMap(1 << 12, 0);
+    private final LongLongMap classIndex = new LongLongMap(1 << 12, -1);
+    private final List<ClassInfo> classes = new ArrayList<>();
+    private final LongLongMap instanceCounts = new LongLongMap(1 << 12, 0);
+    private final LongLongMap arrayCounts = new LongLongMap(1 << 10, 0);
+    private final LongLongMap arrayBytesCompressed = new LongLongMap(1 << 10, 0);
+    private final LongLongMap arrayBytesWide = new LongLongMap(1 << 10, 0);
+    private final long[] primitiveCounts = new long[12];
+    private final long[] primitiveBytes = new long[12];
+    private final int[] primitiveClass = new int[12];
+    private final LongLongMap rootKindById = new LongLongMap(1 << 12, -1);
+    private final long[] rootsByKind = new long[256];
+    private long[] objectIds = new long[1 << 16];
+    private int objectCount;
+    private long totalObjects;
+    private long maxObjects;
+    private String graphSkipReason;
+    private long minId = Long.MAX_VALUE;
+    private long maxId = Long.MIN_VALUE;
+    private int refSize;
+    private int classClass = -1;
+
+    private int n;
+    private int[] classOf;
+    private long[] shallow;
+    private int[] outOff;
+    private int[] out;
+    private int[] fillCursor;
+    private long edgeCount;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：创建分析器。
+     * English: Create an analyzer.
+     *
+     * 参数 / Parameters:
+     * @param file 中文：HPROF 文件 / English: HPROF file
+     * @param top 中文：各列表返回条数 / English: Entries per list
+     * @param graphBudgetBytes 中文：对象图可用的堆内存预算 / English: Heap budget for the object graph
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public HeapDumpAnalyzer(Path file, int top, long graphBudgetBytes) {
+        this(file, top, graphBudgetBytes, HprofReader.DEFAULT_WINDOW);
+    }
+
+    HeapDumpAnalyzer(Path file, int top, long graphBudgetBytes, int window) {
+        this.file = file;
+        this.top = Math.max(1, Math.min(200, top));
+        this.graphBudgetBytes = Math.max(0, graphBudgetBytes);
+        this.window = window;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：执行分析：扫描 → （预算允许时）计数引用 → 填充引用 → 支配树与保留大小。
+     * English: Run the analysis: scan, then (within budget) count references, fill references, and compute dominators and retained sizes.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：分析报告 / English: Analysis report
+     *
+     * 异常 / Exceptions: 中文：文件无法读取或格式不支持时抛出 IOException / English: IOException when the file cannot be read or the format is unsupported
+     */
+    public Map<String, Object> analyze() throws IOException {
+        long start = System.nanoTime();
+        Map<String, Object> timings = new LinkedHashMap<>();
+        try (HprofReader r = new HprofReader(file, window)) {
+            reader = r;
+            readHeader();
+            maxObjects = Math.min(graphBudgetBytes / BYTES_PER_OBJECT, Integer.MAX_VALUE - 16);
+            walk(Phase.SCAN);
+            resolveClasses();
+            timings.put("scanMs", elapsedMs(start));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("file", file.getFileName().toString());
+            report.put("fileSizeMb", round(reader.size() / 1024d / 1024d));
+            report.put("format", format);
+            report.put("idSize", reader.idSize());
+            report.put("assumedReferenceSize", refSize);
+            report.put("objects", totalObjects);
+            report.put("classes", classes.size());
+            report.put("gcRoots", rootSummary());
+            report.put("histogram", histogram());
+
+            Map<String, Object> graph = new LinkedHashMap<>();
+            graph.put("budgetMb", graphBudgetBytes / 1024 / 1024);
+            report.put("graph", graph);
+            if (graphSkipReason == null) {
+                long phase = System.nanoTime();
+                buildGraph();
+                timings.put("graphMs", elapsedMs(phase));
+            }
+            if (graphSkipReason == null) {
+                long phase = System.nanoTime();
+                dominators(graph, report);
+                timings.put("dominatorMs", elapsedMs(phase));
+            } else {
+                graph.put("analyzed", false);
+                graph.put("reason", graphSkipReason);
+            }
+            timings.put("totalMs", elapsedMs(start));
+            report.put("timings", timings);
+            return report;
+        } finally {
+            reader = null;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        format = reader.cString();
+        if (!format.startsWith("JAVA PROFILE")) {
+            throw new IOException("Not an HPROF file: " + file.getFileName());
+        }
+        reader.setIdSize(reader.s4());
+        reader.u8();
+        firstRecord = reader.position();
+    }
+
+    private void walk(Phase phase) throws IOException {
+        reader.seek(firstRecord);
+        while (reader.hasRemaining()) {
+            long recordStart = reader.position();
+            int tag = reader.u1();
+            reader.u4();
+            long length = reader.u4();
+            long end = reader.position() + length;
+            if (tag == TAG_HEAP_DUMP || tag == TAG_HEAP_DUMP_SEGMENT) {
+                while (reader.position() < end) {
+                    subRecord(reader.u1(), phase);
+                }
+            } else if (phase == Phase.SCAN && tag == TAG_STRING) {
+                stringRecords.put(reader.id(), recordStart);
+            } else if (phase == Phase.SCAN && tag == TAG_LOAD_CLASS) {
+                reader.u4();
+                long classId = reader.id();
+                reader.u4();
+                classNameIds.put(classId, reader.id());
+            }
+            reader.seek(end);
+        }
+    }
+
+    private void subRecord(int subTag, Phase phase) throws IOException {
+        int idSize = reader.idSize();
+        switch (subTag) {
+            case ROOT_UNKNOWN, ROOT_STICKY_CLASS, ROOT_MONITOR_USED -> root(subTag, phase, 0);
+            case ROOT_JNI_GLOBAL -> root(subTag, phase, idSize);
+            case ROOT_NATIVE_STACK, ROOT_THREAD_BLOCK -> root(subTag, phase, 4);
+            case ROOT_JNI_LOCAL, ROOT_JAVA_FRAME, ROOT_THREAD_OBJECT -> root(subTag, phase, 8);
+            case CLASS_DUMP -> classDump(phase);
+            case INSTANCE_DUMP -> instanceDump(phase);
+            case OBJ_ARRAY_DUMP -> objectArrayDump(phase);
+            case PRIM_ARRAY_DUMP -> primitiveArrayDump(phase);
+            default -> throw new IOException("Unsupported heap dump sub-record 0x" + Integer.toHexString(subTag)
+                    + " at offset " + (reader.position() - 1));
+        }
+    }
+
+    private void root(int kind, Phase phase, int extraBytes) throws IOException {
+        long id = reader.id();
+        reader.skip(extraBytes);
+        if (phase == Phase.SCAN && id != 0) {
+            rootsByKind[kind]++;
+            if (rootKindById.get(id) < 0) {
+                rootKindById.put(id, kind);
+            }
+        }
+    }
+
+    private void classDump(Phase phase) throws IOException {
+        int idSize = reader.idSize();
+        long id = reader.id();
+        reader.u4();
+        long superId = reader.id();
+        reader.skip(5L * idSize);
+        int instanceSize = reader.s4();
+        int constants = reader.u2();
+        for (int i = 0; i < constants; i++) {
+            reader.u2();
+            reader.skip(valueSize(reader.u1()));
+        }
+        int statics = reader.u2();
+        long[] staticRefs = new long[statics];
+        int staticRefCount = 0;
+        long staticBytes = 0;
+        for (int i = 0; i < statics; i++) {
+            reader.id();
+            int type = reader.u1();
+            if (type == TYPE_OBJECT) {
+                long value = reader.id();
+                if (value != 0) {
+                    staticRefs[staticRefCount++] = value;
+                }
+            } else {
+                reader.skip(valueSize(type));
+            }
+            staticBytes += valueSize(type);
+        }
+        int fields = reader.u2();
+        byte[] fieldTypes = new byte[fields];
+        long[] fieldNames = new long[fields];
+        for (int i = 0; i < fields; i++) {
+            fieldNames[i] = reader.id();
+            fieldTypes[i] = (byte) reader.u1();
+        }
+        if (phase == Phase.SCAN) {
+            classIndex.put(id, classes.size());
+            classes.add(new ClassInfo(id, superId, instanceSize, fieldTypes, fieldNames,
+                    Arrays.copyOf(staticRefs, staticRefCount), staticBytes));
+            object(id);
+            return;
+        }
+        int node = index(id);
+        if (node >= 0) {
+            classOf[node] = classClass;
+            shallow[node] = staticBytes;
+            for (int i = 0; i < staticRefCount; i++) {
+                edge(node, staticRefs[i], phase);
+            }
+        }
+    }
+
+    private void instanceDump(Phase phase) throws IOException {
+        long id = reader.id();
+        reader.u4();
+        long classId = reader.id();
+        long length = reader.u4();
+        long data = reader.position();
+        if (phase == Phase.SCAN) {
+            instanceCounts.add(classId, 1);
+            object(id);
+        } else {
+            int node = index(id);
+            if (node >= 0) {
+                int ci = (int) classIndex.get(classId);
+                classOf[node] = ci;
+                shallow[node] = ci >= 0 ? classes.get(ci).instanceSize : align(16 + length);
+                if (ci >= 0) {
+                    int idSize = reader.idSize();
+                    for (int offset : classes.get(ci).refOffsets) {
+                        if (offset + idSize <= length) {
+                            reader.seek(data + offset);
+                            edge(node, reader.id(), phase);
+                        }
+                    }
+                }
+            }
+        }
+        reader.seek(data + length);
+    }
+
+    private void objectArrayDump(Phase phase) throws IOException {
+        long id = reader.id();
+        reader.u4();
+        long length = reader.u4();
+        long classId = reader.id();
+        if (phase == Phase.SCAN) {
+            arrayCounts.add(classId, 1);
+            arrayBytesCompressed.add(classId, align(16 + length * 4));
+            arrayBytesWide.add(classId, align(16 + length * 8));
+            object(id);
+            reader.skip(length * reader.idSize());
+            return;
+        }
+        int node = index(id);
+        if (node < 0) {
+            reader.skip(length * reader.idSize());
+            return;
+        }
+        classOf[node] = (int) classIndex.get(classId);
+        shallow[node] = align(16 + length * refSize);
+        for (long i = 0; i < length; i++) {
+            edge(node, reader.id(), phase);
+        }
+    }
+
+    private void primitiveArrayDump(Phase phase) throws IOException {
+        long id = reader.id();
+        reader.u4();
+        long length = reader.u4();
+        int type = reader.u1();
+        if (type < 4 || type >= PRIMITIVE_SIZES.length) {
+            throw new IOException("Unsupported primitive array type " + type);
+        }
+        long bytes = align(16 + length * PRIMITIVE_SIZES[type]);
+        if (phase == Phase.SCAN) {
+            primitiveCounts[type]++;
+            primitiveBytes[type] += bytes;
+            object(id);
+        } else {
+            int node = index(id);
+            if (node >= 0) {
+                classOf[node] = primitiveClass[type];
+                shallow[node] = bytes;
+            }
+        }
+        reader.skip(length * PRIMITIVE_SIZES[type]);
+    }
+
+    /** 第 1 遍登记对象 ID；超出预算后只计数，不再保存。 */
+    private void object(long id) {
+        totalObjects++;
+        minId = Math.min(minId, id);
+        maxId = Math.max(maxId, id);
+        if (graphSkipReason != null) {
+            return;
+        }
+        if (objectCount >= maxObjects) {
+            graphSkipReason = "More than " + maxObjects + " objects exceed the graph budget of "
+                    + graphBudgetBytes / 1024 / 1024 + "MB; only the histogram and GC-root summary are available";
+            objectIds = null;
+            return;
+        }
+        if (objectCount == objectIds.length) {
+            objectIds = Arrays.copyOf(objectIds, (int) Math.min(maxObjects, (long) objectIds.length * 2));
+        }
+        objectIds[objectCount++] = id;
+    }
+
+    private void edge(int node, long target, Phase phase) {
+        if (target == 0) {
+            return;
+        }
+        int to = index(target);
+        if (to < 0) {
+            return;
+        }
+        if (phase == Phase.COUNT) {
+            outOff[node + 1]++;
+        } else {
+            out[fillCursor[node]++] = to;
+        }
+    }
+
+    private int index(long id) {
+        int found = Arrays.binarySearch(objectIds, 0, n, id);
+        return found >= 0 ? found : -1;
+    }
+
+    /** 第 1 遍之后：解析类名、确定引用宽度、计算每个类的引用字段偏移（跳过 Reference.referent）。 */
+    private void resolveClasses() throws IOException {
+        refSize = maxId - minId < COMPRESSED_OOPS_SPAN ? 4 : 8;
+        for (ClassInfo info : classes) {
+            info.name = prettyName(string(classNameIds.get(info.id)));
+        }
+        long referenceClass = 0;
+        for (ClassInfo info : classes) {
+            if ("java.lang.Class".equals(info.name)) {
+                classClass = (int) classIndex.get(info.id);
+            } else if ("java.lang.ref.Reference".equals(info.name)) {
+                referenceClass = info.id;
+            }
+        }
+        int referentField = -1;
+        if (referenceClass != 0) {
+            ClassInfo reference = classes.get((int) classIndex.get(referenceClass));
+            for (int i = 0; i < reference.fieldNames.length; i++) {
+                if ("referent".equals(string(reference.fieldNames[i]))) {
+                    referentField = i;
+                }
+            }
+        }
+        int idSize = reader.idSize();
+        for (ClassInfo info : classes) {
+            int[] offsets = new int[8];
+            int count = 0;
+            int offset = 0;
+            for (ClassInfo c = info; c != null; c = c.superId == 0 ? null : classAt(c.superId)) {
+                for (int i = 0; i < c.fieldTypes.length; i++) {
+                    int type = c.fieldTypes[i];
+                    if (type == TYPE_OBJECT && !(c.id == referenceClass && i == referentField)) {
+                        if (count == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, count * 2);
+                        }
+                        offsets[count++] = offset;
+                    }
+                    offset += type == TYPE_OBJECT ? idSize : PRIMITIVE_SIZES[type];
+                }
+            }
+            info.refOffsets = Arrays.copyOf(offsets, count);
+        }
+        for (int type = 4; type < PRIMITIVE_NAMES.length; type++) {
+            primitiveClass[type] = classes.size();
+            ClassInfo info = new ClassInfo(0, 0, 0, new byte[0], new long[0], new long[0], 0);
+            info.name = PRIMITIVE_NAMES[type];
+            info.refOffsets = new int[0];
+            classes.add(info);
+        }
+    }
+
+    private ClassInfo classAt(long classId) {
+        long ci = classIndex.get(classId);
+        return ci < 0 ? null : classes.get((int) ci);
+    }
+
+    private String string(long id) throws IOException {
+        long record = stringRecords.get(id);
+        if (record < 0) {
+            return "unknown@0x" + Long.toHexString(id);
+        }
+        long saved = reader.position();
+        reader.seek(record + 5);
+        long length = reader.u4() - reader.idSize();
+        reader.id();
+        String value = reader.utf8((int) length);
+        reader.seek(saved);
+        return value;
+    }
+
+    private void buildGraph() throws IOException {
+        n = objectCount;
+        Arrays.sort(objectIds, 0, n);
+        classOf = new int[n];
+        Arrays.fill(classOf, -1);
+        shallow = new long[n];
+        outOff = new int[n + 1];
+        walk(Phase.COUNT);
+        long total = 0;
+        for (int i = 1; i <= n; i++) {
+            total += outOff[i];
+            if (total > Integer.MAX_VALUE - 16) {
+                break;
+            }
+            outOff[i] = (int) total;
+        }
+        edgeCount = total;
+        long needed = (long) n * BYTES_PER_OBJECT + edgeCount * BYTES_PER_EDGE;
+        if (total > Integer.MAX_VALUE - 16 || needed > graphBudgetBytes) {
+            graphSkipReason = "Object graph needs about " + needed / 1024 / 1024 + "MB (" + n + " objects, "
+                    + edgeCount + " references), over the budget of " + graphBudgetBytes / 1024 / 1024 + "MB";
+            classOf = null;
+            shallow = null;
+            outOff = null;
+            return;
+        }
+        out = new int[(int) edgeCount];
+        fillCursor = Arrays.copyOf(outOff, n);
+        walk(Phase.FILL);
+        fillCursor = null;
+    }
+
+    private void dominators(Map<String, Object> graph, Map<String, Object> report) throws IOException {
+        int root = n;
+        int total = n + 1;
+        // 中文：虚拟根指向所有 GC Root 与全部类对象
+        // English: The virtual root points at every GC root and every class object
+        boolean[] isRoot = new boolean[n];
+        rootKindById.forEach((id, kind) -> {
+            int node = index(id);
+            if (node >= 0) {
+                isRoot[node] = true;
+            }
+        });
+        for (ClassInfo info : classes) {
+            int node = info.id == 0 ? -1 : index(info.id);
+            if (node >= 0) {
+                isRoot[node] = true;
+            }
+        }
+        int rootEdges = 0;
+        for (boolean flag : isRoot) {
+            rootEdges += flag ? 1 : 0;
+        }
+        int[] roots = new int[rootEdges];
+        for (int i = 0, k = 0; i < n; i++) {
+            if (isRoot[i]) {
+                roots[k++] = i;
+            }
+        }
+
+        // 中文：迭代 DFS 得到先序编号与 DFS 树父节点（以先序号表示）
+        // English: Iterative DFS for preorder numbers and DFS-tree parents (as preorder numbers)
+        int[] dfnum = new int[total];
+        Arrays.fill(dfnum, -1);
+        int[] vertex = new int[total];
+        int[] dfsParent = new int[total];
+        int[] stack = new int[total];
+        int[] cursor = new int[total];
+        int reachable = 0;
+        int sp = 0;
+        stack[sp] = root;
+        cursor[sp++] = 0;
+        dfnum[root] = reachable;
+        vertex[reachable++] = root;
+        while (sp > 0) {
+            int u = stack[sp - 1];
+            int begin = u == root ? 0 : outOff[u];
+            int end = u == root ? roots.length : outOff[u + 1];
+            int k = begin + cursor[sp - 1];
+            if (k < end) {
+                cursor[sp - 1]++;
+                int v = u == root ? roots[k] : out[k];
+                if (dfnum[v] == -1) {
+                    dfsParent[reachable] = dfnum[u];
+                    dfnum[v] = reachable;
+                    vertex[reachable++] = v;
+                    stack[sp] = v;
+                    cursor[sp++] = 0;
+                }
+            } else {
+                sp--;
+            }
+        }
+
+        // 中文：前驱 CSR（只含可达节点）
+        // English: Predecessor CSR over reachable nodes only
+        int[] inOff = new int[total + 1];
+        for (int u = 0; u < total; u++) {
+            if (dfnum[u] < 0) {
+                continue;
+            }
+            int begin = u == root ? 0 : outOff[u];
+            int end = u == root ? roots.length : outOff[u + 1];
+            for (int k = begin; k < end; k++) {
+                int v = u == root ? roots[k] : out[k];
+                inOff[v + 1]++;
+            }
+        }
+        for (int i = 1; i <= total; i++) {
+            inOff[i] += inOff[i - 1];
+        }
+        int[] in = new int[inOff[total]];
+        System.arraycopy(inOff, 0, cursor, 0, total);
+        for (int u = 0; u < total; u++) {
+            if (dfnum[u] < 0) {
+                continue;
+            }
+            int begin = u == root ? 0 : outOff[u];
+            int end = u == root ? roots.length : outOff[u + 1];
+            for (int k = begin; k < end; k++) {
+                int v = u == root ? roots[k] : out[k];
+                in[cursor[v]++] = u;
+            }
+        }
+
+        // 中文：Lengauer-Tarjan（路径压缩版）：逆先序计算半支配者，父节点的桶里延迟确定直接支配者，单遍完成
+        // English: Lengauer-Tarjan with path compression: semidominators in reverse preorder, immediate dominators settled from the parent's bucket, in a single pass
+        int[] semi = new int[reachable];
+        int[] label = new int[reachable];
+        int[] ancestor = new int[reachable];
+        int[] dom = new int[reachable];
+        int[] path = new int[reachable];
+        int[] bucketHead = stack;
+        int[] bucketNext = cursor;
+        for (int i = 0; i < reachable; i++) {
+            semi[i] = i;
+            label[i] = i;
+            ancestor[i] = -1;
+            bucketHead[i] = -1;
+        }
+        for (int w = reachable - 1; w > 0; w--) {
+            int node = vertex[w];
+            for (int k = inOff[node]; k < inOff[node + 1]; k++) {
+                int u = eval(dfnum[in[k]], ancestor, label, semi, path);
+                if (semi[u] < semi[w]) {
+                    semi[w] = semi[u];
+                }
+            }
+            bucketNext[w] = bucketHead[semi[w]];
+            bucketHead[semi[w]] = w;
+            int p = dfsParent[w];
+            ancestor[w] = p;
+            for (int v = bucketHead[p]; v != -1; v = bucketNext[v]) {
+                int u = eval(v, ancestor, label, semi, path);
+                dom[v] = semi[u] < semi[v] ? u : p;
+            }
+            bucketHead[p] = -1;
+        }
+        for (int w = 1; w < reachable; w++) {
+            if (dom[w] != semi[w]) {
+                dom[w] = dom[dom[w]];
+            }
+        }
+        in = null;
+        inOff = null;
+        semi = null;
+        label = null;
+        ancestor = null;
+        path = null;
+
+        // 中文：直接支配者总在先序更早的位置，逆先序累加即得保留大小
+        // English: An immediate dominator always precedes its node in preorder, so summing in reverse preorder yields retained sizes
+        int[] idom = dfsParent;
+        Arrays.fill(idom, -1);
+        for (int w = 0; w < reachable; w++) {
+            idom[vertex[w]] = vertex[dom[w]];
+        }
+        long[] retained = new long[total];
+        System.arraycopy(shallow, 0, retained, 0, n);
+        for (int w = reachable - 1; w > 0; w--) {
+            retained[vertex[dom[w]]] += retained[vertex[w]];
+        }
+
+        // 中文：支配树子节点 CSR，用于沿最大子节点下钻寻找堆积点
+        // English: Dominator-tree children CSR for descending into the biggest child to find accumulation points
+        int[] childOff = new int[total + 1];
+        for (int w = 1; w < reachable; w++) {
+            childOff[idom[vertex[w]] + 1]++;
+        }
+        for (int i = 1; i <= total; i++) {
+            childOff[i] += childOff[i - 1];
+        }
+        int[] children = new int[Math.max(0, reachable - 1)];
+        System.arraycopy(childOff, 0, cursor, 0, total);
+        for (int w = 1; w < reachable; w++) {
+            int v = vertex[w];
+            children[cursor[idom[v]]++] = v;
+        }
+
+        // 中文：从 GC Root 出发的 BFS 父指针，给出最短引用链
+        // English: BFS parent pointers from the GC roots give the shortest reference chains
+        int[] parent = cursor;
+        Arrays.fill(parent, -1);
+        int[] queue = stack;
+        int head = 0;
+        int tail = 0;
+        parent[root] = root;
+        queue[tail++] = root;
+        while (head < tail) {
+            int u = queue[head++];
+            int begin = u == root ? 0 : outOff[u];
+            int end = u == root ? roots.length : outOff[u + 1];
+            for (int k = begin; k < end; k++) {
+                int v = u == root ? roots[k] : out[k];
+                if (parent[v] == -1) {
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+
+        graph.put("analyzed", true);
+        graph.put("reachableObjects", reachable - 1);
+        graph.put("unreachableObjects", n - (reachable - 1));
+        graph.put("references", edgeCount);
+        graph.put("reachableMb", round(retained[root] / 1024d / 1024d));
+
+        Integer[] topLevel = new Integer[childOff[root + 1] - childOff[root]];
+        for (int k = 0; k < topLevel.length; k++) {
+            topLevel[k] = children[childOff[root] + k];
+        }
+        Arrays.sort(topLevel, (a, b) -> Long.compare(retained[b], retained[a]));
+        List<Map<String, Object>> dominators = new ArrayList<>();
+        for (int k = 0; k < Math.min(top, topLevel.length); k++) {
+            int node = topLevel[k];
+            Map<String, Object> item = describe(node, retained, retained[root]);
+            int point = accumulationPoint(node, retained, childOff, children);
+            Map<String, Object> accumulation = describe(point, retained, retained[root]);
+            accumulation.put("dominatedObjects", childOff[point + 1] - childOff[point]);
+            accumulation.put("dominatedByClass", childrenByClass(point, retained, childOff, children));
+            item.put("accumulationPoint", accumulation);
+            item.put("pathFromGcRoot", path(point, parent, root));
+            dominators.add(item);
+        }
+        report.put("dominators", dominators);
+
+        // 中文：顶层支配者按类汇总（MAT 中 dominator tree 的 group by class）
+        // English: Top-level dominators grouped by class (MAT's dominator tree grouped by class)
+        Map<String, long[]> byClass = new LinkedHashMap<>();
+        for (int node : topLevel) {
+            long[] stats = byClass.computeIfAbsent(className(node), key -> new long[2]);
+            stats[0]++;
+            stats[1] += retained[node];
+        }
+        List<Map<String, Object>> retainedByClass = new ArrayList<>();
+        byClass.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(top)
+                .forEach(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("class", entry.getKey());
+                    item.put("objects", entry.getValue()[0]);
+                    item.put("retainedBytes", entry.getValue()[1]);
+                    retainedByClass.add(item);
+                });
+        report.put("retainedByClass", retainedByClass);
+    }
+
+    /** Lengauer-Tarjan 的 EVAL：迭代式路径压缩，返回祖先链上半支配者最小的节点。 */
+    private static int eval(int v, int[] ancestor, int[] label, int[] semi, int[] path) {
+        if (ancestor[v] == -1) {
+            return v;
+        }
+        int depth = 0;
+        for (int x = v; ancestor[ancestor[x]] != -1; x = ancestor[x]) {
+            path[depth++] = x;
+        }
+        while (depth > 0) {
+            int x = path[--depth];
+            int a = ancestor[x];
+            if (semi[label[a]] < semi[label[x]]) {
+                label[x] = label[a];
+            }
+            ancestor[x] = ancestor[a];
+        }
+        return label[v];
+    }
+
+    /** 沿保留大小占比 ≥80% 的最大子节点下钻，停在保留量开始分散的位置（与 MAT Leak Suspects 的堆积点相同）。 */
+    private static int accumulationPoint(int node, long[] retained, int[] childOff, int[] children) {
+        int current = node;
+        for (int depth = 0; depth < 10_000; depth++) {
+            int biggest = -1;
+            for (int k = childOff[current]; k < childOff[current + 1]; k++) {
+                if (biggest == -1 || retained[children[k]] > retained[biggest]) {
+                    biggest = children[k];
+                }
+            }
+            if (biggest == -1 || retained[biggest] < retained[current] * ACCUMULATION_SHARE) {
+                return current;
+            }
+            current = biggest;
+        }
+        return current;
+    }
+
+    private Map<String, Object> childrenByClass(int node, long[] retained, int[] childOff, int[] children) {
+        Map<String, long[]> byClass = new LinkedHashMap<>();
+        for (int k = childOff[node]; k < childOff[node + 1]; k++) {
+            long[] stats = byClass.computeIfAbsent(className(children[k]), key -> new long[2]);
+            stats[0]++;
+            stats[1] += retained[children[k]];
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        byClass.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(5)
+                .forEach(entry -> result.put(entry.getKey(),
+                        entry.getValue()[0] + " objects, " + entry.getValue()[1] + " bytes"));
+        return result;
+    }
+
+    private List<String> path(int node, int[] parent, int root) {
+        List<String> chain = new ArrayList<>();
+        for (int current = node; current != root && current >= 0 && chain.size() < MAX_PATH; current = parent[current]) {
+            chain.add(label(current));
+        }
+        if (!chain.isEmpty()) {
+            int first = node;
+            while (parent[first] != root && parent[first] >= 0) {
+                first = parent[first];
+            }
+            long kind = rootKindById.get(objectIds[first]);
+            chain.add("GC root: " + (kind >= 0 ? ROOT_KINDS[(int) kind] : "class"));
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    private Map<String, Object> describe(int node, long[] retained, long total) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("object", label(node));
+        item.put("shallowBytes", shallow[node]);
+        item.put("retainedBytes", retained[node]);
+        item.put("retainedPercent", total == 0 ? 0 : Math.round(retained[node] * 1000.0 / total) / 10.0);
+        return item;
+    }
+
+    private String label(int node) {
+        long id = objectIds[node];
+        long ci = classIndex.get(id);
+        String name = ci >= 0 ? "class " + classes.get((int) ci).name : className(node);
+        return name + "@0x" + Long.toHexString(id);
+    }
+
+    private String className(int node) {
+        int ci = classOf[node];
+        return ci >= 0 ? classes.get(ci).name : "unknown";
+    }
+
+    private Map<String, Object> rootSummary() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int kind = 0; kind < ROOT_KINDS.length; kind++) {
+            if (rootsByKind[kind] > 0) {
+                result.put(ROOT_KINDS[kind], rootsByKind[kind]);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> histogram() {
+        List<String> names = new ArrayList<>();
+        List<long[]> stats = new ArrayList<>();
+        long classObjects = 0;
+        long classBytes = 0;
+        for (ClassInfo info : classes) {
+            long instances;
+            long bytes;
+            if (info.id == 0) {
+                continue;
+            } else if (info.name.endsWith("[]")) {
+                instances = arrayCounts.get(info.id);
+                bytes = (refSize == 4 ? arrayBytesCompressed : arrayBytesWide).get(info.id);
+            } else {
+                instances = instanceCounts.get(info.id);
+                bytes = instances * info.instanceSize;
+            }
+            classObjects++;
+            classBytes += info.staticBytes;
+            if (instances > 0) {
+                names.add(info.name);
+                stats.add(new long[]{instances, bytes});
+            }
+        }
+        for (int type = 4; type < PRIMITIVE_NAMES.length; type++) {
+            if (primitiveCounts[type] > 0) {
+                names.add(PRIMITIVE_NAMES[type]);
+                stats.add(new long[]{primitiveCounts[type], primitiveBytes[type]});
+            }
+        }
+        int classSlot = names.indexOf("java.lang.Class");
+        if (classSlot >= 0) {
+            stats.get(classSlot)[0] += classObjects;
+            stats.get(classSlot)[1] += classBytes;
+        } else {
+            names.add("java.lang.Class");
+            stats.add(new long[]{classObjects, classBytes});
+        }
+        Integer[] order = new Integer[names.size()];
+        long totalBytes = 0;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            totalBytes += stats.get(i)[1];
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(stats.get(b)[1], stats.get(a)[1]));
+        int count = Math.min(top, order.length);
+        String[] className = new String[count];
+        long[] instances = new long[count];
+        long[] shallowBytes = new long[count];
+        for (int i = 0; i < count; i++) {
+            className[i] = names.get(order[i]);
+            instances[i] = stats.get(order[i])[0];
+            shallowBytes[i] = stats.get(order[i])[1];
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalShallowMb", round(totalBytes / 1024d / 1024d));
+        result.put("className", className);
+        result.put("instances", instances);
+        result.put("shallowBytes", shallowBytes);
+        return result;
+    }
+
+    private int valueSize(int type) {
+        if (type == TYPE_OBJECT) {
+            return reader.idSize();
+        }
+        if (type < 4 || type >= PRIMITIVE_SIZES.length) {
+            throw new IllegalStateException("Unsupported HPROF value type " + type);
+        }
+        return PRIMITIVE_SIZES[type];
+    }
+
+    /** "java/util/HashMap$Node" → "java.util.HashMap$Node"，"[Ljava/lang/Object;" → "java.lang.Object[]"，"[[I" → "int[][]"。 */
+    static String prettyName(String raw) {
+        int dims = 0;
+        while (dims < raw.length() && raw.charAt(dims) == '[') {
+            dims++;
+        }
+        String element = raw.substring(dims);
+        if (dims > 0) {
+            element = switch (element) {
+                case "Z" -> "boolean";
+                case "C" -> "char";
+                case "F" -> "float";
+                case "D" -> "double";
+                case "B" -> "byte";
+                case "S" -> "short";
+                case "I" -> "int";
+                case "J" -> "long";
+                default -> element.startsWith("L") && element.endsWith(";")
+                        ? element.substring(1, element.length() - 1) : element;
+            };
+        }
+        return element.replace('/', '.') + "[]".repeat(dims);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100d;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 类布局：实例大小、字段类型与名称、静态引用，以及解析后的引用字段偏移（含父类字段）。
+     */
+    private static final class ClassInfo {
+        final long id;
+        final long superId;
+        final int instanceSize;
+        final byte[] fieldTypes;
+        final long[] fieldNames;
+        final long[] staticRefs;
+        final long staticBytes;
+        String name;
+        int[] refOffsets;
+
+        ClassInfo(long id, long superId, int instanceSize, byte[] fieldTypes, long[] fieldNames,
+                  long[] staticRefs, long staticBytes) {
+            this.id = id;
+            this.superId = superId;
+            this.instanceSize = instanceSize;
+            this.fieldTypes = fieldTypes;
+            this.fieldNames = fieldNames;
+            this.staticRefs = staticRefs;
+            this.staticBytes = staticBytes;
+        }
+    }
+}
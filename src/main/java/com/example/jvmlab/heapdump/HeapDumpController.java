@@ -0,0 +1,84 @@
+package com.example.jvmlab.heapdump;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：堆转储控制器：生成转储、列出/删除文件，以及在进程内分析直方图、支配树与 GC Root 路径。
+ * English: Heap dump controller: writes dumps, lists and deletes files, and analyses histogram, dominator tree and GC-root paths in-process.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：运行 threadlocal-leak 后 POST /monitor/heap-dump?analyze=true，直接查看保留最多的对象和它的引用链。
+ * English: After threadlocal-leak, POST /monitor/heap-dump?analyze=true to see the biggest retainers and their reference chains.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定，转储与分析由 {@link HeapDumpService} 完成。
+ * English: The controller only binds parameters; dumping and analysis belong to {@link HeapDumpService}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor/heap-dump")
+public class HeapDumpController {
+
+    private final HeapDumpService heapDumpService;
+
+    public HeapDumpController(HeapDumpService heapDumpService) {
+        this.heapDumpService = heapDumpService;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：生成堆转储，可选立即分析。
+     * English: Write a heap dump and optionally analyse it right away.
+     *
+     * 参数 / Parameters:
+     * @param live 中文：只转储存活对象 / English: Dump reachable objects only
+     * @param analyze 中文：是否立即分析 / English: Whether to analyse immediately
+     * @param top 中文：分析报告各列表条数 / English: Entries per list in the report
+     *
+     * 返回值 / Return: 中文：转储信息，analyze=true 时附带 analysis / English: Dump info, with analysis when analyze=true
+     * 异常 / Exceptions: 中文：写入或分析失败时抛出 IllegalStateException / English: IllegalStateException when dumping or analysis fails
+     */
+    @PostMapping
+    public Map<String, Object> dump(@RequestParam(defaultValue = "true") boolean live,
+                                    @RequestParam(defaultValue = "false") boolean analyze,
+                                    @RequestParam(defaultValue = "10") int top) {
+        log.warn("生成堆转储 Writing heap dump live={} analyze={}", live, analyze);
+        Map<String, Object> result = new LinkedHashMap<>(heapDumpService.dump(live));
+        if (analyze) {
+            result.put("analysis", heapDumpService.analyze((String) result.get("file"), top));
+        }
+        return result;
+    }
+
+    @GetMapping("/files")
+    public List<Map<String, Object>> listDumps() {
+        return heapDumpService.listDumps();
+    }
+
+    @GetMapping("/files/{name}/analysis")
+    public Map<String, Object> analyze(@PathVariable String name,
+                                       @RequestParam(defaultValue = "10") int top) {
+        return heapDumpService.analyze(name, top);
+    }
+
+    @DeleteMapping("/files/{name}")
+    public Map<String, Object> delete(@PathVariable String name) {
+        heapDumpService.delete(name);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", name);
+        result.put("deleted", true);
+        return result;
+    }
+}
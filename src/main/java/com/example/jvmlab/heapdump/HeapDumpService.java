@@ -0,0 +1,169 @@
+package com.example.jvmlab.heapdump;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：堆转储服务：通过 HotSpotDiagnosticMXBean.dumpHeap 生成 HPROF 文件，并用 {@link HeapDumpAnalyzer} 在进程内流式分析。
+ * English: Heap dump service: writes HPROF files through HotSpotDiagnosticMXBean.dumpHeap and analyses them in-process with {@link HeapDumpAnalyzer}.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：内存实验后一次请求完成“转储 + 直方图 + 支配树 + GC Root 路径”，无需把文件拷到装有 MAT 的机器上。
+ * English: After a memory experiment, one request does dump, histogram, dominator tree and GC-root paths without copying the file to a machine with MAT.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：文件只允许在转储目录内按文件名访问；同一时刻只允许一次分析，避免两份对象图同时占用预算；对象图预算不超过最大堆的一半。
+ * English: Files are addressed by name inside the dump directory only; one analysis runs at a time so two object graphs never share the budget; the graph budget never exceeds half the max heap.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.heapdump.dir=logs/heapdump 输出目录；-Djvm.lab.heapdump.graphBudgetMb=256 对象图内存预算。
+ * English: -Djvm.lab.heapdump.dir=logs/heapdump sets the output directory; -Djvm.lab.heapdump.graphBudgetMb=256 sets the object graph budget.
+ */
+@Slf4j
+@Service
+public class HeapDumpService {
+
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.hprof");
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final long graphBudgetBytes;
+    private final AtomicBoolean analyzing = new AtomicBoolean();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Autowired
+    public HeapDumpService() {
+        this(Paths.get(System.getProperty("jvm.lab.heapdump.dir", "logs/heapdump")),
+                Long.getLong("jvm.lab.heapdump.graphBudgetMb", 256) * 1024 * 1024);
+    }
+
+    HeapDumpService(Path directory, long graphBudgetBytes) {
+        this.directory = directory.toAbsolutePath();
+        this.graphBudgetBytes = Math.min(graphBudgetBytes, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：生成一次堆转储。
+     * English: Write a heap dump.
+     *
+     * 参数 / Parameters:
+     * @param live 中文：true 只转储存活对象（会先触发 Full GC） / English: true dumps reachable objects only (forces a full GC first)
+     *
+     * 返回值 / Return: 中文：文件名、大小与耗时 / English: File name, size and elapsed time
+     *
+     * 异常 / Exceptions: 中文：写入失败时抛出 IllegalStateException / English: IllegalStateException when the dump cannot be written
+     */
+    public Map<String, Object> dump(boolean live) {
+        String name = "heap-" + LocalDateTime.now().format(STAMP) + "-" + sequence.incrementAndGet() + ".hprof";
+        Path target = directory.resolve(name);
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).dumpHeap(target.toString(), live);
+            Map<String, Object> result = describe(target);
+            result.put("live", live);
+            result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            log.info("堆转储完成 Heap dump written: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write heap dump " + target + ": " + e.getMessage(), e);
+        }
+    }
+
+    public List<Map<String, Object>> listDumps() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName)).toList()) {
+                result.add(describe(file));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list " + directory + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：分析转储目录中的一个 HPROF 文件。
+     * English: Analyse one HPROF file from the dump directory.
+     *
+     * 参数 / Parameters:
+     * @param name 中文：文件名 / English: File name
+     * @param top 中文：各列表返回条数 / English: Entries per list
+     *
+     * 返回值 / Return: 中文：分析报告 / English: Analysis report
+     *
+     * 异常 / Exceptions:
+     * 中文：文件不存在抛出 NoSuchElementException；已有分析在运行或文件无法解析时抛出 IllegalStateException
+     * English: NoSuchElementException for an unknown file; IllegalStateException when another analysis is running or the file cannot be parsed
+     */
+    public Map<String, Object> analyze(String name, int top) {
+        Path file = resolve(name);
+        if (!analyzing.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another heap dump analysis is already running");
+        }
+        try {
+            Map<String, Object> report = new HeapDumpAnalyzer(file, top, graphBudgetBytes).analyze();
+            log.info("堆转储分析完成 Heap dump analysed: file={} objects={} timings={}",
+                    name, report.get("objects"), report.get("timings"));
+            return report;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot analyse " + name + ": " + e.getMessage(), e);
+        } finally {
+            analyzing.set(false);
+        }
+    }
+
+    public void delete(String name) {
+        try {
+            Files.delete(resolve(name));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot delete " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Path resolve(String name) {
+        if (name == null || !FILE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid heap dump file name: " + name);
+        }
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("Heap dump not found: " + name);
+        }
+        return file;
+    }
+
+    private static Map<String, Object> describe(Path file) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", file.getFileName().toString());
+        result.put("sizeBytes", Files.size(file));
+        result.put("modified", Files.getLastModifiedTime(file).toString());
+        return result;
+    }
+}
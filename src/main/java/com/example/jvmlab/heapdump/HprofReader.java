@@ -0,0 +1,152 @@
+package com.example.jvmlab.heapdump;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：HPROF 文件的顺序读取器：按固定大小的窗口内存映射文件，读取大端整数与对象 ID，可随机定位。
+ * English: Sequential HPROF reader: memory-maps the file in fixed-size windows and reads big-endian integers and object IDs, with random positioning.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：{@link HeapDumpAnalyzer} 的多遍扫描；每遍从头顺序读取，字符串按记录偏移按需回读。
+ * English: The multi-pass scans of {@link HeapDumpAnalyzer}; each pass reads front to back and strings are re-read on demand by record offset.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：数据留在页缓存中而不进入 Java 堆，任意时刻只映射一个窗口，因此多 GB 文件也不会占用与文件成正比的堆内存；
+ *      读取越过窗口末尾时从当前位置重新映射，基本类型永远不会跨窗口。
+ * English: Data stays in the page cache instead of the Java heap and only one window is mapped at a time, so multi-GB files never cost heap proportional to their size;
+ *      a read past the window end remaps from the current position, so primitives never straddle windows.
+ */
+final class HprofReader implements Closeable {
+
+    static final int DEFAULT_WINDOW = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private long position;
+    private int idSize = 8;
+
+    HprofReader(Path file, int window) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.window = Math.max(64, window);
+        map(0);
+    }
+
+    long size() {
+        return size;
+    }
+
+    long position() {
+        return position;
+    }
+
+    boolean hasRemaining() {
+        return position < size;
+    }
+
+    void seek(long newPosition) throws IOException {
+        position = newPosition;
+        if (position < bufferStart || position > bufferStart + buffer.limit()) {
+            map(position);
+        }
+    }
+
+    void skip(long bytes) throws IOException {
+        seek(position + bytes);
+    }
+
+    int idSize() {
+        return idSize;
+    }
+
+    void setIdSize(int idSize) {
+        if (idSize != 4 && idSize != 8) {
+            throw new IllegalArgumentException("Unsupported HPROF identifier size: " + idSize);
+        }
+        this.idSize = idSize;
+    }
+
+    int u1() throws IOException {
+        ensure(1);
+        int value = buffer.get((int) (position - bufferStart)) & 0xFF;
+        position++;
+        return value;
+    }
+
+    int u2() throws IOException {
+        ensure(2);
+        int value = buffer.getShort((int) (position - bufferStart)) & 0xFFFF;
+        position += 2;
+        return value;
+    }
+
+    int s4() throws IOException {
+        ensure(4);
+        int value = buffer.getInt((int) (position - bufferStart));
+        position += 4;
+        return value;
+    }
+
+    long u4() throws IOException {
+        return s4() & 0xFFFF_FFFFL;
+    }
+
+    long u8() throws IOException {
+        ensure(8);
+        long value = buffer.getLong((int) (position - bufferStart));
+        position += 8;
+        return value;
+    }
+
+    long id() throws IOException {
+        return idSize == 8 ? u8() : u4();
+    }
+
+    /** 读取以 0 结尾的 ASCII 字符串（文件头）。 */
+    String cString() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int c = u1(); c != 0; c = u1()) {
+            builder.append((char) c);
+        }
+        return builder.toString();
+    }
+
+    String utf8(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) u1();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > bufferStart + buffer.limit()) {
+            if (position + bytes > size) {
+                throw new IOException("Truncated HPROF file at offset " + position);
+            }
+            map(position);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        long length = Math.min(window, size - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+    }
+}
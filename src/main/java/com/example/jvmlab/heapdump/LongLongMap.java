@@ -0,0 +1,119 @@
+package com.example.jvmlab.heapdump;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：以 long 为键和值的开放寻址哈希表，键 0 保留为空槽（HPROF 中 0 表示 null 引用）。
+ * English: Open-addressing hash map with long keys and values; key 0 marks an empty slot (0 is the null reference in HPROF).
+ *
+ * 使用场景 / Use Cases:
+ * 中文：字符串 ID → 文件偏移、类对象 ID → 类序号、类 ID → 实例计数。
+ * English: String ID to file offset, class object ID to class index, class ID to instance count.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：避免 HashMap&lt;Long, Long&gt; 每个条目数十字节的装箱开销，让内存占用可预估。
+ * English: Avoids the tens of bytes per entry of a boxed HashMap&lt;Long, Long&gt; so memory use is predictable.
+ */
+final class LongLongMap {
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private final long missing;
+
+    LongLongMap(int expected, long missing) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.missing = missing;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return missing;
+            }
+        }
+    }
+
+    void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    void add(long key, long delta) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = delta;
+            size++;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    /** 遍历全部条目。 */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(long key, long value);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
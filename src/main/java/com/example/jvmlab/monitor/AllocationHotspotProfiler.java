@@ -0,0 +1,245 @@
+package com.example.jvmlab.monitor;
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：基于 JFR 分配事件的热点分析：在一次实验期间消费 jdk.ObjectAllocationInNewTLAB / jdk.ObjectAllocationOutsideTLAB，按字节加权汇总分配最多的类与调用栈。
+ * English: Allocation hotspot analysis on JFR allocation events: consumes jdk.ObjectAllocationInNewTLAB / jdk.ObjectAllocationOutsideTLAB during one experiment and ranks the top allocating classes and call stacks by bytes.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：heap-oom、gc-overhead 等场景加 allocationProfile=true，结果 metrics 中的 allocationProfile 直接指出“谁在哪里分配”，无需堆转储。
+ * English: Add allocationProfile=true to scenarios such as heap-oom or gc-overhead and the allocationProfile entry in the result metrics shows who allocates where, without a heap dump.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：TLAB 事件以 tlabSize 计权（与 JMC 相同的近似），TLAB 外分配以 allocationSize 计权；默认只统计目标线程，栈按前 maxDepth 帧聚合，不同栈数量有上限，超出归入 [other]。
+ *      JDK 17 的 RecordingStream 没有“刷新后停止”，因此结束时提交一个标记事件，等到流读到标记再关闭，保证实验末尾的事件不丢。
+ * English: TLAB events are weighted by tlabSize (the same approximation JMC uses) and outside-TLAB allocations by allocationSize; only the target thread is counted by default, stacks are keyed by their top maxDepth frames, and distinct stacks are capped with overflow folded into [other].
+ *      JDK 17's RecordingStream has no flush-then-stop, so finishing commits a marker event and closes the stream once the marker is read, keeping events from the end of the run.
+ */
+public final class AllocationHotspotProfiler {
+
+    static final String IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+    static final String OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+    private static final String MARKER = "jvmlab.AllocationProfileMarker";
+    private static final String OTHER = "[other]";
+    private static final int MAX_STACKS = 1024;
+    private static final int MAX_CLASSES = 512;
+    private static final long FLUSH_WAIT_MS = 5_000;
+    private static final AtomicLong SESSIONS = new AtomicLong();
+
+    private AllocationHotspotProfiler() {
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：开始一次分析会话；threadId 为 null 时统计所有线程。
+     * English: Start a profiling session; a null threadId counts every thread.
+     *
+     * 参数 / Parameters:
+     * @param threadId 中文：目标线程 ID，可为 null / English: Target thread ID, may be null
+     * @param maxDepth 中文：聚合时保留的栈帧数 / English: Frames kept per stack key
+     *
+     * 返回值 / Return: 中文：会话，结束时调用 finish() / English: Session; call finish() at the end
+     *
+     * 异常 / Exceptions: 中文：JFR 不可用时抛出 IllegalStateException / English: IllegalStateException when JFR is unavailable
+     */
+    public static Session start(Long threadId, int maxDepth) {
+        return new Session(threadId, Math.max(1, Math.min(64, maxDepth)));
+    }
+
+    /**
+     * 一次分析会话；事件回调在 JFR 流线程上执行，聚合状态由会话锁保护。
+     */
+    public static final class Session {
+
+        private final long id = SESSIONS.incrementAndGet();
+        private final Long threadId;
+        private final int maxDepth;
+        private final RecordingStream stream;
+        private final CountDownLatch flushed = new CountDownLatch(1);
+        private final long startNanos = System.nanoTime();
+        private final Map<String, long[]> byStack = new HashMap<>();
+        private final Map<String, Long> byClass = new HashMap<>();
+        private long tlabEvents;
+        private long outsideTlabEvents;
+        private long totalBytes;
+        private Map<String, Object> report;
+
+        private Session(Long threadId, int maxDepth) {
+            this.threadId = threadId;
+            this.maxDepth = maxDepth;
+            try {
+                stream = new RecordingStream();
+                stream.enable(IN_NEW_TLAB).withStackTrace();
+                stream.enable(OUTSIDE_TLAB).withStackTrace();
+                stream.enable(MARKER).withoutStackTrace();
+                stream.onEvent(IN_NEW_TLAB, event -> onAllocation(event, "tlabSize", true));
+                stream.onEvent(OUTSIDE_TLAB, event -> onAllocation(event, "allocationSize", false));
+                stream.onEvent(MARKER, event -> {
+                    if (event.getLong("session") == id) {
+                        flushed.countDown();
+                    }
+                });
+                stream.startAsync();
+            } catch (RuntimeException | Error e) {
+                throw new IllegalStateException("JFR allocation profiling unavailable: " + e, e);
+            }
+        }
+
+        /**
+         * 方法说明 / Method Description:
+         * 中文：结束会话：等待事件流读到结束标记后关闭，返回按字节排序的热点类与热点栈；可重复调用，返回同一报告。
+         * English: Finish the session: close the stream once it has read the end marker and return hot classes and stacks ranked by bytes; repeat calls return the same report.
+         *
+         * 参数 / Parameters:
+         * @param top 中文：返回的类与栈条目数 / English: Number of classes and stacks to return
+         *
+         * 返回值 / Return: 中文：分析报告 / English: Profile report
+         * 异常 / Exceptions: 无
+         */
+        public Map<String, Object> finish(int top) {
+            synchronized (this) {
+                if (report != null) {
+                    return report;
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            MarkerEvent marker = new MarkerEvent();
+            marker.session = id;
+            marker.commit();
+            boolean complete;
+            try {
+                complete = flushed.await(FLUSH_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+            }
+            stream.close();
+            synchronized (this) {
+                report = buildReport(Math.max(1, top), elapsedNanos, complete);
+                return report;
+            }
+        }
+
+        private synchronized void onAllocation(RecordedEvent event, String weightField, boolean tlab) {
+            if (report != null) {
+                return;
+            }
+            if (threadId != null) {
+                RecordedThread thread = event.getThread();
+                if (thread == null || thread.getJavaThreadId() != threadId) {
+                    return;
+                }
+            }
+            long bytes = event.getLong(weightField);
+            if (tlab) {
+                tlabEvents++;
+            } else {
+                outsideTlabEvents++;
+            }
+            totalBytes += bytes;
+            RecordedClass objectClass = event.getClass("objectClass");
+            String className = objectClass == null ? "unknown" : objectClass.getName();
+            String classKey = byClass.containsKey(className) || byClass.size() < MAX_CLASSES ? className : OTHER;
+            byClass.merge(classKey, bytes, Long::sum);
+            String stackKey = stackKey(event.getStackTrace());
+            if (!byStack.containsKey(stackKey) && byStack.size() >= MAX_STACKS) {
+                stackKey = OTHER;
+            }
+            long[] stats = byStack.computeIfAbsent(stackKey, k -> new long[2]);
+            stats[0] += bytes;
+            stats[1]++;
+        }
+
+        private String stackKey(RecordedStackTrace stackTrace) {
+            if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+                return "[no stack]";
+            }
+            StringBuilder key = new StringBuilder();
+            List<RecordedFrame> frames = stackTrace.getFrames();
+            int depth = Math.min(maxDepth, frames.size());
+            for (int i = 0; i < depth; i++) {
+                RecordedFrame frame = frames.get(i);
+                if (i > 0) {
+                    key.append('\n');
+                }
+                key.append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName());
+                if (frame.getLineNumber() > 0) {
+                    key.append(':').append(frame.getLineNumber());
+                }
+            }
+            return key.toString();
+        }
+
+        private Map<String, Object> buildReport(int top, long elapsedNanos, boolean complete) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("threads", threadId == null ? "all" : "thread-" + threadId);
+            result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            result.put("tlabEvents", tlabEvents);
+            result.put("outsideTlabEvents", outsideTlabEvents);
+            result.put("weightedMb", mb(totalBytes));
+            result.put("complete", complete);
+
+            List<Map<String, Object>> classes = new ArrayList<>();
+            byClass.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                    .limit(top)
+                    .forEach(entry -> {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("class", entry.getKey());
+                        item.put("mb", mb(entry.getValue()));
+                        item.put("percent", percent(entry.getValue()));
+                        classes.add(item);
+                    });
+            result.put("topClasses", classes);
+
+            List<Map<String, Object>> stacks = new ArrayList<>();
+            byStack.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                    .limit(top)
+                    .forEach(entry -> {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("mb", mb(entry.getValue()[0]));
+                        item.put("percent", percent(entry.getValue()[0]));
+                        item.put("events", entry.getValue()[1]);
+                        item.put("frames", List.of(entry.getKey().split("\n")));
+                        stacks.add(item);
+                    });
+            result.put("topStacks", stacks);
+            return result;
+        }
+
+        private double percent(long bytes) {
+            return totalBytes == 0 ? 0 : Math.round(bytes * 1000.0 / totalBytes) / 10.0;
+        }
+
+        private static double mb(long bytes) {
+            return Math.round(bytes / 1024d / 1024d * 100) / 100d;
+        }
+    }
+
+    /** 结束标记事件：流读到它即说明此前提交的分配事件都已送达。 */
+    @Name(MARKER)
+    @StackTrace(false)
+    static final class MarkerEvent extends Event {
+        long session;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：类直方图控制器：进程内的 jmap -histo，支持保存基线与基线对比。
+ * English: Class histogram controller: an in-process jmap -histo with stored baselines and baseline diffs.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：POST /monitor/class-histogram/baselines/before → 运行实验 → GET /monitor/class-histogram/diff?baseline=before 查看增长最多的类。
+ * English: POST /monitor/class-histogram/baselines/before, run the experiment, then GET /monitor/class-histogram/diff?baseline=before for the classes that grew most.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定，采集、解析与对比由 {@link ClassHistogramService} 完成；live 默认 false，避免爬虫、看板刷新或预取一次 GET 就让生产进程停顿在 Full GC 上。
+ * English: The controller only binds parameters; capture, parsing and diffing belong to {@link ClassHistogramService}. live defaults to false so a crawler, dashboard refresh or prefetch cannot pause production with a full GC via a plain GET.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor/class-histogram")
+public class ClassHistogramController {
+
+    private final ClassHistogramService histogramService;
+
+    public ClassHistogramController(ClassHistogramService histogramService) {
+        this.histogramService = histogramService;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：当前直方图前 N 个类（列式）；默认包含尚未回收的垃圾，不触发 GC。
+     * English: Top-N classes of the current histogram as columns.
+     *
+     * 参数 / Parameters:
+     * @param top 中文：返回条数 / English: Number of entries
+     * @param live 中文：true 先 Full GC（STW）只统计存活对象，必须显式传入 / English: true forces a stop-the-world full GC and counts reachable objects only; must be passed explicitly
+     *
+     * 返回值 / Return: 中文：列式直方图 / English: Columnar histogram
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping
+    public Map<String, Object> current(@RequestParam(defaultValue = "20") int top,
+                                       @RequestParam(defaultValue = "false") boolean live) {
+        return histogramService.current(top, live);
+    }
+
+    @PostMapping("/baselines/{name}")
+    public Map<String, Object> saveBaseline(@PathVariable String name,
+                                            @RequestParam(defaultValue = "false") boolean live) {
+        log.info("保存类直方图基线 Save class histogram baseline {}", name);
+        return histogramService.saveBaseline(name, live);
+    }
+
+    @GetMapping("/baselines")
+    public List<Map<String, Object>> listBaselines() {
+        return histogramService.listBaselines();
+    }
+
+    @DeleteMapping("/baselines/{name}")
+    public Map<String, Object> deleteBaseline(@PathVariable String name) {
+        histogramService.deleteBaseline(name);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        result.put("deleted", true);
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：基线与另一基线或当前直方图的差异，按增长量返回前 N 个类。
+     * English: Diff a baseline against another baseline or the current histogram, returning the top-N classes by growth.
+     *
+     * 参数 / Parameters:
+     * @param baseline 中文：基线名称 / English: Baseline name
+     * @param against 中文：对比基线，缺省为当前直方图 / English: Baseline to compare with, defaults to now
+     * @param top 中文：返回条数 / English: Number of entries
+     * @param sortBy 中文：bytes 或 instances / English: bytes or instances
+     * @param live 中文：采集当前直方图时是否只统计存活对象（触发 Full GC），默认 false / English: Whether the current capture counts reachable objects only (forces a full GC), false by default
+     *
+     * 返回值 / Return: 中文：差异报告 / English: Diff report
+     * 异常 / Exceptions: 中文：基线不存在抛出 NoSuchElementException / English: NoSuchElementException for an unknown baseline
+     */
+    @GetMapping("/diff")
+    public Map<String, Object> diff(@RequestParam String baseline,
+                                    @RequestParam(required = false) String against,
+                                    @RequestParam(defaultValue = "20") int top,
+                                    @RequestParam(defaultValue = "bytes") String sortBy,
+                                    @RequestParam(defaultValue = "false") boolean live) {
+        return histogramService.diff(baseline, against, top, sortBy, live);
+    }
+}
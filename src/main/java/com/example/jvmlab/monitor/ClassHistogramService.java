@@ -0,0 +1,337 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：进程内类直方图服务：通过 com.sun.management:type=DiagnosticCommand MBean 调用 gcClassHistogram（等价于 jmap -histo），解析为列式快照，保存命名基线并计算两次快照间增长最多的类。
+ * English: In-process class histogram service: invokes gcClassHistogram (the jmap -histo equivalent) through the com.sun.management:type=DiagnosticCommand MBean, parses it into a columnar snapshot, stores named baselines and reports the classes that grew most between two snapshots.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：运行 thread-local-leak 前保存基线，运行后与当前直方图对比，增长最多的 byte[] 直接指向泄漏；生产环境无需 attach 外部工具。
+ * English: Save a baseline before thread-local-leak, diff against now afterwards, and the top byte[] growth points straight at the leak; no external tool has to attach in production.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：快照以类名/实例数/字节数三个并行数组保存（同名类跨类加载器合并），基线数量有上限并淘汰最旧的；live=true 会先触发一次 Full GC 只统计存活对象，live=false 不触发 GC 但包含垃圾。
+ * English: Snapshots hold class name / instance / byte columns as parallel arrays (same-named classes across loaders are merged) and baselines are capped, evicting the oldest; live=true forces a full GC to count only reachable objects, live=false skips the GC but includes garbage.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.histogram.maxBaselines=8 基线数量上限。
+ * English: -Djvm.lab.histogram.maxBaselines=8 caps stored baselines.
+ */
+@Slf4j
+@Service
+public class ClassHistogramService {
+
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+    private static final int MAX_BASELINES = Integer.getInteger("jvm.lab.histogram.maxBaselines", 8);
+    private static final int MAX_TOP = 500;
+
+    private final Map<String, Snapshot> baselines = new LinkedHashMap<>();
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：采集一次类直方图。
+     * English: Capture a class histogram.
+     *
+     * 参数 / Parameters:
+     * @param live 中文：true 先 Full GC 只统计存活对象 / English: true forces a full GC and counts reachable objects only
+     *
+     * 返回值 / Return: 中文：列式快照 / English: Columnar snapshot
+     *
+     * 异常 / Exceptions: 中文：MBean 不可用时抛出 IllegalStateException / English: IllegalStateException when the MBean is unavailable
+     */
+    public Snapshot capture(boolean live) {
+        String output;
+        long start = System.nanoTime();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            String[] args = live ? new String[0] : new String[]{"-all"};
+            output = (String) server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "gcClassHistogram",
+                    new Object[]{args}, new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            throw new IllegalStateException("gcClassHistogram unavailable: " + e.getMessage(), e);
+        }
+        Snapshot snapshot = Snapshot.parse(output, live);
+        log.info("类直方图已采集 Class histogram captured: classes={} totalMb={} live={} in {}ms",
+                snapshot.size(), snapshot.totalBytes / 1024 / 1024, live, (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：采集并以指定名称保存基线，同名基线会被覆盖；超过上限时淘汰最旧的基线。
+     * English: Capture and store a baseline under a name, replacing one with the same name; the oldest is evicted past the cap.
+     *
+     * 参数 / Parameters:
+     * @param name 中文：基线名称 / English: Baseline name
+     * @param live 中文：是否只统计存活对象 / English: Whether to count reachable objects only
+     *
+     * 返回值 / Return: 中文：基线摘要 / English: Baseline summary
+     * 异常 / Exceptions: 中文：名称为空时抛出 IllegalArgumentException / English: IllegalArgumentException for a blank name
+     */
+    public Map<String, Object> saveBaseline(String name, boolean live) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("baseline name must not be blank");
+        }
+        Snapshot snapshot = capture(live);
+        synchronized (baselines) {
+            baselines.remove(name);
+            baselines.put(name, snapshot);
+            while (baselines.size() > Math.max(1, MAX_BASELINES)) {
+                baselines.remove(baselines.keySet().iterator().next());
+            }
+        }
+        return snapshot.summary(name);
+    }
+
+    public List<Map<String, Object>> listBaselines() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (baselines) {
+            baselines.forEach((name, snapshot) -> result.add(snapshot.summary(name)));
+        }
+        return result;
+    }
+
+    public void deleteBaseline(String name) {
+        synchronized (baselines) {
+            if (baselines.remove(name) == null) {
+                throw new NoSuchElementException("Histogram baseline not found: " + name);
+            }
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：对比基线与另一基线（against 为空时为当前直方图），返回按增长量排序的前 N 个类，以及总量变化与新出现的类数。
+     * English: Diff a baseline against another baseline (or the current histogram when against is empty), returning the top-N classes by growth, total deltas and the number of new classes.
+     *
+     * 参数 / Parameters:
+     * @param baseline 中文：基线名称 / English: Baseline name
+     * @param against 中文：对比基线名称，可为空 / English: Baseline to compare with, may be empty
+     * @param top 中文：返回条数 / English: Number of entries
+     * @param sortBy 中文：bytes 或 instances / English: bytes or instances
+     * @param live 中文：采集当前直方图时是否只统计存活对象 / English: Whether the current capture counts reachable objects only
+     *
+     * 返回值 / Return: 中文：差异报告 / English: Diff report
+     *
+     * 异常 / Exceptions:
+     * 中文：基线不存在抛出 NoSuchElementException；sortBy 非法抛出 IllegalArgumentException
+     * English: NoSuchElementException for an unknown baseline; IllegalArgumentException for an invalid sortBy
+     */
+    public Map<String, Object> diff(String baseline, String against, int top, String sortBy, boolean live) {
+        boolean byBytes = "bytes".equalsIgnoreCase(sortBy);
+        if (!byBytes && !"instances".equalsIgnoreCase(sortBy)) {
+            throw new IllegalArgumentException("sortBy must be bytes or instances: " + sortBy);
+        }
+        Snapshot before = getBaseline(baseline);
+        Snapshot after = against == null || against.isBlank() ? capture(live) : getBaseline(against);
+        return diff(before, after, clampTop(top), byBytes);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：当前直方图的前 N 个类（按字节），以列式数组返回。
+     * English: The top-N classes of the current histogram by bytes, returned as columns.
+     *
+     * 参数 / Parameters:
+     * @param top 中文：返回条数 / English: Number of entries
+     * @param live 中文：是否只统计存活对象 / English: Whether to count reachable objects only
+     *
+     * 返回值 / Return: 中文：列式直方图 / English: Columnar histogram
+     * 异常 / Exceptions: 无
+     */
+    public Map<String, Object> current(int top, boolean live) {
+        return capture(live).toColumns(clampTop(top));
+    }
+
+    static Map<String, Object> diff(Snapshot before, Snapshot after, int top, boolean byBytes) {
+        Map<String, Integer> beforeIndex = before.index();
+        int n = after.size();
+        long[] instanceDelta = new long[n];
+        long[] byteDelta = new long[n];
+        int newClasses = 0;
+        for (int i = 0; i < n; i++) {
+            Integer j = beforeIndex.get(after.classNames[i]);
+            if (j == null) {
+                newClasses++;
+            }
+            instanceDelta[i] = after.instances[i] - (j == null ? 0 : before.instances[j]);
+            byteDelta[i] = after.bytes[i] - (j == null ? 0 : before.bytes[j]);
+        }
+        long[] key = byBytes ? byteDelta : instanceDelta;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(key[b], key[a]));
+
+        List<Map<String, Object>> growth = new ArrayList<>();
+        for (int k = 0; k < Math.min(top, n) && key[order[k]] > 0; k++) {
+            int i = order[k];
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("class", after.classNames[i]);
+            item.put("instancesDelta", instanceDelta[i]);
+            item.put("bytesDelta", byteDelta[i]);
+            item.put("instances", after.instances[i]);
+            item.put("bytes", after.bytes[i]);
+            growth.add(item);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", before.capturedAt.toString());
+        result.put("to", after.capturedAt.toString());
+        result.put("sortBy", byBytes ? "bytes" : "instances");
+        result.put("totalInstancesDelta", after.totalInstances - before.totalInstances);
+        result.put("totalBytesDelta", after.totalBytes - before.totalBytes);
+        result.put("newClasses", newClasses);
+        result.put("topGrowth", growth);
+        return result;
+    }
+
+    private Snapshot getBaseline(String name) {
+        synchronized (baselines) {
+            Snapshot snapshot = baselines.get(name);
+            if (snapshot == null) {
+                throw new NoSuchElementException("Histogram baseline not found: " + name);
+            }
+            return snapshot;
+        }
+    }
+
+    private static int clampTop(int top) {
+        return Math.max(1, Math.min(MAX_TOP, top));
+    }
+
+    /**
+     * 列式直方图快照：三个并行数组按字节降序排列（与 jmap -histo 相同）。
+     */
+    static final class Snapshot {
+
+        final Instant capturedAt = Instant.now();
+        final boolean live;
+        final String[] classNames;
+        final long[] instances;
+        final long[] bytes;
+        final long totalInstances;
+        final long totalBytes;
+
+        private Snapshot(boolean live, String[] classNames, long[] instances, long[] bytes) {
+            this.live = live;
+            this.classNames = classNames;
+            this.instances = instances;
+            this.bytes = bytes;
+            this.totalInstances = Arrays.stream(instances).sum();
+            this.totalBytes = Arrays.stream(bytes).sum();
+        }
+
+        /**
+         * 解析 "   1:   2225   1407352  [I (java.base@17.0.9)" 形式的行；表头、分隔线与 Total 行被跳过，模块后缀被去掉。
+         */
+        static Snapshot parse(String output, boolean live) {
+            Map<String, Integer> index = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            long[] instances = new long[256];
+            long[] bytes = new long[256];
+            for (String line : output.split("\n")) {
+                String[] parts = line.trim().split("\\s+", 4);
+                if (parts.length < 4 || !parts[0].endsWith(":")) {
+                    continue;
+                }
+                long count;
+                long size;
+                try {
+                    count = Long.parseLong(parts[1]);
+                    size = Long.parseLong(parts[2]);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                String name = parts[3];
+                int module = name.indexOf(" (");
+                if (module > 0) {
+                    name = name.substring(0, module);
+                }
+                Integer slot = index.get(name);
+                if (slot == null) {
+                    slot = names.size();
+                    index.put(name, slot);
+                    names.add(name);
+                    if (slot == instances.length) {
+                        instances = Arrays.copyOf(instances, slot * 2);
+                        bytes = Arrays.copyOf(bytes, slot * 2);
+                    }
+                }
+                instances[slot] += count;
+                bytes[slot] += size;
+            }
+            // 中文：合并同名类后重新按字节降序排列
+            // English: Re-sort by bytes descending after merging same-named classes
+            int n = names.size();
+            long[] byteColumn = bytes;
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(byteColumn[b], byteColumn[a]));
+            String[] sortedNames = new String[n];
+            long[] sortedInstances = new long[n];
+            long[] sortedBytes = new long[n];
+            for (int i = 0; i < n; i++) {
+                sortedNames[i] = names.get(order[i]);
+                sortedInstances[i] = instances[order[i]];
+                sortedBytes[i] = bytes[order[i]];
+            }
+            return new Snapshot(live, sortedNames, sortedInstances, sortedBytes);
+        }
+
+        int size() {
+            return classNames.length;
+        }
+
+        Map<String, Integer> index() {
+            Map<String, Integer> index = new HashMap<>(classNames.length * 2);
+            for (int i = 0; i < classNames.length; i++) {
+                index.put(classNames[i], i);
+            }
+            return index;
+        }
+
+        Map<String, Object> summary(String name) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("capturedAt", capturedAt.toString());
+            result.put("live", live);
+            result.put("classes", size());
+            result.put("totalInstances", totalInstances);
+            result.put("totalBytes", totalBytes);
+            return result;
+        }
+
+        Map<String, Object> toColumns(int top) {
+            int n = Math.min(top, size());
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("capturedAt", capturedAt.toString());
+            result.put("live", live);
+            result.put("classes", size());
+            result.put("totalInstances", totalInstances);
+            result.put("totalBytes", totalBytes);
+            result.put("className", Arrays.copyOf(classNames, n));
+            result.put("instances", Arrays.copyOf(instances, n));
+            result.put("bytes", Arrays.copyOf(bytes, n));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.jvmlab.monitor;
+
+import com.example.jvmlab.common.GcCycleTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：把 {@link GcCycleTracker} 的逐周期 GC 信号注册为 Micrometer 仪表，经 /actuator/prometheus 暴露。
+ * English: Registers the per-cycle GC signals of {@link GcCycleTracker} as Micrometer gauges exposed via /actuator/prometheus.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：在 Grafana 中绘制分配速率、晋升速率与 Full GC 后存活集曲线，观察老年代是否持续增长。
+ * English: Plot allocation rate, promotion rate and post-full-GC live set in Grafana to see whether the old gen keeps growing.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：仪表只读取追踪器的 volatile 字段，抓取时不触发任何 MXBean 调用。
+ * English: Gauges only read volatile tracker fields, so scraping never triggers MXBean calls.
+ */
+@Component
+public class GcCycleMetricsBinder implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GcCycleTracker tracker = GcCycleTracker.getInstance();
+        Gauge.builder("jvm.lab.gc.allocation.rate", tracker, GcCycleTracker::getSmoothedAllocationRate)
+                .description("EWMA allocation rate between GC cycles / GC 周期间的平滑分配速率")
+                .baseUnit("bytes.per.second")
+                .register(registry);
+        Gauge.builder("jvm.lab.gc.promotion.rate", tracker, GcCycleTracker::getSmoothedPromotionRate)
+                .description("EWMA promotion rate into the old generation / 晋升到老年代的平滑速率")
+                .baseUnit("bytes.per.second")
+                .register(registry);
+        Gauge.builder("jvm.lab.gc.last.pause", tracker, t -> t.last().getDurationMs() / 1000.0)
+                .description("Duration of the most recent GC cycle / 最近一次 GC 周期时长")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("jvm.lab.gc.live.set", tracker, t -> t.lastMajor().getHeapAfterBytes())
+                .description("Heap used after the most recent full GC / 最近一次 Full GC 后的存活集")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("jvm.lab.gc.live.set.growth", tracker, GcCycleTracker::getLiveSetGrowthBytes)
+                .description("Live-set change between the last two full GCs / 最近两次 Full GC 之间存活集的变化")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("jvm.lab.gc.old.after", tracker, t -> t.last().getOldGenAfterBytes())
+                .description("Old generation used after the most recent GC / 最近一次 GC 后老年代占用")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+}
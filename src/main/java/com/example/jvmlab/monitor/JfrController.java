@@ -0,0 +1,128 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：JFR 控制器：启动/停止/转储/下载 JFR 录制，并提供常驻事件流的实时摘要。
+ * English: JFR controller: start/stop/dump/download JFR recordings and serve the live summary of the always-on event stream.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：POST /monitor/jfr/recordings?settings=profile&durationSec=60 开始录制，实验结束后 GET /monitor/jfr/recordings/{id}/file 下载；
+ *      GET /monitor/jfr/summary 查看实时分配、GC、JIT 与锁竞争摘要。
+ * English: POST /monitor/jfr/recordings?settings=profile&durationSec=60 to record, then GET /monitor/jfr/recordings/{id}/file after the experiment;
+ *      GET /monitor/jfr/summary shows live allocation, GC, JIT and lock contention summaries.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定，录制生命周期由 {@link JfrRecordingService} 管理，事件聚合由 {@link JfrLiveStream} 完成。
+ * English: The controller only binds parameters; the recording lifecycle belongs to {@link JfrRecordingService} and event aggregation to {@link JfrLiveStream}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor/jfr")
+public class JfrController {
+
+    private final JfrRecordingService recordingService;
+    private final JfrLiveStream liveStream;
+
+    public JfrController(JfrRecordingService recordingService, JfrLiveStream liveStream) {
+        this.recordingService = recordingService;
+        this.liveStream = liveStream;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按配置启动录制。
+     * English: Start a recording with the chosen settings.
+     *
+     * 参数 / Parameters:
+     * @param name 中文：录制名称 / English: Recording name
+     * @param settings 中文：default、profile 或 jvm.lab.jfr.settingsDir 下的 .jfc 文件名 / English: default, profile or a .jfc file name under jvm.lab.jfr.settingsDir
+     * @param durationSec 中文：自动停止时长，0 为手动 / English: Auto-stop duration, 0 for manual
+     * @param maxAgeSec 中文：磁盘保留时长，0 为不限 / English: Max age on disk, 0 for unlimited
+     * @param maxSizeMb 中文：磁盘保留大小，0 为不限 / English: Max size on disk, 0 for unlimited
+     *
+     * 返回值 / Return: 中文：录制描述 / English: Recording description
+     * 异常 / Exceptions: 中文：配置非法抛出 IllegalArgumentException / English: IllegalArgumentException for invalid settings
+     */
+    @PostMapping("/recordings")
+    public Map<String, Object> start(@RequestParam(defaultValue = "lab") String name,
+                                     @RequestParam(defaultValue = "default") String settings,
+                                     @RequestParam(defaultValue = "0") long durationSec,
+                                     @RequestParam(defaultValue = "0") long maxAgeSec,
+                                     @RequestParam(defaultValue = "0") long maxSizeMb) {
+        log.info("启动 JFR 录制 Start JFR recording name={} settings={} duration={}s", name, settings, durationSec);
+        return recordingService.start(name, settings, durationSec, maxAgeSec, maxSizeMb);
+    }
+
+    @GetMapping("/recordings")
+    public List<Map<String, Object>> list() {
+        return recordingService.list();
+    }
+
+    @PostMapping("/recordings/{id}/stop")
+    public Map<String, Object> stop(@PathVariable long id) {
+        return recordingService.stop(id);
+    }
+
+    @PostMapping("/recordings/{id}/dump")
+    public Map<String, Object> dump(@PathVariable long id) {
+        return recordingService.dump(id);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：下载已停止录制的 .jfr 文件。
+     * English: Download the .jfr file of a stopped recording.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：录制 ID / English: Recording ID
+     * 返回值 / Return: 中文：文件流 / English: File stream
+     * 异常 / Exceptions: 中文：仍在运行时抛出 IllegalStateException / English: IllegalStateException while still running
+     */
+    @GetMapping("/recordings/{id}/file")
+    public ResponseEntity<Resource> file(@PathVariable long id) {
+        Path file = recordingService.file(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    @DeleteMapping("/recordings/{id}")
+    public Map<String, Object> close(@PathVariable long id) {
+        recordingService.close(id);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("closed", true);
+        return result;
+    }
+
+    @GetMapping("/summary")
+    public Map<String, Object> summary() {
+        return liveStream.summary();
+    }
+
+    @PostMapping("/summary/reset")
+    public Map<String, Object> reset() {
+        liveStream.reset();
+        return liveStream.summary();
+    }
+}
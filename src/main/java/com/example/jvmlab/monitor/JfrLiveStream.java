@@ -0,0 +1,326 @@
+package com.example.jvmlab.monitor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：基于 jdk.jfr.consumer.RecordingStream 的常驻事件流：持续消费分配采样、GC、JIT 编译与监视器竞争事件，聚合成可随时读取的实时摘要。
+ * English: Always-on event pipeline on jdk.jfr.consumer.RecordingStream: continuously consumes allocation samples, GC, JIT compilation and monitor contention events and aggregates them into live summaries readable at any time.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：/monitor/jfr/summary 回答“谁在分配、GC 停了多久、JIT 在编译什么、哪把锁在竞争”，无需像 {@link com.example.jvmlab.common.JvmMemoryMonitor} 那样轮询 MXBean。
+ * English: /monitor/jfr/summary answers "who allocates, how long GC paused, what the JIT compiles, which lock is contended" without polling MXBeans like {@link com.example.jvmlab.common.JvmMemoryMonitor}.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：只启用四类事件并设置节流/阈值（分配采样 100 次/秒、编译 ≥100ms、监视器等待 ≥10ms），事件回调只在 JFR 流线程上更新有界聚合（按类 Top-N，超出归入 [other]）；
+ *      流的磁盘缓冲只保留 1 分钟。摘要是自启动（或上次重置）以来的累计值。
+ * English: Only four event types are enabled with throttles/thresholds (100 allocation samples/s, compilations >= 100ms, monitor waits >= 10ms), and callbacks update bounded aggregates (per-class top-N, overflow folded into [other]) on the JFR stream thread;
+ *      the stream's disk buffer keeps one minute. Summaries are cumulative since start (or the last reset).
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.jfr.stream=false 关闭；-Djvm.lab.jfr.allocationThrottle=100/s、-Djvm.lab.jfr.compilationThresholdMs=100、-Djvm.lab.jfr.monitorThresholdMs=10 调整采集量。
+ * English: -Djvm.lab.jfr.stream=false disables it; -Djvm.lab.jfr.allocationThrottle=100/s, -Djvm.lab.jfr.compilationThresholdMs=100 and -Djvm.lab.jfr.monitorThresholdMs=10 tune the volume.
+ */
+@Slf4j
+@Component
+public class JfrLiveStream {
+
+    static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+    static final String COMPILATION = "jdk.Compilation";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String OTHER = "[other]";
+    private static final int MAX_KEYS = 512;
+    private static final int TOP = 10;
+    private static final int RECENT_GCS = 20;
+
+    private final boolean enabled = !"false".equalsIgnoreCase(System.getProperty("jvm.lab.jfr.stream"));
+    private final String allocationThrottle = System.getProperty("jvm.lab.jfr.allocationThrottle", "100/s");
+    private final long compilationThresholdMs = Long.getLong("jvm.lab.jfr.compilationThresholdMs", 100);
+    private final long monitorThresholdMs = Long.getLong("jvm.lab.jfr.monitorThresholdMs", 10);
+
+    private volatile RecordingStream stream;
+    private volatile String failure;
+
+    private Instant since = Instant.now();
+    private long allocationSamples;
+    private long allocationWeightBytes;
+    private final Map<String, Long> allocationByClass = new HashMap<>();
+    private final Map<String, long[]> gcByName = new HashMap<>();
+    private final Deque<Map<String, Object>> recentGcs = new ArrayDeque<>();
+    private long compilations;
+    private long compilationNanos;
+    private long failedCompilations;
+    private long osrCompilations;
+    private final Map<Integer, Long> compilationsByLevel = new HashMap<>();
+    private final PriorityQueue<Map<String, Object>> slowestCompilations =
+            new PriorityQueue<>((a, b) -> Double.compare((double) a.get("durationMs"), (double) b.get("durationMs")));
+    private long monitorEnters;
+    private long monitorNanos;
+    private final Map<String, long[]> monitorByClass = new HashMap<>();
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：启动事件流（异步）；JFR 不可用时只记录原因，不影响应用启动。
+     * English: Start the event stream asynchronously; when JFR is unavailable only the reason is recorded and startup continues.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled || stream != null) {
+            return;
+        }
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(ALLOCATION_SAMPLE).with("throttle", allocationThrottle);
+            rs.enable(GARBAGE_COLLECTION);
+            rs.enable(COMPILATION).withThreshold(Duration.ofMillis(compilationThresholdMs));
+            rs.enable(MONITOR_ENTER).withThreshold(Duration.ofMillis(monitorThresholdMs));
+            rs.setMaxAge(Duration.ofMinutes(1));
+            rs.onEvent(ALLOCATION_SAMPLE, guarded(this::onAllocation));
+            rs.onEvent(GARBAGE_COLLECTION, guarded(this::onGarbageCollection));
+            rs.onEvent(COMPILATION, guarded(this::onCompilation));
+            rs.onEvent(MONITOR_ENTER, guarded(this::onMonitorEnter));
+            rs.startAsync();
+            stream = rs;
+            log.info("JFR 事件流已启动 JFR event stream started (allocation throttle {}, compilation >= {}ms, monitor >= {}ms)",
+                    allocationThrottle, compilationThresholdMs, monitorThresholdMs);
+        } catch (RuntimeException | Error e) {
+            failure = e.toString();
+            log.warn("JFR 事件流启动失败 JFR event stream unavailable: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        RecordingStream rs = stream;
+        stream = null;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    /** 事件流是否在运行。 */
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回实时摘要：分配采样（总权重与按类 Top-N）、各收集器 GC 次数与停顿及最近 GC、JIT 编译统计与最慢编译、监视器竞争按类 Top-N。
+     * English: Return the live summary: allocation samples (total weight and top classes), per-collector GC counts and pauses plus recent GCs, JIT compilation stats and the slowest compilations, and top contended monitor classes.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：摘要 Map / English: Summary map
+     * 异常 / Exceptions: 无
+     */
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", isRunning());
+        if (failure != null) {
+            result.put("failure", failure);
+        }
+        result.put("since", since.toString());
+        double elapsedSec = Math.max(0.001, Duration.between(since, Instant.now()).toMillis() / 1000d);
+        result.put("elapsedSec", round(elapsedSec));
+
+        Map<String, Object> allocation = new LinkedHashMap<>();
+        allocation.put("samples", allocationSamples);
+        allocation.put("sampledWeightMb", round(allocationWeightBytes / 1024d / 1024d));
+        allocation.put("approxMbPerSec", round(allocationWeightBytes / 1024d / 1024d / elapsedSec));
+        allocation.put("topClassesMb", topMb(allocationByClass));
+        result.put("allocation", allocation);
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        Map<String, Object> byName = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : gcByName.entrySet()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", entry.getValue()[0]);
+            stats.put("totalPauseMs", round(entry.getValue()[1] / 1e6));
+            stats.put("maxPauseMs", round(entry.getValue()[2] / 1e6));
+            byName.put(entry.getKey(), stats);
+        }
+        gc.put("byCollector", byName);
+        gc.put("recent", new ArrayList<>(recentGcs));
+        result.put("gc", gc);
+
+        Map<String, Object> jit = new LinkedHashMap<>();
+        jit.put("thresholdMs", compilationThresholdMs);
+        jit.put("compilations", compilations);
+        jit.put("totalMs", round(compilationNanos / 1e6));
+        jit.put("failed", failedCompilations);
+        jit.put("osr", osrCompilations);
+        jit.put("byLevel", new LinkedHashMap<>(compilationsByLevel));
+        List<Map<String, Object>> slowest = new ArrayList<>(slowestCompilations);
+        slowest.sort((a, b) -> Double.compare((double) b.get("durationMs"), (double) a.get("durationMs")));
+        jit.put("slowest", slowest);
+        result.put("compilation", jit);
+
+        Map<String, Object> monitors = new LinkedHashMap<>();
+        monitors.put("thresholdMs", monitorThresholdMs);
+        monitors.put("events", monitorEnters);
+        monitors.put("totalBlockedMs", round(monitorNanos / 1e6));
+        List<Map<String, Object>> topMonitors = new ArrayList<>();
+        monitorByClass.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(TOP)
+                .forEach(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("monitorClass", entry.getKey());
+                    item.put("events", entry.getValue()[0]);
+                    item.put("totalBlockedMs", round(entry.getValue()[1] / 1e6));
+                    item.put("maxBlockedMs", round(entry.getValue()[2] / 1e6));
+                    topMonitors.add(item);
+                });
+        monitors.put("topClasses", topMonitors);
+        result.put("monitorContention", monitors);
+        return result;
+    }
+
+    /** 清空全部聚合，从现在开始重新累计。 */
+    public synchronized void reset() {
+        since = Instant.now();
+        allocationSamples = 0;
+        allocationWeightBytes = 0;
+        allocationByClass.clear();
+        gcByName.clear();
+        recentGcs.clear();
+        compilations = 0;
+        compilationNanos = 0;
+        failedCompilations = 0;
+        osrCompilations = 0;
+        compilationsByLevel.clear();
+        slowestCompilations.clear();
+        monitorEnters = 0;
+        monitorNanos = 0;
+        monitorByClass.clear();
+    }
+
+    synchronized void onAllocation(RecordedEvent event) {
+        long weight = event.getLong("weight");
+        allocationSamples++;
+        allocationWeightBytes += weight;
+        allocationByClass.merge(boundedKey(allocationByClass, className(event.getClass("objectClass"))), weight, Long::sum);
+    }
+
+    synchronized void onGarbageCollection(RecordedEvent event) {
+        String name = event.getString("name");
+        long pauseNanos = event.getDuration("longestPause").toNanos();
+        long[] stats = gcByName.computeIfAbsent(name, k -> new long[3]);
+        stats[0]++;
+        stats[1] += event.getDuration("sumOfPauses").toNanos();
+        stats[2] = Math.max(stats[2], pauseNanos);
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("gcId", event.getInt("gcId"));
+        gc.put("name", name);
+        gc.put("cause", event.getString("cause"));
+        gc.put("durationMs", round(event.getDuration().toNanos() / 1e6));
+        gc.put("longestPauseMs", round(pauseNanos / 1e6));
+        // 中文：用事件自身的开始时刻而不是回调处理时刻，事件流按块刷新，处理时刻会晚到约 1 秒以上
+        // English: Use the event's own start time rather than when the callback runs; the stream flushes in chunks, so processing lags by a second or more
+        gc.put("startTime", event.getStartTime());
+        gc.put("uptimeMs", event.getStartTime().toEpochMilli() - ManagementFactory.getRuntimeMXBean().getStartTime());
+        recentGcs.addFirst(gc);
+        while (recentGcs.size() > RECENT_GCS) {
+            recentGcs.removeLast();
+        }
+    }
+
+    synchronized void onCompilation(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        compilations++;
+        compilationNanos += nanos;
+        if (!event.getBoolean("succeded")) {
+            failedCompilations++;
+        }
+        if (event.getBoolean("isOsr")) {
+            osrCompilations++;
+        }
+        int level = event.getShort("compileLevel");
+        compilationsByLevel.merge(level, 1L, Long::sum);
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("method", methodName(event.getValue("method")));
+        item.put("level", level);
+        item.put("durationMs", round(nanos / 1e6));
+        item.put("codeSizeBytes", event.getLong("codeSize"));
+        slowestCompilations.add(item);
+        if (slowestCompilations.size() > TOP) {
+            slowestCompilations.poll();
+        }
+    }
+
+    synchronized void onMonitorEnter(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        monitorEnters++;
+        monitorNanos += nanos;
+        long[] stats = monitorByClass.computeIfAbsent(
+                boundedKey(monitorByClass, className(event.getClass("monitorClass"))), k -> new long[3]);
+        stats[0]++;
+        stats[1] += nanos;
+        stats[2] = Math.max(stats[2], nanos);
+    }
+
+    private Consumer<RecordedEvent> guarded(Consumer<RecordedEvent> handler) {
+        return event -> {
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                // 中文：字段缺失等异常只丢弃该事件，不能终止事件流
+                // English: A missing field only drops this event; it must not kill the stream
+                log.debug("忽略无法解析的 JFR 事件 Skipping JFR event {}: {}", event.getEventType().getName(), e.toString());
+            }
+        };
+    }
+
+    private static String boundedKey(Map<String, ?> map, String key) {
+        return map.containsKey(key) || map.size() < MAX_KEYS ? key : OTHER;
+    }
+
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass == null ? "unknown" : recordedClass.getName();
+    }
+
+    private static String methodName(Object value) {
+        if (!(value instanceof RecordedMethod)) {
+            return "unknown";
+        }
+        RecordedMethod method = (RecordedMethod) value;
+        return className(method.getType()) + "." + method.getName();
+    }
+
+    private static Map<String, Double> topMb(Map<String, Long> weights) {
+        Map<String, Double> top = new LinkedHashMap<>();
+        weights.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                .limit(TOP)
+                .forEach(entry -> top.put(entry.getKey(), round(entry.getValue() / 1024d / 1024d)));
+        return top;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100d;
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.jvmlab.monitor;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：JFR 录制控制服务：按指定配置（default / profile 或配置目录下的 .jfc 文件）启动录制，支持停止、运行中转储快照与关闭，文件写入 jvm.lab.jfr.dir 目录。
+ * English: JFR recording control service: starts recordings with a chosen configuration (default / profile or a .jfc file under the settings directory), and supports stop, snapshot dumps while running and close; files go to the jvm.lab.jfr.dir directory.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：在运行 gc-overhead 或 JMH 实验前开启 profile 录制，结束后下载 .jfr 用 JDK Mission Control 分析分配、GC 与 JIT。
+ * English: Start a profile recording before running gc-overhead or a JMH experiment, then download the .jfr and analyse allocation, GC and JIT in JDK Mission Control.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：只管理本服务创建的录制，不干预 jcmd 或 {@link JfrLiveStream} 的录制；每个录制启动时就设置目标文件，定时录制到期后由 JFR 自动落盘。
+ * English: Only recordings created here are managed, leaving jcmd recordings and the {@link JfrLiveStream} alone; each recording gets its destination at start so timed recordings are written by JFR when they expire.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.jfr.dir=logs/jfr 指定输出目录；-Djvm.lab.jfr.settingsDir=config/jfr 允许按文件名使用该目录下的自定义 .jfc，未设置时只接受 default 与 profile。
+ * English: -Djvm.lab.jfr.dir=logs/jfr sets the output directory; -Djvm.lab.jfr.settingsDir=config/jfr allows custom .jfc files in that directory by file name, and without it only default and profile are accepted.
+ */
+@Slf4j
+@Service
+public class JfrRecordingService {
+
+    private static final Set<String> NAMED_SETTINGS = Set.of("default", "profile");
+
+    private final Path directory;
+    /** 自定义 .jfc 所在目录，null 表示只允许内置配置。 */
+    private final Path settingsDirectory;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private final AtomicInteger snapshotSequence = new AtomicInteger();
+
+    @Autowired
+    public JfrRecordingService() {
+        this(Paths.get(System.getProperty("jvm.lab.jfr.dir", "logs/jfr")),
+                System.getProperty("jvm.lab.jfr.settingsDir") == null ? null : Paths.get(System.getProperty("jvm.lab.jfr.settingsDir")));
+    }
+
+    JfrRecordingService(Path directory) {
+        this(directory, null);
+    }
+
+    JfrRecordingService(Path directory, Path settingsDirectory) {
+        this.directory = directory.toAbsolutePath();
+        this.settingsDirectory = settingsDirectory == null ? null : settingsDirectory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按配置启动一个录制。
+     * English: Start a recording with the given configuration.
+     *
+     * 参数 / Parameters:
+     * @param name 中文：录制名称（用于文件名） / English: Recording name (used in the file name)
+     * @param settings 中文：default、profile 或配置目录下的 .jfc 文件名 / English: default, profile or a .jfc file name in the settings directory
+     * @param durationSec 中文：自动停止时长，0 表示手动停止 / English: Auto-stop duration, 0 to stop manually
+     * @param maxAgeSec 中文：磁盘保留时长，0 表示不限 / English: Max age kept on disk, 0 for unlimited
+     * @param maxSizeMb 中文：磁盘保留大小，0 表示不限 / English: Max size kept on disk, 0 for unlimited
+     *
+     * 返回值 / Return: 中文：录制描述 / English: Recording description
+     *
+     * 异常 / Exceptions:
+     * 中文：配置不存在、不在配置目录内或参数为负时抛出 IllegalArgumentException；目录不可写时抛出 IllegalStateException
+     * English: IllegalArgumentException for an unknown configuration, one outside the settings directory, or negative values; IllegalStateException when the directory is not writable
+     */
+    public Map<String, Object> start(String name, String settings, long durationSec, long maxAgeSec, long maxSizeMb) {
+        if (durationSec < 0 || maxAgeSec < 0 || maxSizeMb < 0) {
+            throw new IllegalArgumentException("durationSec, maxAgeSec and maxSizeMb must not be negative");
+        }
+        String safeName = sanitize(name == null || name.isBlank() ? "lab" : name);
+        Configuration configuration = loadConfiguration(settings == null || settings.isBlank() ? "default" : settings);
+        Recording recording = new Recording(configuration);
+        recording.setName(safeName);
+        recording.setToDisk(true);
+        if (durationSec > 0) {
+            recording.setDuration(Duration.ofSeconds(durationSec));
+        }
+        if (maxAgeSec > 0) {
+            recording.setMaxAge(Duration.ofSeconds(maxAgeSec));
+        }
+        if (maxSizeMb > 0) {
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        }
+        try {
+            Files.createDirectories(directory);
+            recording.setDestination(directory.resolve(safeName + "-" + recording.getId() + ".jfr"));
+        } catch (IOException e) {
+            recording.close();
+            throw new IllegalStateException("Cannot prepare JFR directory " + directory + ": " + e.getMessage(), e);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("JFR 录制已启动 JFR recording {} started with {} settings", recording.getId(), configuration.getName());
+        return describe(recording);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：停止录制并把数据写入目标文件；录制条目保留，便于下载。
+     * English: Stop the recording and write it to its destination; the entry is kept so it can be downloaded.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：录制 ID / English: Recording ID
+     * 返回值 / Return: 中文：录制描述（含文件路径） / English: Recording description including the file path
+     *
+     * 异常 / Exceptions:
+     * 中文：录制不存在时抛出 NoSuchElementException / English: NoSuchElementException when the recording does not exist
+     */
+    public Map<String, Object> stop(long id) {
+        Recording recording = get(id);
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+            log.info("JFR 录制已停止 JFR recording {} stopped -> {}", id, recording.getDestination());
+        }
+        return describe(recording);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：把运行中录制到目前为止的数据转储为一个独立快照文件，录制继续进行。
+     * English: Dump what a running recording has so far into a separate snapshot file while it keeps recording.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：录制 ID / English: Recording ID
+     * 返回值 / Return: 中文：快照文件路径与大小 / English: Snapshot path and size
+     *
+     * 异常 / Exceptions:
+     * 中文：录制不存在时抛出 NoSuchElementException；转储失败时抛出 IllegalStateException
+     * English: NoSuchElementException when the recording does not exist; IllegalStateException when the dump fails
+     */
+    public Map<String, Object> dump(long id) {
+        Recording recording = get(id);
+        Path snapshot = directory.resolve(recording.getName() + "-" + id + "-snapshot-" + snapshotSequence.incrementAndGet() + ".jfr");
+        try {
+            recording.dump(snapshot);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", id);
+            result.put("file", snapshot.toString());
+            result.put("sizeBytes", Files.size(snapshot));
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("JFR dump failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：关闭录制并释放 JFR 资源；已写出的文件保留。
+     * English: Close the recording and release JFR resources; files already written are kept.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：录制 ID / English: Recording ID
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 中文：录制不存在时抛出 NoSuchElementException / English: NoSuchElementException when the recording does not exist
+     */
+    public void close(long id) {
+        Recording recording = get(id);
+        recordings.remove(id);
+        recording.close();
+    }
+
+    /** 本服务管理的全部录制。 */
+    public List<Map<String, Object>> list() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Recording recording : recordings.values()) {
+            result.add(describe(recording));
+        }
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回录制已落盘的文件路径，供下载；录制仍在运行时不可下载。
+     * English: Return the written file of a recording for download; not available while it is still running.
+     *
+     * 参数 / Parameters:
+     * @param id 中文：录制 ID / English: Recording ID
+     * 返回值 / Return: 中文：文件路径 / English: File path
+     *
+     * 异常 / Exceptions:
+     * 中文：录制不存在抛出 NoSuchElementException；仍在运行或文件缺失抛出 IllegalStateException
+     * English: NoSuchElementException when missing; IllegalStateException while running or when the file is absent
+     */
+    public Path file(long id) {
+        Recording recording = get(id);
+        Path destination = recording.getDestination();
+        // 中文：设置了目标文件的录制在停止（或定时到期）落盘后会直接进入 CLOSED 状态
+        // English: A recording with a destination goes straight to CLOSED once it is written on stop or expiry
+        boolean written = recording.getState() == RecordingState.STOPPED || recording.getState() == RecordingState.CLOSED;
+        if (!written || destination == null || !Files.exists(destination)) {
+            throw new IllegalStateException("Recording " + id + " has not been written yet (state " + recording.getState() + ")");
+        }
+        return destination;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 中文：应用退出时停止仍在运行的录制，确保数据落盘
+        // English: Stop running recordings on shutdown so their data reaches disk
+        for (Recording recording : recordings.values()) {
+            try {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                }
+                recording.close();
+            } catch (RuntimeException e) {
+                log.warn("关闭 JFR 录制失败 Failed to close JFR recording {}: {}", recording.getId(), e.getMessage());
+            }
+        }
+        recordings.clear();
+    }
+
+    private Recording get(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new NoSuchElementException("JFR recording not found: " + id);
+        }
+        return recording;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：解析录制配置：default/profile 取 JDK 内置配置；其余值只能是配置目录下的 .jfc 文件，防止通过请求参数读取服务器上的任意文件。
+     * English: Resolve the recording configuration: default/profile map to the JDK built-ins; anything else must be a .jfc file inside the settings directory, so a request parameter cannot read arbitrary server files.
+     *
+     * 参数 / Parameters:
+     * @param settings 中文：配置名或 .jfc 文件名 / English: Configuration name or .jfc file name
+     * 返回值 / Return: 中文：JFR 配置 / English: JFR configuration
+     * 异常 / Exceptions: 中文：未知配置或目录外路径抛出 IllegalArgumentException / English: IllegalArgumentException for unknown settings or paths outside the directory
+     */
+    Configuration loadConfiguration(String settings) {
+        try {
+            if (NAMED_SETTINGS.contains(settings)) {
+                return Configuration.getConfiguration(settings);
+            }
+            if (settingsDirectory == null || !settings.endsWith(".jfc")) {
+                throw new IllegalArgumentException("JFR settings must be one of " + NAMED_SETTINGS
+                        + (settingsDirectory == null ? "" : " or a .jfc file in " + settingsDirectory) + ": " + settings);
+            }
+            // 中文：规范化后再比较前缀，拒绝 ../ 与绝对路径逃出配置目录；toRealPath 同时解开符号链接
+            // English: Compare after normalising so ../ and absolute paths cannot escape the directory; toRealPath also resolves symlinks
+            Path file = settingsDirectory.resolve(settings).normalize();
+            if (!file.startsWith(settingsDirectory) || !Files.isRegularFile(file)
+                    || !file.toRealPath().startsWith(settingsDirectory.toRealPath())) {
+                throw new IllegalArgumentException("JFR settings file not found in " + settingsDirectory + ": " + settings);
+            }
+            return Configuration.create(file);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "': " + e.getMessage());
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", recording.getId());
+        info.put("name", recording.getName());
+        info.put("state", recording.getState().name());
+        info.put("startTime", recording.getStartTime());
+        info.put("stopTime", recording.getStopTime());
+        info.put("durationSec", recording.getDuration() == null ? 0 : recording.getDuration().getSeconds());
+        info.put("sizeBytes", recording.getSize());
+        info.put("destination", recording.getDestination() == null ? null : recording.getDestination().toString());
+        return info;
+    }
+}
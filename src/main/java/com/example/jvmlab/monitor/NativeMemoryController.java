@@ -0,0 +1,73 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：本地内存（NMT）控制器：当前摘要、记录基线、基线差异与采样历史。
+ * English: Native memory (NMT) controller: current summary, baseline, baseline diff and sampled history.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：以 -XX:NativeMemoryTracking=summary 启动后，POST /monitor/native-memory/baseline → 分配直接内存 → GET /monitor/native-memory/diff。
+ * English: Start with -XX:NativeMemoryTracking=summary, then POST /monitor/native-memory/baseline, allocate direct memory and GET /monitor/native-memory/diff.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定，执行与解析由 {@link NativeMemoryService} 完成。
+ * English: The controller only binds parameters; execution and parsing belong to {@link NativeMemoryService}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor/native-memory")
+public class NativeMemoryController {
+
+    private final NativeMemoryService nativeMemoryService;
+
+    public NativeMemoryController(NativeMemoryService nativeMemoryService) {
+        this.nativeMemoryService = nativeMemoryService;
+    }
+
+    @GetMapping
+    public Map<String, Object> summary() {
+        return nativeMemoryService.summary();
+    }
+
+    @PostMapping("/baseline")
+    public Map<String, Object> baseline() {
+        log.info("记录 NMT 基线 Recording native memory baseline");
+        return nativeMemoryService.baseline();
+    }
+
+    @GetMapping("/diff")
+    public Map<String, Object> diff() {
+        return nativeMemoryService.diff();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：查询 NMT 采样历史（列式，单位 KB）。
+     * English: Query the sampled NMT history (columnar, in KB).
+     *
+     * 参数 / Parameters:
+     * @param window 中文：时间窗口（秒） / English: Time window in seconds
+     * @param points 中文：最大返回点数 / English: Maximum number of points
+     *
+     * 返回值 / Return: 中文：列式时间序列 Map / English: Columnar time-series map
+     * 异常 / Exceptions: 中文：NMT 未开启时抛出 IllegalStateException / English: IllegalStateException when NMT is off
+     */
+    @GetMapping("/history")
+    public Map<String, Object> history(@RequestParam(defaultValue = "3600") long window,
+                                       @RequestParam(defaultValue = "120") int points) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowSec", Math.max(1, window));
+        result.putAll(nativeMemoryService.history(Math.max(1, window) * 1000L, points));
+        return result;
+    }
+}
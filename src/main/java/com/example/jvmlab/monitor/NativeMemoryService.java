@@ -0,0 +1,431 @@
+package com.example.jvmlab.monitor;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：Native Memory Tracking 服务：通过 DiagnosticCommand MBean 执行 VM.native_memory summary / baseline / summary.diff，解析各类别的 reserved/committed，并定期采样为时间序列。
+ * English: Native Memory Tracking service: runs VM.native_memory summary / baseline / summary.diff through the DiagnosticCommand MBean, parses reserved/committed per category and samples them periodically into a time series.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：direct-memory-oom、metaspace-oom 与 RSS 持续上涨的排查：先 baseline，运行实验后 diff，看 Other（DirectByteBuffer）、Class、Thread 哪一类在涨；history 观察长期趋势。
+ * English: Investigating direct-memory-oom, metaspace-oom and creeping RSS: baseline, run the experiment, diff to see whether Other (DirectByteBuffer), Class or Thread grew; history shows the long-term trend.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：NMT 只能在启动时用 -XX:NativeMemoryTracking=summary 开启（约 5–10% 额外开销），未开启时所有接口抛出带提示的 IllegalStateException 且不启动采样；
+ *      时间序列与 {@link com.example.jvmlab.common.JvmMetricsHistory} 一样以单个 long[] 环形缓冲按行存储，只记录总量与固定类别的 committed（单位 KB）。
+ * English: NMT can only be enabled at startup with -XX:NativeMemoryTracking=summary (roughly 5-10% overhead); when it is off every call throws an IllegalStateException with a hint and no sampling starts;
+ *      like {@link com.example.jvmlab.common.JvmMetricsHistory}, the series is a single long[] ring buffer stored row-wise, recording the totals and committed KB of a fixed set of categories.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.nmt.sampleIntervalMs=10000 采样间隔；-Djvm.lab.nmt.historyCapacity=360 保留行数。
+ * English: -Djvm.lab.nmt.sampleIntervalMs=10000 sets the sampling interval; -Djvm.lab.nmt.historyCapacity=360 sets the rows kept.
+ */
+@Slf4j
+@Service
+public class NativeMemoryService {
+
+    static final String[] TRACKED = {"Java Heap", "Class", "Thread", "Code", "GC", "Compiler",
+            "Internal", "Other", "Symbol", "Metaspace"};
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+    private static final String NOT_ENABLED = "Native memory tracking is not enabled; start the JVM with -XX:NativeMemoryTracking=summary";
+    private static final int COL_TIMESTAMP = 0;
+    private static final int COL_RESERVED = 1;
+    private static final int COL_COMMITTED = 2;
+    private static final int CATEGORY_BASE = 3;
+    private static final int WIDTH = CATEGORY_BASE + TRACKED.length;
+
+    private final String mode;
+    private final long intervalMillis;
+    private final int capacity;
+    private final long[] rows;
+    private long written;
+    private volatile Instant baselineAt;
+    private volatile String samplingFailure;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public NativeMemoryService() {
+        this(detectMode(), Long.getLong("jvm.lab.nmt.sampleIntervalMs", 10_000),
+                Integer.getInteger("jvm.lab.nmt.historyCapacity", 360));
+    }
+
+    NativeMemoryService(String mode, long intervalMillis, int capacity) {
+        this.mode = mode;
+        this.intervalMillis = Math.max(1_000, intervalMillis);
+        this.capacity = Math.max(16, capacity);
+        this.rows = new long[this.capacity * WIDTH];
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            log.info("NMT 未开启，跳过本地内存采样 Native memory tracking is off, sampling disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jvm-lab-nmt-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("NMT 采样已启动 Native memory sampling started, mode={} intervalMs={}", mode, intervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return !"off".equals(mode);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：当前 NMT 摘要，类别按 committed 降序。
+     * English: Current NMT summary with categories sorted by committed, descending.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：总量与各类别 reserved/committed（KB） / English: Totals and per-category reserved/committed in KB
+     *
+     * 异常 / Exceptions: 中文：NMT 未开启时抛出 IllegalStateException / English: IllegalStateException when NMT is off
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> result = header();
+        result.putAll(Snapshot.parse(run("summary", "scale=KB"), false).toMap());
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：记录 NMT 基线，之后的 {@link #diff()} 相对它计算增量。
+     * English: Record an NMT baseline that later {@link #diff()} calls compare against.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：基线时间与当前总量 / English: Baseline time and current totals
+     *
+     * 异常 / Exceptions: 中文：NMT 未开启或基线失败时抛出 IllegalStateException / English: IllegalStateException when NMT is off or the baseline fails
+     */
+    public Map<String, Object> baseline() {
+        String output = run("baseline").trim();
+        if (!output.contains("succeeded")) {
+            throw new IllegalStateException("NMT baseline failed: " + output);
+        }
+        baselineAt = Instant.now();
+        log.info("NMT 基线已记录 Native memory baseline recorded at {}", baselineAt);
+        return header();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：相对基线的差异，类别按 committed 增量降序。
+     * English: Difference against the baseline with categories sorted by committed growth, descending.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：总量与各类别当前值及增量（KB） / English: Totals and per-category values with deltas in KB
+     *
+     * 异常 / Exceptions: 中文：NMT 未开启或尚无基线时抛出 IllegalStateException / English: IllegalStateException when NMT is off or no baseline exists
+     */
+    public Map<String, Object> diff() {
+        String output = run("summary.diff", "scale=KB");
+        if (!output.contains("Total:")) {
+            throw new IllegalStateException("No NMT baseline to compare with; POST /monitor/native-memory/baseline first ("
+                    + output.trim() + ")");
+        }
+        Map<String, Object> result = header();
+        result.putAll(Snapshot.parse(output, true).toMap());
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：最近 windowMillis 内的采样序列，降采样到最多 maxPoints 个点（桶内取均值），并给出窗口内各类别 committed 的增长量。
+     * English: Samples within the last windowMillis, downsampled to at most maxPoints (bucket averages), plus the committed growth of each category over the window.
+     *
+     * 参数 / Parameters:
+     * @param windowMillis 中文：时间窗口（毫秒） / English: Time window in milliseconds
+     * @param maxPoints 中文：最大返回点数 / English: Maximum number of points
+     *
+     * 返回值 / Return: 中文：列式序列（KB） / English: Columnar series in KB
+     *
+     * 异常 / Exceptions: 中文：NMT 未开启时抛出 IllegalStateException / English: IllegalStateException when NMT is off
+     */
+    public Map<String, Object> history(long windowMillis, int maxPoints) {
+        requireEnabled();
+        long[] window;
+        synchronized (rows) {
+            int available = (int) Math.min(written, capacity);
+            long newest = available == 0 ? 0 : rows[(int) ((written - 1) % capacity) * WIDTH + COL_TIMESTAMP];
+            int count = 0;
+            while (count < available
+                    && newest - rows[(int) ((written - 1 - count) % capacity) * WIDTH + COL_TIMESTAMP] <= windowMillis) {
+                count++;
+            }
+            window = new long[count * WIDTH];
+            for (int r = 0; r < count; r++) {
+                System.arraycopy(rows, (int) ((written - count + r) % capacity) * WIDTH, window, r * WIDTH, WIDTH);
+            }
+        }
+        int count = window.length / WIDTH;
+        int points = Math.max(0, Math.min(Math.max(1, maxPoints), count));
+        long[][] buckets = new long[points][WIDTH];
+        int start = 0;
+        for (int p = 0; p < points; p++) {
+            int end = (int) ((long) count * (p + 1) / points);
+            int size = Math.max(1, end - start);
+            for (int r = start; r < start + size; r++) {
+                for (int c = 0; c < WIDTH; c++) {
+                    buckets[p][c] += window[r * WIDTH + c];
+                }
+            }
+            for (int c = 0; c < WIDTH; c++) {
+                buckets[p][c] /= size;
+            }
+            buckets[p][COL_TIMESTAMP] = window[(start + size - 1) * WIDTH + COL_TIMESTAMP];
+            start += size;
+        }
+
+        Map<String, Object> result = header();
+        result.put("intervalMs", intervalMillis);
+        result.put("capacity", capacity);
+        result.put("rowsInWindow", count);
+        result.put("points", points);
+        result.put("timestamp", column(buckets, COL_TIMESTAMP));
+        result.put("totalReservedKb", column(buckets, COL_RESERVED));
+        result.put("totalCommittedKb", column(buckets, COL_COMMITTED));
+        Map<String, Object> categories = new LinkedHashMap<>();
+        Map<String, Object> growth = new LinkedHashMap<>();
+        growth.put("Total", count == 0 ? 0 : window[(count - 1) * WIDTH + COL_COMMITTED] - window[COL_COMMITTED]);
+        for (int i = 0; i < TRACKED.length; i++) {
+            categories.put(TRACKED[i], column(buckets, CATEGORY_BASE + i));
+            growth.put(TRACKED[i], count == 0 ? 0
+                    : window[(count - 1) * WIDTH + CATEGORY_BASE + i] - window[CATEGORY_BASE + i]);
+        }
+        result.put("committedKb", categories);
+        result.put("committedGrowthKb", growth);
+        if (samplingFailure != null) {
+            result.put("samplingFailure", samplingFailure);
+        }
+        return result;
+    }
+
+    /** 定时任务入口：吞掉所有 Throwable，避免 ScheduledExecutorService 静默取消后续调度。 */
+    private void tick() {
+        try {
+            record(Snapshot.parse(run("summary", "scale=KB"), false), System.currentTimeMillis());
+            samplingFailure = null;
+        } catch (Throwable t) {
+            if (samplingFailure == null) {
+                log.warn("NMT 采样失败 Native memory sampling failed: {}", t.toString());
+            }
+            samplingFailure = t.toString();
+        }
+    }
+
+    void record(Snapshot snapshot, long timestampMillis) {
+        synchronized (rows) {
+            int base = (int) (written % capacity) * WIDTH;
+            rows[base + COL_TIMESTAMP] = timestampMillis;
+            rows[base + COL_RESERVED] = snapshot.totalReservedKb;
+            rows[base + COL_COMMITTED] = snapshot.totalCommittedKb;
+            for (int i = 0; i < TRACKED.length; i++) {
+                rows[base + CATEGORY_BASE + i] = Math.max(0, snapshot.committed(TRACKED[i]));
+            }
+            written++;
+        }
+    }
+
+    private Map<String, Object> header() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("scale", "KB");
+        result.put("baselineAt", baselineAt == null ? null : baselineAt.toString());
+        return result;
+    }
+
+    private String run(String... args) {
+        requireEnabled();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            return (String) server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "vmNativeMemory",
+                    new Object[]{args}, new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            throw new IllegalStateException("VM.native_memory unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!isEnabled()) {
+            throw new IllegalStateException(NOT_ENABLED);
+        }
+    }
+
+    private static long[] column(long[][] buckets, int column) {
+        long[] values = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            values[i] = buckets[i][column];
+        }
+        return values;
+    }
+
+    private static String detectMode() {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption("NativeMemoryTracking").getValue();
+        } catch (IllegalArgumentException e) {
+            return "off";
+        }
+    }
+
+    /**
+     * 类说明 / Class Description:
+     * 中文：一次 summary 或 summary.diff 输出的解析结果，类别与数值以并行数组保存；diff 输出额外带有增量列。
+     * English: Parsed summary or summary.diff output with categories and values as parallel arrays; diff output adds delta columns.
+     */
+    static final class Snapshot {
+
+        private static final Pattern TOTAL = Pattern.compile(
+                "^Total: reserved=(\\d+)KB(?: ([+-]\\d+)KB)?, committed=(\\d+)KB(?: ([+-]\\d+)KB)?");
+        private static final Pattern CATEGORY = Pattern.compile(
+                "^-\\s+(.+?) \\(reserved=(\\d+)KB(?: ([+-]\\d+)KB)?, committed=(\\d+)KB(?: ([+-]\\d+)KB)?\\)");
+
+        long totalReservedKb;
+        long totalCommittedKb;
+        long totalReservedDeltaKb;
+        long totalCommittedDeltaKb;
+        boolean diff;
+        String[] categories = new String[0];
+        long[] reservedKb = new long[0];
+        long[] committedKb = new long[0];
+        long[] reservedDeltaKb = new long[0];
+        long[] committedDeltaKb = new long[0];
+
+        /**
+         * 方法说明 / Method Description:
+         * 中文：解析 scale=KB 的 NMT 输出，只读取 Total 行与以 "-" 开头的类别行，忽略 malloc/mmap 等明细行。
+         * English: Parse NMT output at scale=KB, reading only the Total line and category lines starting with "-", ignoring malloc/mmap detail lines.
+         *
+         * 参数 / Parameters:
+         * @param output 中文：jcmd 输出 / English: jcmd output
+         * @param diff 中文：是否为 summary.diff 输出 / English: Whether this is summary.diff output
+         *
+         * 返回值 / Return: 中文：解析结果 / English: Parsed snapshot
+         *
+         * 异常 / Exceptions: 中文：找不到 Total 行时抛出 IllegalStateException / English: IllegalStateException when there is no Total line
+         */
+        static Snapshot parse(String output, boolean diff) {
+            Snapshot snapshot = new Snapshot();
+            snapshot.diff = diff;
+            boolean total = false;
+            int size = 0;
+            for (String line : output.split("\\R")) {
+                Matcher matcher = TOTAL.matcher(line);
+                if (matcher.find()) {
+                    total = true;
+                    snapshot.totalReservedKb = Long.parseLong(matcher.group(1));
+                    snapshot.totalReservedDeltaKb = delta(matcher.group(2));
+                    snapshot.totalCommittedKb = Long.parseLong(matcher.group(3));
+                    snapshot.totalCommittedDeltaKb = delta(matcher.group(4));
+                    continue;
+                }
+                matcher = CATEGORY.matcher(line);
+                if (!matcher.find()) {
+                    continue;
+                }
+                if (size == snapshot.categories.length) {
+                    int grown = Math.max(16, size * 2);
+                    snapshot.categories = Arrays.copyOf(snapshot.categories, grown);
+                    snapshot.reservedKb = Arrays.copyOf(snapshot.reservedKb, grown);
+                    snapshot.committedKb = Arrays.copyOf(snapshot.committedKb, grown);
+                    snapshot.reservedDeltaKb = Arrays.copyOf(snapshot.reservedDeltaKb, grown);
+                    snapshot.committedDeltaKb = Arrays.copyOf(snapshot.committedDeltaKb, grown);
+                }
+                snapshot.categories[size] = matcher.group(1).trim();
+                snapshot.reservedKb[size] = Long.parseLong(matcher.group(2));
+                snapshot.reservedDeltaKb[size] = delta(matcher.group(3));
+                snapshot.committedKb[size] = Long.parseLong(matcher.group(4));
+                snapshot.committedDeltaKb[size] = delta(matcher.group(5));
+                size++;
+            }
+            if (!total) {
+                throw new IllegalStateException("Unexpected VM.native_memory output: "
+                        + output.substring(0, Math.min(200, output.length())).trim());
+            }
+            snapshot.categories = Arrays.copyOf(snapshot.categories, size);
+            snapshot.reservedKb = Arrays.copyOf(snapshot.reservedKb, size);
+            snapshot.committedKb = Arrays.copyOf(snapshot.committedKb, size);
+            snapshot.reservedDeltaKb = Arrays.copyOf(snapshot.reservedDeltaKb, size);
+            snapshot.committedDeltaKb = Arrays.copyOf(snapshot.committedDeltaKb, size);
+            return snapshot;
+        }
+
+        long committed(String category) {
+            for (int i = 0; i < categories.length; i++) {
+                if (categories[i].equals(category)) {
+                    return committedKb[i];
+                }
+            }
+            return -1;
+        }
+
+        /** 类别按 committed（diff 时按 committed 增量）降序输出。 */
+        Map<String, Object> toMap() {
+            Integer[] order = new Integer[categories.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, diff
+                    ? (a, b) -> Long.compare(committedDeltaKb[b], committedDeltaKb[a])
+                    : (a, b) -> Long.compare(committedKb[b], committedKb[a]));
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i : order) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("category", categories[i]);
+                row.put("reservedKb", reservedKb[i]);
+                row.put("committedKb", committedKb[i]);
+                if (diff) {
+                    row.put("reservedDeltaKb", reservedDeltaKb[i]);
+                    row.put("committedDeltaKb", committedDeltaKb[i]);
+                }
+                rows.add(row);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("totalReservedKb", totalReservedKb);
+            result.put("totalCommittedKb", totalCommittedKb);
+            if (diff) {
+                result.put("totalReservedDeltaKb", totalReservedDeltaKb);
+                result.put("totalCommittedDeltaKb", totalCommittedDeltaKb);
+            }
+            result.put("categories", rows);
+            return result;
+        }
+
+        private static long delta(String value) {
+            return value == null ? 0 : Long.parseLong(value);
+        }
+    }
+}
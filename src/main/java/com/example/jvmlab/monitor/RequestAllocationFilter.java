@@ -0,0 +1,176 @@
+package com.example.jvmlab.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：逐请求分配与 CPU 记账过滤器：在请求前后读取当前线程的已分配字节数与 CPU 时间，按“方法 + 路由模板”记录到 Micrometer 分布摘要，可选写入响应头。
+ * English: Per-request allocation and CPU accounting filter: reads the current thread's allocated bytes and CPU time around each request and records them per "method + route template" in Micrometer distribution summaries, optionally adding response headers.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：把每个实验接口变成分配基准，例如直接比较 chapter05 memory-churn 与 chapter03 tlab-demo 每次调用分配了多少字节；
+ *      通过 /actuator/metrics/jvm.lab.request.allocated?tag=uri:... 或 /actuator/prometheus 查看。
+ * English: Turn every lab endpoint into an allocation benchmark, e.g. compare how many bytes chapter05 memory-churn and chapter03 tlab-demo allocate per call;
+ *      inspect via /actuator/metrics/jvm.lab.request.allocated?tag=uri:... or /actuator/prometheus.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：getCurrentThreadAllocatedBytes 读取的是 TLAB 统计，本身不分配、开销在百纳秒级；uri 标签使用路由模板而非原始路径，避免路径变量造成标签爆炸。
+ *      统计只覆盖请求线程：SSE、DeferredResult 等异步处理在其它线程上的分配不计入。
+ *      摘要默认只含 count/total/max；需要分位数时用 management.metrics.distribution.percentiles-histogram.jvm.lab.request.allocated=true 开启直方图。
+ * English: getCurrentThreadAllocatedBytes reads TLAB accounting, allocates nothing and costs on the order of 100ns; the uri tag uses the route template rather than the raw path so path variables cannot explode tag cardinality.
+ *      Only the request thread is measured: allocations made on other threads by SSE or DeferredResult handlers are not included.
+ *      Summaries carry count/total/max by default; enable histograms with management.metrics.distribution.percentiles-histogram.jvm.lab.request.allocated=true when percentiles are needed.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.allocation.filter=false 关闭记账；请求携带 X-Allocation-Accounting: headers（或 -Djvm.lab.allocation.headers=true 全局开启）时
+ *      写入 X-Allocated-Bytes / X-Cpu-Time-Micros 响应头。加头需要缓冲整个响应体，缓冲本身的分配也会计入；Accept 为 text/event-stream 的请求不加头，
+ *      其它流式接口也不应开启。
+ * English: -Djvm.lab.allocation.filter=false disables accounting; requests sending X-Allocation-Accounting: headers (or all requests with -Djvm.lab.allocation.headers=true)
+ *      get X-Allocated-Bytes / X-Cpu-Time-Micros response headers. Headers require buffering the whole body, and that buffering is counted too; requests accepting
+ *      text/event-stream never get headers, and other streaming endpoints should not opt in.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestAllocationFilter extends OncePerRequestFilter {
+
+    public static final String ALLOCATED_METRIC = "jvm.lab.request.allocated";
+    public static final String CPU_METRIC = "jvm.lab.request.cpu";
+    public static final String ALLOCATED_HEADER = "X-Allocated-Bytes";
+    public static final String CPU_HEADER = "X-Cpu-Time-Micros";
+    public static final String REQUEST_HEADER = "X-Allocation-Accounting";
+    private static final String UNMATCHED = "UNMATCHED";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final boolean headers;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final boolean cpuSupported;
+    private final Map<String, DistributionSummary[]> meters = new ConcurrentHashMap<>();
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，按系统属性决定是否启用记账与响应头。
+     * English: Constructor deciding from system properties whether accounting and headers are enabled.
+     *
+     * 参数 / Parameters:
+     * @param registry 中文：Micrometer 注册表 / English: Micrometer registry
+     */
+    @Autowired
+    public RequestAllocationFilter(MeterRegistry registry) {
+        this(registry,
+                !"false".equalsIgnoreCase(System.getProperty("jvm.lab.allocation.filter")),
+                Boolean.getBoolean("jvm.lab.allocation.headers"));
+    }
+
+    RequestAllocationFilter(MeterRegistry registry, boolean enabled, boolean headers) {
+        this.registry = registry;
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        boolean allocationSupported = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+        this.threadBean = allocationSupported ? (com.sun.management.ThreadMXBean) bean : null;
+        this.cpuSupported = allocationSupported && bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled();
+        this.enabled = enabled && allocationSupported;
+        this.headers = headers;
+        if (enabled && !allocationSupported) {
+            log.warn("当前 JVM 不支持线程分配统计，逐请求分配记账已关闭 / Thread allocation accounting unsupported, request accounting disabled");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：记录请求前后的线程分配字节与 CPU 时间差；开启响应头时先缓冲响应体，待增量算出后再写出。
+     * English: Record the thread's allocated-bytes and CPU-time deltas around the request; with headers enabled the body is buffered until the deltas are known.
+     *
+     * 参数 / Parameters:
+     * @param request 中文：请求 / English: Request
+     * @param response 中文：响应 / English: Response
+     * @param filterChain 中文：过滤器链 / English: Filter chain
+     *
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 中文：透传下游异常 / English: Propagates downstream exceptions
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = wantsHeaders(request)
+                ? new ContentCachingResponseWrapper(response) : null;
+        long cpuBefore = cpuSupported ? threadBean.getCurrentThreadCpuTime() : 0;
+        long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long cpuNanos = cpuSupported ? threadBean.getCurrentThreadCpuTime() - cpuBefore : -1;
+            record(request, allocated, cpuNanos);
+            if (buffered != null) {
+                // 中文：响应体尚未提交，此时仍可写头
+                // English: The body has not been committed yet, so headers can still be set
+                buffered.setHeader(ALLOCATED_HEADER, Long.toString(allocated));
+                if (cpuNanos >= 0) {
+                    buffered.setHeader(CPU_HEADER, Long.toString(cpuNanos / 1_000));
+                }
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long allocatedBytes, long cpuNanos) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNMATCHED;
+        String method = request.getMethod();
+        DistributionSummary[] summaries = meters.computeIfAbsent(method + ' ' + uri, key -> new DistributionSummary[]{
+                DistributionSummary.builder(ALLOCATED_METRIC)
+                        .description("Bytes allocated by the request thread / 请求线程分配的字节数")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tags("method", method, "uri", uri)
+                        .register(registry),
+                DistributionSummary.builder(CPU_METRIC)
+                        .description("CPU time consumed by the request thread / 请求线程消耗的 CPU 时间")
+                        .baseUnit("milliseconds")
+                        .tags("method", method, "uri", uri)
+                        .register(registry)
+        });
+        summaries[0].record(Math.max(0, allocatedBytes));
+        if (cpuNanos >= 0) {
+            summaries[1].record(cpuNanos / 1_000_000d);
+        }
+    }
+
+    private boolean wantsHeaders(HttpServletRequest request) {
+        if (!headers && !"headers".equalsIgnoreCase(request.getHeader(REQUEST_HEADER))) {
+            return false;
+        }
+        // 中文：缓冲包装会吞掉 flush，事件流会被攒到请求结束才发出
+        // English: The buffering wrapper swallows flushes, so an event stream would be held back until the request ends
+        String accept = request.getHeader("Accept");
+        return accept == null || !accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+}
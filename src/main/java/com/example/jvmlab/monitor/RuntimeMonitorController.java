@@ -1,9 +1,13 @@
 package com.example.jvmlab.monitor;
 
+import com.example.jvmlab.common.CgroupResourceReporter;
+import com.example.jvmlab.common.DirectBufferTracker;
 import com.example.jvmlab.common.JvmMemoryMonitor;
+import com.example.jvmlab.common.JvmMetricsSampler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.LinkedHashMap;
@@ -48,4 +52,55 @@ public class RuntimeMonitorController {
         result.put("leakRisk", JvmMemoryMonitor.detectMemoryLeakRisk());
         return result;
     }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回最近时间窗口内的堆、内存池、缓冲池、GC 增量与线程数序列，按点数上限降采样。
+     * English: Return heap, pool, buffer pool, GC delta and thread series for a recent window, downsampled to a point limit.
+     *
+     * 参数 / Parameters:
+     * @param window 中文：时间窗口（秒） / English: Time window in seconds
+     * @param points 中文：最大返回点数 / English: Maximum number of points
+     *
+     * 返回值 / Return: 中文：列式时间序列 Map / English: Columnar time-series map
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/history")
+    public Map<String, Object> history(@RequestParam(defaultValue = "300") long window,
+                                       @RequestParam(defaultValue = "120") int points) {
+        log.info("查询监控历史序列 Monitor history requested, window={}s points={}", window, points);
+        long windowMillis = Math.max(1, window) * 1000L;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowSec", Math.max(1, window));
+        result.putAll(JvmMetricsSampler.getInstance().getHistory().query(windowMillis, points));
+        return result;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回 direct 缓冲池总量，以及经 {@link DirectBufferTracker} 分配的直接缓冲区按标签的归属。
+     * English: Return the direct buffer pool totals and the per-tag attribution of buffers allocated through {@link DirectBufferTracker}.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：按存活字节降序的标签统计与对账结果 / English: Tag statistics ordered by live bytes plus reconciliation totals
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/buffer-pools")
+    public Map<String, Object> bufferPools() {
+        return DirectBufferTracker.snapshot();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回 cgroup 内存/CPU 上限与用量、JVM 各区域上限，以及最坏占用超过容器上限等告警。
+     * English: Return cgroup memory/CPU limits and usage, JVM area limits, and warnings such as a worst-case footprint above the container limit.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：容器资源报告 / English: Container resource report
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/container")
+    public Map<String, Object> container() {
+        return new CgroupResourceReporter().report();
+    }
 }
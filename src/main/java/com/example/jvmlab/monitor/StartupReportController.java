@@ -0,0 +1,66 @@
+package com.example.jvmlab.monitor;
+
+import com.example.jvmlab.config.JvmStartupReport;
+import com.example.jvmlab.config.LabModuleActivationTracker;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：启动报告控制器：返回 {@link JvmStartupReport} 在 ApplicationReadyEvent 时刻采集的启动耗时、类加载数、JIT 编译耗时，以及最慢的 Bean 与启动阶段。
+ * English: Startup report controller: returns the startup timing, class loading counts, JIT compilation time and the slowest beans and startup phases captured by {@link JvmStartupReport} at ApplicationReadyEvent.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：决定把哪些 Bean 改成懒加载、配合 AppCDS 与 lazy-init 对比启动优化效果。
+ * English: Decide which beans to make lazy and compare startup optimisations such as AppCDS and lazy-init.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：数据在就绪时采集一次，请求只对保存的时间线重新排序，不会再触发任何启动开销。
+ * English: Data is captured once at ready; requests only re-rank the stored timeline and add no startup cost.
+ */
+@RestController
+@RequestMapping("/monitor/startup")
+public class StartupReportController {
+
+    private final JvmStartupReport startupReport;
+    private final LabModuleActivationTracker moduleTracker;
+
+    public StartupReportController(JvmStartupReport startupReport, LabModuleActivationTracker moduleTracker) {
+        this.startupReport = startupReport;
+        this.moduleTracker = moduleTracker;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回启动报告。
+     * English: Return the startup report.
+     *
+     * 参数 / Parameters:
+     * @param top 中文：最慢 Bean / 阶段各返回的条数 / English: Number of slowest beans and phases to return
+     *
+     * 返回值 / Return: 中文：启动报告 / English: Startup report
+     * 异常 / Exceptions: 中文：应用尚未就绪时抛出 IllegalStateException / English: IllegalStateException before the application is ready
+     */
+    @GetMapping
+    public Map<String, Object> startup(@RequestParam(defaultValue = "20") int top) {
+        return startupReport.getStartupReport(Math.min(Math.max(1, top), 500));
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回各实验模块的激活状态：lazy 配置下未被请求过的章节保持未激活，首次请求后给出激活耗时与新加载类数。
+     * English: Return each lab module's activation state: under the lazy profile chapters never requested stay inactive, and after the first request the activation time and classes loaded are reported.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：模块激活状态 / English: Module activation state
+     * 异常 / Exceptions: 无
+     */
+    @GetMapping("/modules")
+    public Map<String, Object> modules() {
+        return moduleTracker.snapshot();
+    }
+}
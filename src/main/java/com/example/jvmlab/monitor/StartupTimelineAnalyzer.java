@@ -0,0 +1,129 @@
+package com.example.jvmlab.monitor;
+
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：启动时间线分析器：把 BufferingApplicationStartup 记录的步骤拆成 Bean 实例化与其他阶段两类，按耗时排序给出最慢的 Bean 与阶段。
+ * English: Startup timeline analyzer: splits the steps recorded by BufferingApplicationStartup into bean instantiation and other phases and ranks the slowest beans and phases.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：/monitor/startup 与启动日志据此指出该把哪些 Bean 改成懒加载、哪个阶段（环境准备、Bean 后处理、Web 服务器创建等）最拖慢启动。
+ * English: /monitor/startup and the startup log use it to point out which beans to make lazy and which phase (environment preparation, bean post-processing, web server creation, ...) slows startup the most.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：spring.beans.instantiate 步骤的耗时包含其依赖 Bean 的创建，因此同时给出 total（含子步骤）与 self（扣除直接子步骤）；按 self 排序才能定位真正慢的 Bean。
+ * English: A spring.beans.instantiate step's duration includes creating its dependencies, so both total (with child steps) and self (minus direct child steps) are reported; ranking by self finds the beans that are actually slow.
+ */
+public final class StartupTimelineAnalyzer {
+
+    static final String BEAN_STEP = "spring.beans.instantiate";
+
+    private StartupTimelineAnalyzer() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：分析时间线：slowestBeans（按 self 排序）、slowestPhases（非 Bean 步骤按 total 排序）、phasesByName（同名步骤聚合）与步骤总数。
+     * English: Analyze a timeline: slowestBeans (ranked by self time), slowestPhases (non-bean steps ranked by total), phasesByName (steps aggregated by name) and the step count.
+     *
+     * 参数 / Parameters:
+     * @param timeline 中文：缓冲的启动时间线 / English: Buffered startup timeline
+     * @param top 中文：每个列表返回的条数 / English: Entries returned per list
+     *
+     * 返回值 / Return: 中文：分析结果 / English: Analysis result
+     * 异常 / Exceptions: 无
+     */
+    public static Map<String, Object> analyze(StartupTimeline timeline, int top) {
+        int limit = Math.max(1, top);
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+        // 中文：先累加每个步骤直接子步骤的耗时，用于计算 self 时间
+        // English: Sum the durations of each step's direct children first to derive self time
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null) {
+                childNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+        List<Map<String, Object>> beans = new ArrayList<>();
+        List<Map<String, Object>> phases = new ArrayList<>();
+        Map<String, long[]> byName = new LinkedHashMap<>();
+        long beanSelfNanos = 0;
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            long total = event.getDuration().toNanos();
+            long self = Math.max(0, total - childNanos.getOrDefault(step.getId(), 0L));
+            Map<String, Object> entry = new LinkedHashMap<>();
+            if (BEAN_STEP.equals(step.getName())) {
+                beanSelfNanos += self;
+                entry.put("bean", tag(step, "beanName"));
+                String type = tag(step, "beanType");
+                if (type != null) {
+                    entry.put("type", type);
+                }
+            } else {
+                entry.put("phase", step.getName());
+                Map<String, String> tags = new LinkedHashMap<>();
+                step.getTags().forEach(tag -> tags.put(tag.getKey(), tag.getValue()));
+                if (!tags.isEmpty()) {
+                    entry.put("tags", tags);
+                }
+                long[] aggregate = byName.computeIfAbsent(step.getName(), ignored -> new long[3]);
+                aggregate[0]++;
+                aggregate[1] += total;
+                aggregate[2] += self;
+            }
+            entry.put("totalMs", millis(total));
+            entry.put("selfMs", millis(self));
+            entry.put("startOffsetMs", millis(Duration.between(timeline.getStartTime(), event.getStartTime()).toNanos()));
+            (BEAN_STEP.equals(step.getName()) ? beans : phases).add(entry);
+        }
+        beans.sort(Comparator.comparingDouble((Map<String, Object> entry) -> (double) entry.get("selfMs")).reversed());
+        phases.sort(Comparator.comparingDouble((Map<String, Object> entry) -> (double) entry.get("totalMs")).reversed());
+        List<Map<String, Object>> aggregated = new ArrayList<>();
+        byName.forEach((name, aggregate) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("phase", name);
+            entry.put("count", aggregate[0]);
+            entry.put("totalMs", millis(aggregate[1]));
+            entry.put("selfMs", millis(aggregate[2]));
+            aggregated.add(entry);
+        });
+        aggregated.sort(Comparator.comparingDouble((Map<String, Object> entry) -> (double) entry.get("selfMs")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startTime", timeline.getStartTime());
+        result.put("steps", events.size());
+        result.put("beansInstantiated", beans.size());
+        result.put("beanSelfMsTotal", millis(beanSelfNanos));
+        result.put("slowestBeans", beans.subList(0, Math.min(limit, beans.size())));
+        result.put("slowestPhases", phases.subList(0, Math.min(limit, phases.size())));
+        result.put("phasesByName", aggregated.subList(0, Math.min(limit, aggregated.size())));
+        return result;
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    /** 纳秒转毫秒，保留两位小数。 */
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.jvmlab.profiler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：内置分析器控制器：按需运行采样式 CPU 分析（同步最长 60 秒，或 start/snapshot/stop 后台模式），输出火焰图所需的 collapsed-stack 文本或 JSON 统计。
+ * English: Built-in profiler controller: runs an on-demand sampling CPU profile (synchronous up to 60 s, or the start/snapshot/stop background mode) and returns collapsed-stack text for flame graphs or JSON stats.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：curl 'localhost:1234/jvm-lab/profiler/cpu?durationSec=10' > cpu.collapsed，再执行 flamegraph.pl cpu.collapsed > cpu.svg。
+ * English: curl 'localhost:1234/jvm-lab/profiler/cpu?durationSec=10' > cpu.collapsed, then flamegraph.pl cpu.collapsed > cpu.svg.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：控制器只做参数绑定与格式选择，采样与聚合由 {@link SamplingProfiler} 负责。
+ * English: The controller only binds parameters and picks the format; sampling and aggregation belong to {@link SamplingProfiler}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/profiler")
+public class ProfilerController {
+
+    private final SamplingProfiler profiler;
+
+    public ProfilerController(SamplingProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在请求线程上同步采样 durationSec 秒（最长 60 秒，避免长时间占用 Tomcat 工作线程）；format=collapsed（默认）返回纯文本 collapsed 栈，format=json 返回统计、热点帧与 collapsed 文本。
+     * English: Sample synchronously on the request thread for durationSec (at most 60 s so a Tomcat worker is not held for long); format=collapsed (default) returns plain collapsed stacks, format=json returns stats, hot frames and the collapsed text.
+     *
+     * 参数 / Parameters:
+     * @param durationSec 中文：采样时长（1..60 秒） / English: Sampling duration (1..60 s)
+     * @param intervalMs 中文：采样间隔（毫秒） / English: Sampling interval in milliseconds
+     * @param threads 中文：线程名正则，如 http-nio.* / English: Thread name regex, e.g. http-nio.*
+     * @param maxDepth 中文：最大栈深 / English: Max stack depth
+     * @param perThread 中文：是否按线程名分根 / English: Whether to root stacks by thread name
+     * @param includeIdle 中文：是否包含等待中的线程 / English: Whether to include waiting threads
+     * @param format 中文：collapsed 或 json / English: collapsed or json
+     *
+     * 返回值 / Return: 中文：collapsed 文本或统计 JSON / English: Collapsed text or stats JSON
+     *
+     * 异常 / Exceptions:
+     * 中文：参数非法抛出 IllegalArgumentException；已有分析运行中抛出 IllegalStateException
+     * English: IllegalArgumentException for invalid parameters; IllegalStateException when a profile is already running
+     */
+    @GetMapping("/cpu")
+    public ResponseEntity<?> cpu(@RequestParam(defaultValue = "10") long durationSec,
+                                 @RequestParam(defaultValue = "20") long intervalMs,
+                                 @RequestParam(required = false) String threads,
+                                 @RequestParam(defaultValue = "64") int maxDepth,
+                                 @RequestParam(defaultValue = "false") boolean perThread,
+                                 @RequestParam(defaultValue = "false") boolean includeIdle,
+                                 @RequestParam(defaultValue = "collapsed") String format) {
+        checkFormat(format);
+        return render(profiler.profile(durationSec, intervalMs, threads, maxDepth, perThread, includeIdle), format);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在后台线程开始采样并立即返回状态；durationSec=0 表示一直运行到 stop，适合长时间开着、按需取快照。
+     * English: Start sampling on a background thread and return its status at once; durationSec=0 runs until stop, suited to leaving it on and taking snapshots on demand.
+     *
+     * 参数 / Parameters:
+     * @param durationSec 中文：采样时长（秒），0 表示直到 stop / English: Sampling duration in seconds, 0 until stop
+     * @param intervalMs 中文：采样间隔（毫秒） / English: Sampling interval in milliseconds
+     * @param threads 中文：线程名正则 / English: Thread name regex
+     * @param maxDepth 中文：最大栈深 / English: Max stack depth
+     * @param perThread 中文：是否按线程名分根 / English: Whether to root stacks by thread name
+     * @param includeIdle 中文：是否包含等待中的线程 / English: Whether to include waiting threads
+     *
+     * 返回值 / Return: 中文：后台分析状态 / English: Background profile status
+     *
+     * 异常 / Exceptions:
+     * 中文：参数非法抛出 IllegalArgumentException；已有分析运行中抛出 IllegalStateException
+     * English: IllegalArgumentException for invalid parameters; IllegalStateException when a profile is already running
+     */
+    @PostMapping("/cpu/start")
+    public Map<String, Object> start(@RequestParam(defaultValue = "0") long durationSec,
+                                     @RequestParam(defaultValue = "50") long intervalMs,
+                                     @RequestParam(required = false) String threads,
+                                     @RequestParam(defaultValue = "64") int maxDepth,
+                                     @RequestParam(defaultValue = "false") boolean perThread,
+                                     @RequestParam(defaultValue = "false") boolean includeIdle) {
+        return profiler.start(durationSec, intervalMs, threads, maxDepth, perThread, includeIdle);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回后台分析到目前为止的结果，不停止采样。
+     * English: Return the background profile so far without stopping it.
+     *
+     * 参数 / Parameters:
+     * @param format 中文：collapsed 或 json / English: collapsed or json
+     *
+     * 返回值 / Return: 中文：collapsed 文本或统计 JSON / English: Collapsed text or stats JSON
+     * 异常 / Exceptions: 中文：从未启动后台分析时抛出 NoSuchElementException / English: NoSuchElementException when no background profile was started
+     */
+    @GetMapping("/cpu/snapshot")
+    public ResponseEntity<?> snapshot(@RequestParam(defaultValue = "collapsed") String format) {
+        checkFormat(format);
+        return render(profiler.snapshot(), format);
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：停止后台分析并返回最终结果。
+     * English: Stop the background profile and return the final result.
+     *
+     * 参数 / Parameters:
+     * @param format 中文：collapsed 或 json / English: collapsed or json
+     *
+     * 返回值 / Return: 中文：collapsed 文本或统计 JSON / English: Collapsed text or stats JSON
+     * 异常 / Exceptions: 中文：从未启动后台分析时抛出 NoSuchElementException / English: NoSuchElementException when no background profile was started
+     */
+    @PostMapping("/cpu/stop")
+    public ResponseEntity<?> stop(@RequestParam(defaultValue = "collapsed") String format) {
+        checkFormat(format);
+        return render(profiler.stop(), format);
+    }
+
+    private static void checkFormat(String format) {
+        if (!"collapsed".equalsIgnoreCase(format) && !"json".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("format must be collapsed or json: " + format);
+        }
+    }
+
+    /** 按 format 输出 collapsed 纯文本或完整 JSON。 */
+    private static ResponseEntity<?> render(Map<String, Object> profile, String format) {
+        if ("json".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(profile);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .header("X-Profile-Samples", String.valueOf(profile.get("samples")))
+                .body(profile.get("collapsed"));
+    }
+}
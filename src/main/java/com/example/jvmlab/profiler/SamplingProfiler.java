@@ -0,0 +1,402 @@
+package com.example.jvmlab.profiler;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：基于 ThreadMXBean 的采样式 CPU 分析器：按固定间隔抓取选中线程的栈，聚合进 {@link StackTrie}，导出 collapsed-stack 文本与热点帧。
+ * English: Sampling CPU profiler on ThreadMXBean: captures stacks of the selected threads at a fixed interval, aggregates them into a {@link StackTrie}, and exports collapsed-stack text plus hot frames.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：压测 /chapter05/cpu-hotspot 的同时调用 /profiler/cpu?durationSec=10&threads=http-nio.*，把结果交给 flamegraph.pl 或 speedscope 找出热点。
+ * English: Call /profiler/cpu?durationSec=10&threads=http-nio.* while loading /chapter05/cpu-hotspot, then feed the output to flamegraph.pl or speedscope to find the hotspot.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：开销有明确上界，可在生产环境使用：间隔不低于 10ms、同步分析不超过 60s（更长的分析在后台线程运行，可随时快照、一直开到 stop）、栈深与树节点/帧数封顶、同一时刻只允许一个分析任务；
+ *      线程名每秒解析一次，只对匹配的线程取栈。默认只计 RUNNABLE 且不在 NIO/Socket 原生等待中的线程，使结果近似 CPU 时间。
+ *      取栈需要进入安全点，结果带有安全点偏差，热点会偏向循环回边与方法返回处。
+ * English: Overhead is bounded so it can run in production: interval at least 10ms, synchronous profiles at most 60s (longer ones run on a background thread that can be snapshotted and left on until stop), capped stack depth and trie nodes/frames, and one profile at a time;
+ *      thread names are resolved once per second and only matching threads are walked. By default only RUNNABLE threads not parked in NIO/socket natives count, approximating CPU time.
+ *      Stack capture needs a safepoint, so results carry safepoint bias towards loop back-edges and method returns.
+ *
+ * 配置 / Configuration:
+ * 中文：-Djvm.lab.profiler.maxNodes=100000、-Djvm.lab.profiler.maxFrames=20000 控制聚合上限。
+ * English: -Djvm.lab.profiler.maxNodes=100000 and -Djvm.lab.profiler.maxFrames=20000 cap the aggregation.
+ */
+@Slf4j
+@Service
+public class SamplingProfiler {
+
+    static final long MIN_INTERVAL_MS = 10;
+    static final long MAX_INTERVAL_MS = 1_000;
+    /** 同步分析占用请求线程，时长必须远低于 Servlet/代理超时；更长的分析使用后台模式。 */
+    static final long MAX_DURATION_SEC = 60;
+    static final int MAX_DEPTH = 256;
+    private static final long THREAD_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long STOP_WAIT_MS = 2_000;
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final String[] IDLE_NATIVE_PREFIXES = {"sun.nio.ch.", "java.net.", "sun.nio.fs."};
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final int maxNodes = Integer.getInteger("jvm.lab.profiler.maxNodes", 100_000);
+    private final int maxFrames = Integer.getInteger("jvm.lab.profiler.maxFrames", 20_000);
+    /** 最近一次后台分析（运行中或已结束），供 snapshot/stop 读取。 */
+    private volatile Run background;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在调用线程上同步采样 durationSec 秒并返回聚合结果；调用线程自身不被采样。
+     * English: Sample synchronously on the calling thread for durationSec and return the aggregate; the calling thread itself is not sampled.
+     *
+     * 参数 / Parameters:
+     * @param durationSec 中文：采样时长（1..60 秒） / English: Sampling duration (1..60 s)
+     * @param intervalMs 中文：采样间隔（10..1000 毫秒） / English: Sampling interval (10..1000 ms)
+     * @param threadPattern 中文：线程名正则，空表示全部线程 / English: Thread name regex, blank for all threads
+     * @param maxDepth 中文：每个栈最多保留的帧数（1..256，保留栈顶） / English: Max frames kept per stack (1..256, top frames kept)
+     * @param perThread 中文：是否以线程名（数字归一为 #）作为根帧 / English: Whether to add the thread name (digits normalised to #) as the root frame
+     * @param includeIdle 中文：是否包含等待、阻塞与 NIO 原生等待中的线程 / English: Whether to include waiting, blocked and NIO-native-waiting threads
+     *
+     * 返回值 / Return: 中文：统计、热点帧与 collapsed 文本（键 collapsed） / English: Stats, hot frames and collapsed text (key collapsed)
+     *
+     * 异常 / Exceptions:
+     * 中文：参数越界或正则非法时抛出 IllegalArgumentException；已有分析在运行时抛出 IllegalStateException
+     * English: IllegalArgumentException for out-of-range parameters or an invalid regex; IllegalStateException when another profile is running
+     */
+    public Map<String, Object> profile(long durationSec, long intervalMs, String threadPattern, int maxDepth,
+                                       boolean perThread, boolean includeIdle) {
+        if (durationSec < 1 || durationSec > MAX_DURATION_SEC) {
+            throw new IllegalArgumentException("durationSec must be within [1, " + MAX_DURATION_SEC
+                    + "]; use POST /profiler/cpu/start for longer profiles: " + durationSec);
+        }
+        Run run = newRun(durationSec, intervalMs, threadPattern, maxDepth, perThread, includeIdle);
+        try {
+            log.info("开始 CPU 采样 Profiling CPU for {}s every {}ms, threads={}", durationSec, intervalMs, threadPattern);
+            run.loop();
+            return run.report();
+        } finally {
+            busy.set(false);
+        }
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：在后台守护线程上开始采样，立即返回；durationSec=0 表示一直运行到 stop。运行期间可随时 snapshot，聚合结构受节点/帧数上限约束，可长期开启。
+     * English: Start sampling on a background daemon thread and return immediately; durationSec=0 runs until stop. Snapshots can be taken at any time, and the aggregate is capped by the node/frame limits, so it can be left on.
+     *
+     * 参数 / Parameters:
+     * @param durationSec 中文：采样时长（秒），0 表示直到 stop / English: Sampling duration in seconds, 0 until stop
+     * @param intervalMs 中文：采样间隔（10..1000 毫秒） / English: Sampling interval (10..1000 ms)
+     * @param threadPattern 中文：线程名正则，空表示全部线程 / English: Thread name regex, blank for all threads
+     * @param maxDepth 中文：每个栈最多保留的帧数（1..256） / English: Max frames kept per stack (1..256)
+     * @param perThread 中文：是否以线程名作为根帧 / English: Whether to root stacks by thread name
+     * @param includeIdle 中文：是否包含等待中的线程 / English: Whether to include waiting threads
+     *
+     * 返回值 / Return: 中文：后台分析状态 / English: Background profile status
+     *
+     * 异常 / Exceptions:
+     * 中文：参数非法抛出 IllegalArgumentException；已有分析在运行时抛出 IllegalStateException
+     * English: IllegalArgumentException for invalid parameters; IllegalStateException when another profile is running
+     */
+    public Map<String, Object> start(long durationSec, long intervalMs, String threadPattern, int maxDepth,
+                                     boolean perThread, boolean includeIdle) {
+        if (durationSec < 0) {
+            throw new IllegalArgumentException("durationSec must be >= 0 (0 runs until stop): " + durationSec);
+        }
+        Run run = newRun(durationSec, intervalMs, threadPattern, maxDepth, perThread, includeIdle);
+        Thread thread = new Thread(() -> {
+            try {
+                run.loop();
+            } catch (RuntimeException e) {
+                log.warn("后台 CPU 采样异常结束 Background profile failed: {}", e.toString());
+            } finally {
+                busy.set(false);
+            }
+        }, "jvm-lab-profiler");
+        thread.setDaemon(true);
+        run.thread = thread;
+        background = run;
+        thread.start();
+        log.info("开始后台 CPU 采样 Background profiling every {}ms for {}, threads={}", intervalMs,
+                durationSec == 0 ? "until stop" : durationSec + "s", threadPattern);
+        return run.status();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：返回最近一次后台分析到目前为止的聚合结果，不停止采样。
+     * English: Return the aggregate of the latest background profile so far without stopping it.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：与 profile 相同结构的结果，另含 running / English: Same shape as profile, plus running
+     * 异常 / Exceptions: 中文：从未启动后台分析时抛出 NoSuchElementException / English: NoSuchElementException when no background profile was started
+     */
+    public Map<String, Object> snapshot() {
+        return requireBackground().report();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：停止后台分析并返回最终结果；已结束时直接返回其结果。
+     * English: Stop the background profile and return the final result; an already finished profile just returns its result.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：最终结果 / English: Final result
+     * 异常 / Exceptions: 中文：从未启动后台分析时抛出 NoSuchElementException / English: NoSuchElementException when no background profile was started
+     */
+    public Map<String, Object> stop() {
+        Run run = requireBackground();
+        run.requestStop();
+        try {
+            run.thread.join(STOP_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("后台 CPU 采样已停止 Background profile stopped");
+        return run.report();
+    }
+
+    /** 容器关闭时停止后台采样线程。 */
+    @PreDestroy
+    public void shutdown() {
+        Run run = background;
+        if (run != null) {
+            run.requestStop();
+        }
+    }
+
+    private Run requireBackground() {
+        Run run = background;
+        if (run == null) {
+            throw new NoSuchElementException("No background CPU profile; start one with POST /profiler/cpu/start");
+        }
+        return run;
+    }
+
+    /** 校验参数并占用唯一的分析名额；调用方负责在结束时释放 busy。 */
+    private Run newRun(long durationSec, long intervalMs, String threadPattern, int maxDepth,
+                       boolean perThread, boolean includeIdle) {
+        if (intervalMs < MIN_INTERVAL_MS || intervalMs > MAX_INTERVAL_MS) {
+            throw new IllegalArgumentException("intervalMs must be within [" + MIN_INTERVAL_MS + ", " + MAX_INTERVAL_MS + "]: " + intervalMs);
+        }
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth must be within [1, " + MAX_DEPTH + "]: " + maxDepth);
+        }
+        Pattern pattern = compile(threadPattern);
+        if (!busy.compareAndSet(false, true)) {
+            throw new IllegalStateException("A CPU profile is already running");
+        }
+        return new Run(TimeUnit.SECONDS.toNanos(durationSec), TimeUnit.MILLISECONDS.toNanos(intervalMs), pattern,
+                maxDepth, perThread, includeIdle);
+    }
+
+    /**
+     * 一次分析：采样循环在单个线程上运行，每个采样点的聚合与 report() 以本对象加锁，后台运行期间也能安全读取快照。
+     */
+    private final class Run {
+
+        private final long durationNanos;
+        private final long intervalNanos;
+        private final Pattern pattern;
+        private final int maxDepth;
+        private final boolean perThread;
+        private final boolean includeIdle;
+        private final StackTrie trie = new StackTrie(maxNodes, maxFrames);
+        private final Set<Long> seenThreads = new HashSet<>();
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private volatile boolean stopRequested;
+        private volatile Thread thread;
+        private volatile long samplerThreadId = -1;
+        private long cpuBefore = -1;
+        private long cpuAtEnd = -1;
+        private long endNanos;
+        private long ticks;
+        private long missedTicks;
+        private boolean interrupted;
+
+        private Run(long durationNanos, long intervalNanos, Pattern pattern, int maxDepth,
+                    boolean perThread, boolean includeIdle) {
+            this.durationNanos = durationNanos;
+            this.intervalNanos = intervalNanos;
+            this.pattern = pattern;
+            this.maxDepth = maxDepth;
+            this.perThread = perThread;
+            this.includeIdle = includeIdle;
+        }
+
+        private void requestStop() {
+            stopRequested = true;
+            Thread sampler = thread;
+            if (sampler != null) {
+                LockSupport.unpark(sampler);
+            }
+        }
+
+        private void loop() {
+            boolean cpuSupported = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+            long selfId = Thread.currentThread().getId();
+            samplerThreadId = selfId;
+            cpuBefore = cpuSupported ? threadBean.getCurrentThreadCpuTime() : -1;
+            int[] path = new int[maxDepth + 1];
+            long[] selected = new long[0];
+            long start = System.nanoTime();
+            // 中文：durationNanos=0 表示后台模式一直运行到 stop
+            // English: durationNanos == 0 means the background mode runs until stop
+            boolean bounded = durationNanos > 0;
+            long deadline = start + durationNanos;
+            long next = start;
+            long refreshAt = start;
+            while (!stopRequested && (!bounded || System.nanoTime() - deadline < 0)) {
+                long now = System.nanoTime();
+                if (now - refreshAt >= 0) {
+                    selected = selectThreads(pattern, selfId);
+                    refreshAt = now + THREAD_REFRESH_NANOS;
+                }
+                ThreadInfo[] infos = threadBean.getThreadInfo(selected, maxDepth);
+                synchronized (this) {
+                    for (ThreadInfo info : infos) {
+                        if (info == null || (!includeIdle && !isBusy(info))) {
+                            continue;
+                        }
+                        StackTraceElement[] stack = info.getStackTrace();
+                        if (stack.length == 0) {
+                            continue;
+                        }
+                        int length = 0;
+                        if (perThread) {
+                            path[length++] = trie.intern("[" + DIGITS.matcher(info.getThreadName()).replaceAll("#") + "]");
+                        }
+                        for (int i = stack.length - 1; i >= 0; i--) {
+                            path[length++] = trie.intern(stack[i].getClassName() + '.' + stack[i].getMethodName());
+                        }
+                        trie.add(path, length);
+                        seenThreads.add(info.getThreadId());
+                    }
+                    ticks++;
+                }
+                next += intervalNanos;
+                long wait = next - System.nanoTime();
+                if (wait < 0) {
+                    // 中文：取栈耗时超过间隔时跳过落后的采样点，而不是连续补采
+                    // English: When capture overruns the interval, skip the missed ticks instead of sampling back-to-back
+                    synchronized (this) {
+                        missedTicks += -wait / intervalNanos + 1;
+                    }
+                    next = System.nanoTime() + intervalNanos;
+                    wait = intervalNanos;
+                }
+                LockSupport.parkNanos(this, bounded ? Math.min(wait, Math.max(0, deadline - System.nanoTime())) : wait);
+                if (Thread.currentThread().isInterrupted()) {
+                    synchronized (this) {
+                        interrupted = true;
+                    }
+                    break;
+                }
+            }
+            synchronized (this) {
+                endNanos = System.nanoTime();
+                cpuAtEnd = cpuSupported ? threadBean.getCurrentThreadCpuTime() : -1;
+            }
+            log.info("CPU 采样结束 Profile finished: {} samples from {} threads, {} nodes", trie.getSamples(), seenThreads.size(), trie.getNodeCount());
+        }
+
+        private synchronized Map<String, Object> status() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("running", endNanos == 0);
+            status.put("startedAt", startedAt);
+            status.put("durationLimitSec", TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+            status.put("intervalMs", TimeUnit.NANOSECONDS.toMillis(intervalNanos));
+            status.put("threads", pattern == null ? null : pattern.pattern());
+            return status;
+        }
+
+        private synchronized Map<String, Object> report() {
+            boolean running = endNanos == 0;
+            long wallNanos = (running ? System.nanoTime() : endNanos) - startNanos;
+            long samplerCpuNanos = -1;
+            if (cpuBefore >= 0) {
+                long cpuNow = running ? threadBean.getThreadCpuTime(samplerThreadId) : cpuAtEnd;
+                samplerCpuNanos = cpuNow >= 0 ? cpuNow - cpuBefore : -1;
+            }
+            Map<String, Object> result = status();
+            result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(wallNanos));
+            result.put("ticks", ticks);
+            result.put("missedTicks", missedTicks);
+            result.put("threadsSampled", seenThreads.size());
+            result.put("samples", trie.getSamples());
+            result.put("truncatedSamples", trie.getTruncatedSamples());
+            result.put("nodes", trie.getNodeCount());
+            result.put("frames", trie.getFrameCount());
+            if (samplerCpuNanos >= 0 && wallNanos > 0) {
+                result.put("samplerCpuMs", TimeUnit.NANOSECONDS.toMillis(samplerCpuNanos));
+                result.put("overheadPercentOfOneCore", Math.round(samplerCpuNanos * 10_000d / wallNanos) / 100d);
+            }
+            result.put("interrupted", interrupted);
+            result.put("topSelfFrames", trie.topSelfFrames(20));
+            result.put("collapsed", trie.toCollapsed());
+            return result;
+        }
+    }
+
+    private long[] selectThreads(Pattern pattern, long selfId) {
+        long[] ids = threadBean.getAllThreadIds();
+        if (pattern == null) {
+            return Arrays.stream(ids).filter(id -> id != selfId).toArray();
+        }
+        // 中文：深度 0 只取线程名与状态，不遍历栈
+        // English: Depth 0 fetches names and states only, without walking stacks
+        return Arrays.stream(threadBean.getThreadInfo(ids, 0))
+                .filter(info -> info != null && info.getThreadId() != selfId && pattern.matcher(info.getThreadName()).matches())
+                .mapToLong(ThreadInfo::getThreadId)
+                .toArray();
+    }
+
+    private static boolean isBusy(ThreadInfo info) {
+        if (info.getThreadState() != Thread.State.RUNNABLE) {
+            return false;
+        }
+        StackTraceElement[] stack = info.getStackTrace();
+        if (stack.length == 0 || !stack[0].isNativeMethod()) {
+            return true;
+        }
+        // 中文：epoll/accept/socketRead 等原生等待在 JVM 看来是 RUNNABLE，但不消耗 CPU
+        // English: Native waits such as epoll/accept/socketRead look RUNNABLE to the JVM but burn no CPU
+        String className = stack[0].getClassName();
+        for (String prefix : IDLE_NATIVE_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Pattern compile(String threadPattern) {
+        if (threadPattern == null || threadPattern.isBlank()) {
+            return null;
+        }
+        try {
+            return Pattern.compile(threadPattern);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid thread pattern: " + e.getDescription());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.jvmlab.profiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类说明 / Class Description:
+ * 中文：采样栈的紧凑前缀树：帧名先驻留为 int ID，节点以并行数组（帧、父、首子、兄弟、自身样本数）存储，相同前缀的栈共享节点。
+ * English: Compact prefix trie of sampled stacks: frame names are interned to int IDs and nodes live in parallel arrays (frame, parent, first child, sibling, self samples), so stacks with a common prefix share nodes.
+ *
+ * 使用场景 / Use Cases:
+ * 中文：{@link SamplingProfiler} 每次采样把一条从根到叶的栈写入本树，结束后导出 collapsed-stack 文本供 flamegraph.pl / speedscope 绘制火焰图。
+ * English: {@link SamplingProfiler} adds one root-to-leaf stack per sample and exports collapsed-stack text for flamegraph.pl / speedscope when done.
+ *
+ * 设计目的 / Design Purpose:
+ * 中文：节点数与帧数都有上限：超出帧上限的新方法归入 "[other]"，节点用尽时样本计入已有的最深前缀并记为截断，内存占用与运行时长无关。
+ *      非线程安全，由采样线程独占写入。
+ * English: Both nodes and frames are capped: new methods beyond the frame cap map to "[other]", and once nodes run out a sample is charged to its deepest existing prefix and counted as truncated, so memory does not grow with run time.
+ *      Not thread-safe; written only by the sampling thread.
+ */
+final class StackTrie {
+
+    static final String OTHER_FRAME = "[other]";
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int maxNodes;
+    private final int maxFrames;
+    private final Map<String, Integer> frameIds = new HashMap<>();
+    private final List<String> frameNames = new ArrayList<>();
+
+    private int[] frame;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private long[] self;
+    private int size;
+    private long samples;
+    private long truncatedSamples;
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：构造函数，创建只含根节点的树。
+     * English: Constructor creating a trie holding only the root.
+     *
+     * 参数 / Parameters:
+     * @param maxNodes 中文：节点上限（含根） / English: Node cap including the root
+     * @param maxFrames 中文：驻留帧名上限 / English: Interned frame name cap
+     */
+    StackTrie(int maxNodes, int maxFrames) {
+        this.maxNodes = Math.max(2, maxNodes);
+        this.maxFrames = Math.max(2, maxFrames);
+        int initial = Math.min(this.maxNodes, 1024);
+        frame = new int[initial];
+        parent = new int[initial];
+        firstChild = new int[initial];
+        nextSibling = new int[initial];
+        self = new long[initial];
+        frame[ROOT] = NONE;
+        parent[ROOT] = NONE;
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+        size = 1;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：把帧名驻留为 ID；达到帧上限后新名称统一映射为 "[other]"。
+     * English: Intern a frame name to an ID; once the frame cap is reached new names map to "[other]".
+     *
+     * 参数 / Parameters:
+     * @param name 中文：帧名，如 com.foo.Bar.baz / English: Frame name, e.g. com.foo.Bar.baz
+     * 返回值 / Return: 中文：帧 ID / English: Frame ID
+     * 异常 / Exceptions: 无
+     */
+    int intern(String name) {
+        Integer id = frameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (frameNames.size() >= maxFrames - 1) {
+            name = OTHER_FRAME;
+            id = frameIds.get(name);
+            if (id != null) {
+                return id;
+            }
+        }
+        id = frameNames.size();
+        frameNames.add(name);
+        frameIds.put(name, id);
+        return id;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：记录一个样本：沿根到叶的帧 ID 路径下行，缺失的节点按需创建，叶节点自身样本数加一。
+     * English: Record one sample: walk down the root-to-leaf frame path, creating missing nodes, and increment the leaf's self count.
+     *
+     * 参数 / Parameters:
+     * @param path 中文：帧 ID，根（如 Thread.run）在前 / English: Frame IDs, root first (e.g. Thread.run)
+     * @param length 中文：有效长度 / English: Number of valid entries
+     *
+     * 返回值 / Return: 中文：是否完整记录（false 表示因节点上限被截断） / English: Whether the full path was recorded (false when truncated by the node cap)
+     * 异常 / Exceptions: 无
+     */
+    boolean add(int[] path, int length) {
+        int node = ROOT;
+        boolean complete = true;
+        for (int i = 0; i < length; i++) {
+            int child = findChild(node, path[i]);
+            if (child == NONE) {
+                child = newChild(node, path[i]);
+                if (child == NONE) {
+                    complete = false;
+                    break;
+                }
+            }
+            node = child;
+        }
+        self[node]++;
+        samples++;
+        if (!complete) {
+            truncatedSamples++;
+        }
+        return complete;
+    }
+
+    private int findChild(int node, int frameId) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (frame[child] == frameId) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int newChild(int node, int frameId) {
+        if (size >= maxNodes) {
+            return NONE;
+        }
+        if (size == frame.length) {
+            int capacity = Math.min(maxNodes, frame.length * 2);
+            frame = Arrays.copyOf(frame, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            self = Arrays.copyOf(self, capacity);
+        }
+        int child = size++;
+        frame[child] = frameId;
+        parent[child] = node;
+        firstChild[child] = NONE;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        return child;
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：导出 collapsed-stack 文本：每个有自身样本的节点一行，“根;...;叶 样本数”，按样本数降序。
+     * English: Export collapsed-stack text: one line per node with self samples, "root;...;leaf count", sorted by count descending.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 中文：collapsed 文本 / English: Collapsed text
+     * 异常 / Exceptions: 无
+     */
+    String toCollapsed() {
+        List<Integer> leaves = new ArrayList<>();
+        for (int node = 1; node < size; node++) {
+            if (self[node] > 0) {
+                leaves.add(node);
+            }
+        }
+        leaves.sort((a, b) -> Long.compare(self[b], self[a]));
+        StringBuilder out = new StringBuilder(leaves.size() * 128);
+        int[] stack = new int[64];
+        for (int leaf : leaves) {
+            int depth = 0;
+            for (int node = leaf; node != ROOT; node = parent[node]) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = frame[node];
+            }
+            for (int i = depth - 1; i >= 0; i--) {
+                out.append(frameNames.get(stack[i]));
+                out.append(i == 0 ? ' ' : ';');
+            }
+            out.append(self[leaf]).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * 方法说明 / Method Description:
+     * 中文：按自身样本数汇总帧（同一方法出现在多条路径时合并），返回前 limit 个。
+     * English: Aggregate self samples per frame (merging a method seen on several paths) and return the top limit.
+     *
+     * 参数 / Parameters:
+     * @param limit 中文：返回条数 / English: Number of entries
+     * 返回值 / Return: 中文：帧名到样本数，降序 / English: Frame name to samples, descending
+     * 异常 / Exceptions: 无
+     */
+    Map<String, Long> topSelfFrames(int limit) {
+        long[] perFrame = new long[frameNames.size()];
+        for (int node = 1; node < size; node++) {
+            perFrame[frame[node]] += self[node];
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < perFrame.length; id++) {
+            if (perFrame[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> Long.compare(perFrame[b], perFrame[a]));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(limit, ids.size()); i++) {
+            top.put(frameNames.get(ids.get(i)), perFrame[ids.get(i)]);
+        }
+        return top;
+    }
+
+    long getSamples() {
+        return samples;
+    }
+
+    long getTruncatedSamples() {
+        return truncatedSamples;
+    }
+
+    int getNodeCount() {
+        return size;
+    }
+
+    int getFrameCount() {
+        return frameNames.size();
+    }
+}
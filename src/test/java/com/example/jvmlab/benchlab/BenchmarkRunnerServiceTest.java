@@ -0,0 +1,141 @@
+package com.example.jvmlab.benchlab;
+
+import com.example.jvmlab.benchlab.model.BenchmarkJob;
+import com.example.jvmlab.benchlab.model.BenchmarkRunRequest;
+import com.example.jvmlab.benchlab.model.BenchmarkScore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 BenchmarkRunnerService 的参数校验、任务查询，以及类路径上存在基准时能在 fork 中运行并产出结构化结果。
+ * English: Verify BenchmarkRunnerService validation and job lookup, and that with benchmarks on the classpath it runs them in forks and produces structured results.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：缺少 include、正则非法、jvmArgs 不在白名单或与对照组 @Fork 参数冲突时抛出 IllegalArgumentException；未知任务抛出 NoSuchElementException；真实运行得到带标签与误差界的得分。
+ * English: Missing include, an invalid regex a jvmArgs flag outside the allowlist or one conflicting with a control @Fork flag raises IllegalArgumentException; an unknown job raises NoSuchElementException; a real run yields labelled scores with error bounds.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：先执行 mvn -Pbenchmarks package，把 *-benchmarks.jar 加入类路径后运行 main 方法；未加入时跳过真实运行。
+ * English: Run mvn -Pbenchmarks package, put *-benchmarks.jar on the classpath and run main; the real run is skipped otherwise.
+ */
+@Slf4j
+public class BenchmarkRunnerServiceTest {
+
+    public void testValidation(BenchmarkRunnerService service) {
+        BenchmarkRunRequest missing = new BenchmarkRunRequest();
+        BenchmarkRunRequest badRegex = new BenchmarkRunRequest();
+        badRegex.setInclude("Escape(");
+        int rejected = 0;
+        for (BenchmarkRunRequest request : List.of(missing, badRegex)) {
+            try {
+                service.submit(request);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        if (rejected == 2) {
+            log.info("【成功】非法请求被拒绝 / Success: invalid requests rejected");
+        } else {
+            log.error("参数校验失败 / Failure: only {} of 2 invalid requests rejected", rejected);
+        }
+    }
+
+    public void testJvmArgsAllowlist() {
+        List<String> safe = BenchmarkRunnerService.parseJvmArgs(
+                List.of("-XX:-DoEscapeAnalysis -XX:+UseG1GC", "-XX:MaxRAMPercentage=50.0 -XX:MaxInlineSize=35", "-Xmx512m -Xss1m"));
+        int rejected = 0;
+        for (String unsafe : List.of("-XX:OnOutOfMemoryError=touch /tmp/x", "-XX:OnError=sh", "-javaagent:/tmp/agent.jar",
+                "-Dfoo=bar", "-XX:ErrorFile=/tmp/e.log", "-cp /tmp")) {
+            try {
+                BenchmarkRunnerService.parseJvmArgs(List.of(unsafe));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        if (safe.size() == 6 && rejected == 6) {
+            log.info("【成功】jvmArgs 白名单 / Success: tuning flags accepted, command/agent flags rejected");
+        } else {
+            log.error("jvmArgs 白名单错误 / Failure: safe={} rejected={} of 6", safe, rejected);
+        }
+    }
+
+    public void testControlFlagConflicts() {
+        Map<String, List<String>> control = Map.of("EscapeAnalysisBenchmark.noEscapeAnalysis", List.of("-XX:-DoEscapeAnalysis"));
+        int rejected = 0;
+        for (String conflicting : List.of("-XX:+DoEscapeAnalysis", "-XX:-DoEscapeAnalysis")) {
+            try {
+                BenchmarkRunnerService.checkControlConflicts(List.of("-Xmx512m", conflicting), control);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        BenchmarkRunnerService.checkControlConflicts(List.of("-XX:+UseG1GC", "-XX:MaxInlineSize=35", "-Xmx512m"), control);
+        if (rejected == 2 && "MaxInlineSize".equals(BenchmarkRunnerService.optionName("-XX:MaxInlineSize=35"))
+                && "Xss".equals(BenchmarkRunnerService.optionName("-Xss1m"))) {
+            log.info("【成功】与对照组 @Fork 参数冲突的 jvmArgs 被拒绝 / Success: jvmArgs conflicting with control @Fork flags rejected");
+        } else {
+            log.error("对照参数冲突检查错误 / Failure: {} of 2 rejected", rejected);
+        }
+    }
+
+    public void testUnknownJob(BenchmarkRunnerService service) {
+        try {
+            service.getJob("bench-missing");
+            log.error("未知任务未报错 / Failure: unknown job returned");
+        } catch (NoSuchElementException e) {
+            log.info("【成功】未知任务抛出 NoSuchElementException / Success: unknown job rejected");
+        }
+    }
+
+    public void testRealRun(BenchmarkRunnerService service) throws InterruptedException {
+        try {
+            service.listBenchmarks();
+        } catch (IllegalStateException e) {
+            log.info("类路径上没有基准，跳过真实运行 / No benchmarks on classpath, skipping real run");
+            return;
+        }
+        BenchmarkRunRequest request = new BenchmarkRunRequest();
+        request.setInclude("JitWarmupBenchmark.steadyState");
+        request.setLabel("smoke");
+        request.setForks(1);
+        request.setWarmup(1);
+        request.setIterations(2);
+        request.setTimeMs(200);
+        request.getParam().add("payload=16");
+        BenchmarkJob job = service.submit(request);
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+        List<BenchmarkScore> results = service.listResults("JitWarmup");
+        boolean ok = job.getStatus() == BenchmarkJob.Status.SUCCEEDED
+                && results.size() == 1
+                && "smoke".equals(results.get(0).getLabel())
+                && results.get(0).getScore() > 0
+                && "16".equals(results.get(0).getParams().get("payload"));
+        if (ok) {
+            log.info("【成功】fork 运行产出结构化结果 / Success: forked run produced {} {} ± {}",
+                    results.get(0).getScore(), results.get(0).getUnit(), results.get(0).getScoreError());
+        } else {
+            log.error("真实运行失败 / Failure: status={} error={} results={}", job.getStatus(), job.getError(), results.size());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunnerServiceTest test = new BenchmarkRunnerServiceTest();
+        BenchmarkRunnerService service = new BenchmarkRunnerService();
+        try {
+            test.testValidation(service);
+            test.testJvmArgsAllowlist();
+            test.testControlFlagConflicts();
+            test.testUnknownJob(service);
+            test.testRealRun(service);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.jvmlab.chapter02.runtimedataareas.heap.pooling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证缓冲复用对比的四种模式都能跑完并给出吞吐、p99 与 GC 增量，池化模式每请求分配远小于新分配模式；同时验证分段池的借还与模式解析。
+ * English: Verify all four buffer modes complete and report throughput, p99 and GC deltas, pooled modes allocate far less per request than fresh allocation, plus striped pool borrow/return and mode parsing.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：ALLOCATE 每请求约 100KB；THREAD_LOCAL、STRIPED、OFF_HEAP_SLAB 每请求不足 5KB；分段池归还后可再次借出同一缓冲。
+ * English: ALLOCATE allocates about 100KB per request; THREAD_LOCAL, STRIPED and OFF_HEAP_SLAB under 5KB; a released buffer is borrowed again from the striped pool.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class RequestBufferPoolingComparisonTest {
+
+    @SuppressWarnings("unchecked")
+    public void testCompareModes() {
+        RequestBufferPoolingComparison comparison = new RequestBufferPoolingComparison(2_000, 8, 0);
+        Map<String, Object> report = comparison.compare(List.of(RequestBufferPoolingComparison.Mode.values()));
+        Map<RequestBufferPoolingComparison.Mode, Map<String, Object>> modes =
+                (Map<RequestBufferPoolingComparison.Mode, Map<String, Object>>) report.get("modes");
+        Object allocateKb = modes.get(RequestBufferPoolingComparison.Mode.ALLOCATE).get("allocatedKbPerRequest");
+        if (!(allocateKb instanceof Double)) {
+            log.info("【成功】当前 JVM 不支持线程分配统计，仅校验结构 / Success: allocation tracking unsupported, structure only: {}", modes.keySet());
+            return;
+        }
+        boolean ok = (double) allocateKb >= 100;
+        for (Map.Entry<RequestBufferPoolingComparison.Mode, Map<String, Object>> entry : modes.entrySet()) {
+            Map<String, Object> result = entry.getValue();
+            ok &= result.containsKey("throughputPerSec") && result.containsKey("p99Ms") && result.containsKey("gcCountDelta");
+            if (entry.getKey() != RequestBufferPoolingComparison.Mode.ALLOCATE) {
+                ok &= (double) result.get("allocatedKbPerRequest") < 5 && result.containsKey("vsAllocate");
+            }
+        }
+        if (ok) {
+            log.info("【成功】池化模式显著减少每请求分配 / Success: pooled modes cut per-request allocation: {}", report);
+        } else {
+            log.error("对比结果不符合预期 / Failure: {}", report);
+        }
+    }
+
+    public void testStripedPoolReuse() {
+        StripedBufferPool pool = new StripedBufferPool(1024, 64);
+        byte[] first = pool.borrow();
+        pool.release(first);
+        byte[] second = pool.borrow();
+        pool.release(new byte[16]);
+        if (first == second && pool.size() == 0) {
+            log.info("【成功】分段池复用归还的缓冲并丢弃尺寸不符的缓冲 / Success: pool reuses returned buffers, drops mismatched ones");
+        } else {
+            log.error("分段池复用失败 / Failure: reused={} size={}", first == second, pool.size());
+        }
+    }
+
+    public void testParseModes() {
+        List<RequestBufferPoolingComparison.Mode> modes = RequestBufferPoolingComparison.parseModes("thread-local, Allocate,thread_local");
+        boolean rejected = false;
+        try {
+            RequestBufferPoolingComparison.parseModes("arena");
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        if (modes.equals(List.of(RequestBufferPoolingComparison.Mode.THREAD_LOCAL, RequestBufferPoolingComparison.Mode.ALLOCATE)) && rejected) {
+            log.info("【成功】模式解析去重且拒绝未知模式 / Success: modes parsed, de-duplicated, unknown rejected");
+        } else {
+            log.error("模式解析失败 / Failure: {} rejected={}", modes, rejected);
+        }
+    }
+
+    public static void main(String[] args) {
+        RequestBufferPoolingComparisonTest test = new RequestBufferPoolingComparisonTest();
+        test.testParseModes();
+        test.testStripedPoolReuse();
+        test.testCompareModes();
+    }
+}
@@ -32,7 +32,7 @@ public class Chapter04ControllerTest {
 
     public void testThreadDump() {
         Chapter04Controller ctrl = new Chapter04Controller();
-        Map<String, Object> dump = ctrl.getThreadDump();
+        Map<String, Object> dump = ctrl.getThreadDumpSummary();
         if (dump.containsKey("threadCount")) {
             log.info("【成功】thread-dump 返回 threadCount / Success: threadCount present");
         } else {
@@ -0,0 +1,95 @@
+package com.example.jvmlab.chapter04;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 ThreadDumpWriter 的名称前缀与状态过滤、分页、栈深限制，以及相同栈聚合计数。
+ * English: Verify ThreadDumpWriter name-prefix and state filtering, paging, depth limit and identical-stack grouping.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：20 个停在同一 latch 上的线程：分页 size=5 时 matched=20、totalPages=4、本页 5 个且栈深不超过 3；聚合模式得到 1 组 count=20；非法状态名被拒绝。
+ * English: With 20 threads parked on one latch: paging with size=5 yields matched=20, totalPages=4, 5 threads with at most 3 frames; group mode yields one group with count=20; unknown states are rejected.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class ThreadDumpWriterTest {
+
+    private static final int THREADS = 20;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public void testPagingAndGrouping(CountDownLatch release) throws Exception {
+        JsonNode page = dump(new ThreadDumpWriter("waiting", "dump-test-", 3, 1, 5, true, false));
+        boolean pagedOk = page.get("matched").asInt() == THREADS
+                && page.get("totalPages").asInt() == 4
+                && page.get("threads").size() == 5
+                && page.get("threads").get(0).get("stack").size() <= 3
+                && page.get("threads").get(0).has("lockedSynchronizers");
+        if (pagedOk) {
+            log.info("【成功】过滤、分页与栈深限制生效 / Success: filtered, paged and depth-limited");
+        } else {
+            log.error("分页结果不符 / Failure: {}", page);
+        }
+
+        JsonNode grouped = dump(new ThreadDumpWriter(null, "dump-test-", 16, 0, 10, false, true));
+        JsonNode groups = grouped.get("groups");
+        if (groups.size() == 1 && groups.get(0).get("count").asInt() == THREADS && groups.get(0).get("sampleThreads").size() == 5) {
+            log.info("【成功】相同栈聚合为一组 / Success: identical stacks grouped, count={}", groups.get(0).get("count"));
+        } else {
+            log.error("聚合结果不符 / Failure: {}", grouped);
+        }
+        release.countDown();
+    }
+
+    public void testRejectsUnknownState() {
+        try {
+            new ThreadDumpWriter("SLEEPING", null, 8, 0, 10, false, false);
+            log.error("未拒绝非法状态 / Failure: unknown state accepted");
+        } catch (IllegalArgumentException e) {
+            log.info("【成功】非法状态名被拒绝 / Success: {}", e.getMessage());
+        }
+    }
+
+    private JsonNode dump(ThreadDumpWriter writer) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return mapper.readTree(out.toByteArray());
+    }
+
+    public static void main(String[] args) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch parked = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                parked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "dump-test-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        parked.await();
+        Thread.sleep(100);
+        ThreadDumpWriterTest test = new ThreadDumpWriterTest();
+        test.testPagingAndGrouping(release);
+        test.testRejectsUnknownState();
+        for (Thread thread : threads) {
+            thread.join(1_000);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 AppCdsSupport 判断类路径能否生成动态归档（jar 与空目录可以，非空目录不行），并返回 CDS 状态字段。
+ * English: Verify AppCdsSupport decides whether a class path allows a dynamic archive (jars and empty directories do, non-empty directories do not) and reports the CDS status fields.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：jar + 空目录 + 不存在路径可归档；加入非空目录后不可归档；status 含 sharingEnabled 与 classPathArchivable。
+ * English: A jar, an empty directory and a missing path are archivable; adding a non-empty directory is not; status contains sharingEnabled and classPathArchivable.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class AppCdsSupportTest {
+
+    public void testArchivableClassPath(Path base) throws IOException {
+        Path jar = Files.writeString(base.resolve("app.jar"), "not really a jar");
+        Path empty = Files.createDirectories(base.resolve("empty"));
+        Path classes = Files.createDirectories(base.resolve("classes"));
+        Files.writeString(classes.resolve("Foo.class"), "x");
+        String archivable = String.join(File.pathSeparator, jar.toString(), empty.toString(), base.resolve("missing").toString());
+        String withClasses = archivable + File.pathSeparator + classes;
+        if (AppCdsSupport.isArchivableClassPath(archivable) && !AppCdsSupport.isArchivableClassPath(withClasses)
+                && !AppCdsSupport.isArchivableClassPath("")) {
+            log.info("【成功】类路径可归档判断正确 / Success: archivable class path detected");
+        } else {
+            log.error("类路径可归档判断错误 / Failure: archivable={} withClasses={}",
+                    AppCdsSupport.isArchivableClassPath(archivable), AppCdsSupport.isArchivableClassPath(withClasses));
+        }
+    }
+
+    public void testStatus() {
+        Map<String, Object> status = AppCdsSupport.status();
+        if (status.get("sharingEnabled") instanceof Boolean && status.containsKey("sharedArchiveFile")
+                && status.get("classPathArchivable") instanceof Boolean) {
+            log.info("【成功】CDS 状态 / Success: {}", status);
+        } else {
+            log.error("CDS 状态字段缺失 / Failure: {}", status);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        AppCdsSupportTest test = new AppCdsSupportTest();
+        Path base = Files.createTempDirectory("appcds-test");
+        try {
+            test.testArchivableClassPath(base);
+            test.testStatus();
+        } finally {
+            try (Stream<Path> files = Files.walk(base)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：用伪造的 /sys/fs/cgroup 目录验证 CgroupResourceReporter 对 v2 与 v1 文件的解析、层级上限取最小值，以及容器上限小于 JVM 最坏占用时的告警。
+ * English: Verify with fake /sys/fs/cgroup trees that CgroupResourceReporter parses v2 and v1 files, takes the minimum limit across the hierarchy, and warns when the container limit is below the JVM worst-case footprint.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：v2 上限 16MB、配额 1.5 核、限流 25%、oom_kill=2 且出现超限告警，limits() 的用量随文件更新；v1 上限取父级 32MB、failcnt=3；无 cgroup 时版本为 none 且无告警。
+ * English: v2 shows a 16MB limit, a 1.5 CPU quota, 25% throttling, oom_kill=2 and the footprint warning, and limits() usage follows the file; v1 takes the parent 32MB limit with failcnt=3; without cgroups the version is none and there are no warnings.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class CgroupResourceReporterTest {
+
+    @SuppressWarnings("unchecked")
+    public void testV2(Path base) throws IOException {
+        Path root = Files.createDirectories(base.resolve("v2"));
+        Files.writeString(root.resolve("cgroup.controllers"), "cpu memory");
+        Path dir = Files.createDirectories(root.resolve("app.slice"));
+        Files.writeString(dir.resolve("memory.max"), "16777216\n");
+        Files.writeString(dir.resolve("memory.current"), "8388608\n");
+        Files.writeString(dir.resolve("memory.events"), "low 0\nhigh 0\nmax 5\noom 2\noom_kill 2\n");
+        Files.writeString(dir.resolve("cpu.max"), "150000 100000\n");
+        Files.writeString(dir.resolve("cpu.stat"), "usage_usec 100\nnr_periods 40\nnr_throttled 10\nthrottled_usec 5000000\n");
+        Path self = Files.writeString(base.resolve("v2-self"), "0::/app.slice\n");
+
+        Map<String, Object> report = new CgroupResourceReporter(root, self).report();
+        Map<String, Object> memory = (Map<String, Object>) report.get("memory");
+        Map<String, Object> cpu = (Map<String, Object>) report.get("cpu");
+        List<String> warnings = (List<String>) report.get("warnings");
+        boolean ok = "v2".equals(report.get("cgroupVersion"))
+                && (long) memory.get("limitBytes") == 16L * 1024 * 1024
+                && (long) memory.get("oomKills") == 2
+                && (double) cpu.get("effectiveCpus") == 1.5
+                && "25.00%".equals(cpu.get("throttledPercent"))
+                && (long) cpu.get("throttledTimeMs") == 5000
+                && warnings.stream().anyMatch(w -> w.startsWith("JVM worst-case footprint exceeds"))
+                && warnings.stream().anyMatch(w -> w.startsWith("CPU throttled"));
+        // 中文：limits() 缓存的上限不变，用量每次重新读取
+        // English: Limits cached by limits() stay fixed while usage is re-read on each call
+        CgroupResourceReporter.Limits limits = new CgroupResourceReporter(root, self).limits();
+        long usageBefore = limits.memoryUsageBytes();
+        Files.writeString(dir.resolve("memory.current"), "12582912\n");
+        ok = ok && limits.getMemoryLimitBytes() == 16L * 1024 * 1024 && limits.getEffectiveCpus() == 1.5
+                && usageBefore == 8L * 1024 * 1024 && limits.memoryUsageBytes() == 12L * 1024 * 1024;
+        if (ok) {
+            log.info("【成功】cgroup v2 解析与告警正确 / Success: cgroup v2 parsed, warnings={}", warnings);
+        } else {
+            log.error("cgroup v2 报告不符 / Failure: {}", report);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testV1(Path base) throws IOException {
+        Path root = base.resolve("v1");
+        Path parent = Files.createDirectories(root.resolve("memory/docker"));
+        Path dir = Files.createDirectories(parent.resolve("abc"));
+        Files.writeString(root.resolve("memory/memory.limit_in_bytes"), "9223372036854771712\n");
+        Files.writeString(parent.resolve("memory.limit_in_bytes"), "33554432\n");
+        Files.writeString(dir.resolve("memory.limit_in_bytes"), "9223372036854771712\n");
+        Files.writeString(dir.resolve("memory.usage_in_bytes"), "1048576\n");
+        Files.writeString(dir.resolve("memory.failcnt"), "3\n");
+        Path cpuDir = Files.createDirectories(root.resolve("cpu"));
+        Files.writeString(cpuDir.resolve("cpu.cfs_quota_us"), "-1\n");
+        Files.writeString(cpuDir.resolve("cpu.cfs_period_us"), "100000\n");
+        Files.writeString(cpuDir.resolve("cpu.stat"), "nr_periods 0\nnr_throttled 0\nthrottled_time 0\n");
+        // 中文：cpu 控制器的路径在挂载点下不存在，应退回挂载根目录
+        // English: The cpu controller path does not exist under the mount, so the mount root is used
+        Path self = Files.writeString(base.resolve("v1-self"), "4:memory:/docker/abc\n2:cpu,cpuacct:/docker/abc\n");
+
+        Map<String, Object> report = new CgroupResourceReporter(root, self).report();
+        Map<String, Object> memory = (Map<String, Object>) report.get("memory");
+        Map<String, Object> cpu = (Map<String, Object>) report.get("cpu");
+        boolean ok = "v1".equals(report.get("cgroupVersion"))
+                && (long) memory.get("limitBytes") == 32L * 1024 * 1024
+                && (long) memory.get("limitHits") == 3
+                && (long) cpu.get("quotaMicros") == -1
+                && (double) cpu.get("effectiveCpus") == -1.0;
+        if (ok) {
+            log.info("【成功】cgroup v1 层级上限取最小值 / Success: cgroup v1 parsed: memory={} cpu={}", memory, cpu);
+        } else {
+            log.error("cgroup v1 报告不符 / Failure: {}", report);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testNoCgroup(Path base) throws IOException {
+        Path root = Files.createDirectories(base.resolve("none"));
+        Map<String, Object> report = new CgroupResourceReporter(root, base.resolve("missing")).report();
+        List<String> warnings = (List<String>) report.get("warnings");
+        if ("none".equals(report.get("cgroupVersion")) && warnings.isEmpty()
+                && (long) ((Map<String, Object>) report.get("headroom")).get("headroomBytes") == -1) {
+            log.info("【成功】无 cgroup 时不产生告警 / Success: no cgroup, no warnings");
+        } else {
+            log.error("无 cgroup 时报告不符 / Failure: {}", report);
+        }
+    }
+
+    public void testFootprintWithoutExplicitDirectLimit() {
+        long mb = 1024L * 1024;
+        // 中文：容器 1 GB、MaxRAMPercentage=60 → 堆约 614 MB；未设置 MaxDirectMemorySize 时直接内存按当前用量 8 MB 计入
+        // English: 1 GB container with MaxRAMPercentage=60 gives a ~614 MB heap; without MaxDirectMemorySize direct memory counts at its current 8 MB
+        long heap = 614 * mb;
+        long stacks = CgroupResourceReporter.estimatedStackBytes(40, 1024);
+        long unset = CgroupResourceReporter.worstCaseFootprint(heap, 0, 8 * mb, -1, 80 * mb, 20 * mb, stacks);
+        long explicit = CgroupResourceReporter.worstCaseFootprint(heap, 256 * mb, 8 * mb, -1, 80 * mb, 20 * mb, stacks);
+        boolean ok = stacks == 40 * CgroupResourceReporter.STACK_COMMIT_ESTIMATE_KB * 1024
+                && unset == heap + 8 * mb + 80 * mb + 20 * mb + stacks
+                && unset < 1024 * mb
+                && explicit == unset - 8 * mb + 256 * mb;
+        if (ok) {
+            log.info("【成功】未显式设置直接内存上限时不重复计入堆 / Success: footprint={} MB of a 1024 MB limit", unset / mb);
+        } else {
+            log.error("最坏占用估算不符 / Failure: unset={} explicit={} stacks={}", unset, explicit, stacks);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        CgroupResourceReporterTest test = new CgroupResourceReporterTest();
+        Path base = Files.createTempDirectory("cgroup-test");
+        try {
+            test.testV2(base);
+            test.testV1(base);
+            test.testNoCgroup(base);
+            test.testFootprintWithoutExplicitDirectLimit();
+        } finally {
+            try (Stream<Path> files = Files.walk(base)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
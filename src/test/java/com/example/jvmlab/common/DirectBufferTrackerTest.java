@@ -0,0 +1,82 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 DirectBufferTracker 按标签统计直接缓冲区的分配，缓冲区被回收后由 Cleaner 扣减存活量，且 direct 缓冲池总量不小于已归属字节数。
+ * English: Verify DirectBufferTracker attributes direct buffer allocations per tag, the Cleaner decrements live bytes after the buffers are collected, and the direct pool total is at least the attributed bytes.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：分配 4 个 1MB 缓冲区后标签存活 4MB 且排在第一；释放引用并 GC 后存活归零，累计分配保持 4MB。
+ * English: After four 1MB buffers the tag holds 4MB live and ranks first; after dropping the references and GC live bytes return to zero while allocated bytes stay at 4MB.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class DirectBufferTrackerTest {
+
+    private static final String TAG = "test.direct-buffer-tracker";
+    private static final int SIZE = 1024 * 1024;
+
+    private List<ByteBuffer> buffers = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    public void testAllocationsAttributed() {
+        DirectBufferTracker.allocate("test.small", 1024);
+        for (int i = 0; i < 4; i++) {
+            buffers.add(DirectBufferTracker.allocate(TAG, SIZE));
+        }
+        Map<String, Object> snapshot = DirectBufferTracker.snapshot();
+        Map<String, Object> top = ((List<Map<String, Object>>) snapshot.get("tags")).get(0);
+        if (TAG.equals(top.get("tag")) && (long) top.get("liveBytes") == 4L * SIZE
+                && (long) top.get("liveBuffers") == 4
+                && (long) snapshot.get("directPoolUsed") >= (long) snapshot.get("trackedLiveBytes")) {
+            log.info("【成功】直接缓冲区按标签归属 / Success: direct buffers attributed: {}", snapshot);
+        } else {
+            log.error("标签统计不符 / Failure: {}", snapshot);
+        }
+    }
+
+    public void testReleasedAfterGc() throws InterruptedException {
+        buffers = null;
+        Map<String, Object> item = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+            item = find(TAG);
+            if (item != null && (long) item.get("liveBytes") == 0) {
+                break;
+            }
+        }
+        if (item != null && (long) item.get("liveBytes") == 0 && (long) item.get("allocatedBytes") == 4L * SIZE) {
+            log.info("【成功】缓冲区回收后存活量归零 / Success: live bytes released after GC: {}", item);
+        } else {
+            log.error("缓冲区回收后仍有存活量 / Failure: {}", item);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> find(String tag) {
+        for (Map<String, Object> item : (List<Map<String, Object>>) DirectBufferTracker.snapshot().get("tags")) {
+            if (tag.equals(item.get("tag"))) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        DirectBufferTrackerTest test = new DirectBufferTrackerTest();
+        test.testAllocationsAttributed();
+        test.testReleasedAfterGc();
+    }
+}
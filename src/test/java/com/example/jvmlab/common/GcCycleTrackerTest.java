@@ -0,0 +1,108 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 GcCycleTracker 由 GC 前后内存池占用推导分配速率、晋升量与 Full GC 后存活集增长，并能接收真实 GC 通知。
+ * English: Verify GcCycleTracker derives allocation rate, promotion and live-set growth after full GC from pool usage, and receives real GC notifications.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：合成周期的速率与晋升量精确匹配；Young/Mixed GC 不进入趋势检测，Full GC 与并发周期结束才进入；System.gc() 后单例观察到至少一个周期。
+ * English: Synthetic cycles yield exact rates and promotion; young/mixed GCs stay out of the trend detector while full GCs and concurrent cycle ends feed it; after System.gc() the singleton has observed at least one cycle.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class GcCycleTrackerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    public void testSyntheticCycles() {
+        GcCycleTracker tracker = new GcCycleTracker(Set.of("Eden", "Old Gen"), 1024 * MB);
+        // 中文：第一次 Young GC：Eden 100MB -> 0，其中 10MB 晋升到老年代
+        // English: First young GC: Eden 100MB -> 0, with 10MB promoted into the old gen
+        tracker.record("Young", "end of minor GC", "Allocation Failure", 1000, 1010, 10,
+                usage(100 * MB, 20 * MB), usage(0, 30 * MB));
+        // 中文：1 秒后第二次 Young GC：分配 200MB，晋升 20MB
+        // English: One second later a second young GC: 200MB allocated, 20MB promoted
+        GcCycleStats young = tracker.record("Young", "end of minor GC", "Allocation Failure", 2010, 2020, 10,
+                usage(200 * MB, 30 * MB), usage(0, 50 * MB));
+        tracker.record("Old", "end of major GC", "System.gc()", 3020, 3100, 80,
+                usage(10 * MB, 50 * MB), usage(0, 40 * MB));
+        GcCycleStats major = tracker.record("Old", "end of major GC", "System.gc()", 4100, 4180, 80,
+                usage(10 * MB, 60 * MB), usage(0, 45 * MB));
+
+        boolean rateOk = young.getAllocatedBytes() == 200 * MB
+                && Math.abs(young.getAllocationRateBytesPerSec() - 200.0 * MB) < 1
+                && young.getPromotedBytes() == 20 * MB;
+        boolean liveSetOk = major.isMajor() && major.getHeapAfterBytes() == 45 * MB
+                && tracker.getLiveSetGrowthBytes() == 5 * MB && tracker.getMaxPauseMs() == 80;
+        if (rateOk && liveSetOk) {
+            log.info("【成功】周期信号计算正确 / Success: cycle signals computed, growth={}",
+                    JvmMemoryMonitor.formatSize(tracker.getLiveSetGrowthBytes()));
+        } else {
+            log.error("周期信号不符合预期 / Failure: young={} major={}", young.toMap(), major.toMap());
+        }
+    }
+
+    public void testOnlyWholeHeapCyclesFeedTrend() {
+        GcCycleTracker tracker = new GcCycleTracker(Set.of("Eden", "Old Gen"), 1024 * MB);
+        // 中文：Mixed GC 回收了部分老年代，但剩余占用仍含垃圾，不应成为存活集样本
+        // English: A mixed GC reclaims some old regions, but what remains still holds garbage, so it is not a live-set sample
+        tracker.record("G1 Young Generation", "end of minor GC", "G1 Evacuation Pause", 1000, 1010, 10,
+                usage(100 * MB, 80 * MB), usage(0, 60 * MB));
+        long afterMixed = (long) tracker.getTrendDetector().evaluate().get("totalSamples");
+        tracker.record("G1 Old Generation", "end of major GC", "System.gc()", 2000, 2100, 100,
+                usage(10 * MB, 60 * MB), usage(0, 40 * MB));
+        long afterFull = (long) tracker.getTrendDetector().evaluate().get("totalSamples");
+        boolean classified = GcCycleTracker.isLiveSetSample("ZGC Cycles", "end of GC cycle", "Allocation Rate")
+                && GcCycleTracker.isLiveSetSample("Shenandoah Cycles", "end of GC cycle", "Allocation Failure")
+                && !GcCycleTracker.isLiveSetSample("ZGC Minor Cycles", "end of GC cycle", "Allocation Rate")
+                && !GcCycleTracker.isLiveSetSample("ZGC Pauses", "end of GC pause", "Allocation Rate")
+                && !GcCycleTracker.isLiveSetSample("G1 Concurrent GC", "end of concurrent GC pause", "Remark");
+        if (afterMixed == 0 && afterFull == 1 && classified) {
+            log.info("【成功】只有整堆回收进入趋势检测 / Success: only whole-heap collections feed the trend detector");
+        } else {
+            log.error("趋势样本筛选错误 / Failure: afterMixed={} afterFull={} classified={}", afterMixed, afterFull, classified);
+        }
+    }
+
+    public void testRealNotifications() throws InterruptedException {
+        GcCycleTracker tracker = GcCycleTracker.getInstance();
+        System.gc();
+        // 中文：GC 通知在 Service Thread 上异步投递，稍作等待
+        // English: GC notifications are delivered asynchronously on the service thread, so wait briefly
+        for (int i = 0; i < 50 && tracker.last().getCycleNumber() == 0; i++) {
+            Thread.sleep(20);
+        }
+        if (tracker.last().getCycleNumber() > 0) {
+            log.info("【成功】收到真实 GC 通知 / Success: real GC notification observed: {}", tracker.last().toMap());
+        } else {
+            log.error("未收到 GC 通知 / Failure: no GC notification observed");
+        }
+        log.info("泄漏评估 Leak risk: {}", JvmMemoryMonitor.detectMemoryLeakRisk());
+    }
+
+    private static Map<String, MemoryUsage> usage(long eden, long old) {
+        Map<String, MemoryUsage> map = new LinkedHashMap<>();
+        map.put("Eden", new MemoryUsage(0, eden, Math.max(eden, 1), -1));
+        map.put("Old Gen", new MemoryUsage(0, old, Math.max(old, 1), -1));
+        map.put("Metaspace", new MemoryUsage(0, 7 * MB, 8 * MB, -1));
+        return map;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        GcCycleTrackerTest test = new GcCycleTrackerTest();
+        test.testSyntheticCycles();
+        test.testOnlyWholeHeapCyclesFeedTrend();
+        test.testRealNotifications();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 JvmMetricsHistory 环形缓冲的覆盖写入、窗口截取、降采样后 GC 增量守恒，以及缓冲池列按均值降采样。
+ * English: Verify JvmMetricsHistory ring overwrite, window slicing, GC delta conservation after downsampling, and buffer pool columns averaged when downsampling.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：写入超过容量后仍只返回窗口内的行；降采样后的 GC 增量之和等于窗口内真实增量；缓冲池每个点为桶内均值。
+ * English: After exceeding capacity only rows inside the window are returned; summed GC deltas equal the true delta across the window; each buffer pool point is its bucket average.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class JvmMetricsHistoryTest {
+
+    public void testDownsampleConservesGcDeltas() {
+        JvmMetricsHistory history = new JvmMetricsHistory(snapshot(0, 0), 1000);
+        // 中文：每秒一行，每行 GC 次数 +2，共写入 5000 行（超过默认容量 3600）
+        // English: One row per second, GC count +2 per row, 5000 rows in total (beyond default capacity 3600)
+        for (int i = 0; i < 5000; i++) {
+            history.onSample(snapshot(i * 1000L, i * 2L));
+        }
+        Map<String, Object> series = history.query(60_000, 7);
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, long[]>> gc = (Map<String, Map<String, long[]>>) series.get("gc");
+        long[] deltas = gc.get("Test GC").get("countDelta");
+        long sum = 0;
+        for (long delta : deltas) {
+            sum += delta;
+        }
+        // 中文：窗口 60 秒包含 61 行，基线行之后共有 61 个增量，每个为 2
+        // English: A 60s window holds 61 rows; with the baseline row that yields 61 deltas of 2 each
+        if ((int) series.get("rowsInWindow") == 61 && deltas.length == 7 && sum == 122) {
+            log.info("【成功】降采样后 GC 增量守恒 / Success: GC deltas conserved, sum={}", sum);
+        } else {
+            log.error("降采样结果不符合预期 / Failure: rows={} points={} sum={}", series.get("rowsInWindow"), deltas.length, sum);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testBufferPoolsAveraged() {
+        JvmMetricsHistory history = new JvmMetricsHistory(snapshot(0, 0), 1000);
+        for (int i = 0; i <= 10; i++) {
+            history.onSample(snapshot(i * 1000L, i));
+        }
+        Map<String, Object> series = history.query(10_000, 1);
+        Map<String, long[]> direct = ((Map<String, Map<String, long[]>>) series.get("bufferPools")).get("direct");
+        // 中文：已用字节等于 uptime，0..10000 的均值为 5000；缓冲区数量恒为 3
+        // English: Used bytes equal uptime, so the 0..10000 average is 5000; the buffer count is always 3
+        if (direct != null && direct.get("memoryUsed")[0] == 5000 && direct.get("count")[0] == 3) {
+            log.info("【成功】缓冲池列按均值降采样 / Success: buffer pool columns averaged");
+        } else {
+            log.error("缓冲池序列不符合预期 / Failure: {}", series.get("bufferPools"));
+        }
+    }
+
+    private static JvmMetricsSnapshot snapshot(long uptime, long gcCount) {
+        JvmMetricsSnapshot.Builder b = new JvmMetricsSnapshot.Builder();
+        b.uptimeMillis = uptime;
+        b.timestampMillis = uptime;
+        b.intervalMillis = 1000;
+        b.heapUsed = 1024 * 1024;
+        b.poolNames = new String[]{"Test Pool"};
+        b.poolHeap = new boolean[]{true};
+        b.poolUsed = new long[]{uptime};
+        b.poolCommitted = new long[]{uptime};
+        b.poolMax = new long[]{-1};
+        b.bufferPoolNames = new String[]{"direct"};
+        b.bufferCount = new long[]{3};
+        b.bufferCapacity = new long[]{uptime};
+        b.bufferUsed = new long[]{uptime};
+        b.gcNames = new String[]{"Test GC"};
+        b.gcPoolNames = new String[]{"[Test Pool]"};
+        b.gcCount = new long[]{gcCount};
+        b.gcTime = new long[]{gcCount};
+        b.gcCountDelta = new long[1];
+        b.gcTimeDelta = new long[1];
+        return b.build();
+    }
+
+    public static void main(String[] args) {
+        JvmMetricsHistoryTest t = new JvmMetricsHistoryTest();
+        t.testDownsampleConservesGcDeltas();
+        t.testBufferPoolsAveraged();
+        log.info("【成功】JvmMetricsHistoryTest 用例通过 / Success: cases passed");
+    }
+}
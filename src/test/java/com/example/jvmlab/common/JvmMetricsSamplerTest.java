@@ -0,0 +1,55 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 JvmMetricsSampler 提供缓存快照、格式化视图按快照复用，且 GC 增量非负。
+ * English: Verify JvmMetricsSampler serves cached snapshots, reuses formatted views per snapshot and keeps GC deltas non-negative.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：同一快照多次格式化返回同一实例；refresh 后生成新快照；GC 增量 >= 0。
+ * English: Formatting the same snapshot twice returns the same instance; refresh yields a new snapshot; GC deltas >= 0.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class JvmMetricsSamplerTest {
+
+    public void testCachedView() {
+        JvmMetricsSnapshot snapshot = JvmMetricsSampler.getInstance().current();
+        Map<String, Object> first = snapshot.toMemoryInfoMap();
+        Map<String, Object> second = snapshot.toMemoryInfoMap();
+        if (first == second && first.containsKey("sample")) {
+            log.info("【成功】快照格式化视图被复用 / Success: formatted view reused");
+        } else {
+            log.error("快照格式化视图未复用 / Failure: view rebuilt or sample key missing");
+        }
+    }
+
+    public void testRefreshDeltas() {
+        JvmMetricsSnapshot before = JvmMetricsSampler.getInstance().current();
+        System.gc();
+        JvmMetricsSnapshot after = JvmMetricsSampler.getInstance().refresh();
+        boolean deltasOk = true;
+        for (int i = 0; i < after.getGcCount(); i++) {
+            deltasOk &= after.getGcCollectionCountDelta(i) >= 0 && after.getGcCollectionTimeDelta(i) >= 0;
+        }
+        if (after != before && deltasOk) {
+            log.info("【成功】refresh 生成新快照且增量非负 / Success: fresh snapshot with non-negative deltas");
+        } else {
+            log.error("refresh 结果不符合预期 / Failure: unexpected refresh result");
+        }
+    }
+
+    public static void main(String[] args) {
+        JvmMetricsSamplerTest t = new JvmMetricsSamplerTest();
+        t.testCachedView();
+        t.testRefreshDeltas();
+        log.info("【成功】JvmMetricsSamplerTest 用例通过 / Success: cases passed");
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.jvmlab.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 OldGenTrendDetector 对稳定增长的 GC 后基线给出正确斜率与 OOM 预测，对瞬时尖峰保持安全等级。
+ * English: Verify OldGenTrendDetector reports the correct slope and OOM projection for a steadily growing post-GC baseline and stays SAFE on a transient spike.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：线性增长 1MB/分钟时斜率约 60MB/小时且风险升级；平稳基线加一次尖峰仍为 SAFE；窗口滑动后只反映最近趋势；JVM 运行多年后斜率与 r² 仍然准确。
+ * English: With 1MB/min linear growth the slope is about 60MB/hour and risk escalates; a flat baseline with one spike stays SAFE; after sliding only the recent trend is reflected; slope and r² stay accurate after years of uptime.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class OldGenTrendDetectorTest {
+
+    private static final long MB = 1024 * 1024;
+
+    public void testSteadyGrowthEscalates() {
+        // 中文：上限 200MB，基线从 100MB 起每分钟增长 1MB，约 100 分钟后 OOM
+        // English: 200MB limit, baseline starts at 100MB and grows 1MB per minute, OOM in about 100 minutes
+        OldGenTrendDetector detector = new OldGenTrendDetector(20, 5, 200 * MB);
+        for (int i = 0; i < 10; i++) {
+            detector.addSample(i * 60_000L, 100 * MB + i * MB);
+        }
+        Map<String, Object> result = detector.evaluate();
+        long slope = (long) result.get("slopeBytesPerSec");
+        long tto = (long) result.get("timeToOomSec");
+        String level = String.valueOf(result.get("riskLevel"));
+        // 中文：1MB/60s ≈ 17476 B/s；剩余 91MB 约 5460 秒
+        // English: 1MB/60s ≈ 17476 B/s; the remaining 91MB takes about 5460 seconds
+        if (Math.abs(slope - MB / 60) < 10 && Math.abs(tto - 91 * 60) < 5 && level.startsWith("MEDIUM")) {
+            log.info("【成功】稳定增长被识别 / Success: steady growth detected, slope={}B/s tto={}s", slope, tto);
+        } else {
+            log.error("稳定增长识别失败 / Failure: {}", result);
+        }
+    }
+
+    public void testSpikeStaysSafe() {
+        OldGenTrendDetector detector = new OldGenTrendDetector(20, 5, 200 * MB);
+        for (int i = 0; i < 15; i++) {
+            long live = (i == 12) ? 190 * MB : 100 * MB + (i % 2) * MB;
+            detector.addSample(i * 60_000L, live);
+        }
+        String level = String.valueOf(detector.evaluate().get("riskLevel"));
+        if (level.startsWith("SAFE")) {
+            log.info("【成功】瞬时尖峰未触发告警 / Success: transient spike stays SAFE");
+        } else {
+            log.error("瞬时尖峰误报 / Failure: spike escalated to {}", level);
+        }
+    }
+
+    public void testWindowSlides() {
+        OldGenTrendDetector detector = new OldGenTrendDetector(5, 3, 1024 * MB);
+        // 中文：先快速增长，再长期持平；窗口滑出后斜率应回到 0
+        // English: Grow quickly, then stay flat; once growth slides out of the window the slope returns to 0
+        for (int i = 0; i < 5; i++) {
+            detector.addSample(i * 1000L, (100 + i * 10) * MB);
+        }
+        for (int i = 5; i < 10; i++) {
+            detector.addSample(i * 1000L, 150 * MB);
+        }
+        Map<String, Object> result = detector.evaluate();
+        if ((long) result.get("slopeBytesPerSec") == 0 && (int) result.get("samplesInWindow") == 5) {
+            log.info("【成功】滑动窗口淘汰旧样本 / Success: sliding window evicts old samples");
+        } else {
+            log.error("滑动窗口异常 / Failure: {}", result);
+        }
+    }
+
+    public void testLongUptimeKeepsPrecision() {
+        // 中文：进程已运行约 10 年，GC 每秒一次、基线每秒增长 1MB；x 若取原始 uptime，Σx² 与 (Σx)²/n 相减会抵消掉全部有效位
+        // English: The process has been up for about 10 years, GCs run every second and the baseline grows 1MB/s; with raw uptime as x, Σx² - (Σx)²/n cancels every significant digit
+        long base = 10L * 365 * 24 * 3600 * 1000;
+        OldGenTrendDetector detector = new OldGenTrendDetector(20, 5, 4096 * MB);
+        for (int i = 0; i < 60; i++) {
+            detector.addSample(base + i * 1000L, 100 * MB + i * MB);
+        }
+        Map<String, Object> result = detector.evaluate();
+        Object slope = result.get("slopeBytesPerSec");
+        if (slope != null && Math.abs((long) slope - MB) < 10 && "1.000".equals(result.get("rSquared"))) {
+            log.info("【成功】长时间运行后斜率仍准确 / Success: slope {}B/s after a long uptime", slope);
+        } else {
+            log.error("长时间运行后斜率失真 / Failure: {}", result);
+        }
+    }
+
+    public static void main(String[] args) {
+        OldGenTrendDetectorTest test = new OldGenTrendDetectorTest();
+        test.testSteadyGrowthEscalates();
+        test.testSpikeStaysSafe();
+        test.testWindowSlides();
+        test.testLongUptimeKeepsPrecision();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.jvmlab.config;
+
+import com.example.jvmlab.chapter10.Chapter10Controller;
+import com.example.jvmlab.common.GlobalExceptionHandler;
+import com.example.jvmlab.exceptionlab.MemoryExceptionLabService;
+import com.example.jvmlab.exceptionlab.ScenarioJobEngine;
+import com.example.jvmlab.monitor.StartupReportController;
+import com.example.jvmstress.ctrl.JvmErrorController;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 LabModuleActivationTracker 按包名划分实验模块，并在嵌套创建时只由最外层 Bean 结算模块激活。
+ * English: Verify LabModuleActivationTracker derives lab modules from package names and settles activation only on the outermost bean of nested creation.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：章节、异常实验与 jvmstress 属于模块，监控与公共组件不属于；exceptionlab 激活后含两个 Bean，chapter10 未激活。
+ * English: Chapters, the exception lab and jvmstress are modules while monitoring and common components are not; exceptionlab becomes active with two beans and chapter10 stays inactive.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class LabModuleActivationTrackerTest {
+
+    public void testModuleOf() {
+        boolean ok = "chapter10".equals(LabModuleActivationTracker.moduleOf(Chapter10Controller.class))
+                && "exceptionlab".equals(LabModuleActivationTracker.moduleOf(ScenarioJobEngine.class))
+                && "jvmstress".equals(LabModuleActivationTracker.moduleOf(JvmErrorController.class))
+                && LabModuleActivationTracker.moduleOf(StartupReportController.class) == null
+                && LabModuleActivationTracker.moduleOf(GlobalExceptionHandler.class) == null
+                && LabModuleActivationTracker.moduleOf(String.class) == null
+                && LabModuleActivationTracker.moduleOf(null) == null;
+        if (ok) {
+            log.info("【成功】按包名划分实验模块 / Success: modules derived from package names");
+        } else {
+            log.error("模块划分错误 / Failure: chapter10={} monitor={}",
+                    LabModuleActivationTracker.moduleOf(Chapter10Controller.class),
+                    LabModuleActivationTracker.moduleOf(StartupReportController.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testNestedActivation() {
+        DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+        factory.registerBeanDefinition("memoryExceptionLabService", new RootBeanDefinition(MemoryExceptionLabService.class));
+        factory.registerBeanDefinition("scenarioJobEngine", new RootBeanDefinition(ScenarioJobEngine.class));
+        factory.registerBeanDefinition("chapter10Controller", new RootBeanDefinition(Chapter10Controller.class));
+        LabModuleActivationTracker tracker = new LabModuleActivationTracker();
+        tracker.setBeanFactory(factory);
+
+        // 中文：模拟 Service 创建过程中先创建其依赖 ScenarioJobEngine
+        // English: Simulate creating the service, which creates its ScenarioJobEngine dependency first
+        tracker.postProcessBeforeInstantiation(MemoryExceptionLabService.class, "memoryExceptionLabService");
+        tracker.postProcessBeforeInstantiation(ScenarioJobEngine.class, "scenarioJobEngine");
+        tracker.postProcessAfterInitialization(new Object(), "scenarioJobEngine");
+        tracker.postProcessAfterInitialization(new Object(), "memoryExceptionLabService");
+
+        Map<String, Object> snapshot = tracker.snapshot();
+        List<Map<String, Object>> modules = (List<Map<String, Object>>) snapshot.get("modules");
+        Map<String, Object> exceptionLab = modules.stream().filter(m -> "exceptionlab".equals(m.get("module"))).findFirst().orElseThrow();
+        Map<String, Object> chapter10 = modules.stream().filter(m -> "chapter10".equals(m.get("module"))).findFirst().orElseThrow();
+        if (Boolean.TRUE.equals(exceptionLab.get("active"))
+                && List.of("scenarioJobEngine", "memoryExceptionLabService").equals(exceptionLab.get("createdBeans"))
+                && Boolean.FALSE.equals(exceptionLab.get("afterReady"))
+                && Boolean.FALSE.equals(chapter10.get("active"))
+                && Integer.valueOf(1).equals(snapshot.get("activeModules"))
+                && Integer.valueOf(2).equals(snapshot.get("declaredModules"))) {
+            log.info("【成功】嵌套创建只激活一次模块 / Success: {}", modules);
+        } else {
+            log.error("模块激活状态错误 / Failure: {}", snapshot);
+        }
+    }
+
+    public static void main(String[] args) {
+        LabModuleActivationTrackerTest test = new LabModuleActivationTrackerTest();
+        test.testModuleOf();
+        test.testNestedActivation();
+    }
+}
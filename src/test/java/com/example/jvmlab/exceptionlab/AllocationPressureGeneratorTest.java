@@ -0,0 +1,107 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.scenario.HeapOomScenario;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 AllocationPressureGenerator 的速率精度、确定性存活比例、存活上限与取消行为，以及 heap-oom 场景的限速模式。
+ * English: Verify AllocationPressureGenerator rate accuracy, deterministic survivor ratio, survivor cap and cancellation, plus the paced mode of the heap-oom scenario.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：50MB/s 运行 1 秒的实际速率误差在 5% 以内；保留块数等于 floor(chunks×0.05)（累加误差允许 ±1），即比例误差小于 1/chunks；存活集合不超过 retainMb；中断后抛出 CancellationException。
+ * English: A 1s run at 50MB/s lands within 5% of target; the retained chunk count equals floor(chunks * 0.05) (±1 for accumulator rounding), so the ratio is off by less than 1/chunks; the survivor set stays within retainMb; interruption raises CancellationException.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class AllocationPressureGeneratorTest {
+
+    public void testRateAndSurvivorRatio() {
+        Map<String, Object> report = new AllocationPressureGenerator(50, 0.05, 64, 0, byte[]::new).run(1_000);
+        double accuracy = (double) report.get("rateAccuracyPercent");
+        double survivor = (double) report.get("achievedSurvivorRatio");
+        long chunks = (long) report.get("chunks");
+        long retained = (long) report.get("retainedChunks");
+        // 中文：确定性保留向下取整，比例最多偏差 1/chunks，因此比较块数而不是固定容差的比例
+        // English: Deterministic retention rounds down, so the ratio can miss by up to 1/chunks; compare chunk counts rather than the ratio against a fixed tolerance
+        if (Math.abs(accuracy - 100) <= 5 && chunks > 0 && Math.abs(retained - (long) Math.floor(chunks * 0.05)) <= 1) {
+            log.info("【成功】速率与存活比例达标 / Success: rate {}% of target, survivor ratio {}", accuracy, survivor);
+        } else {
+            log.error("速率或存活比例偏差过大 / Failure: {}", report);
+        }
+    }
+
+    public void testRetainCap() {
+        Map<String, Object> report = new AllocationPressureGenerator(200, 0.5, 64, 4L * 1024 * 1024, byte[]::new).run(300);
+        long retained = (long) report.get("retainedMbAtEnd");
+        if (retained <= 4 && "DURATION".equals(report.get("stopReason"))) {
+            log.info("【成功】存活集合受 retainMb 限制 / Success: survivors capped at {}MB", retained);
+        } else {
+            log.error("存活上限未生效 / Failure: {}", report);
+        }
+    }
+
+    public void testCancellation() throws InterruptedException {
+        AtomicReference<Throwable> outcome = new AtomicReference<>();
+        Thread worker = new Thread(() -> {
+            try {
+                new AllocationPressureGenerator(1, 0, 1024, 0, byte[]::new).run(60_000);
+            } catch (Throwable t) {
+                outcome.set(t);
+            }
+        });
+        worker.start();
+        Thread.sleep(100);
+        worker.interrupt();
+        worker.join(2_000);
+        if (!worker.isAlive() && outcome.get() instanceof CancellationException) {
+            log.info("【成功】限速等待可被中断 / Success: paced wait is interruptible");
+        } else {
+            log.error("取消未生效 / Failure: alive={} outcome={}", worker.isAlive(), outcome.get());
+        }
+    }
+
+    public void testInvalidParams() {
+        int rejected = 0;
+        for (double[] args : new double[][]{{0, 0.1}, {10, 1.5}, {10, -0.1}}) {
+            try {
+                new AllocationPressureGenerator(args[0], args[1], 64, 0, byte[]::new);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        if (rejected == 3) {
+            log.info("【成功】非法参数被拒绝 / Success: invalid parameters rejected");
+        } else {
+            log.error("参数校验失败 / Failure: only {} of 3 rejected", rejected);
+        }
+    }
+
+    public void testPacedHeapScenario() throws Exception {
+        ScenarioExecutionResult result = new HeapOomScenario().execute(Map.of(
+                "dryRun", false, "rateMbPerSec", 100, "survivorRatio", 0.1, "retainMb", 8, "durationMs", 300));
+        if (!result.isTriggered() && result.getMetrics().containsKey("achievedMbPerSec")) {
+            log.info("【成功】heap-oom 限速模式按时结束 / Success: paced heap-oom finished: {}", result.getMessage());
+        } else {
+            log.error("heap-oom 限速模式异常 / Failure: {}", result.getMetrics());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("jvm.lab.enableDanger", "true");
+        AllocationPressureGeneratorTest test = new AllocationPressureGeneratorTest();
+        test.testRateAndSurvivorRatio();
+        test.testRetainCap();
+        test.testCancellation();
+        test.testInvalidParams();
+        test.testPacedHeapScenario();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.scenario.HeapOomScenario;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 ForkedScenarioRunner 在子 JVM 中执行 heap-oom 并回传结果与进度、拒绝非法的内存参数、取消时强制结束子进程，以及 ForkedWorkerPool 在后台补充预热进程供下一次执行使用。
+ * English: Verify ForkedScenarioRunner runs heap-oom in a child JVM and returns its result and progress, rejects invalid size parameters, destroys the child on cancellation, and that ForkedWorkerPool refills a warmed-up worker in the background for the next run.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：子进程 -Xmx32m 触发 OOM，结果 triggered=true、fork.exitCode=0 且 pid 不同于当前进程；带附加选项的 forkXmx 抛出 IllegalArgumentException；中断后抛出 InterruptedException 且无存活子进程；
+ *      首次执行后池中出现同参数的空闲进程，第二次执行 fork.warm=true。
+ * English: With -Xmx32m the child hits OOM, the result has triggered=true, fork.exitCode=0 and a pid other than this process; a forkXmx carrying extra options throws IllegalArgumentException; after an interrupt InterruptedException is thrown and no child is alive;
+ *      after the first run the pool holds an idle worker for the same options and the second run reports fork.warm=true.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志（需要能启动 java 子进程）。
+ * English: Run main method and observe logs (requires spawning java child processes).
+ */
+@Slf4j
+public class ForkedScenarioRunnerTest {
+
+    private final ForkedWorkerPool pool = new ForkedWorkerPool(1, 2, 30_000, List.of(HeapOomScenario.class.getName()));
+    private final ForkedScenarioRunner runner = new ForkedScenarioRunner(2, 60_000, pool);
+
+    private static Map<String, Object> heapOomParams(int delayMs) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("dryRun", false);
+        params.put(ForkedScenarioRunner.PARAM_FORK, true);
+        params.put(ForkedScenarioRunner.PARAM_XMX, "32m");
+        params.put("sizeMb", 1);
+        params.put("delayMs", delayMs);
+        return params;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testHeapOomInChild() throws Exception {
+        ScenarioProgress progress = new ScenarioProgress(null);
+        ScenarioExecutionResult result = runner.execute(new HeapOomScenario(), heapOomParams(30), progress);
+        Map<String, Object> fork = (Map<String, Object>) result.getMetrics().get("fork");
+        long pid = ((Number) fork.get("pid")).longValue();
+        if (result.isTriggered() && (int) fork.get("exitCode") == 0 && pid != ProcessHandle.current().pid()
+                && progress.getCounters().getOrDefault("allocations", 0L) > 0) {
+            log.info("【成功】子 JVM 触发 OOM 并回传结果 / Success: child JVM hit OOM: {} progress={}",
+                    result.getMessage(), progress.getCounters());
+        } else {
+            log.error("子 JVM 执行结果不符 / Failure: {} metrics={} progress={}",
+                    result.getMessage(), result.getMetrics(), progress.getCounters());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testWarmWorkerReused() throws Exception {
+        // 中文：首次执行已触发后台补充，等待池中出现同参数的空闲进程
+        // English: The first run triggered a background refill; wait for an idle worker with the same options
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (idleWorkers() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        ScenarioExecutionResult result = runner.execute(new HeapOomScenario(), heapOomParams(0), new ScenarioProgress(null));
+        Map<String, Object> fork = (Map<String, Object>) result.getMetrics().get("fork");
+        if (result.isTriggered() && Boolean.TRUE.equals(fork.get("warm"))) {
+            log.info("【成功】预热子 JVM 被复用 / Success: warm worker used, wallMs={} pool={}",
+                    fork.get("wallMs"), pool.snapshot());
+        } else {
+            log.error("未使用预热子 JVM / Failure: fork={} pool={}", fork, pool.snapshot());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int idleWorkers() {
+        List<Map<String, Object>> sets = (List<Map<String, Object>>) pool.snapshot().get("optionSets");
+        return sets.stream().mapToInt(set -> (int) set.get("idle")).sum();
+    }
+
+    public void testRejectsArbitraryOptions() {
+        Map<String, Object> params = new HashMap<>();
+        params.put(ForkedScenarioRunner.PARAM_XMX, "64m -XX:OnOutOfMemoryError=touch");
+        try {
+            runner.jvmOptions(params);
+            log.error("非法内存参数未被拒绝 / Failure: extra JVM option accepted");
+        } catch (IllegalArgumentException e) {
+            log.info("【成功】拒绝附加 JVM 选项 / Success: {}", e.getMessage());
+        }
+    }
+
+    public void testCancelDestroysChild() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("dryRun", false);
+        params.put(ForkedScenarioRunner.PARAM_FORK, true);
+        params.put("sizeMb", 1);
+        params.put("delayMs", 200);
+        // 中文：关闭池，避免空闲预热进程被误判为未结束的子进程
+        // English: Pool disabled so idle warmed-up workers are not mistaken for a surviving child
+        ForkedScenarioRunner unpooled = new ForkedScenarioRunner(1, 60_000, new ForkedWorkerPool(0, 1, 30_000, List.of()));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread worker = new Thread(() -> {
+            try {
+                unpooled.execute(new HeapOomScenario(), params, new ScenarioProgress(null));
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        worker.start();
+        Thread.sleep(1_500);
+        worker.interrupt();
+        worker.join(10_000);
+        // 中文：destroyForcibly 是异步的，稍等子进程真正退出
+        // English: destroyForcibly is asynchronous; give the child a moment to exit
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        boolean childAlive = ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive);
+        if (failure.get() instanceof InterruptedException && !childAlive) {
+            log.info("【成功】取消后子 JVM 已结束 / Success: child JVM destroyed on cancellation");
+        } else {
+            log.error("取消结果不符 / Failure: error={} childAlive={}", failure.get(), childAlive);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("jvm.lab.enableDanger", "true");
+        ForkedScenarioRunnerTest test = new ForkedScenarioRunnerTest();
+        test.testRejectsArbitraryOptions();
+        test.testHeapOomInChild();
+        test.testWarmWorkerReused();
+        test.pool.shutdown();
+        test.testCancelDestroysChild();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.jvmlab.exceptionlab;
 
 import com.example.jvmlab.exceptionlab.model.ScenarioDetail;
 import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.model.ScenarioJob;
 import com.example.jvmlab.exceptionlab.model.ScenarioMetadata;
 import com.example.jvmlab.exceptionlab.scenario.*;
 import lombok.extern.slf4j.Slf4j;
@@ -11,8 +12,8 @@ import java.util.Map;
 
 /**
  * 测试目的 / Test Purpose:
- * 中文：验证异常实验控制器的列表、详情与执行（Dry-Run）返回结构正确，并打印成功日志。
- * English: Verify controller listing, detail and execution (dry-run) responses and print success logs.
+ * 中文：验证异常实验控制器的列表、详情、执行（Dry-Run）与异步作业返回结构正确，并打印成功日志。
+ * English: Verify controller listing, detail, execution (dry-run) and async job responses and print success logs.
  *
  * 预期结果 / Expected Result:
  * 中文：列表非空；详情包含 guide；执行返回 Dry-Run 提示与异常类型指标。
@@ -27,7 +28,8 @@ public class MemoryExceptionLabControllerTest {
 
     public void testListAndDetailAndExecute() throws Exception {
         MemoryExceptionLabService service = new MemoryExceptionLabService(buildScenarios());
-        MemoryExceptionLabController ctrl = new MemoryExceptionLabController(service);
+        ScenarioJobEngine engine = new ScenarioJobEngine(service, 1, 4, 10_000);
+        MemoryExceptionLabController ctrl = new MemoryExceptionLabController(service, engine);
         List<ScenarioMetadata> list = ctrl.listScenarios();
         if (!list.isEmpty()) {
             log.info("【成功】列表非空 / Success: scenarios listed: {}", list.size());
@@ -40,12 +42,23 @@ public class MemoryExceptionLabControllerTest {
         } else {
             log.error("详情缺少指南 / Failure: guide missing");
         }
-        ScenarioExecutionResult res = ctrl.executeScenario("heap-oom", true, Map.of());
+        ScenarioExecutionResult res = ctrl.executeScenario("heap-oom", true, false, Map.of());
         if (res.isDryRun() && res.getMetrics().containsKey("exceptionType")) {
             log.info("【成功】Dry-Run 执行返回指标 / Success: dry-run metrics present");
         } else {
             log.error("Dry-Run 执行不符合预期 / Failure: unexpected result: {}", res);
         }
+        ScenarioJob job = ctrl.submitJob("heap-oom", true, false, null, null);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!ctrl.getJob(job.getId()).isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        if (job.getStatus() == ScenarioJob.Status.SUCCEEDED && job.getResult().isDryRun()) {
+            log.info("【成功】异步作业返回 Dry-Run 结果 / Success: async job returned dry-run result");
+        } else {
+            log.error("异步作业不符合预期 / Failure: job status={} error={}", job.getStatus(), job.getError());
+        }
+        engine.shutdown();
     }
 
     private List<MemoryExceptionScenario> buildScenarios() {
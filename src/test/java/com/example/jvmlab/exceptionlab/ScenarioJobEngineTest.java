@@ -0,0 +1,182 @@
+package com.example.jvmlab.exceptionlab;
+
+import com.example.jvmlab.exceptionlab.model.JvmMemoryArea;
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.model.ScenarioGuide;
+import com.example.jvmlab.exceptionlab.model.ScenarioJob;
+import com.example.jvmlab.common.JvmMetricsSampler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 ScenarioJobEngine 并行执行、取消、超时、进度上报与队列满拒绝的行为。
+ * English: Verify ScenarioJobEngine parallel execution, cancellation, timeout, progress reporting and queue-full rejection.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：两个作业在两个工作线程上同时运行；取消后状态为 CANCELLED；超时后为 TIMED_OUT；超出队列容量时抛出 IllegalStateException。
+ * English: Two jobs run at once on two workers; a cancelled job ends CANCELLED; a slow job ends TIMED_OUT; exceeding the queue raises IllegalStateException.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志（测试内开启 jvm.lab.enableDanger，仅驱动无害的自旋场景）。
+ * English: Run main method and observe logs (the test enables jvm.lab.enableDanger and only drives a harmless spinning scenario).
+ */
+@Slf4j
+public class ScenarioJobEngineTest {
+
+    /**
+     * 无害的测试场景：按 spinMs 自旋并在每轮检查取消。
+     */
+    static class SpinScenario extends AbstractMemoryExceptionScenario {
+        @Override
+        public String getId() {
+            return "spin";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "spin";
+        }
+
+        @Override
+        public String getExceptionType() {
+            return "none";
+        }
+
+        @Override
+        public JvmMemoryArea getMemoryArea() {
+            return JvmMemoryArea.HEAP;
+        }
+
+        @Override
+        public ScenarioGuide getGuide() {
+            return new ScenarioGuide.Builder().build();
+        }
+
+        @Override
+        protected ScenarioExecutionResult doExecute(Map<String, Object> requestParams) {
+            long end = System.currentTimeMillis() + parseInt(requestParams, "spinMs", 100);
+            long loops = 0;
+            while (System.currentTimeMillis() < end) {
+                checkCancelled();
+                loops++;
+                if ((loops & 1023) == 0) {
+                    reportProgress("loops", loops);
+                }
+            }
+            return new ScenarioExecutionResult(getId(), false, false, "spun", Map.of("loops", loops), List.of());
+        }
+    }
+
+    private static Map<String, Object> spin(long spinMs) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("dryRun", false);
+        params.put("spinMs", spinMs);
+        return params;
+    }
+
+    private static void await(ScenarioJob job, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    public void testParallel(ScenarioJobEngine engine) throws InterruptedException {
+        ScenarioJob first = engine.submit("spin", spin(300));
+        ScenarioJob second = engine.submit("spin", spin(300));
+        Thread.sleep(100);
+        boolean bothRunning = first.getStatus() == ScenarioJob.Status.RUNNING && second.getStatus() == ScenarioJob.Status.RUNNING;
+        await(first, 5_000);
+        await(second, 5_000);
+        if (bothRunning && first.getStatus() == ScenarioJob.Status.SUCCEEDED && second.getStatus() == ScenarioJob.Status.SUCCEEDED
+                && !first.getWorkerThread().equals(second.getWorkerThread())) {
+            log.info("【成功】两个作业并行完成 / Success: two jobs ran in parallel on {} and {}", first.getWorkerThread(), second.getWorkerThread());
+        } else {
+            log.error("并行执行失败 / Failure: first={} second={} bothRunning={}", first.getStatus(), second.getStatus(), bothRunning);
+        }
+    }
+
+    public void testCancel(ScenarioJobEngine engine) throws InterruptedException {
+        ScenarioJob job = engine.submit("spin", spin(60_000));
+        Thread.sleep(50);
+        engine.cancel(job.getId());
+        await(job, 2_000);
+        if (job.getStatus() == ScenarioJob.Status.CANCELLED && job.getElapsedMs() < 2_000) {
+            log.info("【成功】运行中作业被取消 / Success: running job cancelled after {}ms", job.getElapsedMs());
+        } else {
+            log.error("取消失败 / Failure: status={}", job.getStatus());
+        }
+    }
+
+    public void testTimeout(ScenarioJobEngine engine) throws InterruptedException {
+        Map<String, Object> params = spin(60_000);
+        params.put(ScenarioJobEngine.PARAM_TIMEOUT_MS, 200);
+        ScenarioJob job = engine.submit("spin", params);
+        await(job, 3_000);
+        if (job.getStatus() == ScenarioJob.Status.TIMED_OUT) {
+            log.info("【成功】作业超时终止 / Success: job timed out after {}ms", job.getElapsedMs());
+        } else {
+            log.error("超时未生效 / Failure: status={}", job.getStatus());
+        }
+    }
+
+    public void testProgress(ScenarioJobEngine engine) throws InterruptedException {
+        ScenarioJob job = engine.submit("spin", spin(500));
+        Thread.sleep(200);
+        Long loops = job.getProgress().get("loops");
+        ScenarioProgress probe = new ScenarioProgress(null);
+        probe.report("loops", loops == null ? 0 : loops);
+        Map<String, Object> event = probe.toEvent(JvmMetricsSampler.getInstance().current());
+        await(job, 2_000);
+        if (loops != null && loops > 0 && event.containsKey("poolUsedMb") && event.containsKey("gcSinceStart")) {
+            log.info("【成功】运行中可读取进度 / Success: progress visible mid-run, loops={} heapUsedMb={}", loops, event.get("heapUsedMb"));
+        } else {
+            log.error("进度不可见 / Failure: progress={} event={}", job.getProgress(), event.keySet());
+        }
+    }
+
+    public void testQueueFull() throws InterruptedException {
+        MemoryExceptionLabService service = new MemoryExceptionLabService(List.of(new SpinScenario()));
+        ScenarioJobEngine engine = new ScenarioJobEngine(service, 1, 1, 10_000);
+        try {
+            ScenarioJob running = engine.submit("spin", spin(60_000));
+            ScenarioJob queued = engine.submit("spin", spin(60_000));
+            try {
+                engine.submit("spin", spin(60_000));
+                log.error("队列满未拒绝 / Failure: third job accepted");
+            } catch (IllegalStateException e) {
+                log.info("【成功】队列满时拒绝提交 / Success: full queue rejected submission");
+            }
+            engine.cancel(queued.getId());
+            engine.cancel(running.getId());
+            await(running, 2_000);
+            if (queued.getStatus() == ScenarioJob.Status.CANCELLED && queued.getStartedAt() == null) {
+                log.info("【成功】排队作业取消后不再执行 / Success: queued job cancelled without running");
+            } else {
+                log.error("排队作业取消失败 / Failure: queued status={}", queued.getStatus());
+            }
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("jvm.lab.enableDanger", "true");
+        ScenarioJobEngineTest test = new ScenarioJobEngineTest();
+        MemoryExceptionLabService service = new MemoryExceptionLabService(List.of(new SpinScenario()));
+        ScenarioJobEngine engine = new ScenarioJobEngine(service, 2, 8, 10_000);
+        try {
+            test.testParallel(engine);
+            test.testCancel(engine);
+            test.testTimeout(engine);
+            test.testProgress(engine);
+        } finally {
+            engine.shutdown();
+        }
+        test.testQueueFull();
+    }
+}
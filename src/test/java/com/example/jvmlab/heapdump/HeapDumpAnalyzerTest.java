@@ -0,0 +1,105 @@
+package com.example.jvmlab.heapdump;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 HeapDumpAnalyzer 对真实 HPROF 的解析：小窗口映射下直方图正确、静态集合保留的 byte[] 能被支配树定位到堆积点并给出 GC Root 路径、超出预算时只返回直方图。
+ * English: Verify HeapDumpAnalyzer on a real HPROF: a correct histogram with a small mapping window, byte[] retained by a static collection located through the dominator tree with an accumulation point and GC-root path, and histogram-only output when over budget.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：Holder 类为顶层支配者之一，保留 ≥ 1MB，堆积点是 Object[] 且直接支配 ≥ 1000 个对象；1MB 预算时 graph.analyzed=false。
+ * English: The Holder class is a top-level dominator retaining at least 1MB, its accumulation point is an Object[] directly dominating at least 1000 objects; with a 1MB budget graph.analyzed is false.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class HeapDumpAnalyzerTest {
+
+    public void testPrettyNames() {
+        boolean ok = "java.lang.Object[]".equals(HeapDumpAnalyzer.prettyName("[Ljava/lang/Object;"))
+                && "int[][]".equals(HeapDumpAnalyzer.prettyName("[[I"))
+                && "java.util.HashMap$Node".equals(HeapDumpAnalyzer.prettyName("java/util/HashMap$Node"));
+        if (ok) {
+            log.info("【成功】类名转换正确 / Success: class names converted");
+        } else {
+            log.error("类名转换错误 / Failure: class names not converted");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testDominatorsFindRetainedArrays(Path dump) throws Exception {
+        Map<String, Object> report = new HeapDumpAnalyzer(dump, 10, 512L * 1024 * 1024, 1024 * 1024).analyze();
+        Map<String, Object> histogram = (Map<String, Object>) report.get("histogram");
+        boolean histogramOk = Arrays.asList((String[]) histogram.get("className")).contains("byte[]");
+        List<Map<String, Object>> dominators = (List<Map<String, Object>>) report.get("dominators");
+        Map<String, Object> holder = dominators.stream()
+                .filter(item -> ((String) item.get("object")).startsWith("class " + Holder.class.getName()))
+                .findFirst().orElse(null);
+        boolean dominatorOk = false;
+        if (holder != null) {
+            Map<String, Object> point = (Map<String, Object>) holder.get("accumulationPoint");
+            dominatorOk = (long) holder.get("retainedBytes") >= Holder.COUNT * Holder.SIZE
+                    && ((String) point.get("object")).startsWith("java.lang.Object[]")
+                    && (int) point.get("dominatedObjects") >= Holder.COUNT
+                    && ((List<String>) holder.get("pathFromGcRoot")).get(0).startsWith("GC root");
+        }
+        if (histogramOk && dominatorOk) {
+            log.info("【成功】支配树定位到静态集合 / Success: dominator tree found the static collection: {} graph={}",
+                    holder, report.get("graph"));
+        } else {
+            log.error("支配树分析不符 / Failure: histogram={} holder={} report={}", histogramOk, holder, report);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testGraphSkippedOverBudget(Path dump) throws Exception {
+        Map<String, Object> report = new HeapDumpAnalyzer(dump, 5, 1024 * 1024).analyze();
+        Map<String, Object> graph = (Map<String, Object>) report.get("graph");
+        if (Boolean.FALSE.equals(graph.get("analyzed")) && report.get("histogram") != null
+                && !report.containsKey("dominators")) {
+            log.info("【成功】超出预算时只返回直方图 / Success: graph skipped over budget: {}", graph.get("reason"));
+        } else {
+            log.error("超出预算仍构建了对象图 / Failure: graph={}", graph);
+        }
+    }
+
+    static final class Holder {
+        static final int COUNT = 1000;
+        static final int SIZE = 1024;
+        static final List<byte[]> RETAINED = new ArrayList<>();
+
+        static void fill() {
+            for (int i = 0; i < COUNT; i++) {
+                RETAINED.add(new byte[SIZE]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        HeapDumpAnalyzerTest test = new HeapDumpAnalyzerTest();
+        test.testPrettyNames();
+        Holder.fill();
+        Path directory = Files.createTempDirectory("heapdump-test");
+        Path dump = directory.resolve("test.hprof");
+        try {
+            ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).dumpHeap(dump.toString(), true);
+            test.testDominatorsFindRetainedArrays(dump);
+            test.testGraphSkippedOverBudget(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.jvmlab.monitor;
+
+import com.example.jvmlab.exceptionlab.model.ScenarioExecutionResult;
+import com.example.jvmlab.exceptionlab.scenario.HeapOomScenario;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 AllocationHotspotProfiler 只统计目标线程并把字节数最多的调用栈定位到分配方法，以及场景 allocationProfile=true 时结果附带分配画像。
+ * English: Verify AllocationHotspotProfiler counts only the target thread and ranks the allocating method's stack first, and that scenarios attach the profile when allocationProfile=true.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：热点栈首帧为 allocateHot，热点类为 [B，后台线程的分配栈不出现；complete=true；限速 heap-oom 的 metrics 含 allocationProfile 且 weightedMb > 0。
+ * English: The top stack starts at allocateHot, the top class is [B and no stack from the background thread appears; complete=true; a paced heap-oom result carries allocationProfile with weightedMb > 0.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class AllocationHotspotProfilerTest {
+
+    private static volatile Object sink;
+
+    @SuppressWarnings("unchecked")
+    public void testTargetThreadHotspot() throws InterruptedException {
+        Thread noise = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                sink = new int[16 * 1024];
+            }
+        }, "alloc-noise");
+        noise.setDaemon(true);
+        noise.start();
+        try {
+            AllocationHotspotProfiler.Session session = AllocationHotspotProfiler.start(Thread.currentThread().getId(), 4);
+            allocateHot();
+            Map<String, Object> report = session.finish(5);
+            List<Map<String, Object>> stacks = (List<Map<String, Object>>) report.get("topStacks");
+            List<Map<String, Object>> classes = (List<Map<String, Object>>) report.get("topClasses");
+            boolean hotStack = !stacks.isEmpty()
+                    && ((List<String>) stacks.get(0).get("frames")).get(0).contains("allocateHot");
+            boolean hotClass = !classes.isEmpty() && "[B".equals(classes.get(0).get("class"));
+            // 中文：JFR 自身的类插桩也会在本线程分配少量 int[]，因此按噪声线程的栈而不是按类判断
+            // English: JFR's own class instrumentation may allocate a few int[] on this thread, so check for the noise thread's stack rather than the class
+            boolean noiseExcluded = stacks.stream().noneMatch(item -> ((List<String>) item.get("frames")).stream()
+                    .anyMatch(frame -> frame.contains("lambda$testTargetThreadHotspot")));
+            if (hotStack && hotClass && noiseExcluded && Boolean.TRUE.equals(report.get("complete"))) {
+                log.info("【成功】定位到分配热点 / Success: top stack {} with {} MB", stacks.get(0).get("frames"), stacks.get(0).get("mb"));
+            } else {
+                log.error("分配热点不符 / Failure: {}", report);
+            }
+        } finally {
+            noise.interrupt();
+            noise.join(1_000);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testScenarioAttachesProfile() throws Exception {
+        ScenarioExecutionResult result = new HeapOomScenario().execute(Map.of(
+                "dryRun", false, "rateMbPerSec", 100, "survivorRatio", 0.1, "retainMb", 8, "durationMs", 300,
+                "allocationProfile", "true"));
+        Map<String, Object> profile = (Map<String, Object>) result.getMetrics().get("allocationProfile");
+        if (profile != null && (double) profile.get("weightedMb") > 0 && result.getMetrics().containsKey("achievedMbPerSec")) {
+            log.info("【成功】场景结果附带分配画像 / Success: scenario result carries {} MB of allocation profile", profile.get("weightedMb"));
+        } else {
+            log.error("场景未附带分配画像 / Failure: {}", result.getMetrics());
+        }
+    }
+
+    private static void allocateHot() {
+        for (int i = 0; i < 4_000; i++) {
+            sink = new byte[32 * 1024];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("jvm.lab.enableDanger", "true");
+        AllocationHotspotProfilerTest test = new AllocationHotspotProfilerTest();
+        test.testTargetThreadHotspot();
+        test.testScenarioAttachesProfile();
+    }
+}
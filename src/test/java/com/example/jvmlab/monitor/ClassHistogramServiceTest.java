@@ -0,0 +1,115 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 ClassHistogramService 对 gcClassHistogram 输出的解析（去模块后缀、同名类合并、跳过表头与 Total）、基线对比排序，以及进程内采集能发现新保留的对象。
+ * English: Verify ClassHistogramService parsing of gcClassHistogram output (module suffix stripped, same-named classes merged, header and Total skipped), diff ordering, and that an in-process capture detects newly retained objects.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：解析得到 3 个类且 Foo 合并为 30 个实例；对比按字节排序时 [B 排第一且未增长的类不出现；保留 5000 个 LeakedItem 后按实例数对比它的增量为 5000。
+ * English: Parsing yields 3 classes with Foo merged to 30 instances; a byte-sorted diff ranks [B first and omits classes that did not grow; after retaining 5000 LeakedItem objects the instance diff shows a delta of 5000.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class ClassHistogramServiceTest {
+
+    private static final String BEFORE = String.join("\n",
+            " num     #instances         #bytes  class name (module)",
+            "-------------------------------------------------------",
+            "   1:          100          4000  [B (java.base@17.0.9)",
+            "   2:           10           160  com.example.Foo",
+            "   3:           20           320  com.example.Foo",
+            "   4:            5            80  java.lang.Object (java.base@17.0.9)",
+            "Total          135          4560");
+    private static final String AFTER = String.join("\n",
+            "   1:          300         64000  [B (java.base@17.0.9)",
+            "   2:           40           640  com.example.Foo",
+            "   3:            5            80  java.lang.Object (java.base@17.0.9)",
+            "   4:            1            16  com.example.Bar",
+            "Total          346         64736");
+
+    @SuppressWarnings("unchecked")
+    public void testParseAndDiff() {
+        ClassHistogramService.Snapshot before = ClassHistogramService.Snapshot.parse(BEFORE, true);
+        ClassHistogramService.Snapshot after = ClassHistogramService.Snapshot.parse(AFTER, true);
+        boolean parsed = before.size() == 3 && "com.example.Foo".equals(before.classNames[1])
+                && before.instances[1] == 30 && "[B".equals(before.classNames[0]) && before.totalBytes == 4560;
+        Map<String, Object> diff = ClassHistogramService.diff(before, after, 10, true);
+        List<Map<String, Object>> growth = (List<Map<String, Object>>) diff.get("topGrowth");
+        boolean diffed = growth.size() == 3 && "[B".equals(growth.get(0).get("class"))
+                && (long) growth.get(0).get("bytesDelta") == 60000
+                && growth.stream().noneMatch(item -> "java.lang.Object".equals(item.get("class")))
+                && (int) diff.get("newClasses") == 1;
+        if (parsed && diffed) {
+            log.info("【成功】直方图解析与对比正确 / Success: histogram parsed and diffed: {}", growth);
+        } else {
+            log.error("解析或对比不符 / Failure: parsed={} diff={}", parsed, diff);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testLiveBaselineDiff() {
+        ClassHistogramService service = new ClassHistogramService();
+        service.saveBaseline("before", true);
+        List<LeakedItem> retained = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            retained.add(new LeakedItem(i));
+        }
+        Map<String, Object> diff = service.diff("before", null, 20, "instances", true);
+        long delta = ((List<Map<String, Object>>) diff.get("topGrowth")).stream()
+                .filter(item -> LeakedItem.class.getName().equals(item.get("class")))
+                .mapToLong(item -> (long) item.get("instancesDelta"))
+                .findFirst().orElse(-1);
+        if (delta == 5_000 && retained.size() == 5_000) {
+            log.info("【成功】基线对比发现保留对象 / Success: baseline diff found {} new LeakedItem instances", delta);
+        } else {
+            log.error("基线对比未发现保留对象 / Failure: delta={} diff={}", delta, diff);
+        }
+    }
+
+    public void testRejectsInvalidInput() {
+        ClassHistogramService service = new ClassHistogramService();
+        int rejected = 0;
+        try {
+            service.diff("missing", null, 10, "bytes", false);
+        } catch (NoSuchElementException e) {
+            rejected++;
+        }
+        try {
+            service.saveBaseline("x", false);
+            service.diff("x", null, 10, "size", false);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        if (rejected == 2) {
+            log.info("【成功】未知基线与非法排序字段被拒绝 / Success: unknown baseline and sort key rejected");
+        } else {
+            log.error("参数校验失败 / Failure: {} of 2 rejected", rejected);
+        }
+    }
+
+    static final class LeakedItem {
+        private final long id;
+
+        LeakedItem(long id) {
+            this.id = id;
+        }
+    }
+
+    public static void main(String[] args) {
+        ClassHistogramServiceTest test = new ClassHistogramServiceTest();
+        test.testParseAndDiff();
+        test.testLiveBaselineDiff();
+        test.testRejectsInvalidInput();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 JfrRecordingService 的启动、转储、停止与下载路径，以及 JfrLiveStream 能从事件流聚合出 GC 与分配摘要。
+ * English: Verify JfrRecordingService start, dump, stop and download path, and that JfrLiveStream aggregates GC and allocation summaries from the event stream.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：运行中转储得到非空快照且下载被拒绝；停止后文件存在且可下载；未知配置、配置目录外的 .jfc 与未知 ID 被拒绝；触发 System.gc() 与分配后摘要中 GC 次数与分配采样数大于 0。
+ * English: A dump while running yields a non-empty snapshot and download is refused; after stop the file exists and is downloadable; unknown settings, .jfc files outside the settings directory and unknown ids are rejected; after System.gc() and allocations the summary shows GCs and allocation samples.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class JfrRecordingServiceTest {
+
+    private static volatile Object sink;
+
+    public void testRecordingLifecycle(Path dir) throws Exception {
+        JfrRecordingService service = new JfrRecordingService(dir);
+        Map<String, Object> started = service.start("lifecycle test", "default", 0, 0, 0);
+        long id = (long) started.get("id");
+        allocate();
+        Map<String, Object> snapshot = service.dump(id);
+        boolean refusedWhileRunning = false;
+        try {
+            service.file(id);
+        } catch (IllegalStateException e) {
+            refusedWhileRunning = true;
+        }
+        Map<String, Object> stopped = service.stop(id);
+        Path file = service.file(id);
+        if ((long) snapshot.get("sizeBytes") > 0 && refusedWhileRunning && !"RUNNING".equals(stopped.get("state"))
+                && Files.size(file) > 0 && file.getFileName().toString().startsWith("lifecycle_test-")) {
+            log.info("【成功】录制启动、转储、停止与落盘正常 / Success: recording started, dumped, stopped and written to {}", file);
+        } else {
+            log.error("录制生命周期异常 / Failure: snapshot={} stopped={} refused={}", snapshot, stopped, refusedWhileRunning);
+        }
+        service.close(id);
+        service.shutdown();
+    }
+
+    public void testRejectsInvalidInput(Path dir) {
+        JfrRecordingService service = new JfrRecordingService(dir);
+        int rejected = 0;
+        try {
+            service.start("x", "no-such-settings", 0, 0, 0);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            service.stop(Long.MAX_VALUE);
+        } catch (NoSuchElementException e) {
+            rejected++;
+        }
+        if (rejected == 2) {
+            log.info("【成功】未知配置与未知录制被拒绝 / Success: unknown settings and recording rejected");
+        } else {
+            log.error("参数校验失败 / Failure: {} of 2 rejected", rejected);
+        }
+    }
+
+    public void testSettingsConfinedToDirectory(Path dir) throws Exception {
+        Path settingsDir = Files.createDirectories(dir.resolve("settings"));
+        Files.writeString(settingsDir.resolve("lab.jfc"), jdk.jfr.Configuration.getConfiguration("default").getContents());
+        Files.writeString(dir.resolve("outside.jfc"), jdk.jfr.Configuration.getConfiguration("default").getContents());
+        JfrRecordingService confined = new JfrRecordingService(dir, settingsDir);
+        JfrRecordingService namedOnly = new JfrRecordingService(dir);
+        int rejected = 0;
+        for (String settings : new String[]{"../outside.jfc", dir.resolve("outside.jfc").toString(), "missing.jfc", "lab"}) {
+            try {
+                confined.loadConfiguration(settings);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        try {
+            namedOnly.loadConfiguration(settingsDir.resolve("lab.jfc").toString());
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        boolean accepted = confined.loadConfiguration("lab.jfc") != null && namedOnly.loadConfiguration("profile") != null;
+        if (rejected == 5 && accepted) {
+            log.info("【成功】只接受内置配置与配置目录内的 .jfc / Success: only named settings and .jfc files inside the settings directory accepted");
+        } else {
+            log.error("配置路径校验失败 / Failure: {} of 5 rejected, accepted={}", rejected, accepted);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testLiveStreamSummary() throws InterruptedException {
+        JfrLiveStream stream = new JfrLiveStream();
+        stream.start();
+        try {
+            Thread.sleep(1_000);
+            for (int i = 0; i < 3; i++) {
+                allocate();
+                System.gc();
+            }
+            // 中文：事件流按约 1 秒的块刷新，等待几轮让事件到达
+            // English: The stream flushes in roughly one-second chunks, so wait a few rounds for events to arrive
+            Map<String, Object> summary = null;
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(1_000);
+                summary = stream.summary();
+                long samples = (long) ((Map<String, Object>) summary.get("allocation")).get("samples");
+                Map<String, Object> gcByCollector = (Map<String, Object>) ((Map<String, Object>) summary.get("gc")).get("byCollector");
+                if (samples > 0 && !gcByCollector.isEmpty()) {
+                    log.info("【成功】事件流聚合到 GC 与分配 / Success: stream aggregated GC {} and {} allocation samples",
+                            gcByCollector.keySet(), samples);
+                    return;
+                }
+            }
+            log.error("事件流未聚合到事件 / Failure: {}", summary);
+        } finally {
+            stream.stop();
+        }
+    }
+
+    private static void allocate() {
+        for (int i = 0; i < 2_000; i++) {
+            sink = new byte[64 * 1024];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("jfr-test");
+        JfrRecordingServiceTest test = new JfrRecordingServiceTest();
+        test.testRecordingLifecycle(dir);
+        test.testRejectsInvalidInput(dir);
+        test.testSettingsConfinedToDirectory(dir);
+        test.testLiveStreamSummary();
+    }
+}
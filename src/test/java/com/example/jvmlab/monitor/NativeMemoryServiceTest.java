@@ -0,0 +1,103 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 NativeMemoryService 对 VM.native_memory summary / summary.diff 输出的解析（忽略明细行、带增量列）、时间序列的窗口增长量，以及 NMT 未开启时的提示。
+ * English: Verify NativeMemoryService parsing of VM.native_memory summary / summary.diff output (detail lines ignored, delta columns), window growth of the time series, and the hint when NMT is off.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：summary 解析出 4 个类别且 Java Heap committed 为 131072KB；diff 中 Other 增量 8192KB 排第一；两次记录后 Other 窗口增长 8192KB；off 模式抛出 IllegalStateException。
+ * English: The summary yields 4 categories with Java Heap committed at 131072KB; in the diff Other ranks first with +8192KB; after two records Other grew 8192KB over the window; off mode throws IllegalStateException.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class NativeMemoryServiceTest {
+
+    private static final String SUMMARY = String.join("\n",
+            "Native Memory Tracking:",
+            "",
+            "Total: reserved=1633452KB, committed=246316KB",
+            "       malloc: 4611KB #18518",
+            "-                 Java Heap (reserved=262144KB, committed=131072KB)",
+            "                            (mmap: reserved=262144KB, committed=131072KB) ",
+            "-                     Class (reserved=1048720KB, committed=528KB)",
+            "                            (classes #1536)",
+            "-                    Thread (reserved=13348KB, committed=708KB)",
+            "                            (stack: reserved=13312KB, committed=672KB)",
+            "-                     Other (reserved=10KB, committed=10KB)",
+            "                            (malloc=10KB #2) ");
+    private static final String DIFF = String.join("\n",
+            "Native Memory Tracking:",
+            "",
+            "Total: reserved=1642675KB +9223KB, committed=254619KB +8303KB",
+            "",
+            "-                 Java Heap (reserved=262144KB, committed=131072KB)",
+            "-                     Class (reserved=1048721KB +1KB, committed=529KB +1KB)",
+            "-                    Thread (reserved=14375KB +1027KB, committed=815KB +107KB)",
+            "                            (stack: reserved=14336KB +1024KB, committed=776KB +104KB)",
+            "-                     Other (reserved=8202KB +8192KB, committed=8202KB +8192KB)",
+            "                            (malloc=8202KB +8192KB #3 +1)");
+
+    @SuppressWarnings("unchecked")
+    public void testParseSummaryAndDiff() {
+        NativeMemoryService.Snapshot summary = NativeMemoryService.Snapshot.parse(SUMMARY, false);
+        boolean parsed = summary.categories.length == 4 && summary.committed("Java Heap") == 131072
+                && summary.totalCommittedKb == 246316 && summary.committed("Internal") == -1;
+        Map<String, Object> diff = NativeMemoryService.Snapshot.parse(DIFF, true).toMap();
+        List<Map<String, Object>> categories = (List<Map<String, Object>>) diff.get("categories");
+        boolean diffed = "Other".equals(categories.get(0).get("category"))
+                && (long) categories.get(0).get("committedDeltaKb") == 8192
+                && (long) diff.get("totalCommittedDeltaKb") == 8303
+                && (long) categories.get(categories.size() - 1).get("committedDeltaKb") == 0;
+        if (parsed && diffed) {
+            log.info("【成功】NMT 输出解析正确 / Success: NMT output parsed: {}", categories);
+        } else {
+            log.error("NMT 输出解析不符 / Failure: parsed={} diff={}", parsed, diff);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testHistoryGrowth() {
+        NativeMemoryService service = new NativeMemoryService("summary", 1_000, 16);
+        long now = System.currentTimeMillis();
+        service.record(NativeMemoryService.Snapshot.parse(SUMMARY, false), now - 10_000);
+        service.record(NativeMemoryService.Snapshot.parse(DIFF, true), now);
+        Map<String, Object> history = service.history(60_000, 10);
+        Map<String, Object> growth = (Map<String, Object>) history.get("committedGrowthKb");
+        long[] other = (long[]) ((Map<String, Object>) history.get("committedKb")).get("Other");
+        if ((int) history.get("points") == 2 && (long) growth.get("Other") == 8192 && other[1] == 8202) {
+            log.info("【成功】NMT 历史增长量正确 / Success: NMT history growth {}", growth);
+        } else {
+            log.error("NMT 历史不符 / Failure: {}", history);
+        }
+    }
+
+    public void testDisabledHint() {
+        NativeMemoryService service = new NativeMemoryService("off", 1_000, 16);
+        try {
+            service.summary();
+            log.error("NMT 未开启却返回了摘要 / Failure: summary returned while NMT is off");
+        } catch (IllegalStateException e) {
+            if (e.getMessage().contains("-XX:NativeMemoryTracking=summary")) {
+                log.info("【成功】NMT 未开启时给出提示 / Success: {}", e.getMessage());
+            } else {
+                log.error("提示信息缺少启动参数 / Failure: {}", e.getMessage());
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        NativeMemoryServiceTest test = new NativeMemoryServiceTest();
+        test.testParseSummaryAndDiff();
+        test.testHistoryGrowth();
+        test.testDisabledHint();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.jvmlab.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 RequestAllocationFilter 按路由模板记录请求线程的分配字节与 CPU 时间，并在请求要求时写入响应头。
+ * English: Verify RequestAllocationFilter records request-thread allocated bytes and CPU time per route template, and adds response headers when asked.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：分配 1MB 的请求在 jvm.lab.request.allocated{uri=/demo/{id}} 中记录不少于 1MB；携带 X-Allocation-Accounting: headers 时响应含 X-Allocated-Bytes 且响应体完整。
+ * English: A request allocating 1MB records at least 1MB under jvm.lab.request.allocated{uri=/demo/{id}}; with X-Allocation-Accounting: headers the response carries X-Allocated-Bytes and the full body.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class RequestAllocationFilterTest {
+
+    private static final int ALLOCATION = 1024 * 1024;
+
+    public void testRecordsPerRoute() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestAllocationFilter filter = new RequestAllocationFilter(registry, true, false);
+        List<byte[]> retained = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/demo/" + i);
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/demo/{id}");
+                retained.add(new byte[ALLOCATION]);
+            });
+        }
+        DistributionSummary summary = registry.find(RequestAllocationFilter.ALLOCATED_METRIC)
+                .tags("method", "GET", "uri", "/demo/{id}").summary();
+        if (summary != null && summary.count() == 3 && summary.mean() >= ALLOCATION && retained.size() == 3) {
+            log.info("【成功】按路由模板记录分配字节 / Success: {} requests, mean {} bytes", summary.count(), (long) summary.mean());
+        } else {
+            log.error("分配记录不符合预期 / Failure: summary={}", summary == null ? null : summary.takeSnapshot());
+        }
+    }
+
+    public void testHeadersOnRequest() throws Exception {
+        RequestAllocationFilter filter = new RequestAllocationFilter(new SimpleMeterRegistry(), true, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/demo");
+        request.addHeader(RequestAllocationFilter.REQUEST_HEADER, "headers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            byte[] payload = new byte[ALLOCATION];
+            res.getOutputStream().write("ok".getBytes());
+            res.flushBuffer();
+            payload[0] = 1;
+        });
+        String header = response.getHeader(RequestAllocationFilter.ALLOCATED_HEADER);
+        if (header != null && Long.parseLong(header) >= ALLOCATION && "ok".equals(response.getContentAsString())) {
+            log.info("【成功】响应头携带分配字节 / Success: {}={}", RequestAllocationFilter.ALLOCATED_HEADER, header);
+        } else {
+            log.error("响应头缺失或响应体不完整 / Failure: header={} body={}", header, response.getContentAsString());
+        }
+    }
+
+    public void testEventStreamSkipsHeaders() throws Exception {
+        RequestAllocationFilter filter = new RequestAllocationFilter(new SimpleMeterRegistry(), true, true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs/1/stream");
+        request.addHeader("Accept", "text/event-stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            res.getOutputStream().write("data:1\n\n".getBytes());
+            res.flushBuffer();
+        });
+        if (response.isCommitted() && response.getHeader(RequestAllocationFilter.ALLOCATED_HEADER) == null) {
+            log.info("【成功】事件流请求不缓冲、不加头 / Success: event stream is neither buffered nor annotated");
+        } else {
+            log.error("事件流被缓冲 / Failure: committed={}", response.isCommitted());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        RequestAllocationFilterTest test = new RequestAllocationFilterTest();
+        test.testRecordsPerRoute();
+        test.testHeadersOnRequest();
+        test.testEventStreamSkipsHeaders();
+    }
+}
@@ -40,10 +40,30 @@ public class RuntimeMonitorControllerTest {
         }
     }
 
+    /**
+     * 方法说明 / Method Description:
+     * 中文：调用历史序列接口并校验包含堆与 GC 序列。
+     * English: Call the history endpoint and validate heap and GC series are present.
+     *
+     * 参数 / Parameters: 无
+     * 返回值 / Return: 无
+     * 异常 / Exceptions: 无
+     */
+    public void testHistorySeries() {
+        RuntimeMonitorController ctrl = new RuntimeMonitorController();
+        Map<String, Object> data = ctrl.history(60, 30);
+        if (data.containsKey("heap") && data.containsKey("gc") && data.containsKey("threads")) {
+            log.info("【成功】历史序列包含堆/GC/线程 / Success: history contains heap/gc/threads");
+        } else {
+            log.error("历史序列缺少部分键 / Failure: missing keys in history: {}", data.keySet());
+        }
+    }
+
     /** 入口方法 / Entry point */
     public static void main(String[] args) {
         RuntimeMonitorControllerTest t = new RuntimeMonitorControllerTest();
         t.testOverviewKeys();
+        t.testHistorySeries();
         log.info("【成功】RuntimeMonitorControllerTest 用例通过 / Success: case passed");
     }
 }
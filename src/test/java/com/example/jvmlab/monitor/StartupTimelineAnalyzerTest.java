@@ -0,0 +1,57 @@
+package com.example.jvmlab.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：用手工记录的 BufferingApplicationStartup 时间线验证 StartupTimelineAnalyzer 区分 Bean 与阶段，并以扣除子步骤后的 self 时间给 Bean 排序。
+ * English: Verify with a hand-recorded BufferingApplicationStartup timeline that StartupTimelineAnalyzer separates beans from phases and ranks beans by self time net of child steps.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：outer 依赖 inner（约 120ms），outer 自身约 30ms；按 self 排序 inner 在前，outer total 大于 self；阶段列表只含 spring.context.refresh。
+ * English: outer depends on inner (about 120ms) and takes about 30ms itself; ranked by self, inner comes first and outer's total exceeds its self time; the phase list only holds spring.context.refresh.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class StartupTimelineAnalyzerTest {
+
+    @SuppressWarnings("unchecked")
+    public void testSelfTimeRanking() throws InterruptedException {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        StartupStep refresh = startup.start("spring.context.refresh");
+        StartupStep outer = startup.start("spring.beans.instantiate").tag("beanName", "outer");
+        Thread.sleep(30);
+        StartupStep inner = startup.start("spring.beans.instantiate").tag("beanName", "inner");
+        Thread.sleep(120);
+        inner.end();
+        outer.end();
+        refresh.end();
+
+        Map<String, Object> result = StartupTimelineAnalyzer.analyze(startup.getBufferedTimeline(), 10);
+        List<Map<String, Object>> beans = (List<Map<String, Object>>) result.get("slowestBeans");
+        List<Map<String, Object>> phases = (List<Map<String, Object>>) result.get("slowestPhases");
+        Map<String, Object> first = beans.get(0);
+        Map<String, Object> second = beans.get(1);
+        boolean ok = "inner".equals(first.get("bean")) && "outer".equals(second.get("bean"))
+                && (double) second.get("totalMs") >= 150 && (double) second.get("selfMs") < 100
+                && phases.size() == 1 && "spring.context.refresh".equals(phases.get(0).get("phase"))
+                && (int) result.get("beansInstantiated") == 2;
+        if (ok) {
+            log.info("【成功】按 self 时间排序 Bean / Success: beans ranked by self time: {}", beans);
+        } else {
+            log.error("启动时间线分析不符 / Failure: {}", result);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new StartupTimelineAnalyzerTest().testSelfTimeRanking();
+    }
+}
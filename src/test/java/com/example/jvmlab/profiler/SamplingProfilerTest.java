@@ -0,0 +1,158 @@
+package com.example.jvmlab.profiler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 测试目的 / Test Purpose:
+ * 中文：验证 StackTrie 的前缀共享、collapsed 输出与节点上限，以及 SamplingProfiler 能在按线程名过滤时定位到忙循环方法。
+ * English: Verify StackTrie prefix sharing, collapsed output and node cap, and that SamplingProfiler pinpoints a busy-loop method when filtering by thread name.
+ *
+ * 预期结果 / Expected Result:
+ * 中文：两条共享前缀的栈只新增叶节点；超过节点上限的样本记为截断；采样 1 秒后热点帧为 spinHot，且只采到被选中的线程；后台模式运行中可取快照，停止后样本数只增不减。
+ * English: Two stacks sharing a prefix add only leaf nodes; samples beyond the node cap are truncated; after 1s of sampling the hot frame is spinHot and only the selected thread is sampled; the background mode can be snapshotted while running and its final sample count is not lower.
+ *
+ * 执行方式 / How to Execute:
+ * 中文：运行 main 方法观察日志。
+ * English: Run main method and observe logs.
+ */
+@Slf4j
+public class SamplingProfilerTest {
+
+    private static volatile long sink;
+
+    public void testTrieCollapsed() {
+        StackTrie trie = new StackTrie(100, 100);
+        int run = trie.intern("Thread.run");
+        int work = trie.intern("Worker.work");
+        int a = trie.intern("Worker.a");
+        int b = trie.intern("Worker.b");
+        trie.add(new int[]{run, work, a}, 3);
+        trie.add(new int[]{run, work, a}, 3);
+        trie.add(new int[]{run, work, b}, 3);
+        String collapsed = trie.toCollapsed();
+        String expected = "Thread.run;Worker.work;Worker.a 2\nThread.run;Worker.work;Worker.b 1\n";
+        if (expected.equals(collapsed) && trie.getNodeCount() == 5) {
+            log.info("【成功】前缀共享且 collapsed 输出正确 / Success: prefixes shared, collapsed output correct");
+        } else {
+            log.error("collapsed 输出不符 / Failure: nodes={} output={}", trie.getNodeCount(), collapsed);
+        }
+    }
+
+    public void testTrieCaps() {
+        StackTrie trie = new StackTrie(3, 3);
+        int x = trie.intern("X.x");
+        int y = trie.intern("Y.y");
+        int z = trie.intern("Z.z");
+        boolean complete = trie.add(new int[]{x, y, z}, 3);
+        // 中文：第三个帧超出帧上限被归入 [other]；节点用尽后样本计入最深的已有前缀 Y.y
+        // English: The third frame exceeds the frame cap and becomes [other]; with nodes exhausted the sample is charged to the deepest prefix Y.y
+        if (!complete && trie.getTruncatedSamples() == 1 && trie.getNodeCount() == 3
+                && z == trie.intern(StackTrie.OTHER_FRAME) && trie.topSelfFrames(1).containsKey("Y.y")) {
+            log.info("【成功】节点与帧上限生效 / Success: node and frame caps enforced");
+        } else {
+            log.error("上限未生效 / Failure: complete={} nodes={} top={}", complete, trie.getNodeCount(), trie.topSelfFrames(3));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testFindsHotMethod() throws InterruptedException {
+        Thread spinner = new Thread(SamplingProfilerTest::spinHot, "hot-spinner");
+        spinner.setDaemon(true);
+        spinner.start();
+        try {
+            Map<String, Object> profile = new SamplingProfiler().profile(1, 10, "hot-spinner", 64, false, false);
+            Map<String, Long> top = (Map<String, Long>) profile.get("topSelfFrames");
+            String hottest = top.isEmpty() ? null : top.keySet().iterator().next();
+            if (hottest != null && hottest.endsWith("spinHot") && (int) profile.get("threadsSampled") == 1) {
+                log.info("【成功】定位到热点方法 / Success: hot frame {} with {} samples, overhead {}%",
+                        hottest, profile.get("samples"), profile.get("overheadPercentOfOneCore"));
+            } else {
+                log.error("未定位到热点 / Failure: {}", profile);
+            }
+        } finally {
+            spinner.interrupt();
+            spinner.join(1_000);
+        }
+    }
+
+    public void testRejectsInvalidParams() {
+        int rejected = 0;
+        SamplingProfiler profiler = new SamplingProfiler();
+        try {
+            profiler.profile(1, 1, null, 64, false, false);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            profiler.profile(1, 20, "[", 64, false, false);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        try {
+            profiler.profile(SamplingProfiler.MAX_DURATION_SEC + 1, 20, null, 64, false, false);
+        } catch (IllegalArgumentException e) {
+            rejected++;
+        }
+        if (rejected == 3) {
+            log.info("【成功】过高采样率、非法正则与超长同步分析被拒绝 / Success: too-fast interval, invalid regex and over-long synchronous profile rejected");
+        } else {
+            log.error("参数校验失败 / Failure: {} of 3 rejected", rejected);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testBackgroundStartSnapshotStop() throws InterruptedException {
+        Thread spinner = new Thread(SamplingProfilerTest::spinHot, "hot-spinner");
+        spinner.setDaemon(true);
+        spinner.start();
+        SamplingProfiler profiler = new SamplingProfiler();
+        try {
+            profiler.start(0, 10, "hot-spinner", 64, false, false);
+            boolean exclusive = false;
+            try {
+                profiler.profile(1, 10, null, 64, false, false);
+            } catch (IllegalStateException e) {
+                exclusive = true;
+            }
+            Thread.sleep(500);
+            Map<String, Object> snapshot = profiler.snapshot();
+            Thread.sleep(300);
+            Map<String, Object> result = profiler.stop();
+            Map<String, Long> top = (Map<String, Long>) result.get("topSelfFrames");
+            String hottest = top.isEmpty() ? null : top.keySet().iterator().next();
+            if (exclusive && Boolean.TRUE.equals(snapshot.get("running")) && Boolean.FALSE.equals(result.get("running"))
+                    && (long) result.get("samples") > (long) snapshot.get("samples")
+                    && hottest != null && hottest.endsWith("spinHot")) {
+                log.info("【成功】后台模式可快照并停止 / Success: snapshot {} samples, final {} samples, hot frame {}",
+                        snapshot.get("samples"), result.get("samples"), hottest);
+            } else {
+                log.error("后台模式结果不符 / Failure: exclusive={} snapshot={} result={}", exclusive, snapshot, result);
+            }
+        } finally {
+            profiler.shutdown();
+            spinner.interrupt();
+            spinner.join(1_000);
+        }
+    }
+
+    private static void spinHot() {
+        long acc = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            for (int i = 0; i < 1_000_000; i++) {
+                acc += i * 31L ^ acc;
+            }
+            sink = acc;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SamplingProfilerTest test = new SamplingProfilerTest();
+        test.testTrieCollapsed();
+        test.testTrieCaps();
+        test.testRejectsInvalidParams();
+        test.testFindsHotMethod();
+        test.testBackgroundStartSnapshotStop();
+    }
+}